@@ -0,0 +1,367 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import components.map.Map;
+import components.simplewriter.SimpleWriter;
+
+/**
+ * Builds many glossaries in one JVM, from a manifest of jobs, so that each
+ * glossary costs only its own work rather than a JVM start and warmup. The
+ * jobs run on a shared pool of long-lived worker threads; the page templates,
+ * the separator table and the term order are built once and shared by every
+ * job, and each worker keeps its page and encoder buffers from one job to the
+ * next. A failed job is reported and does not stop the others.
+ *
+ * <p>
+ * A manifest is UTF-8 text with one job per line: the input file, a tab, and
+ * the output folder. Blank lines and lines starting with '#' are ignored.
+ *
+ * @author L. Oden
+ *
+ */
+public final class BatchBuilder implements AutoCloseable {
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /**
+     * The command line options, which select the build of every job.
+     */
+    private final Map<String, String> options;
+
+    /**
+     * The build settings shared by every job.
+     */
+    private final BuildConfig config;
+
+    /**
+     * The worker threads the jobs run on.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Constructor. The jobs run --jobs at a time (by default, the number of
+     * processors).
+     *
+     * @param options
+     *            the command line options, as returned by
+     *            {@link Glossary#parseOptions}
+     * @param config
+     *            the build settings shared by every job
+     */
+    public BatchBuilder(Map<String, String> options, BuildConfig config) {
+        this.options = options;
+        this.config = config;
+        int workers = Runtime.getRuntime().availableProcessors();
+        if (options.hasKey("jobs")) {
+            workers = Integer.parseInt(options.value("jobs"));
+        }
+        /*
+         * Platform threads rather than virtual ones, since the per-thread
+         * buffers are only reused by threads that outlive a job.
+         */
+        this.pool = Executors.newFixedThreadPool(workers);
+    }
+
+    /**
+     * Reads the jobs of {@code manifestFile}.
+     *
+     * @param manifestFile
+     *            the name of the manifest file
+     * @return the jobs, in order
+     * @throws IllegalArgumentException
+     *             if a line is not a job
+     */
+    public static List<Job> readManifest(String manifestFile) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(manifestFile),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (!line.isBlank() && !line.startsWith("#")) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0 || tab == line.length() - 1) {
+                    throw new IllegalArgumentException(manifestFile + " line "
+                            + (i + 1) + ": expected input TAB output");
+                }
+                jobs.add(new Job(line.substring(0, tab),
+                        line.substring(tab + 1)));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Builds every job, reporting on {@code log}, in order, a summary of each
+     * job, then a summary of all of them.
+     *
+     * @param jobs
+     *            the jobs
+     * @param log
+     *            where the summaries are reported
+     * @return the result of each job, in order
+     */
+    public List<Result> run(List<Job> jobs, SimpleWriter log) {
+        long started = System.nanoTime();
+        List<Future<Result>> pending = new ArrayList<>();
+        for (Job job : jobs) {
+            pending.add(this.pool.submit(() -> this.build(job)));
+        }
+        List<Result> results = new ArrayList<>();
+        int failed = 0;
+        long pages = 0;
+        long bytes = 0;
+        for (Future<Result> future : pending) {
+            Result result = await(future);
+            results.add(result);
+            log.println(result.toString());
+            if (result.failure() != null) {
+                failed++;
+            }
+            pages += result.pages();
+            bytes += result.bytesWritten();
+        }
+        log.println(jobs.size() + " jobs (" + failed + " failed): " + pages
+                + " pages, " + bytes + " bytes in "
+                + (System.nanoTime() - started) / NANOS_PER_MILLI + " ms");
+        return results;
+    }
+
+    /**
+     * Builds one job, with its own report.
+     *
+     * @param job
+     *            the job
+     * @return its result
+     */
+    private Result build(Job job) {
+        BuildConfig jobConfig = this.config.copy();
+        BuildReport report = BuildReport.start();
+        jobConfig.setReport(report);
+        long started = System.nanoTime();
+        try {
+            if (!Files.isReadable(Paths.get(job.inputFile()))) {
+                throw new IllegalArgumentException(
+                        "cannot read " + job.inputFile());
+            }
+            int pages = Glossary.buildWithOptions(this.options,
+                    job.inputFile(), job.outputFolder(), jobConfig);
+            report.finish();
+            return new Result(job, pages, report.bytesWritten(),
+                    System.nanoTime() - started, null);
+        } catch (RuntimeException e) {
+            return new Result(job, 0, 0, System.nanoTime() - started,
+                    e.toString());
+        }
+    }
+
+    /**
+     * Waits for {@code future}, rethrowing anything other than a job failure.
+     *
+     * @param future
+     *            the result of a job
+     * @return the result
+     */
+    private static Result await(Future<Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Stops the worker threads once the running jobs are done.
+     */
+    @Override
+    public void close() {
+        this.pool.shutdown();
+        try {
+            this.pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A glossary to build.
+     */
+    public static final class Job {
+
+        /**
+         * The name of the input file.
+         */
+        private final String inputFile;
+
+        /**
+         * The folder where all output files are stored.
+         */
+        private final String outputFolder;
+
+        /**
+         * Constructor.
+         *
+         * @param inputFile
+         *            the name of the input file
+         * @param outputFolder
+         *            the folder where all output files are stored
+         */
+        public Job(String inputFile, String outputFolder) {
+            this.inputFile = inputFile;
+            this.outputFolder = outputFolder;
+        }
+
+        /**
+         * Returns the name of the input file.
+         *
+         * @return the input file
+         */
+        public String inputFile() {
+            return this.inputFile;
+        }
+
+        /**
+         * Returns the folder where all output files are stored.
+         *
+         * @return the output folder
+         */
+        public String outputFolder() {
+            return this.outputFolder;
+        }
+    }
+
+    /**
+     * The outcome of a job.
+     */
+    public static final class Result {
+
+        /**
+         * The job.
+         */
+        private final Job job;
+
+        /**
+         * Number of term pages written.
+         */
+        private final int pages;
+
+        /**
+         * Bytes of output written.
+         */
+        private final long bytesWritten;
+
+        /**
+         * Wall time of the job.
+         */
+        private final long nanos;
+
+        /**
+         * Why the job failed, or null if it did not.
+         */
+        private final String failure;
+
+        /**
+         * Constructor.
+         *
+         * @param job
+         *            the job
+         * @param pages
+         *            number of term pages written
+         * @param bytesWritten
+         *            bytes of output written
+         * @param nanos
+         *            wall time of the job
+         * @param failure
+         *            why the job failed, or null if it did not
+         */
+        Result(Job job, int pages, long bytesWritten, long nanos,
+                String failure) {
+            this.job = job;
+            this.pages = pages;
+            this.bytesWritten = bytesWritten;
+            this.nanos = nanos;
+            this.failure = failure;
+        }
+
+        /**
+         * Returns the job.
+         *
+         * @return the job
+         */
+        public Job job() {
+            return this.job;
+        }
+
+        /**
+         * Returns the number of term pages written.
+         *
+         * @return the number of pages
+         */
+        public int pages() {
+            return this.pages;
+        }
+
+        /**
+         * Returns the bytes of output written.
+         *
+         * @return the number of bytes
+         */
+        public long bytesWritten() {
+            return this.bytesWritten;
+        }
+
+        /**
+         * Returns the wall time of the job.
+         *
+         * @return the nanoseconds
+         */
+        public long nanos() {
+            return this.nanos;
+        }
+
+        /**
+         * Returns why the job failed.
+         *
+         * @return the failure, or null if the job succeeded
+         */
+        public String failure() {
+            return this.failure;
+        }
+
+        @Override
+        public String toString() {
+            String summary = this.job.inputFile() + " -> "
+                    + this.job.outputFolder() + ": ";
+            if (this.failure != null) {
+                return summary + "failed: " + this.failure;
+            }
+            return summary + this.pages + " pages, " + this.bytesWritten
+                    + " bytes in " + this.nanos / NANOS_PER_MILLI + " ms";
+        }
+    }
+
+}
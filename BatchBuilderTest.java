@@ -0,0 +1,100 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * JUnit test cases for the BatchBuilder class. Author: Logan Oden
+ */
+public class BatchBuilderTest {
+
+    /**
+     * Routine test case for the readManifest method. Blank and comment lines
+     * are skipped, and paths may hold spaces.
+     *
+     * @throws IOException
+     *             if the manifest cannot be written
+     */
+    @Test
+    public void testReadManifest_Routine() throws IOException {
+        String manifest = "data/batch-manifest.txt";
+        TestFiles.write(manifest,
+                "# nightly\n\na.txt\tout/a\nmy terms.txt\tout/my terms\n");
+
+        List<BatchBuilder.Job> jobs = BatchBuilder.readManifest(manifest);
+
+        assertEquals(2, jobs.size());
+        assertEquals("a.txt", jobs.get(0).inputFile());
+        assertEquals("my terms.txt", jobs.get(1).inputFile());
+        assertEquals("out/my terms", jobs.get(1).outputFolder());
+    }
+
+    /**
+     * Challenging test case for the run method. Jobs running at once on a
+     * shared pool write the same pages as separate builds, and a job with a
+     * missing input fails alone.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testRun_Challenging() throws IOException {
+        String manifest = "data/batch-jobs.txt";
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            new SyntheticGlossary(100 + 50 * i, 10, 0.2, i).write(
+                    "data/batch" + i + ".txt");
+            lines.append("data/batch" + i + ".txt\tdata/batch" + i + "\n");
+        }
+        lines.append("data/batch-missing.txt\tdata/batch-missing\n");
+        TestFiles.write(manifest, lines.toString());
+        Map<String, String> options = new Map1L<>();
+        options.add("jobs", "2");
+        SimpleWriter log = new SimpleWriter1L("data/batch.log");
+
+        BatchBuilder batch = new BatchBuilder(options,
+                BuildConfig.defaults());
+        List<BatchBuilder.Result> results = batch
+                .run(BatchBuilder.readManifest(manifest), log);
+        batch.close();
+        log.close();
+
+        assertEquals(5, results.size());
+        for (int i = 0; i < 4; i++) {
+            assertNull(results.get(i).failure());
+            assertEquals(100 + 50 * i, results.get(i).pages());
+            Glossary.build("data/batch" + i + ".txt", "data/batch-single",
+                    BuildConfig.defaults());
+            assertEquals(TestFiles.read("data/batch-single", "index.html"),
+                    TestFiles.read("data/batch" + i, "index.html"));
+        }
+        assertTrue(results.get(4).failure().contains("batch-missing.txt"));
+        String summary = TestFiles.read("data", "batch.log");
+        assertTrue(summary.contains("5 jobs (1 failed): 700 pages"));
+    }
+
+    /**
+     * Edge test case for the readManifest method. A line without a tab is
+     * rejected.
+     *
+     * @throws IOException
+     *             if the manifest cannot be written
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadManifest_Edge() throws IOException {
+        String manifest = "data/batch-bad.txt";
+        TestFiles.write(manifest, "a.txt out/a\n");
+
+        BatchBuilder.readManifest(manifest);
+    }
+
+}
@@ -0,0 +1,672 @@
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Settings of a glossary build that are shared by all of its phases: which
+ * definition of a repeated term is kept, the order of the terms, how the
+ * index is split into pages, how the term pages are scheduled, which
+ * characters separate words, how terms are matched, and in which formats the
+ * output files are written. A configuration is filled in from the command
+ * line options by {@link #fromOptions}, or starts from {@link #defaults()},
+ * which reproduces the original single-threaded build.
+ *
+ * @author L. Oden
+ *
+ */
+public final class BuildConfig {
+
+    /**
+     * The name of the original output format.
+     */
+    public static final String HTML = "html";
+
+    /**
+     * Megabytes of rendered pages a page store keeps, unless --page-store-mb
+     * says otherwise.
+     */
+    public static final long DEFAULT_PAGE_STORE_MB = 256;
+
+    /**
+     * How the term pages are generated.
+     */
+    private PageGenerator generator = PageGenerator.sequential();
+
+    /**
+     * The characters that separate words in a definition.
+     */
+    private SeparatorTable separators = SeparatorTable.DEFAULT;
+
+    /**
+     * The order of the terms in the index.
+     */
+    private TermOrder order = TermOrder.RAW;
+
+    /**
+     * The layout of the index, as accepted by {@link IndexLayout#plan}.
+     */
+    private String index = "single";
+
+    /**
+     * Capacity of the write-behind queue, or 0 to write synchronously.
+     */
+    private int writeBehind = 0;
+
+    /**
+     * Whether the output folder is replaced atomically at the end of a build.
+     */
+    private boolean atomic = false;
+
+    /**
+     * The archive format ("zip" or "pack"), or null to write a folder.
+     */
+    private String archive = null;
+
+    /**
+     * Where the timings and counters of the build are recorded.
+     */
+    private BuildReport report = BuildReport.DISABLED;
+
+    /**
+     * Whether a {@link SearchIndex} is written with the pages.
+     */
+    private boolean search = false;
+
+    /**
+     * Whether each term page lists the pages that link to it.
+     */
+    private boolean backlinks = false;
+
+    /**
+     * Whether the inflected forms of the terms are linked too.
+     */
+    private boolean fuzzy = false;
+
+    /**
+     * The output formats, separated by commas.
+     */
+    private String formats = HTML;
+
+    /**
+     * The registries of the terms of other glossaries to link.
+     */
+    private List<TermRegistry> registries = List.of();
+
+    /**
+     * What is kept when a term is defined more than once.
+     */
+    private GlossaryMerger.Policy duplicates = GlossaryMerger.Policy.FIRST_WINS;
+
+    /**
+     * The store of rendered term pages, or null for none.
+     */
+    private PageStore pageStore = null;
+
+    /**
+     * No argument constructor--private to require the factory methods.
+     */
+    private BuildConfig() {
+    }
+
+    /**
+     * Returns the default configuration.
+     *
+     * @return a configuration with the default settings
+     */
+    public static BuildConfig defaults() {
+        return new BuildConfig();
+    }
+
+    /**
+     * Returns a new configuration with the same settings as this one. The
+     * generator, separators and order are immutable, so they are shared, and
+     * so is the page store.
+     *
+     * @return the copy
+     */
+    public BuildConfig copy() {
+        BuildConfig copy = new BuildConfig();
+        copy.generator = this.generator;
+        copy.separators = this.separators;
+        copy.order = this.order;
+        copy.index = this.index;
+        copy.writeBehind = this.writeBehind;
+        copy.atomic = this.atomic;
+        copy.archive = this.archive;
+        copy.report = this.report;
+        copy.search = this.search;
+        copy.backlinks = this.backlinks;
+        copy.fuzzy = this.fuzzy;
+        copy.formats = this.formats;
+        copy.registries = this.registries;
+        copy.duplicates = this.duplicates;
+        copy.pageStore = this.pageStore;
+        return copy;
+    }
+
+    /**
+     * Returns the configuration selected by {@code options}:
+     * <ul>
+     * <li>--mode is one of sequential (the default), fork-join or
+     * virtual-threads;</li>
+     * <li>--workers is the positive number of pages rendered at once (by
+     * default, the number of processors);</li>
+     * <li>--separators is "default", "unicode" (all white space and
+     * punctuation), or the separator characters themselves;</li>
+     * <li>--order is "raw" (the default) or a locale and collation strength,
+     * as described in {@link TermOrder#parse};</li>
+     * <li>--index is "single" (the default), "letter" or a number of terms
+     * per page, as described in {@link IndexLayout#plan};</li>
+     * <li>--write-behind is the number of rendered files that may wait for a
+     * background writer thread (by default 0, for no writer thread);</li>
+     * <li>--atomic writes the output to a staging folder that replaces the
+     * output folder only when the build is complete;</li>
+     * <li>--archive is zip or pack, to write the whole glossary into one file
+     * instead of a folder (see {@link #openOutput});</li>
+     * <li>--report or --jfr records the timings and counters of the build in
+     * a {@link BuildReport};</li>
+     * <li>--search writes a {@link SearchIndex} of the pages with them;</li>
+     * <li>--backlinks lists on each term page the pages that link to it, and
+     * writes a report of the {@link LinkGraph};</li>
+     * <li>--fuzzy links the inflected forms of the terms too, as found by
+     * {@link TermVariants};</li>
+     * <li>--format is a comma-separated list of the output formats, as
+     * accepted by {@link Renderer#forFormat} (by default html);</li>
+     * <li>--registries is a comma-separated list of the
+     * {@link TermRegistry}s of other glossaries whose terms are linked, each
+     * as accepted by {@link TermRegistry#parse};</li>
+     * <li>--on-duplicate is first-wins (the default), last-wins, merge or
+     * fail, as described in {@link GlossaryMerger.Policy};</li>
+     * <li>--page-store is a folder where rendered term pages are kept for
+     * later builds, of this glossary or any other, as a {@link PageStore} of
+     * at most --page-store-mb megabytes (by default
+     * {@value #DEFAULT_PAGE_STORE_MB}).</li>
+     * </ul>
+     *
+     * @param options
+     *            the command line options, as returned by
+     *            {@link Glossary#parseOptions}
+     * @return the configuration
+     */
+    public static BuildConfig fromOptions(Map<String, String> options) {
+        BuildConfig config = new BuildConfig();
+        PageGenerator.Mode mode = PageGenerator.Mode.SEQUENTIAL;
+        if (options.hasKey("mode")) {
+            mode = PageGenerator.Mode.parse(options.value("mode"));
+        }
+        int workers = Runtime.getRuntime().availableProcessors();
+        if (options.hasKey("workers")) {
+            workers = Integer.parseInt(options.value("workers"));
+        }
+        config.generator = new PageGenerator(mode, workers);
+        if (options.hasKey("separators")) {
+            config.separators = SeparatorTable
+                    .parse(options.value("separators"));
+        }
+        if (options.hasKey("order")) {
+            config.order = TermOrder.parse(options.value("order"));
+        }
+        if (options.hasKey("index")) {
+            config.index = options.value("index");
+            // Rejects an unknown layout before any output is written
+            IndexLayout.plan(config.index, new Queue1L<>());
+        }
+        if (options.hasKey("write-behind")) {
+            config.writeBehind = Integer
+                    .parseInt(options.value("write-behind"));
+        }
+        config.atomic = options.hasKey("atomic");
+        if (options.hasKey("archive")) {
+            config.setArchive(options.value("archive"));
+        }
+        if (options.hasKey("report") || options.hasKey("jfr")) {
+            config.report = BuildReport.start();
+        }
+        config.search = options.hasKey("search");
+        config.backlinks = options.hasKey("backlinks");
+        config.fuzzy = options.hasKey("fuzzy");
+        if (options.hasKey("format")) {
+            config.formats = options.value("format");
+            // Rejects an unknown format before any output is written
+            config.renderers(new Queue1L<>());
+        }
+        if (options.hasKey("registries")) {
+            List<TermRegistry> registries = new ArrayList<>();
+            for (String spec : options.value("registries").split(",")) {
+                registries.add(TermRegistry.parse(spec.trim()));
+            }
+            config.registries = List.copyOf(registries);
+        }
+        if (options.hasKey("on-duplicate")) {
+            config.duplicates = GlossaryMerger.Policy
+                    .parse(options.value("on-duplicate"));
+        }
+        if (options.hasKey("page-store")) {
+            long megabytes = DEFAULT_PAGE_STORE_MB;
+            if (options.hasKey("page-store-mb")) {
+                megabytes = Long.parseLong(options.value("page-store-mb"));
+            }
+            config.pageStore = PageStore.open(
+                    Paths.get(options.value("page-store")),
+                    megabytes * 1024 * 1024);
+        }
+        return config;
+    }
+
+    /**
+     * Returns the page generator.
+     *
+     * @return how the term pages are generated
+     */
+    public PageGenerator generator() {
+        return this.generator;
+    }
+
+    /**
+     * Sets the page generator.
+     *
+     * @param generator
+     *            how the term pages are generated
+     */
+    public void setGenerator(PageGenerator generator) {
+        assert generator != null : "Violation of: generator is not null";
+
+        this.generator = generator;
+    }
+
+    /**
+     * Returns the separator table.
+     *
+     * @return the characters that separate words in a definition
+     */
+    public SeparatorTable separators() {
+        return this.separators;
+    }
+
+    /**
+     * Sets the separator table.
+     *
+     * @param separators
+     *            the characters that separate words in a definition
+     */
+    public void setSeparators(SeparatorTable separators) {
+        assert separators != null : "Violation of: separators is not null";
+
+        this.separators = separators;
+    }
+
+    /**
+     * Returns the term order.
+     *
+     * @return the order of the terms in the index
+     */
+    public TermOrder order() {
+        return this.order;
+    }
+
+    /**
+     * Sets the term order.
+     *
+     * @param order
+     *            the order of the terms in the index
+     */
+    public void setOrder(TermOrder order) {
+        assert order != null : "Violation of: order is not null";
+
+        this.order = order;
+    }
+
+    /**
+     * Returns the index layout.
+     *
+     * @return "single", "letter" or the number of terms per index page
+     */
+    public String index() {
+        return this.index;
+    }
+
+    /**
+     * Sets the index layout.
+     *
+     * @param index
+     *            "single", "letter" or the number of terms per index page
+     */
+    public void setIndex(String index) {
+        assert index != null : "Violation of: index is not null";
+
+        this.index = index;
+    }
+
+    /**
+     * Returns the layout of the index of {@code sortedKeys}.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @return the layout
+     * @throws IllegalArgumentException
+     *             if the index layout is not one accepted by
+     *             {@link IndexLayout#plan}
+     */
+    public IndexLayout indexLayout(Queue<String> sortedKeys) {
+        return IndexLayout.plan(this.index, sortedKeys);
+    }
+
+    /**
+     * Returns the capacity of the write-behind queue.
+     *
+     * @return the number of files that may wait to be written, or 0 if files
+     *         are written synchronously
+     */
+    public int writeBehind() {
+        return this.writeBehind;
+    }
+
+    /**
+     * Sets the capacity of the write-behind queue.
+     *
+     * @param writeBehind
+     *            the number of files that may wait to be written, or 0 to
+     *            write files synchronously
+     * @requires writeBehind >= 0
+     */
+    public void setWriteBehind(int writeBehind) {
+        assert writeBehind >= 0 : "Violation of: writeBehind >= 0";
+
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * Returns whether the output folder is replaced atomically.
+     *
+     * @return true iff the output is published when the build is complete
+     */
+    public boolean atomic() {
+        return this.atomic;
+    }
+
+    /**
+     * Sets whether the output folder is replaced atomically.
+     *
+     * @param atomic
+     *            whether the output is published when the build is complete
+     */
+    public void setAtomic(boolean atomic) {
+        this.atomic = atomic;
+    }
+
+    /**
+     * Returns the archive format.
+     *
+     * @return "zip" or "pack", or null if the output is a folder
+     */
+    public String archive() {
+        return this.archive;
+    }
+
+    /**
+     * Sets the archive format.
+     *
+     * @param archive
+     *            "zip" or "pack", or null to write a folder
+     * @throws IllegalArgumentException
+     *             if archive is not null, "zip" or "pack"
+     */
+    public void setArchive(String archive) {
+        if (archive != null && !archive.equals("zip")
+                && !archive.equals("pack")) {
+            throw new IllegalArgumentException(
+                    "Unknown archive format: " + archive);
+        }
+
+        this.archive = archive;
+    }
+
+    /**
+     * Returns the report of the build.
+     *
+     * @return where the timings and counters of the build are recorded,
+     *         {@link BuildReport#DISABLED} if nowhere
+     */
+    public BuildReport report() {
+        return this.report;
+    }
+
+    /**
+     * Sets the report of the build.
+     *
+     * @param report
+     *            where the timings and counters of the build are recorded
+     */
+    public void setReport(BuildReport report) {
+        assert report != null : "Violation of: report is not null";
+
+        this.report = report;
+    }
+
+    /**
+     * Returns whether a search index is written with the pages.
+     *
+     * @return true iff the build writes a {@link SearchIndex}
+     */
+    public boolean search() {
+        return this.search;
+    }
+
+    /**
+     * Sets whether a search index is written with the pages.
+     *
+     * @param search
+     *            whether the build writes a {@link SearchIndex}
+     */
+    public void setSearch(boolean search) {
+        this.search = search;
+    }
+
+    /**
+     * Returns whether each term page lists the pages that link to it.
+     *
+     * @return true iff the build lists backlinks and writes a link report
+     */
+    public boolean backlinks() {
+        return this.backlinks;
+    }
+
+    /**
+     * Sets whether each term page lists the pages that link to it.
+     *
+     * @param backlinks
+     *            whether the build lists backlinks and writes a link report
+     */
+    public void setBacklinks(boolean backlinks) {
+        this.backlinks = backlinks;
+    }
+
+    /**
+     * Returns whether the inflected forms of the terms are linked too.
+     *
+     * @return true iff the build matches terms with {@link TermVariants}
+     */
+    public boolean fuzzy() {
+        return this.fuzzy;
+    }
+
+    /**
+     * Sets whether the inflected forms of the terms are linked too.
+     *
+     * @param fuzzy
+     *            whether the build matches terms with {@link TermVariants}
+     */
+    public void setFuzzy(boolean fuzzy) {
+        this.fuzzy = fuzzy;
+    }
+
+    /**
+     * Returns the output formats.
+     *
+     * @return the names of the formats, separated by commas
+     */
+    public String formats() {
+        return this.formats;
+    }
+
+    /**
+     * Sets the output formats.
+     *
+     * @param formats
+     *            the names of the formats, as accepted by
+     *            {@link Renderer#forFormat}, separated by commas
+     */
+    public void setFormats(String formats) {
+        assert formats != null : "Violation of: formats is not null";
+
+        this.formats = formats;
+    }
+
+    /**
+     * Returns new renderers of the output formats, for a glossary of
+     * {@code sortedKeys}.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @return a renderer of each format, in order
+     * @throws IllegalArgumentException
+     *             if a format is not one accepted by
+     *             {@link Renderer#forFormat}
+     */
+    public List<Renderer> renderers(Queue<String> sortedKeys) {
+        List<Renderer> renderers = new ArrayList<>();
+        for (String format : this.formats.split(",")) {
+            renderers.add(Renderer.forFormat(format.trim(), sortedKeys));
+        }
+        return renderers;
+    }
+
+    /**
+     * Returns the registries of the terms of other glossaries to link.
+     *
+     * @return the registries, in order of precedence
+     */
+    public List<TermRegistry> registries() {
+        return this.registries;
+    }
+
+    /**
+     * Sets the registries of the terms of other glossaries to link.
+     *
+     * @param registries
+     *            the registries, in order of precedence
+     */
+    public void setRegistries(List<TermRegistry> registries) {
+        assert registries != null : "Violation of: registries is not null";
+
+        this.registries = List.copyOf(registries);
+    }
+
+    /**
+     * Returns what is kept when a term is defined more than once.
+     *
+     * @return the duplicate policy
+     */
+    public GlossaryMerger.Policy duplicates() {
+        return this.duplicates;
+    }
+
+    /**
+     * Sets what is kept when a term is defined more than once.
+     *
+     * @param duplicates
+     *            the duplicate policy
+     */
+    public void setDuplicates(GlossaryMerger.Policy duplicates) {
+        assert duplicates != null : "Violation of: duplicates is not null";
+
+        this.duplicates = duplicates;
+    }
+
+    /**
+     * Returns a new merger of the definitions of repeated terms, with the
+     * duplicate policy of these settings.
+     *
+     * @return the merger, with no conflicts yet
+     */
+    public GlossaryMerger merger() {
+        return new GlossaryMerger(this.duplicates);
+    }
+
+    /**
+     * Returns the store of rendered term pages.
+     *
+     * @return the page store, or null if the build renders every page
+     */
+    public PageStore pageStore() {
+        return this.pageStore;
+    }
+
+    /**
+     * Sets the store of rendered term pages. It is only used by builds whose
+     * only output is the HTML pages, with no search index or backlinks.
+     *
+     * @param pageStore
+     *            the page store, or null for none
+     */
+    public void setPageStore(PageStore pageStore) {
+        this.pageStore = pageStore;
+    }
+
+    /**
+     * Returns a new term matcher of {@code keys}, with the separators, the
+     * matching and the registries of these settings.
+     *
+     * @param keys
+     *            the terms to match
+     * @return the matcher
+     */
+    public TermMatcher termMatcher(Queue<String> keys) {
+        return new TermMatcher(keys, this.separators, this.fuzzy,
+                this.registries);
+    }
+
+    /**
+     * Returns a new search index of {@code sortedKeys}, if the build writes
+     * one.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @return the search index, or null if the build does not write one
+     */
+    public SearchIndex searchIndex(Queue<String> sortedKeys) {
+        SearchIndex searchIndex = null;
+        if (this.search) {
+            searchIndex = new SearchIndex(sortedKeys, this.separators);
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Opens {@code outputFolder} for writing with these settings. With an
+     * archive format, the output is instead the single file named after the
+     * folder with the format as extension, e.g. "out.zip".
+     *
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @return the writer of the output files
+     */
+    public SiteWriter openOutput(String outputFolder) {
+        SiteWriter out;
+        if (this.archive != null) {
+            out = SiteWriter.archive(
+                    Paths.get(outputFolder + "." + this.archive),
+                    this.writeBehind);
+        } else {
+            out = new SiteWriter(Paths.get(outputFolder), this.writeBehind,
+                    this.atomic);
+        }
+        out.setReport(this.report);
+        return out;
+    }
+
+}
@@ -0,0 +1,349 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Record of a finished glossary build, saved in the output folder so that the
+ * next build can rewrite only the pages that changed. For every term, in
+ * index order, the manifest holds a hash of its definition and the
+ * terms its page links to; inverting the links gives, for every term, the
+ * pages that link to it.
+ *
+ * <p>
+ * The file is UTF-8 text: a header line naming the page format and the index
+ * layout, then one line per term of the form
+ * {@code hash TAB link,link,... TAB term}, where each link is the line number
+ * (counting from 0) of the linked term.
+ *
+ * @author L. Oden
+ *
+ */
+public final class BuildManifest {
+
+    /**
+     * Name of the manifest file in the output folder.
+     */
+    public static final String FILE_NAME = "glossary.manifest";
+
+    /**
+     * Version of the page layout. A manifest written for a different layout
+     * is ignored, so that every page is rewritten, and the pages of a
+     * {@link PageStore} rendered for it are not used; change this whenever
+     * the HTML written for a page changes.
+     */
+    public static final int PAGE_FORMAT = 3;
+
+    /**
+     * Start of the first line of a manifest file, which ends with the index
+     * layout.
+     */
+    private static final String HEADER = "glossary-manifest " + PAGE_FORMAT
+            + " ";
+
+    /**
+     * Initial capacity of the entry arrays.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * FNV-1a 64-bit offset basis.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /**
+     * FNV-1a 64-bit prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * The term of each entry.
+     */
+    private String[] terms = new String[INITIAL_CAPACITY];
+
+    /**
+     * The definition hash of each entry.
+     */
+    private long[] hashes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The entries each entry's page links to, in increasing order.
+     */
+    private int[][] links = new int[INITIAL_CAPACITY][];
+
+    /**
+     * Number of entries.
+     */
+    private int size;
+
+    /**
+     * The index layout the pages were written for.
+     */
+    private String layout = "single";
+
+    /**
+     * Returns the hash recorded for {@code definition}.
+     *
+     * @param definition
+     *            the definition
+     * @return the 64-bit FNV-1a hash of its characters
+     */
+    public static long hash(CharSequence definition) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < definition.length(); i++) {
+            char c = definition.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the hash recorded for a page with {@code definition} that links
+     * back to {@code indexPage}.
+     *
+     * @param definition
+     *            the definition
+     * @param indexPage
+     *            the index page the page links back to
+     * @return the 64-bit FNV-1a hash of the characters of both
+     */
+    public static long hash(CharSequence definition, String indexPage) {
+        long hash = hash(definition);
+        for (int i = 0; i < indexPage.length(); i++) {
+            char c = indexPage.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the path of the manifest file in {@code outputFolder}.
+     *
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @return the path of the manifest
+     */
+    private static Path path(String outputFolder) {
+        return Paths.get(outputFolder, FILE_NAME);
+    }
+
+    /**
+     * Reads the manifest saved in {@code outputFolder}.
+     *
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @return the manifest, or null if there is none or it was written for a
+     *         different page layout
+     */
+    public static BuildManifest read(String outputFolder) {
+        BuildManifest manifest = new BuildManifest();
+        try (BufferedReader in = Files.newBufferedReader(path(outputFolder),
+                StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            if (header == null || !header.startsWith(HEADER)) {
+                return null;
+            }
+            manifest.layout = header.substring(HEADER.length());
+            String line = in.readLine();
+            while (line != null) {
+                int first = line.indexOf('\t');
+                int second = line.indexOf('\t', first + 1);
+                long hash = Long.parseUnsignedLong(line.substring(0, first),
+                        16);
+                int[] linked = new int[0];
+                if (second > first + 1) {
+                    String[] parts = line.substring(first + 1, second)
+                            .split(",");
+                    linked = new int[parts.length];
+                    for (int i = 0; i < parts.length; i++) {
+                        linked[i] = Integer.parseInt(parts[i]);
+                    }
+                }
+                manifest.add(line.substring(second + 1), hash, linked);
+                line = in.readLine();
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return manifest;
+    }
+
+    /**
+     * Saves this manifest in {@code outputFolder}, replacing any earlier one.
+     * The manifest is written to a temporary file first, so an interrupted
+     * build never leaves a partial manifest behind.
+     *
+     * @param outputFolder
+     *            the folder where all output files are stored
+     */
+    public void write(String outputFolder) {
+        Path target = path(outputFolder);
+        Path temp = Paths.get(target.toString() + ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp,
+                    StandardCharsets.UTF_8)) {
+                out.write(HEADER);
+                out.write(this.layout);
+                out.write('\n');
+                for (int i = 0; i < this.size; i++) {
+                    out.write(Long.toHexString(this.hashes[i]));
+                    out.write('\t');
+                    for (int j = 0; j < this.links[i].length; j++) {
+                        if (j > 0) {
+                            out.write(',');
+                        }
+                        out.write(Integer.toString(this.links[i][j]));
+                    }
+                    out.write('\t');
+                    out.write(this.terms[i]);
+                    out.write('\n');
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends an entry.
+     *
+     * @param term
+     *            the term
+     * @param hash
+     *            the hash of its definition
+     * @param linked
+     *            the entries its page links to, in increasing order
+     */
+    public void add(String term, long hash, int[] linked) {
+        if (this.size == this.terms.length) {
+            int capacity = 2 * this.size;
+            this.terms = Arrays.copyOf(this.terms, capacity);
+            this.hashes = Arrays.copyOf(this.hashes, capacity);
+            this.links = Arrays.copyOf(this.links, capacity);
+        }
+        this.terms[this.size] = term;
+        this.hashes[this.size] = hash;
+        this.links[this.size] = linked;
+        this.size++;
+    }
+
+    /**
+     * Returns the index layout the pages were written for.
+     *
+     * @return the layout, as accepted by {@link IndexLayout#plan}
+     */
+    public String layout() {
+        return this.layout;
+    }
+
+    /**
+     * Sets the index layout the pages were written for.
+     *
+     * @param layout
+     *            the layout, as accepted by {@link IndexLayout#plan}
+     */
+    public void setLayout(String layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the term of an entry.
+     *
+     * @param entry
+     *            the entry
+     * @return the term
+     * @requires 0 <= entry < size()
+     */
+    public String term(int entry) {
+        return this.terms[entry];
+    }
+
+    /**
+     * Returns the definition hash of an entry.
+     *
+     * @param entry
+     *            the entry
+     * @return the hash
+     * @requires 0 <= entry < size()
+     */
+    public long hash(int entry) {
+        return this.hashes[entry];
+    }
+
+    /**
+     * Returns the entries an entry's page links to.
+     *
+     * @param entry
+     *            the entry
+     * @return the linked entries, in increasing order
+     * @requires 0 <= entry < size()
+     */
+    public int[] links(int entry) {
+        return this.links[entry];
+    }
+
+    /**
+     * Returns a Map from each term to its entry.
+     *
+     * @return Map from term to entry
+     */
+    public Map<String, Integer> entries() {
+        Map<String, Integer> entries = new Map1L<>();
+        for (int i = 0; i < this.size; i++) {
+            entries.add(this.terms[i], i);
+        }
+        return entries;
+    }
+
+    /**
+     * Returns, for each entry, the entries whose pages link to it.
+     *
+     * @return the reverse link graph, each list in increasing order
+     */
+    public int[][] reverseLinks() {
+        int[] counts = new int[this.size];
+        for (int i = 0; i < this.size; i++) {
+            for (int target : this.links[i]) {
+                counts[target]++;
+            }
+        }
+        int[][] reverse = new int[this.size][];
+        for (int i = 0; i < this.size; i++) {
+            reverse[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < this.size; i++) {
+            for (int target : this.links[i]) {
+                reverse[target][counts[target]] = i;
+                counts[target]++;
+            }
+        }
+        return reverse;
+    }
+
+}
@@ -0,0 +1,74 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the BuildManifest class. Author: Logan Oden
+ */
+public class BuildManifestTest {
+
+    /**
+     * Routine test case for the write and read methods. A manifest is read
+     * back as written.
+     *
+     * @throws IOException
+     *             if the output folder cannot be created
+     */
+    @Test
+    public void testWriteRead_Routine() throws IOException {
+        String outputFolder = "data/manifest";
+        Files.createDirectories(Paths.get(outputFolder));
+        BuildManifest manifest = new BuildManifest();
+        manifest.add("Java", BuildManifest.hash("A language."), new int[] {});
+        manifest.add("JUnit", BuildManifest.hash("Tests Java."),
+                new int[] { 0 });
+        manifest.add("tab\tterm", -1L, new int[] { 0, 1 });
+        manifest.write(outputFolder);
+
+        BuildManifest result = BuildManifest.read(outputFolder);
+
+        assertEquals(3, result.size());
+        assertEquals("JUnit", result.term(1));
+        assertEquals("tab\tterm", result.term(2));
+        assertEquals(BuildManifest.hash("Tests Java."), result.hash(1));
+        assertEquals(-1L, result.hash(2));
+        assertArrayEquals(new int[] {}, result.links(0));
+        assertArrayEquals(new int[] { 0, 1 }, result.links(2));
+    }
+
+    /**
+     * Challenging test case for the reverseLinks method.
+     */
+    @Test
+    public void testReverseLinks_Challenging() {
+        BuildManifest manifest = new BuildManifest();
+        manifest.add("A", 0, new int[] { 1, 2 });
+        manifest.add("B", 0, new int[] { 2 });
+        manifest.add("C", 0, new int[] { 0 });
+
+        int[][] reverse = manifest.reverseLinks();
+
+        assertArrayEquals(new int[] { 2 }, reverse[0]);
+        assertArrayEquals(new int[] { 0 }, reverse[1]);
+        assertArrayEquals(new int[] { 0, 1 }, reverse[2]);
+    }
+
+    /**
+     * Edge test case for the read and hash methods. A folder without a
+     * manifest, and definitions differing only in one character.
+     */
+    @Test
+    public void testRead_Edge() {
+        assertNull(BuildManifest.read("data/no-manifest-here"));
+        assertTrue(BuildManifest.hash("ab") != BuildManifest.hash("ba"));
+        assertTrue(BuildManifest.hash("") != BuildManifest.hash("\u0000"));
+    }
+
+}
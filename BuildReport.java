@@ -0,0 +1,580 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Timings and counters of a glossary build. Each thread taking part in the
+ * build is, at any moment, in one {@link Phase} or in none; a thread moves
+ * from phase to phase with {@link #enter}, and the time it spends and the
+ * bytes it allocates in each phase, as reported by the {@link ThreadMXBean},
+ * are added to that phase. Phase times are summed over threads, so with
+ * concurrent page generation they may add up to more than the wall time.
+ *
+ * <p>
+ * When the build is done, the report is written as JSON by {@link #toJson},
+ * and may be emitted as JFR events by {@link #emitEvents}, which a running
+ * flight recording picks up. The {@link #DISABLED} report ignores every call,
+ * so that uninstrumented builds pay for no clock or MXBean reads.
+ *
+ * <p>
+ * All methods may be called from several threads at once.
+ *
+ * @author L. Oden
+ *
+ */
+public final class BuildReport {
+
+    /**
+     * A phase of the build.
+     */
+    public enum Phase {
+        /**
+         * Reading and parsing the input.
+         */
+        PARSE("parse"),
+
+        /**
+         * Sorting the terms.
+         */
+        SORT("sort"),
+
+        /**
+         * Compiling the term matcher, and scanning the definitions for terms,
+         * which writes out each definition with its links.
+         */
+        LINK_MATCH("link-match"),
+
+        /**
+         * Rendering the index and the rest of each term page.
+         */
+        RENDER("render"),
+
+        /**
+         * Handing the pages to the output, and writing them.
+         */
+        WRITE("write");
+
+        /**
+         * The name of the phase in the report.
+         */
+        private final String label;
+
+        /**
+         * Constructor.
+         *
+         * @param label
+         *            the name of the phase in the report
+         */
+        Phase(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the name of the phase in the report.
+         *
+         * @return the name
+         */
+        public String label() {
+            return this.label;
+        }
+    }
+
+    /**
+     * The report that records nothing.
+     */
+    public static final BuildReport DISABLED = new BuildReport(false);
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The allocation counter, or null if the JVM has none.
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+            allocationCounter();
+
+    /**
+     * Whether this report records anything.
+     */
+    private final boolean enabled;
+
+    /**
+     * Nanoseconds spent in each phase, summed over threads.
+     */
+    private final LongAdder[] nanos = adders(Phase.values().length);
+
+    /**
+     * Bytes allocated in each phase, summed over threads.
+     */
+    private final LongAdder[] allocated = adders(Phase.values().length);
+
+    /**
+     * Bytes of input read.
+     */
+    private final LongAdder bytesRead = new LongAdder();
+
+    /**
+     * Bytes of output written.
+     */
+    private final LongAdder bytesWritten = new LongAdder();
+
+    /**
+     * Term pages written, whether rendered or copied from a
+     * {@link PageStore}.
+     */
+    private final LongAdder pages = new LongAdder();
+
+    /**
+     * Links from definitions to term pages, on the pages rendered.
+     */
+    private final LongAdder links = new LongAdder();
+
+    /**
+     * Term pages left as they were by an incremental build.
+     */
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * Term pages copied from a page store instead of being rendered.
+     */
+    private final LongAdder storeHits = new LongAdder();
+
+    /**
+     * The phase each thread is in.
+     */
+    private final ThreadLocal<Probe> probes = ThreadLocal
+            .withInitial(Probe::new);
+
+    /**
+     * System.nanoTime() when the report was created.
+     */
+    private final long started = System.nanoTime();
+
+    /**
+     * Nanoseconds from creation to {@link #finish}, or 0 until then.
+     */
+    private volatile long wallNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param enabled
+     *            whether the report records anything
+     */
+    private BuildReport(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns a new report, starting the wall clock.
+     *
+     * @return the report
+     */
+    public static BuildReport start() {
+        return new BuildReport(true);
+    }
+
+    /**
+     * Returns the allocation counter of the JVM, if it has one.
+     *
+     * @return the counter, or null
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter =
+                    (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported()
+                    && counter.isThreadAllocatedMemoryEnabled()) {
+                return counter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code n} new adders.
+     *
+     * @param n
+     *            the number of adders
+     * @return the adders
+     */
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the calling thread.
+     *
+     * @return the bytes, or 0 if the JVM does not count them
+     */
+    @SuppressWarnings("deprecation")
+    private static long allocatedByThisThread() {
+        if (ALLOCATIONS == null) {
+            return 0;
+        }
+        return ALLOCATIONS
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Moves the calling thread into {@code phase}, adding the time spent and
+     * bytes allocated since its last move to the phase it was in.
+     *
+     * @param phase
+     *            the phase to enter, or null to leave the build
+     * @return the phase the thread was in, or null if none, to enter again
+     *         when done
+     */
+    public Phase enter(Phase phase) {
+        if (!this.enabled) {
+            return null;
+        }
+        long now = System.nanoTime();
+        long allocatedNow = allocatedByThisThread();
+        Probe probe = this.probes.get();
+        Phase previous = probe.phase;
+        if (previous != null) {
+            this.nanos[previous.ordinal()].add(now - probe.since);
+            this.allocated[previous.ordinal()]
+                    .add(allocatedNow - probe.allocated);
+        }
+        probe.phase = phase;
+        probe.since = now;
+        probe.allocated = allocatedNow;
+        return previous;
+    }
+
+    /**
+     * Adds {@code bytes} to the bytes of input read.
+     *
+     * @param bytes
+     *            the number of bytes
+     */
+    public void addBytesRead(long bytes) {
+        if (this.enabled) {
+            this.bytesRead.add(bytes);
+        }
+    }
+
+    /**
+     * Adds {@code bytes} to the bytes of output written.
+     *
+     * @param bytes
+     *            the number of bytes
+     */
+    public void addBytesWritten(long bytes) {
+        if (this.enabled) {
+            this.bytesWritten.add(bytes);
+        }
+    }
+
+    /**
+     * Counts a rendered term page with {@code linkCount} links.
+     *
+     * @param linkCount
+     *            the number of links on the page
+     */
+    public void addPage(int linkCount) {
+        if (this.enabled) {
+            this.pages.increment();
+            this.links.add(linkCount);
+        }
+    }
+
+    /**
+     * Adds {@code count} to the term pages left as they were.
+     *
+     * @param count
+     *            the number of pages
+     */
+    public void addCacheHits(long count) {
+        if (this.enabled) {
+            this.cacheHits.add(count);
+        }
+    }
+
+    /**
+     * Counts a term page copied from a page store. Its links are not known,
+     * since its definition was not matched, so they are not counted.
+     */
+    public void addStoredPage() {
+        if (this.enabled) {
+            this.pages.increment();
+            this.storeHits.increment();
+        }
+    }
+
+    /**
+     * Stops the wall clock. Threads still in a phase should leave it first.
+     */
+    public void finish() {
+        if (!this.enabled) {
+            return;
+        }
+        this.enter(null);
+        this.wallNanos = System.nanoTime() - this.started;
+    }
+
+    /**
+     * Returns the nanoseconds spent in {@code phase}, summed over threads.
+     *
+     * @param phase
+     *            the phase
+     * @return the nanoseconds
+     */
+    public long nanos(Phase phase) {
+        return this.nanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * Returns the bytes allocated in {@code phase}, summed over threads.
+     *
+     * @param phase
+     *            the phase
+     * @return the bytes, or 0 if the JVM does not count them
+     */
+    public long allocatedBytes(Phase phase) {
+        return this.allocated[phase.ordinal()].sum();
+    }
+
+    /**
+     * Returns the number of term pages written, whether rendered or copied
+     * from a page store.
+     *
+     * @return the number of pages
+     */
+    public long pages() {
+        return this.pages.sum();
+    }
+
+    /**
+     * Returns the number of term pages copied from a page store.
+     *
+     * @return the number of pages
+     */
+    public long storeHits() {
+        return this.storeHits.sum();
+    }
+
+    /**
+     * Returns the number of links from definitions to term pages, on the
+     * pages rendered.
+     *
+     * @return the number of links
+     */
+    public long links() {
+        return this.links.sum();
+    }
+
+    /**
+     * Returns the bytes of output written.
+     *
+     * @return the number of bytes
+     */
+    public long bytesWritten() {
+        return this.bytesWritten.sum();
+    }
+
+    /**
+     * Returns the term pages written per second of wall time.
+     *
+     * @return the rate, or 0 before {@link #finish}
+     */
+    public double pagesPerSecond() {
+        if (this.wallNanos == 0) {
+            return 0;
+        }
+        return this.pages() * NANOS_PER_SECOND / this.wallNanos;
+    }
+
+    /**
+     * Returns the report as a JSON object.
+     *
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"wallNanos\": ").append(this.wallNanos);
+        json.append(",\n  \"bytesRead\": ").append(this.bytesRead.sum());
+        json.append(",\n  \"bytesWritten\": ").append(this.bytesWritten());
+        json.append(",\n  \"pages\": ").append(this.pages());
+        json.append(",\n  \"pagesPerSecond\": ")
+                .append(Math.round(this.pagesPerSecond()));
+        json.append(",\n  \"links\": ").append(this.links());
+        json.append(",\n  \"cacheHits\": ").append(this.cacheHits.sum());
+        json.append(",\n  \"storeHits\": ").append(this.storeHits.sum());
+        json.append(",\n  \"phases\": {");
+        for (Phase phase : Phase.values()) {
+            if (phase.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append("\n    \"").append(phase.label())
+                    .append("\": { \"nanos\": ").append(this.nanos(phase))
+                    .append(", \"allocatedBytes\": ")
+                    .append(this.allocatedBytes(phase)).append(" }");
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the report as JSON to {@code file}.
+     *
+     * @param file
+     *            the report file
+     */
+    public void write(Path file) {
+        try {
+            Files.write(file, this.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Commits a JFR event for each phase and one for the whole build. The
+     * events are dropped unless a flight recording is running.
+     */
+    public void emitEvents() {
+        for (Phase phase : Phase.values()) {
+            PhaseEvent event = new PhaseEvent();
+            event.phase = phase.label();
+            event.nanos = this.nanos(phase);
+            event.allocatedBytes = this.allocatedBytes(phase);
+            event.commit();
+        }
+        BuildEvent event = new BuildEvent();
+        event.wallNanos = this.wallNanos;
+        event.bytesRead = this.bytesRead.sum();
+        event.bytesWritten = this.bytesWritten();
+        event.pages = this.pages();
+        event.links = this.links();
+        event.cacheHits = this.cacheHits.sum();
+        event.storeHits = this.storeHits.sum();
+        event.commit();
+    }
+
+    /**
+     * The phase a thread is in, and since when.
+     */
+    private static final class Probe {
+
+        /**
+         * The phase, or null if none.
+         */
+        private Phase phase;
+
+        /**
+         * System.nanoTime() when the phase was entered.
+         */
+        private long since;
+
+        /**
+         * The bytes the thread had allocated when the phase was entered.
+         */
+        private long allocated;
+    }
+
+    /**
+     * JFR event with the totals of one phase of a build.
+     */
+    @Name("glossary.Phase")
+    @Label("Glossary Build Phase")
+    @Category("Glossary")
+    static final class PhaseEvent extends Event {
+
+        /**
+         * The name of the phase.
+         */
+        @Label("Phase")
+        String phase;
+
+        /**
+         * Time spent in the phase, summed over threads.
+         */
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+
+        /**
+         * Bytes allocated in the phase.
+         */
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+
+    /**
+     * JFR event with the totals of a build.
+     */
+    @Name("glossary.Build")
+    @Label("Glossary Build")
+    @Category("Glossary")
+    static final class BuildEvent extends Event {
+
+        /**
+         * Wall time of the build.
+         */
+        @Label("Wall Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long wallNanos;
+
+        /**
+         * Bytes of input read.
+         */
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+
+        /**
+         * Bytes of output written.
+         */
+        @Label("Bytes Written")
+        @DataAmount
+        long bytesWritten;
+
+        /**
+         * Term pages written.
+         */
+        @Label("Pages")
+        long pages;
+
+        /**
+         * Links from definitions to term pages.
+         */
+        @Label("Links")
+        long links;
+
+        /**
+         * Term pages left as they were.
+         */
+        @Label("Cache Hits")
+        long cacheHits;
+
+        /**
+         * Term pages copied from a page store.
+         */
+        @Label("Store Hits")
+        long storeHits;
+    }
+
+}
@@ -0,0 +1,125 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the BuildReport class. Author: Logan Oden
+ */
+public class BuildReportTest {
+
+    /**
+     * Returns the total size of the files in {@code folder}.
+     *
+     * @param folder
+     *            the folder
+     * @return the number of bytes
+     * @throws IOException
+     *             if the folder cannot be listed
+     */
+    private static long folderSize(String folder) throws IOException {
+        long size = 0;
+        try (Stream<Path> files = Files.list(Paths.get(folder))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                size += Files.size(file);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Routine test case for the report of a build. Every page, link and byte
+     * written is counted, and every phase appears in the JSON.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Routine() throws IOException {
+        SyntheticGlossary glossary = new SyntheticGlossary(200, 10, 0.3, 3);
+        String input = "data/report.txt";
+        glossary.write(input);
+        String outputFolder = "data/report";
+        TestFiles.clear(outputFolder);
+        BuildConfig config = BuildConfig.defaults();
+        BuildReport report = BuildReport.start();
+        config.setReport(report);
+
+        Glossary.build(input, outputFolder, config);
+        report.finish();
+
+        assertEquals(glossary.size(), report.pages());
+        assertTrue(report.links() > 0);
+        assertEquals(folderSize(outputFolder), report.bytesWritten());
+        assertTrue(report.nanos(BuildReport.Phase.PARSE) > 0);
+        assertTrue(report.nanos(BuildReport.Phase.RENDER) > 0);
+        assertTrue(report.pagesPerSecond() > 0);
+        String json = report.toJson();
+        for (BuildReport.Phase phase : BuildReport.Phase.values()) {
+            assertTrue(json.contains("\"" + phase.label() + "\": {"));
+        }
+        assertTrue(json.contains("\"pages\": " + glossary.size() + ","));
+    }
+
+    /**
+     * Challenging test case for the report of a build. Pages rendered on
+     * worker threads, and written by a write-behind thread, are all counted.
+     */
+    @Test
+    public void testBuild_Challenging() {
+        SyntheticGlossary glossary = new SyntheticGlossary(500, 10, 0.3, 4);
+        String input = "data/report2.txt";
+        glossary.write(input);
+        BuildConfig config = BuildConfig.defaults();
+        config.setGenerator(
+                new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4));
+        config.setWriteBehind(16);
+        config.setArchive("pack");
+        BuildReport report = BuildReport.start();
+        config.setReport(report);
+        BuildConfig plain = BuildConfig.defaults();
+        BuildReport expected = BuildReport.start();
+        plain.setReport(expected);
+
+        Glossary.build(input, "data/report2", config);
+        Glossary.build(input, "data/report2", plain);
+
+        assertEquals(glossary.size(), report.pages());
+        assertEquals(expected.links(), report.links());
+        assertTrue(report.nanos(BuildReport.Phase.WRITE) > 0);
+        assertTrue(report.nanos(BuildReport.Phase.LINK_MATCH) > 0);
+    }
+
+    /**
+     * Edge test case for the report of an incremental build. Unchanged pages
+     * count as cache hits, and the disabled report records nothing.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuildIncremental_Edge() throws IOException {
+        SyntheticGlossary glossary = new SyntheticGlossary(50, 5, 0.3, 5);
+        String input = "data/report3.txt";
+        glossary.write(input);
+        BuildConfig config = BuildConfig.defaults();
+        Glossary.buildIncremental(input, "data/report3", config);
+        BuildReport report = BuildReport.start();
+        config.setReport(report);
+
+        Glossary.buildIncremental(input, "data/report3", config);
+        report.finish();
+
+        assertEquals(0, report.pages());
+        assertTrue(report.toJson().contains("\"cacheHits\": 50,"));
+        BuildReport.DISABLED.addPage(1);
+        assertEquals(0, BuildReport.DISABLED.pages());
+    }
+
+}
@@ -1,4 +1,11 @@
-import java.util.Comparator;
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import components.map.Map;
 import components.map.Map1L;
@@ -20,6 +27,119 @@ import components.simplewriter.SimpleWriter1L;
  */
 public final class Glossary {
 
+    /**
+     * Maximum number of term pages held in memory at once by
+     * {@link #buildStreaming}.
+     */
+    private static final int STREAMING_BATCH = 1024;
+
+    /**
+     * Start of the part of the layout recorded in the manifest of an
+     * incremental build that records how the terms were matched.
+     */
+    private static final String MATCHING_LAYOUT = " matching ";
+
+    /**
+     * Megabytes of rendered pages cached when serving, unless --cache-mb says
+     * otherwise.
+     */
+    private static final long DEFAULT_CACHE_MB = 64;
+
+    /**
+     * Layout of a term page: the term as title and header, then the
+     * definition indented by twelve spaces, then the pages that link to the
+     * term, if listed, then a link back to the index page that lists the
+     * term.
+     */
+    private static final PageTemplate TERM_PAGE = PageTemplate.compile(
+            "<html>\n<head>\n<title>{{term}}</title>\n</head>\n<body>\n"
+                    + "<h1><em><b style='color:red;'>{{term}}</b></em></h1>\n"
+                    + "<p>\n&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;"
+                    + "&nbsp;&nbsp;&nbsp;&nbsp;{{definition}}</p>\n"
+                    + "{{backlinks}}<hr>\n"
+                    + "<p>Return to <a href = \"{{index}}\">index</a>.</p>\n"
+                    + "</body>\n</html>\n");
+
+    /**
+     * Slot of the term in {@code TERM_PAGE}.
+     */
+    private static final int TERM_PAGE_TERM = TERM_PAGE.slot("term");
+
+    /**
+     * Slot of the index page in {@code TERM_PAGE}.
+     */
+    private static final int TERM_PAGE_INDEX = TERM_PAGE.slot("index");
+
+    /**
+     * Slot of the pages linking to the term in {@code TERM_PAGE}.
+     */
+    private static final int TERM_PAGE_BACKLINKS = TERM_PAGE
+            .slot("backlinks");
+
+    /**
+     * Layout of the list of the pages linking to a term, each listed with
+     * {@code INDEX_ENTRY}.
+     */
+    private static final PageTemplate BACKLINKS = PageTemplate
+            .compile("<p>Referenced by:</p>\n<ul>\n{{entries}}</ul>\n");
+
+    /**
+     * Layout of a link from a definition to the page of a term: the page of
+     * the term, then the text matched, which differs from the term only with
+     * fuzzy matching. Terms of other glossaries are always linked with this
+     * layout, to the page of the term in that glossary.
+     */
+    private static final PageTemplate TERM_LINK = PageTemplate
+            .compile("<a href = \"{{page}}.html\">{{text}}</a>");
+
+    /**
+     * Slot of the page of the term in {@code TERM_LINK}.
+     */
+    private static final int TERM_LINK_PAGE = TERM_LINK.slot("page");
+
+    /**
+     * Layout of index.html: the title, then the list of terms, or of shards
+     * if the index is sharded.
+     */
+    private static final PageTemplate INDEX_PAGE = PageTemplate.compile(
+            "<html>\n<head>\n<title>Glossary</title>\n</head>\n<body>\n"
+                    + "<h1>Glossary</h1>\n<hr>\n<h2>Index</h2>\n<ul>\n"
+                    + "{{entries}}</ul>\n</body>\n</html>\n");
+
+    /**
+     * Layout of an entry of the list of terms in index.html.
+     */
+    private static final PageTemplate INDEX_ENTRY = PageTemplate
+            .compile("<li><a href = \"{{term}}.html\">{{term}}</a></li>\n");
+
+    /**
+     * Layout of a shard of a sharded index: its label, then its list of
+     * terms, then a link back to index.html.
+     */
+    private static final PageTemplate SHARD_PAGE = PageTemplate.compile(
+            "<html>\n<head>\n<title>Glossary: {{label}}</title>\n</head>\n"
+                    + "<body>\n<h1>Glossary</h1>\n<hr>\n<h2>{{label}}</h2>\n"
+                    + "<ul>\n{{entries}}</ul>\n<hr>\n"
+                    + "<p>Return to <a href = \"index.html\">contents</a>."
+                    + "</p>\n"
+                    + "</body>\n</html>\n");
+
+    /**
+     * Slot of the label in {@code SHARD_PAGE}.
+     */
+    private static final int SHARD_PAGE_LABEL = SHARD_PAGE.slot("label");
+
+    /**
+     * Layout of an entry of the list of shards in index.html.
+     */
+    private static final PageTemplate SHARD_ENTRY = PageTemplate
+            .compile("<li><a href = \"{{page}}\">{{label}}</a></li>\n");
+
+    /**
+     * Slot of the page in {@code SHARD_ENTRY}.
+     */
+    private static final int SHARD_ENTRY_PAGE = SHARD_ENTRY.slot("page");
+
     /**
      * No argument constructor--private to prevent instantiation.
      */
@@ -81,6 +201,28 @@ public final class Glossary {
         return text.substring(position, p);
     }
 
+    /**
+     * Returns the first "word" or "separator string" in the given {@code text}
+     * starting at the given {@code position}, like
+     * {@link #nextWordOrSeparator(String, int, Set)}, but testing characters
+     * against a precomputed {@code SeparatorTable} instead of a {@code Set}.
+     *
+     * @param text
+     *            the {@code String} from which to get the word or separator
+     *            string
+     * @param position
+     *            the starting index
+     * @param separators
+     *            the separator characters
+     * @return the first word or separator string found in {@code text} starting
+     *         at index {@code position}
+     * @requires 0 <= position < |text|
+     */
+    public static String nextWordOrSeparator(String text, int position,
+            SeparatorTable separators) {
+        return text.substring(position, separators.tokenEnd(text, position));
+    }
+
     /**
      * Returns a Map of the lines read from {@code input}, where the key (term)
      * is a 1-word, 1-line String, and the value (definition) is a several line,
@@ -92,6 +234,8 @@ public final class Glossary {
      * @return Map of several terms and definitions read from the lines of
      *         {@code input}, where each Map pair is separated by an empty line
      *         in the input file.
+     * @throws GlossaryFormatException
+     *             if the last definition is not followed by a blank line
      * @requires input.is_open
      * @ensures <pre>
      * input.is_open  and  input.content = <>  and
@@ -100,30 +244,91 @@ public final class Glossary {
      * </pre>
      */
     public static Map<String, String> mapFromInputLines(SimpleReader input) {
+        return mapFromInputLines(input, "input",
+                new GlossaryMerger(GlossaryMerger.Policy.FIRST_WINS));
+    }
+
+    /**
+     * Returns a Map of the records read from {@code input}, as
+     * {@link #mapFromInputLines(SimpleReader)} does, except that a term
+     * defined more than once is resolved by {@code merger}, which records
+     * each such conflict.
+     *
+     * @param input
+     *            source of strings, one per line for keys (terms), and one per
+     *            several lines for values (definitions).
+     * @param source
+     *            the name of the input, for the conflicts
+     * @param merger
+     *            resolves the definitions of repeated terms
+     * @return Map of the terms and their definitions, as resolved
+     * @throws GlossaryFormatException
+     *             if the input is malformed, or if merger fails on a repeated
+     *             term
+     * @requires input.is_open
+     * @ensures input.is_open and input.content = <>
+     */
+    public static Map<String, String> mapFromInputLines(SimpleReader input,
+            String source, GlossaryMerger merger) {
         assert input != null : "Violation of: input is not null";
         assert input.isOpen() : "Violation of: input.is_open";
 
+        return mapFromRecords(new GlossaryParser(input), source, merger);
+    }
+
+    /**
+     * Returns a Map of the records read from the UTF-8 file
+     * {@code inputFile}, as {@link #mapFromInputLines(SimpleReader)} does,
+     * except that a term defined more than once is resolved by
+     * {@code merger}, which records each such conflict.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param merger
+     *            resolves the definitions of repeated terms
+     * @return Map of the terms and their definitions, as resolved
+     * @throws GlossaryFormatException
+     *             if the input is malformed, or if merger fails on a repeated
+     *             term
+     */
+    public static Map<String, String> mapFromFile(String inputFile,
+            GlossaryMerger merger) {
+        GlossaryParser parser = GlossaryParser.open(inputFile);
+        try {
+            return mapFromRecords(parser, inputFile, merger);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Returns a Map of the records read by {@code parser}, resolving each
+     * term defined more than once with {@code merger}.
+     *
+     * @param parser
+     *            the parser of the input
+     * @param source
+     *            the name of the input, for the conflicts
+     * @param merger
+     *            resolves the definitions of repeated terms
+     * @return Map of the terms and their definitions, as resolved
+     * @throws GlossaryFormatException
+     *             if the input is malformed, or if merger fails on a repeated
+     *             term
+     */
+    private static Map<String, String> mapFromRecords(GlossaryParser parser,
+            String source, GlossaryMerger merger) {
         // Initialize new set to hold all input lines.
         Map<String, String> inputLinesMap = new Map1L<>();
 
         /*
-         * While we're not at the end of stream, initialize term to the initial
-         * line that SimpleReader input reads. Then, initialize definition by
-         * adding each line that is not Empty. Finally, if the key is not
-         * already in the Map, then add the Map pair of the term and definition
-         * to the Map.
-         */
-        while (!input.atEOS()) {
-            String term = input.nextLine();
-            String currentLine = input.nextLine();
-            String definition = "";
-            while (!currentLine.isEmpty()) {
-                definition += currentLine;
-                currentLine = input.nextLine();
-            }
-            if (!inputLinesMap.hasKey(term)) {
-                inputLinesMap.add(term, definition);
-            }
+         * Read one record (a term line, its definition lines and a blank line)
+         * at a time, and add it to the Map, resolving it with any earlier
+         * definition of the same term.
+         */
+        while (parser.next()) {
+            merger.add(inputLinesMap, source, parser.termLine(),
+                    parser.term(), parser.definition());
         }
         // Return the set inputLinesSet.
         return inputLinesMap;
@@ -133,10 +338,11 @@ public final class Glossary {
      *
      * Returns a sorted Queue, holding the values of the keys of mapToSort. This
      * is based on the alphabetical order of the keys in each Map.Pair of the
-     * input Map. This order is found by using a created String comparator. This
-     * can be used later to get each Map.Pair from the Map in alphabetical
-     * order.
+     * input Map, as given by {@link TermOrder#RAW}. This can be used later to
+     * get each Map.Pair from the Map in alphabetical order.
      *
+     * @param <V>
+     *            The type of the values (definitions) of mapToSort.
      * @param mapToSort
      *            The map of keys (terms) and values (definitions) that is used
      *            for sorting.
@@ -148,33 +354,45 @@ public final class Glossary {
      * @ensures Output Queue contains the keys from the input Map in
      *          alphabetical order.
      */
-    public static Queue<String> sortingKeys(Map<String, String> mapToSort) {
-        // Initialize String comparator using implementation in this java file.
-        Comparator<String> sort = new StringLT();
-        // Create temp Map variable as new instance, and transferFrom mapToSort
-        Map<String, String> temp = mapToSort.newInstance();
-        temp.transferFrom(mapToSort);
-        /*
-         * Initialize keys to be a new Queue which will hold the value of the
-         * keys of temp
-         */
-        Queue<String> keys = new Queue1L<>();
-        /*
-         * While temp still has elements, remove random Map.Pair from temp and
-         * initialize termPlusDef. Enqueue the key of termPlusDef to keys. Add
-         * these values back to mapToSort every time.
-         */
-        while (temp.size() > 0) {
-            Map.Pair<String, String> termPlusDef = temp.removeAny();
-            keys.enqueue(termPlusDef.key());
-            mapToSort.add(termPlusDef.key(), termPlusDef.value());
-        }
-        /*
-         * Sort the keys Queue using the String comparator initialized above.
-         */
-        keys.sort(sort);
-        // Return sorted Queue.
-        return keys;
+    public static <V> Queue<String> sortingKeys(Map<String, V> mapToSort) {
+        return sortingKeys(mapToSort, TermOrder.RAW);
+    }
+
+    /**
+     * Returns a sorted Queue, holding the values of the keys of mapToSort in
+     * {@code order}. The keys are collected by iterating over mapToSort, which
+     * is neither taken apart nor rebuilt.
+     *
+     * @param <V>
+     *            The type of the values (definitions) of mapToSort.
+     * @param mapToSort
+     *            The map of keys (terms) and values (definitions) that is used
+     *            for sorting.
+     * @param order
+     *            The order of the keys.
+     * @return The sorted Queue<String> of the mapToSort keys
+     * @ensures Output Queue contains the keys from the input Map in order.
+     */
+    public static <V> Queue<String> sortingKeys(Map<String, V> mapToSort,
+            TermOrder order) {
+        return order.sortedKeys(mapToSort);
+    }
+
+    /**
+     * Returns the {@code Set} of characters that separate words in a
+     * definition.
+     *
+     * @return the separator characters
+     */
+    public static Set<Character> termSeparators() {
+        // Initialize separators set. Add various different separators of words.
+        Set<Character> separators = new Set1L<>();
+        separators.add(' ');
+        separators.add('.');
+        separators.add(',');
+        separators.add(';');
+        separators.add(':');
+        return separators;
     }
 
     /**
@@ -194,211 +412,1254 @@ public final class Glossary {
      */
     public static void processTerm(Queue<String> keys,
             Map.Pair<String, String> singlePair, String outputFolder) {
-        /*
-         * Write code to new HTML page named based on key of the input
-         * singlePair
-         */
-        SimpleWriter termPageFileOut = new SimpleWriter1L(
-                outputFolder + "\\" + singlePair.key() + ".html");
-        // Output headers of term HTML file
-        /*
-         * Opening HTML and head tags
-         */
-        termPageFileOut.println("<html>");
-        termPageFileOut.println("<head>");
-        // Opening title tag with key of singlePair as title of this term.
-        termPageFileOut.println("<title>" + singlePair.key() + "</title>");
-        // Close head tag
-        termPageFileOut.println("</head>");
-        // Open body tag
-        termPageFileOut.println("<body>");
-        // Print header in format specified in project instructions.
-        termPageFileOut.println("<h1><em><b style='color:red;'>"
-                + singlePair.key() + "</b></em></h1>");
-        // Open paragraph tag
-        termPageFileOut.println("<p>");
-
-        // Initialize separators set. Add various different separators of words.
-        Set<Character> separators = new Set1L<>();
-        separators.add(' ');
-        separators.add('.');
-        separators.add(',');
-        separators.add(';');
-        separators.add(':');
+        SiteWriter out = new SiteWriter(Paths.get(outputFolder));
+        processTerm(new TermMatcher(keys, SeparatorTable.DEFAULT),
+                IndexLayout.single(keys.length()), singlePair, out);
+        out.close();
+    }
 
-        /*
-         * Starting at position 0, indexTerm has not been found yet, and
-         * wordOrSeparator is empty
-         */
-        int position = 0;
-        boolean indexTerm = false;
-        String wordOrSeparator = "";
-        /*
-         * Print &nbsp;, a single one representing a space in HTML, to match the
-         * specified format.
-         */
-        termPageFileOut.print(
-                "&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;"
-                        + "&nbsp;&nbsp;");
-        // While the position doesn't exceed length of description of a pair
-        while (position < singlePair.value().length()) {
-            indexTerm = false;
+    /**
+     * Processes a singlePair of term and definition from a Map, printing an
+     * appropriate term & definition page for input Map.Pair to an HTML file
+     * named after the Map.Pair, and to the file of every other format of
+     * {@code out}. Terms in the definition are found with the precompiled
+     * {@code matcher}, which is shared by all pages, once for all formats, or
+     * not at all if the link graph of {@code out} already holds them. The
+     * definition may be any {@code CharSequence}, such as a slice of a
+     * {@link MappedGlossary}. The HTML page is rendered from a precompiled
+     * layout, with the term and definition HTML-escaped, into the calling
+     * thread's reusable buffer, and handed to {@code out} as a whole. The page
+     * links back to the page of {@code index} that lists the term. If
+     * {@code out} has a {@link PageStore}, a page already stored is copied
+     * from it without matching or rendering anything, and a page rendered is
+     * stored.
+     *
+     * @param matcher
+     *            The term matcher built from all keys of a Map.
+     * @param index
+     *            The layout of the index built from the same keys.
+     * @param singlePair
+     *            A single Map.Pair object from a Map
+     * @param out
+     *            Where the output files are written.
+     * @ensures <pre>
+     * [Saves HTML document with page of a Map.Pair's term and definition]
+     * </pre>
+     */
+    public static void processTerm(TermMatcher matcher, IndexLayout index,
+            Map.Pair<String, ? extends CharSequence> singlePair,
+            SiteWriter out) {
+        BuildReport report = out.report();
+        BuildReport.Phase previous = report
+                .enter(BuildReport.Phase.LINK_MATCH);
+        int termIndex = matcher.termIndex(singlePair.key());
+        PageStore store = out.pageStore();
+        String key = null;
+        if (store != null) {
+            key = PageStore.key(out.pageFingerprint(), singlePair.key(),
+                    singlePair.value(), index.pageOf(termIndex));
+            byte[] stored = store.get(key);
+            if (stored != null) {
+                out.write(singlePair.key() + ".html", stored);
+                report.addStoredPage();
+                report.enter(previous);
+                return;
+            }
+        }
+        LinkGraph graph = out.linkGraph();
+        MatchedDefinition definition;
+        if (graph != null && graph.has(termIndex)) {
+            definition = graph.matched(termIndex, singlePair.value());
+        } else {
+            definition = MatchedDefinition.match(matcher, singlePair.value());
+        }
+        report.enter(BuildReport.Phase.RENDER);
+        if (store != null) {
             /*
-             * Call wordOrSeparator method to return either a full word or full
-             * separator from the description/value
+             * A store is only used when the HTML page is the whole output,
+             * so the page is rendered here, where its bytes can be kept.
              */
-            wordOrSeparator = nextWordOrSeparator(singlePair.value(), position,
-                    separators);
+            HtmlBuffer termPage = out.pageBuffer();
+            renderTerm(matcher, index, termIndex, definition, termPage, null);
+            byte[] page = termPage.toByteArray();
+            store.put(key, page);
+            out.write(singlePair.key() + ".html", page);
+        } else {
             /*
-             * For each string in keys (sorted Queue), if the wordOrSeparator
-             * equals a value that is a key, then indexTerm is true.
+             * The words of the page are collected here, whatever the output
+             * formats, since some of them do not render the page as text.
              */
-            for (String s : keys) {
-                if (wordOrSeparator.equals(s)) {
-                    indexTerm = true;
-                }
+            SearchIndex searchIndex = out.searchIndex();
+            if (searchIndex != null) {
+                searchIndex.add(termIndex, definition.text());
             }
-            /*
-             * If indexTerm, then print the particular word as a link to the
-             * HTML page of the term with that name. Otherwise, just print the
-             * word/separator.
-             */
-            if (indexTerm) {
-                termPageFileOut.print("<a href = \"" + wordOrSeparator
-                        + ".html\">" + wordOrSeparator + "</a>");
+            for (Renderer renderer : out.renderers()) {
+                renderer.term(matcher, index, termIndex, definition, out);
+            }
+        }
+        report.addPage(definition.linkCount());
+        report.enter(previous);
+    }
+
+    /**
+     * Renders the term-definition page of term {@code termIndex} into
+     * {@code termPage}, exactly as {@link #processTerm} writes it, for callers
+     * such as {@link GlossaryServer} that do not write the page to a file.
+     * The term is escaped, and the definition is printed with each term found
+     * by the matcher as a link to the HTML page of the term with that name,
+     * and everything else escaped.
+     *
+     * @param matcher
+     *            The term matcher built from all keys of a Map.
+     * @param index
+     *            The layout of the index built from the same keys.
+     * @param termIndex
+     *            The position of the term in index order.
+     * @param definition
+     *            The definition of the term, with its matches.
+     * @param termPage
+     *            The buffer the page is appended to.
+     * @param graph
+     *            The finished link graph of all pages, whose pages linking to
+     *            the term are listed, or null to list nothing.
+     * @updates termPage
+     */
+    public static void renderTerm(TermMatcher matcher, IndexLayout index,
+            int termIndex, MatchedDefinition definition, HtmlBuffer termPage,
+            LinkGraph graph) {
+        LinkPrinter links = new LinkPrinter(TERM_LINK, matcher, termPage);
+        TERM_PAGE.render(termPage, (slot, page) -> {
+            if (slot == TERM_PAGE_TERM) {
+                page.appendText(matcher.term(termIndex));
+            } else if (slot == TERM_PAGE_INDEX) {
+                page.appendText(index.pageOf(termIndex));
+            } else if (slot == TERM_PAGE_BACKLINKS) {
+                if (graph != null && graph.referenceCount(termIndex) > 0) {
+                    writeBacklinks(graph, termIndex, page);
+                }
             } else {
-                termPageFileOut.print(wordOrSeparator);
+                definition.replay(links);
             }
-            // Increment position
-            position += wordOrSeparator.length();
-        }
-        // Print closing paragraph header
-        termPageFileOut.println("</p>");
-        // Print horizontal line
-        termPageFileOut.println("<hr>");
-        // Print the return to index. button with a link to index page.
-        termPageFileOut.println(
-                "<p>Return to <a href = \"index.html\">index</a>.</p>");
-
-        // Output the footer of term HTML file
-        // Close body
-        termPageFileOut.println("</body>");
-        // Close HTML file
-        termPageFileOut.println("</html>");
-        termPageFileOut.close();
+        });
     }
 
     /**
-     * Main method.
+     * Exports the {@link TermRegistry} of {@code sortedKeys} to {@code out},
+     * sets the renderers of the output formats of {@code config} on
+     * {@code out}, and has each write what comes before the term pages.
+     *
+     * @param config
+     *            the build settings
+     * @param sortedKeys
+     *            the terms in index order
+     * @param index
+     *            the layout of the index
+     * @param out
+     *            where the output files are written
+     */
+    private static void beginOutput(BuildConfig config,
+            Queue<String> sortedKeys, IndexLayout index, SiteWriter out) {
+        TermRegistry.export(sortedKeys, config.separators(), out);
+        out.setRenderers(config.renderers(sortedKeys));
+        for (Renderer renderer : out.renderers()) {
+            renderer.begin(sortedKeys, index, out);
+        }
+        usePageStore(config, sortedKeys, out);
+    }
+
+    /**
+     * Lets the term pages written to {@code out}, of a glossary of
+     * {@code sortedKeys}, be copied from and kept in the page store of
+     * {@code config}, if it has one and the HTML pages are the whole output.
+     * Other formats, a search index and backlinks all need the matches of
+     * every definition, which a stored page does not hold.
+     *
+     * @param config
+     *            the build settings
+     * @param sortedKeys
+     *            the terms in index order
+     * @param out
+     *            where the output files are written
+     */
+    private static void usePageStore(BuildConfig config,
+            Queue<String> sortedKeys, SiteWriter out) {
+        List<Renderer> renderers = out.renderers();
+        if (config.pageStore() != null && renderers.size() == 1
+                && renderers.get(0) instanceof HtmlRenderer
+                && out.searchIndex() == null && out.linkGraph() == null) {
+            out.setPageStore(config.pageStore(),
+                    PageStore.fingerprint(sortedKeys, config.separators(),
+                            config.fuzzy(), config.registries()));
+        }
+    }
+
+    /**
+     * Appends the list of the pages that link to term {@code termIndex} in
+     * {@code graph} to {@code page}.
+     *
+     * @param graph
+     *            the finished link graph
+     * @param termIndex
+     *            the position of the term in index order
+     * @param page
+     *            the page being written
+     * @updates page
+     */
+    private static void writeBacklinks(LinkGraph graph, int termIndex,
+            HtmlBuffer page) {
+        BACKLINKS.render(page, (entries, list) -> {
+            for (int source : graph.referencedBy(termIndex)) {
+                INDEX_ENTRY.render(list,
+                        (term, entry) -> entry.appendText(graph.term(source)));
+            }
+        });
+    }
+
+    /**
+     * Returns the link graph of the terms in {@code sortedKeys}, with the
+     * matches of every definition recorded before any page is rendered, if
+     * the build lists the pages linking to each term.
+     *
+     * @param config
+     *            the build settings
+     * @param matcher
+     *            the term matcher built from the same terms
+     * @param sortedKeys
+     *            the terms in index order
+     * @param definitions
+     *            the definition of each term
+     * @return the finished link graph, or null if backlinks are not listed
+     */
+    private static LinkGraph linkGraph(BuildConfig config,
+            TermMatcher matcher, Queue<String> sortedKeys,
+            Function<String, ? extends CharSequence> definitions) {
+        LinkGraph graph = null;
+        if (config.backlinks()) {
+            graph = new LinkGraph(sortedKeys);
+            int termIndex = 0;
+            for (String s : sortedKeys) {
+                graph.add(matcher, termIndex, definitions.apply(s));
+                termIndex++;
+            }
+            graph.finish();
+        }
+        return graph;
+    }
+
+    /**
+     * Starts the parse phase of a build of {@code inputFile} in
+     * {@code report}, counting the whole file as read.
+     *
+     * @param report
+     *            the report of the build
+     * @param inputFile
+     *            the name of the input file
+     */
+    private static void startParse(BuildReport report, String inputFile) {
+        report.enter(BuildReport.Phase.PARSE);
+        report.addBytesRead(new File(inputFile).length());
+    }
+
+    /**
+     * Returns the options given as {@code --name=value} (or just
+     * {@code --name}, meaning "true") in {@code args}.
      *
      * @param args
      *            the command line arguments
+     * @return Map from option name to value
+     * @requires each argument is of the form --name or --name=value, and no
+     *           name is repeated
      */
-    public static void main(String[] args) {
-        SimpleReader inFromConsole = new SimpleReader1L();
-        SimpleWriter outToConsole = new SimpleWriter1L();
-
-        // Ask for input file and initialize inputFile
-        outToConsole.print("Please enter the name of an input file: ");
-        String inputFile = inFromConsole.nextLine();
-        // Ask for output folder and initialize outputFolder.
-        outToConsole.print(
-                "Please enter the name of an output folder where all output "
-                        + "files will be saved: ");
-        String outputFolder = inFromConsole.nextLine();
+    public static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new Map1L<>();
+        for (String arg : args) {
+            assert arg.startsWith("--") : "Violation of: " + arg
+                    + " is of the form --name=value";
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.add(arg.substring(2), "true");
+            } else {
+                options.add(arg.substring(2, equals),
+                        arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
 
+    /**
+     * Writes the glossary read from {@code inputFile} to {@code outputFolder}
+     * with the build selected by {@code options}.
+     *
+     * @param options
+     *            the command line options, as returned by {@link #parseOptions}
+     * @param inputFile
+     *            the name of the input file
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @param config
+     *            the build settings
+     * @return the number of term pages written
+     */
+    public static int buildWithOptions(Map<String, String> options,
+            String inputFile, String outputFolder, BuildConfig config) {
         /*
-         * inFromFile reads input from specified file, and outToFile writes
-         * output to index.html in the specified folder.
+         * With --streaming, the input is read twice instead of being held in
+         * memory: once for the terms, and once to write each term's page as
+         * its definition is read. With --mmap, the input is memory-mapped and
+         * definitions stay in the mapping until their pages are written. With
+         * --compact, terms and definitions are held off the heap in a
+         * TermDictionary. With --incremental, only the pages that changed
+         * since the last build are written, always to a folder.
          */
-        SimpleReader inFromFile = new SimpleReader1L(inputFile);
-        SimpleWriter outToFile = new SimpleWriter1L(
-                outputFolder + "\\index.html");
+        int written;
+        if (options.hasKey("streaming")) {
+            written = buildStreaming(inputFile, outputFolder, config);
+        } else if (options.hasKey("incremental")) {
+            written = buildIncremental(inputFile, outputFolder, config);
+        } else if (options.hasKey("mmap")) {
+            written = buildMapped(inputFile, outputFolder, config);
+        } else if (options.hasKey("compact")) {
+            written = buildCompact(inputFile, outputFolder, config);
+        } else {
+            written = build(inputFile, outputFolder, config);
+        }
+        return written;
+    }
 
+    /**
+     * Writes the glossary read from {@code inputFile} to {@code outputFolder},
+     * holding all terms and definitions in memory.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @param config
+     *            the build settings
+     * @return the number of term pages written
+     */
+    public static int build(String inputFile, String outputFolder,
+            BuildConfig config) {
+        BuildReport report = config.report();
+        startParse(report, inputFile);
         /*
-         * Initialize termsAndDefinitions to a call to mapFromInputLines reading
-         * from specified input file.
+         * Initialize termsAndDefinitions to a call to mapFromFile reading
+         * from specified input file, decoded as UTF-8 as every other build
+         * decodes it, whatever the platform's charset.
          */
         /*
          * Initialize sortedKeys to be a Queue holding the keys of
          * termsAndDefinitions in alphabetical order.
          */
-        Map<String, String> termsAndDefinitions = mapFromInputLines(inFromFile);
-        Queue<String> sortedKeys = sortingKeys(termsAndDefinitions);
+        GlossaryMerger merger = config.merger();
+        Map<String, String> termsAndDefinitions = mapFromFile(inputFile,
+                merger);
+        report.enter(BuildReport.Phase.SORT);
+        Queue<String> sortedKeys = sortingKeys(termsAndDefinitions,
+                config.order());
+        /*
+         * Compile the sorted keys once into the matcher shared by every term
+         * page.
+         */
+        report.enter(BuildReport.Phase.LINK_MATCH);
+        TermMatcher matcher = config.termMatcher(sortedKeys);
+        LinkGraph graph = linkGraph(config, matcher, sortedKeys,
+                termsAndDefinitions::value);
+        report.enter(BuildReport.Phase.RENDER);
 
-        // Opening tag of an HTML document
-        outToFile.println("<html>");
+        /*
+         * Pages holds every Map.Pair of termsAndDefinitions in alphabetical
+         * order, for the page generator to write.
+         */
+        List<Map.Pair<String, String>> pages = new ArrayList<>(
+                sortedKeys.length());
+        // For each string s in sortedKeys (same length as termsAndDefinitions)
+        for (String s : sortedKeys) {
+            /*
+             * Single Map.Pair, starting from smallest alphabetically is a
+             * result of removing pair from termsAndDefinitions at key s.
+             */
+            pages.add(termsAndDefinitions.remove(s));
+        }
+        IndexLayout index = config.indexLayout(sortedKeys);
+        SiteWriter out = config.openOutput(outputFolder);
+        out.setSearchIndex(config.searchIndex(sortedKeys));
+        out.setLinkGraph(graph);
+        merger.write(out);
+        beginOutput(config, sortedKeys, index, out);
 
-        // Opening tag of a head
-        outToFile.println("<head>");
+        /*
+         * Process every term, printing the appropriate separate HTML page for
+         * each, one at a time or concurrently as configured.
+         */
+        config.generator().generate(matcher, index, pages, out);
+        out.close();
+        report.enter(null);
+        return pages.size();
+    }
 
-        // Opens title, prints "Index" as title, and closes title.
-        outToFile.println("<title>Glossary</title>");
+    /**
+     * Writes the glossary read from {@code inputFile} to {@code outputFolder}
+     * in two streaming passes over the input, so that only the terms, and not
+     * the definitions, are held in memory. The first pass collects the terms;
+     * the second writes each term's page as soon as its definition is read,
+     * in batches of at most {@code STREAMING_BATCH} pages.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @param config
+     *            the build settings
+     * @return the number of term pages written
+     * @throws GlossaryFormatException
+     *             if the input is malformed
+     */
+    public static int buildStreaming(String inputFile, String outputFolder,
+            BuildConfig config) {
+        /*
+         * First pass: collect each term once, mapped to an empty definition,
+         * recording the conflicts and the number of records of each term
+         * defined more than once.
+         */
+        BuildReport report = config.report();
+        startParse(report, inputFile);
+        GlossaryMerger merger = config.merger();
+        Map<String, String> terms = new Map1L<>();
+        Map<String, Integer> repeats = new Map1L<>();
+        GlossaryParser parser = GlossaryParser.open(inputFile);
+        while (parser.next()) {
+            String term = parser.term();
+            if (terms.hasKey(term)) {
+                int count = 1;
+                if (repeats.hasKey(term)) {
+                    count = repeats.remove(term).value();
+                }
+                repeats.add(term, count + 1);
+            }
+            merger.add(terms, inputFile, parser.termLine(), term, "");
+        }
+        parser.close();
+        report.enter(BuildReport.Phase.SORT);
+        Queue<String> sortedKeys = sortingKeys(terms, config.order());
+        report.enter(BuildReport.Phase.LINK_MATCH);
+        TermMatcher matcher = config.termMatcher(sortedKeys);
+        /*
+         * With backlinks, an extra pass matches the definition of each term
+         * before any page is written.
+         */
+        LinkGraph graph = null;
+        if (config.backlinks()) {
+            LinkGraph links = new LinkGraph(sortedKeys);
+            report.addBytesRead(new File(inputFile).length());
+            readResolved(inputFile, merger.policy(), repeats,
+                    (term, definition) -> links.add(matcher,
+                            matcher.termIndex(term), definition));
+            links.finish();
+            graph = links;
+        }
+        report.enter(BuildReport.Phase.RENDER);
+        IndexLayout index = config.indexLayout(sortedKeys);
+        SiteWriter out = config.openOutput(outputFolder);
+        out.setSearchIndex(config.searchIndex(sortedKeys));
+        out.setLinkGraph(graph);
+        merger.write(out);
+        beginOutput(config, sortedKeys, index, out);
 
-        // Closes the header
-        outToFile.println("</head>");
+        /*
+         * Second pass: write the page of each term once its definition is
+         * resolved.
+         */
+        List<Map.Pair<String, String>> batch = new ArrayList<>();
+        report.addBytesRead(new File(inputFile).length());
+        readResolved(inputFile, merger.policy(), repeats,
+                (term, definition) -> {
+                    batch.add(pair(term, definition.toString()));
+                    if (batch.size() == STREAMING_BATCH) {
+                        config.generator().generate(matcher, index, batch,
+                                out);
+                        batch.clear();
+                    }
+                });
+        config.generator().generate(matcher, index, batch, out);
+        out.close();
+        report.enter(null);
+        return sortedKeys.length();
+    }
 
-        // Opens the body
-        outToFile.println("<body>");
+    /**
+     * Reads the glossary in {@code inputFile} once, passing each term to
+     * {@code records} with its definition resolved by {@code policy}, as soon
+     * as the last record of the term is read. Only the records of the terms
+     * in {@code repeats} are held, until their last record.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param policy
+     *            what is kept when a term is defined more than once
+     * @param repeats
+     *            the number of records of each term defined more than once
+     * @param records
+     *            receives each term and its definition, which is only valid
+     *            during the call
+     * @throws GlossaryFormatException
+     *             if the input is malformed
+     */
+    private static void readResolved(String inputFile,
+            GlossaryMerger.Policy policy, Map<String, Integer> repeats,
+            BiConsumer<String, CharSequence> records) {
+        GlossaryMerger resolver = new GlossaryMerger(policy);
+        Map<String, String> pending = new Map1L<>();
+        Map<String, Integer> seen = new Map1L<>();
+        GlossaryParser parser = GlossaryParser.open(inputFile);
+        while (parser.next()) {
+            String term = parser.term();
+            if (!repeats.hasKey(term)) {
+                records.accept(term, parser.definition());
+            } else {
+                resolver.add(pending, inputFile, parser.termLine(), term,
+                        parser.definition());
+                int count = 1;
+                if (seen.hasKey(term)) {
+                    count += seen.remove(term).value();
+                }
+                if (count == repeats.value(term)) {
+                    resolver.resolved(term);
+                    records.accept(term, pending.remove(term).value());
+                } else {
+                    seen.add(term, count);
+                }
+            }
+        }
+        parser.close();
+    }
 
-        // Opens h1, prints "Index"
-        outToFile.println("<h1>Glossary</h1>");
+    /**
+     * Writes the glossary read from {@code inputFile} to {@code outputFolder}
+     * from a memory-mapped copy of the input. Only the terms and the
+     * positions of the definitions are held on the heap; each definition is
+     * read from the mapping when its page is written, in batches of at most
+     * {@code STREAMING_BATCH} pages.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @param config
+     *            the build settings
+     * @return the number of term pages written
+     * @throws GlossaryFormatException
+     *             if the input is malformed
+     * @throws IllegalArgumentException
+     *             if {@code config} keeps other than the first definition of
+     *             a repeated term, since the mapping only locates the first
+     */
+    public static int buildMapped(String inputFile, String outputFolder,
+            BuildConfig config) {
+        if (config.duplicates() != GlossaryMerger.Policy.FIRST_WINS) {
+            throw new IllegalArgumentException(
+                    "Only the first-wins duplicate policy is supported by "
+                            + "mapped builds");
+        }
+        BuildReport report = config.report();
+        startParse(report, inputFile);
+        MappedGlossary glossary = MappedGlossary.map(inputFile);
+        Map<String, Integer> records = glossary.firstRecords();
+        report.enter(BuildReport.Phase.SORT);
+        Queue<String> sortedKeys = sortingKeys(records, config.order());
+        report.enter(BuildReport.Phase.LINK_MATCH);
+        TermMatcher matcher = config.termMatcher(sortedKeys);
+        LinkGraph graph = linkGraph(config, matcher, sortedKeys,
+                s -> glossary.definition(records.value(s)));
+        report.enter(BuildReport.Phase.RENDER);
+        IndexLayout index = config.indexLayout(sortedKeys);
+        SiteWriter out = config.openOutput(outputFolder);
+        out.setSearchIndex(config.searchIndex(sortedKeys));
+        out.setLinkGraph(graph);
+        beginOutput(config, sortedKeys, index, out);
 
-        // Open second section with horizontal line divider
-        outToFile.println("<hr>");
+        List<Map.Pair<String, CharSequence>> batch = new ArrayList<>();
+        for (String s : sortedKeys) {
+            int record = records.value(s);
+            batch.add(new TermPair<>(s, glossary.definition(record)));
+            if (batch.size() == STREAMING_BATCH) {
+                config.generator().generate(matcher, index, batch, out);
+                batch.clear();
+            }
+        }
+        config.generator().generate(matcher, index, batch, out);
+        out.close();
+        report.enter(null);
+        return sortedKeys.length();
+    }
 
-        // Open second header and print "Index"
-        outToFile.println("<h2>Index</h2>");
+    /**
+     * Writes the glossary read from {@code inputFile} to {@code outputFolder},
+     * holding the terms and definitions in a {@link TermDictionary} rather
+     * than in a Map, so that the text is kept off the heap as UTF-8 and each
+     * definition is decoded only while its page is rendered, in batches of at
+     * most {@code STREAMING_BATCH} pages. The output is the same as that of
+     * {@link #build}.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @param config
+     *            the build settings
+     * @return the number of term pages written
+     * @throws GlossaryFormatException
+     *             if the input is malformed
+     * @throws IllegalArgumentException
+     *             if {@code config} keeps other than the first definition of
+     *             a repeated term, since the dictionary only keeps the first
+     */
+    public static int buildCompact(String inputFile, String outputFolder,
+            BuildConfig config) {
+        if (config.duplicates() != GlossaryMerger.Policy.FIRST_WINS) {
+            throw new IllegalArgumentException(
+                    "Only the first-wins duplicate policy is supported by "
+                            + "compact builds");
+        }
+        BuildReport report = config.report();
+        startParse(report, inputFile);
+        TermDictionary dictionary = TermDictionary.read(inputFile);
+        report.enter(BuildReport.Phase.SORT);
+        Queue<String> sortedKeys = dictionary.sortedKeys(config.order());
+        report.enter(BuildReport.Phase.LINK_MATCH);
+        TermMatcher matcher = config.termMatcher(sortedKeys);
+        LinkGraph graph = linkGraph(config, matcher, sortedKeys,
+                s -> dictionary.definition(dictionary.entry(s)));
+        report.enter(BuildReport.Phase.RENDER);
+        IndexLayout index = config.indexLayout(sortedKeys);
+        SiteWriter out = config.openOutput(outputFolder);
+        out.setSearchIndex(config.searchIndex(sortedKeys));
+        out.setLinkGraph(graph);
+        beginOutput(config, sortedKeys, index, out);
 
-        // Opens the bullet point list
-        outToFile.println("<ul>");
+        List<Map.Pair<String, String>> batch = new ArrayList<>();
+        for (String s : sortedKeys) {
+            batch.add(pair(s, dictionary.definition(dictionary.entry(s))));
+            if (batch.size() == STREAMING_BATCH) {
+                config.generator().generate(matcher, index, batch, out);
+                batch.clear();
+            }
+        }
+        config.generator().generate(matcher, index, batch, out);
+        out.close();
+        report.enter(null);
+        return sortedKeys.length();
+    }
 
-        // For each string s in sortedKeys (same length as termsAndDefinitions)
+    /**
+     * Writes the glossary read from {@code inputFile} to {@code outputFolder},
+     * rewriting only what changed since the build recorded in the folder's
+     * {@link BuildManifest}: the pages of new terms and changed definitions,
+     * the pages that linked to a removed term, the pages where a new term
+     * occurs, the pages whose index page changed, every page if fuzzy
+     * matching was switched on or off or the separators changed, and the
+     * index if the terms or its layout changed. Pages of removed terms are
+     * deleted. Without a manifest, everything is written. Pages are always
+     * written in place, since the unchanged pages stay where they are.
+     * Backlinks are not supported, since a change to one page can change the
+     * list of the pages linking to any other, and neither are formats other
+     * than HTML, which may hold every term in one file, nor archives and
+     * atomic publishing, which write the whole output anew.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @param config
+     *            the build settings
+     * @return the number of term pages written
+     * @throws IllegalArgumentException
+     *             if {@code config} lists backlinks, writes other formats
+     *             than HTML, links the terms of other glossaries, writes an
+     *             archive, or publishes the output atomically
+     */
+    public static int buildIncremental(String inputFile, String outputFolder,
+            BuildConfig config) {
+        if (config.backlinks()) {
+            throw new IllegalArgumentException(
+                    "Backlinks are not supported by incremental builds");
+        }
+        if (!config.formats().equals(BuildConfig.HTML)) {
+            throw new IllegalArgumentException(
+                    "Incremental builds only write HTML");
+        }
+        if (!config.registries().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Term registries are not supported by incremental builds");
+        }
+        if (config.archive() != null) {
+            throw new IllegalArgumentException(
+                    "Archives are not supported by incremental builds");
+        }
+        if (config.atomic()) {
+            throw new IllegalArgumentException(
+                    "Atomic output is not supported by incremental builds");
+        }
+        BuildReport report = config.report();
+        startParse(report, inputFile);
+        GlossaryMerger merger = config.merger();
+        Map<String, String> termsAndDefinitions = mapFromFile(inputFile,
+                merger);
+        report.enter(BuildReport.Phase.SORT);
+        Queue<String> sortedKeys = sortingKeys(termsAndDefinitions,
+                config.order());
+        /*
+         * Comparing with the previous build is mostly finding terms in
+         * definitions, so it counts as link matching.
+         */
+        report.enter(BuildReport.Phase.LINK_MATCH);
+        TermMatcher matcher = config.termMatcher(sortedKeys);
+        IndexLayout index = config.indexLayout(sortedKeys);
+
+        /*
+         * The manifest records fuzzy matching and the separators with the
+         * index layout, since every page may link differently when the
+         * matching changes.
+         */
+        String matching = MATCHING_LAYOUT + config.fuzzy() + " "
+                + config.separators().fingerprint();
+        String layout = config.index() + matching;
+        BuildManifest previous = BuildManifest.read(outputFolder);
+        boolean termsChanged = previous == null
+                || previous.size() != sortedKeys.length()
+                || !previous.layout().equals(layout);
+        boolean relinkAll = previous != null
+                && !previous.layout().endsWith(matching);
+        if (previous == null) {
+            previous = new BuildManifest();
+        }
+        Map<String, Integer> previousEntries = previous.entries();
+        SiteWriter out = new SiteWriter(Paths.get(outputFolder),
+                config.writeBehind(), false);
+        out.setReport(report);
+        SearchIndex searchIndex = config.searchIndex(sortedKeys);
+        out.setSearchIndex(searchIndex);
+        /*
+         * The report of a previous build is removed once its conflicts are
+         * resolved.
+         */
+        if (merger.conflictCount() == 0) {
+            out.delete(GlossaryMerger.REPORT_FILE);
+        } else {
+            merger.write(out);
+        }
+
+        /*
+         * Terms removed since the previous build: delete their pages, and use
+         * the reverse links to mark the pages that linked to them.
+         */
+        boolean[] relink = new boolean[previous.size()];
+        int[][] linkedFrom = previous.reverseLinks();
+        for (int i = 0; i < previous.size(); i++) {
+            if (matcher.termIndex(previous.term(i)) < 0) {
+                termsChanged = true;
+                for (int page : linkedFrom[i]) {
+                    relink[page] = true;
+                }
+                out.delete(previous.term(i) + ".html");
+            }
+        }
+
+        /*
+         * Terms added since the previous build: an unchanged page needs new
+         * links exactly when one of them occurs in its definition.
+         */
+        Queue<String> added = new Queue1L<>();
+        int position = 0;
+        for (String s : sortedKeys) {
+            if (!previousEntries.hasKey(s)) {
+                added.enqueue(s);
+            } else if (previousEntries.value(s) != position) {
+                termsChanged = true;
+            }
+            position++;
+        }
+        termsChanged = termsChanged || added.length() > 0;
+        TermMatcher addedMatcher = config.termMatcher(added);
+
+        /*
+         * The hash of a page covers the index page it links back to, so a
+         * page is also rewritten when it moves to another shard.
+         */
+        BuildManifest manifest = new BuildManifest();
+        manifest.setLayout(layout);
+        List<Map.Pair<String, String>> pages = new ArrayList<>();
+        position = 0;
         for (String s : sortedKeys) {
-            /*
-             * Single Map.Pair, starting from smallest alphabetically is a
-             * result of removing pair from termsAndDefinitions at key s.
-             */
             Map.Pair<String, String> single = termsAndDefinitions.remove(s);
+            long hash = BuildManifest.hash(single.value(),
+                    index.pageOf(position));
+            position++;
+            int entry = -1;
+            if (previousEntries.hasKey(s)) {
+                entry = previousEntries.value(s);
+            }
+            boolean mentionsAdded = added.length() > 0
+                    && addedMatcher.termsIn(single.value()).length > 0;
+            if (entry < 0 || previous.hash(entry) != hash || relink[entry]
+                    || mentionsAdded || relinkAll) {
+                pages.add(single);
+                manifest.add(s, hash, matcher.termsIn(single.value()));
+            } else {
+                /*
+                 * The page is unchanged, so its links are carried over,
+                 * renumbered for the current terms.
+                 */
+                int[] links = previous.links(entry).clone();
+                for (int j = 0; j < links.length; j++) {
+                    links[j] = matcher.termIndex(previous.term(links[j]));
+                }
+                Arrays.sort(links);
+                manifest.add(s, hash, links);
+                /*
+                 * The page is not rendered, so its words are collected
+                 * directly.
+                 */
+                if (searchIndex != null) {
+                    searchIndex.add(position - 1, single.value());
+                }
+            }
+        }
+        report.enter(BuildReport.Phase.RENDER);
+        report.addCacheHits(sortedKeys.length() - pages.size());
+        if (termsChanged) {
+            // The registry lists the terms, so it changes only with them
+            TermRegistry.export(sortedKeys, config.separators(), out);
+            writeIndex(sortedKeys, index, out);
             /*
-             * Call process term to process this single Map.Pair and print the
-             * appropriate separate HTML page for it.
-             */
-            processTerm(sortedKeys, single, outputFolder);
-            /*
-             * Creates an unordered list entry, and links the Map.Pair key name
-             * to the page with that name.
+             * Shards are numbered consecutively, so the shards left over
+             * from a larger index are the ones that follow the last shard.
              */
-            outToFile.println("<li><a href = \"" + single.key() + ".html\">"
-                    + single.key() + "</a></li>");
+            int stale = 0;
+            if (index.isSharded()) {
+                stale = index.shardCount();
+            }
+            while (out.delete("index-" + (stale + 1) + ".html")) {
+                stale++;
+            }
         }
-        // Close bullet point list
-        outToFile.println("</ul>");
-        // Close body
-        outToFile.println("</body>");
-        // Close HTML file
-        outToFile.println("</html>");
+        usePageStore(config, sortedKeys, out);
+        config.generator().generate(matcher, index, pages, out);
+        out.close();
+        report.enter(BuildReport.Phase.WRITE);
+        manifest.write(outputFolder);
+        report.enter(null);
+        return pages.size();
+    }
 
-        // Print success generation message.
-        outToConsole.println("HTML file successfully generated!");
+    /**
+     * Writes the index of the terms in {@code sortedKeys} to {@code out},
+     * listing every term in order with a link to its page. Unless
+     * {@code index} is sharded, the index is index.html; otherwise each shard
+     * is written as soon as its terms have been listed, and index.html lists
+     * the shards.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @param index
+     *            the layout of the index
+     * @param out
+     *            where the output files are written
+     */
+    public static void writeIndex(Queue<String> sortedKeys, IndexLayout index,
+            SiteWriter out) {
+        /*
+         * outToFile collects the bytes of each index page, which is written
+         * to the output folder once complete.
+         */
+        HtmlBuffer outToFile = out.pageBuffer();
+        if (!index.isSharded()) {
+            INDEX_PAGE.render(outToFile, (entries, page) -> {
+                // For each string s in sortedKeys
+                for (String s : sortedKeys) {
+                    /*
+                     * Creates an unordered list entry, and links the key name
+                     * to the page with that name.
+                     */
+                    INDEX_ENTRY.render(page,
+                            (term, entry) -> entry.appendText(s));
+                }
+            });
+            out.write(IndexLayout.INDEX_PAGE, outToFile);
+            return;
+        }
+
+        /*
+         * One shard at a time, taking its terms from the sorted keys in turn.
+         */
+        Iterator<String> keys = sortedKeys.iterator();
+        for (int i = 0; i < index.shardCount(); i++) {
+            int shard = i;
+            outToFile = out.pageBuffer();
+            SHARD_PAGE.render(outToFile, (slot, page) -> {
+                if (slot == SHARD_PAGE_LABEL) {
+                    page.appendText(index.label(shard));
+                } else {
+                    for (int k = index.shardStart(shard); k < index
+                            .shardStart(shard + 1); k++) {
+                        String s = keys.next();
+                        INDEX_ENTRY.render(page,
+                                (term, entry) -> entry.appendText(s));
+                    }
+                }
+            });
+            out.write(index.shardPage(shard), outToFile);
+        }
+        outToFile = out.pageBuffer();
+        INDEX_PAGE.render(outToFile, (entries, page) -> {
+            for (int shard = 0; shard < index.shardCount(); shard++) {
+                int i = shard;
+                SHARD_ENTRY.render(page, (slot, entry) -> {
+                    if (slot == SHARD_ENTRY_PAGE) {
+                        entry.appendText(index.shardPage(i));
+                    } else {
+                        entry.appendText(index.label(i));
+                    }
+                });
+            }
+        });
+        out.write(IndexLayout.INDEX_PAGE, outToFile);
+    }
+
+    /**
+     * Returns a new Map.Pair of {@code key} and {@code value}.
+     *
+     * @param <V>
+     *            the type of the definition
+     * @param key
+     *            the key (term)
+     * @param value
+     *            the value (definition)
+     * @return the pair
+     */
+    public static <V extends CharSequence> Map.Pair<String, V> pair(String key,
+            V value) {
+        return new TermPair<>(key, value);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(String[] args) {
+        /*
+         * Options such as --workers=8 and --mode=fork-join select how the term
+         * pages are generated, and options such as --archive=zip where they
+         * are written; see BuildConfig.
+         */
+        Map<String, String> options = parseOptions(args);
+        BuildConfig config = BuildConfig.fromOptions(options);
+
+        SimpleReader inFromConsole = new SimpleReader1L();
+        SimpleWriter outToConsole = new SimpleWriter1L();
+
+        /*
+         * With --batch=manifest, every job of the manifest is built in this
+         * JVM, with no prompts, and summarized.
+         */
+        if (options.hasKey("batch")) {
+            inFromConsole.close();
+            BatchBuilder batch = new BatchBuilder(options, config);
+            batch.run(BatchBuilder.readManifest(options.value("batch")),
+                    outToConsole);
+            batch.close();
+            outToConsole.close();
+            return;
+        }
+
+        /*
+         * Ask for input file and initialize inputFile, unless given as
+         * --input, so that builds can be scripted.
+         */
+        String inputFile;
+        if (options.hasKey("input")) {
+            inputFile = options.value("input");
+        } else {
+            outToConsole.print("Please enter the name of an input file: ");
+            inputFile = inFromConsole.nextLine();
+        }
+
+        /*
+         * With --merge=a.txt,b.txt, the glossaries a.txt and b.txt, each
+         * sorted by term, are first merged into the input file, resolving
+         * the terms defined in both by --on-duplicate, and the conflicts are
+         * reported beside it. The input file is replaced only once the merge
+         * is complete.
+         */
+        if (options.hasKey("merge")) {
+            GlossaryMerger merger = config.merger();
+            int terms = merger.mergeInto(
+                    Arrays.asList(options.value("merge").split(",")),
+                    inputFile);
+            outToConsole.println(terms + " terms merged into " + inputFile
+                    + ", " + merger.conflictCount() + " conflicts.");
+            merger.write(
+                    Paths.get(inputFile + "." + GlossaryMerger.REPORT_FILE));
+        }
+
+        /*
+         * With --serve=port, the glossary is served over HTTP, rendering each
+         * term page on request and caching up to --cache-mb megabytes of
+         * pages, instead of being written to an output folder.
+         */
+        if (options.hasKey("serve")) {
+            long cacheMegabytes = DEFAULT_CACHE_MB;
+            if (options.hasKey("cache-mb")) {
+                cacheMegabytes = Long.parseLong(options.value("cache-mb"));
+            }
+            GlossaryServer server = GlossaryServer.start(inputFile,
+                    Integer.parseInt(options.value("serve")),
+                    cacheMegabytes * 1024 * 1024, config);
+            outToConsole.println(
+                    "Serving the glossary at http://localhost:" + server.port()
+                            + "/");
+            inFromConsole.close();
+            outToConsole.close();
+            return;
+        }
+
+        // Ask for output folder and initialize outputFolder, unless --output
+        String outputFolder;
+        if (options.hasKey("output")) {
+            outputFolder = options.value("output");
+        } else {
+            outToConsole.print(
+                    "Please enter the name of an output folder where all "
+                            + "output files will be saved: ");
+            outputFolder = inFromConsole.nextLine();
+        }
+
+        /*
+         * With --watch, the glossary is rebuilt incrementally each time the
+         * input file is saved, waiting --debounce-ms milliseconds for it to
+         * be quiet, until the program is stopped.
+         */
+        if (options.hasKey("watch")) {
+            long debounceMillis = GlossaryWatcher.DEFAULT_DEBOUNCE_MILLIS;
+            if (options.hasKey("debounce-ms")) {
+                debounceMillis = Long.parseLong(options.value("debounce-ms"));
+            }
+            inFromConsole.close();
+            GlossaryWatcher watcher = new GlossaryWatcher(inputFile,
+                    outputFolder, config, debounceMillis);
+            watcher.run(outToConsole);
+            watcher.close();
+            outToConsole.close();
+            return;
+        }
+
+        int written = buildWithOptions(options, inputFile, outputFolder,
+                config);
+        if (options.hasKey("incremental")) {
+            outToConsole.println(written + " term pages rewritten.");
+        }
+
+        /*
+         * With --report=file, the timings and counters of the build are
+         * written to file as JSON; with --jfr, they are emitted as JFR events.
+         */
+        BuildReport report = config.report();
+        report.finish();
+        if (options.hasKey("report")) {
+            report.write(Paths.get(options.value("report")));
+        }
+        if (options.hasKey("jfr")) {
+            report.emitEvents();
+        }
+
+        // With --page-store, how well the store did, for sizing it
+        PageStore store = config.pageStore();
+        if (store != null) {
+            outToConsole.println("Page store: " + store.hits() + " hits, "
+                    + store.misses() + " misses, " + store.evictions()
+                    + " evictions, " + store.size() + " pages in "
+                    + store.bytes() + " bytes.");
+        }
+
+        // Print success generation message, naming the formats written.
+        if (config.formats().equals(BuildConfig.HTML)) {
+            outToConsole.println("HTML file successfully generated!");
+        } else {
+            outToConsole.println("Glossary successfully generated as "
+                    + config.formats().replaceAll("\\s*,\\s*", ", ") + "!");
+        }
 
         /*
          * Close input and output streams
          */
         inFromConsole.close();
         outToConsole.close();
-        inFromFile.close();
-        outToFile.close();
     }
 
     /**
-     * Comparator for Strings, implementing Comparator<String> and overriding
-     * compare method.
+     * Map.Pair of a term and its definition, for pages that are not taken out
+     * of a Map.
+     *
+     * @param <V>
+     *            the type of the definition
+     */
+    private static final class TermPair<V extends CharSequence>
+            implements Map.Pair<String, V> {
+
+        /**
+         * The term.
+         */
+        private final String key;
+
+        /**
+         * The definition.
+         */
+        private final V value;
+
+        /**
+         * Constructor.
+         *
+         * @param key
+         *            the term
+         * @param value
+         *            the definition
+         */
+        TermPair(String key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String key() {
+            return this.key;
+        }
+
+        @Override
+        public V value() {
+            return this.value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Pair<?, ?>)) {
+                return false;
+            }
+            Map.Pair<?, ?> other = (Map.Pair<?, ?>) obj;
+            return this.key.equals(other.key())
+                    && this.value.equals(other.value());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.key.hashCode() ^ this.value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "(" + this.key + "," + this.value + ")";
+        }
+    }
+
+    /**
+     * Appends the pieces of a definition reported by a {@link TermMatcher} to
+     * a page, escaped, linking each term to its page, without copying them
+     * first.
      */
-    private static class StringLT implements Comparator<String> {
+    static final class LinkPrinter
+            implements TermMatcher.MatchHandler, PageTemplate.Slots {
+
+        /**
+         * The page being written.
+         */
+        private final HtmlBuffer out;
+
+        /**
+         * Layout of a link, with a "page" slot for the term linked to, and
+         * any other slot for the text matched.
+         */
+        private final PageTemplate link;
+
+        /**
+         * Slot of the term linked to in {@code link}.
+         */
+        private final int pageSlot;
+
+        /**
+         * The matcher reporting the terms, which names them.
+         */
+        private final TermMatcher matcher;
+
+        /**
+         * The definition holding the term being linked.
+         */
+        private CharSequence text;
+
+        /**
+         * Start of the term being linked.
+         */
+        private int start;
+
+        /**
+         * End of the term being linked.
+         */
+        private int end;
+
+        /**
+         * Index of the term being linked.
+         */
+        private int termIndex;
+
+        /**
+         * Constructor.
+         *
+         * @param link
+         *            layout of a link, with a "page" slot for the term linked
+         *            to, and any other slot for the text matched
+         * @param matcher
+         *            the matcher reporting the terms
+         * @param out
+         *            the page being written
+         */
+        LinkPrinter(PageTemplate link, TermMatcher matcher, HtmlBuffer out) {
+            this.link = link;
+            this.pageSlot = link.slot("page");
+            this.matcher = matcher;
+            this.out = out;
+        }
+
         @Override
-        public int compare(String o1, String o2) {
-            return o1.compareTo(o2);
+        public void text(CharSequence text, int start, int end) {
+            this.out.appendText(text, start, end);
+        }
+
+        @Override
+        public void term(CharSequence text, int start, int end,
+                int termIndex) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.termIndex = termIndex;
+            if (this.matcher.isExternal(termIndex)) {
+                TERM_LINK.render(this.out, this);
+            } else {
+                this.link.render(this.out, this);
+            }
+        }
+
+        /**
+         * Writes the page of the term being linked, or the text matched.
+         */
+        @Override
+        public void write(int slot, HtmlBuffer page) {
+            boolean external = this.matcher.isExternal(this.termIndex);
+            if (!external && slot == this.pageSlot
+                    || external && slot == TERM_LINK_PAGE) {
+                page.appendText(this.matcher.page(this.termIndex));
+            } else {
+                page.appendText(this.text, this.start, this.end);
+            }
         }
     }
 
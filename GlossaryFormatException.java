@@ -0,0 +1,43 @@
+/**
+ * Thrown when a glossary input file does not follow the term / definition /
+ * blank line format.
+ *
+ * @author L. Oden
+ *
+ */
+public final class GlossaryFormatException extends RuntimeException {
+
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The line of the input where the problem was found.
+     */
+    private final int lineNumber;
+
+    /**
+     * Constructor.
+     *
+     * @param lineNumber
+     *            the line of the input (counting from 1) where the problem was
+     *            found
+     * @param message
+     *            a description of the problem
+     */
+    public GlossaryFormatException(int lineNumber, String message) {
+        super("line " + lineNumber + ": " + message);
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Returns the line of the input where the problem was found.
+     *
+     * @return the line number, counting from 1
+     */
+    public int lineNumber() {
+        return this.lineNumber;
+    }
+
+}
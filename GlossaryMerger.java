@@ -0,0 +1,614 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import components.map.Map;
+
+/**
+ * Resolves the definitions of a term that occurs more than once in a
+ * glossary, or in several glossaries being merged into one, by a
+ * {@link Policy}, and records each such conflict with the source and line of
+ * both definitions, for a report of the build.
+ *
+ * <p>
+ * Records are resolved as they are parsed, either into a {@code Map} of the
+ * whole glossary ({@link #add}), or by a k-way merge of input files that are
+ * each sorted by term ({@link #merge}), which holds only one record per input
+ * in memory, however large the inputs.
+ *
+ * @author L. Oden
+ *
+ */
+public final class GlossaryMerger {
+
+    /**
+     * What is kept when a term is defined again.
+     */
+    public enum Policy {
+        /**
+         * The first definition; later ones are dropped.
+         */
+        FIRST_WINS,
+        /**
+         * The last definition; earlier ones are dropped.
+         */
+        LAST_WINS,
+        /**
+         * Every distinct definition, in order, separated by a space.
+         */
+        MERGE,
+        /**
+         * None: the build fails with a {@link GlossaryFormatException}.
+         */
+        FAIL;
+
+        /**
+         * Returns the policy named by {@code name}, ignoring case and allowing
+         * '-' in place of '_'.
+         *
+         * @param name
+         *            the policy name, e.g. "last-wins"
+         * @return the policy
+         * @requires name is the name of a policy
+         */
+        public static Policy parse(String name) {
+            return valueOf(
+                    name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * Name of the report of the conflicts, written with the pages if there
+     * are any.
+     */
+    public static final String REPORT_FILE = "conflicts.json";
+
+    /**
+     * What separates the definitions of a term under {@link Policy#MERGE}.
+     */
+    static final String MERGE_SEPARATOR = " ";
+
+    /**
+     * The policy.
+     */
+    private final Policy policy;
+
+    /**
+     * Where each term of the glossary being added to was first defined.
+     */
+    private final HashMap<String, Location> firstDefined = new HashMap<>();
+
+    /**
+     * The distinct definitions merged so far into the definition of each term
+     * defined more than once, under {@link Policy#MERGE}.
+     */
+    private final HashMap<String, Set<String>> mergedDefinitions =
+            new HashMap<>();
+
+    /**
+     * The conflicts found so far, in the order they were found.
+     */
+    private final List<Conflict> conflicts = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param policy
+     *            what is kept when a term is defined again
+     */
+    public GlossaryMerger(Policy policy) {
+        assert policy != null : "Violation of: policy is not null";
+
+        this.policy = policy;
+    }
+
+    /**
+     * Returns the policy.
+     *
+     * @return what is kept when a term is defined again
+     */
+    public Policy policy() {
+        return this.policy;
+    }
+
+    /**
+     * Adds the record of {@code term} and {@code definition}, found at
+     * {@code line} of {@code source}, to {@code glossary}, resolving it with
+     * the definition already there by the policy.
+     *
+     * @param glossary
+     *            the glossary, holding the records added so far
+     * @param source
+     *            the name of the input holding the record
+     * @param line
+     *            the line of the term in source
+     * @param term
+     *            the term
+     * @param definition
+     *            its definition
+     * @updates glossary
+     * @throws GlossaryFormatException
+     *             if the policy is {@link Policy#FAIL} and glossary already
+     *             defines term
+     */
+    public void add(Map<String, String> glossary, String source, int line,
+            String term, CharSequence definition) {
+        Location at = new Location(source, line);
+        if (!glossary.hasKey(term)) {
+            glossary.add(term, definition.toString());
+            this.firstDefined.put(term, at);
+        } else {
+            String kept = glossary.remove(term).value();
+            glossary.add(term, this.resolve(term,
+                    this.firstDefined.get(term), kept, definition, at));
+        }
+    }
+
+    /**
+     * Forgets the definitions merged into that of {@code term}, which has no
+     * more records to resolve.
+     *
+     * @param term
+     *            the term, whose definition has been written
+     */
+    void resolved(String term) {
+        this.mergedDefinitions.remove(term);
+    }
+
+    /**
+     * Returns the definition kept for {@code term}, defined as {@code kept}
+     * so far, first at {@code first}, and now defined again as
+     * {@code later} at {@code at}, and records the conflict.
+     *
+     * @param term
+     *            the term
+     * @param first
+     *            where the term was first defined
+     * @param kept
+     *            the definition kept so far
+     * @param later
+     *            the new definition
+     * @param at
+     *            where the new definition is
+     * @return the definition to keep
+     * @throws GlossaryFormatException
+     *             if the policy is {@link Policy#FAIL}
+     */
+    private String resolve(String term, Location first, String kept,
+            CharSequence later, Location at) {
+        this.conflicts.add(new Conflict(term, first, at));
+        String resolved;
+        switch (this.policy) {
+            case LAST_WINS:
+                resolved = later.toString();
+                break;
+            case MERGE:
+                /*
+                 * A definition repeated word for word, as when the same
+                 * glossary is included twice, is kept only once. Whole
+                 * definitions are compared, not the merged text, which may
+                 * hold a later definition as a run of its words.
+                 */
+                Set<String> distinct = this.mergedDefinitions.get(term);
+                if (distinct == null) {
+                    distinct = new HashSet<>();
+                    distinct.add(kept);
+                    this.mergedDefinitions.put(term, distinct);
+                }
+                String text = later.toString();
+                if (distinct.add(text)) {
+                    resolved = kept + MERGE_SEPARATOR + text;
+                } else {
+                    resolved = kept;
+                }
+                break;
+            case FAIL:
+                throw new GlossaryFormatException(at.line,
+                        "term \"" + term + "\" of " + at.source
+                                + " is already defined at " + first);
+            default:
+                resolved = kept;
+                break;
+        }
+        return resolved;
+    }
+
+    /**
+     * Merges the glossary files {@code inputFiles}, each sorted by term in
+     * {@link TermOrder#RAW} order, into one sorted glossary written to
+     * {@code out}, resolving the definitions of each term defined more than
+     * once by the policy. The inputs are read in a single k-way merge, so
+     * only the current record of each input is held in memory. For a term
+     * defined in several inputs, the inputs count in the order given.
+     *
+     * @param inputFiles
+     *            the names of the glossary files
+     * @param out
+     *            where the merged glossary is written
+     * @return the number of terms written
+     * @throws GlossaryFormatException
+     *             if an input is malformed or not sorted, or if the policy
+     *             is {@link Policy#FAIL} and a term is defined more than once
+     */
+    public int merge(List<String> inputFiles, Writer out) {
+        assert out != null : "Violation of: out is not null";
+
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+        try {
+            for (int i = 0; i < inputFiles.size(); i++) {
+                this.next(new Cursor(inputFiles.get(i), i), cursors);
+            }
+            int terms = 0;
+            while (!cursors.isEmpty()) {
+                /*
+                 * The smallest term of all inputs, then each other record of
+                 * the same term, from the same input first, then from the
+                 * inputs in order.
+                 */
+                Cursor cursor = cursors.poll();
+                String term = cursor.term;
+                Location first = cursor.location();
+                String definition = cursor.definition;
+                this.next(cursor, cursors);
+                while (!cursors.isEmpty()
+                        && cursors.peek().term.equals(term)) {
+                    cursor = cursors.poll();
+                    definition = this.resolve(term, first, definition,
+                            cursor.definition, cursor.location());
+                    this.next(cursor, cursors);
+                }
+                this.resolved(term);
+                out.write(term);
+                out.write('\n');
+                out.write(definition);
+                out.write("\n\n");
+                terms++;
+            }
+            return terms;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.parser.close();
+            }
+        }
+    }
+
+    /**
+     * Merges the glossary files {@code inputFiles} as {@link #merge} does,
+     * into the UTF-8 file {@code outputFile}. The merge is written to a new
+     * file in the same folder, which replaces outputFile only once the merge
+     * is complete, so that outputFile is left as it was if the merge fails.
+     *
+     * @param inputFiles
+     *            the names of the glossary files
+     * @param outputFile
+     *            the name of the merged glossary file
+     * @return the number of terms written
+     * @throws IllegalArgumentException
+     *             if outputFile is one of inputFiles
+     * @throws GlossaryFormatException
+     *             if an input is malformed or not sorted, or if the policy
+     *             is {@link Policy#FAIL} and a term is defined more than once
+     */
+    public int mergeInto(List<String> inputFiles, String outputFile) {
+        Path target = Paths.get(outputFile).toAbsolutePath().normalize();
+        try {
+            for (String inputFile : inputFiles) {
+                Path input = Paths.get(inputFile).toAbsolutePath()
+                        .normalize();
+                if (input.equals(target) || (Files.exists(input)
+                        && Files.exists(target)
+                        && Files.isSameFile(input, target))) {
+                    throw new IllegalArgumentException("The merged glossary "
+                            + outputFile + " cannot also be merged into it");
+                }
+            }
+            Path merging = Files.createTempFile(target.getParent(),
+                    target.getFileName().toString(), ".merging");
+            boolean merged = false;
+            try {
+                int terms;
+                try (Writer out = Files.newBufferedWriter(merging,
+                        StandardCharsets.UTF_8)) {
+                    terms = this.merge(inputFiles, out);
+                }
+                Files.move(merging, target,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                merged = true;
+                return terms;
+            } finally {
+                if (!merged) {
+                    Files.deleteIfExists(merging);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Advances {@code cursor} to its next record, and puts it back in
+     * {@code cursors}, or closes it at the end of its input, or if its next
+     * record cannot be read.
+     *
+     * @param cursor
+     *            the cursor, new or taken out of cursors
+     * @param cursors
+     *            the cursors of the inputs not yet read to the end
+     * @updates cursors
+     * @throws GlossaryFormatException
+     *             if the next record is malformed or out of order
+     */
+    private void next(Cursor cursor, PriorityQueue<Cursor> cursors) {
+        boolean advanced;
+        try {
+            advanced = cursor.advance();
+        } catch (RuntimeException e) {
+            // The cursor is in no queue, so it is closed here
+            cursor.parser.close();
+            throw e;
+        }
+        if (advanced) {
+            cursors.add(cursor);
+        } else {
+            cursor.parser.close();
+        }
+    }
+
+    /**
+     * Returns the number of conflicts found so far.
+     *
+     * @return the number of terms defined again, counting each new
+     *         definition
+     */
+    public int conflictCount() {
+        return this.conflicts.size();
+    }
+
+    /**
+     * Returns the report of the conflicts as JSON: the policy, then each
+     * conflict, in the order found, with the term and the source and line of
+     * its first definition and of its new one.
+     *
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"policy\": ");
+        JsonRenderer.appendString(json,
+                this.policy.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        json.append(",\n  \"conflicts\": [");
+        for (int i = 0; i < this.conflicts.size(); i++) {
+            Conflict conflict = this.conflicts.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\n    { \"term\": ");
+            JsonRenderer.appendString(json, conflict.term);
+            json.append(", \"first\": ");
+            conflict.first.appendJson(json);
+            json.append(", \"duplicate\": ");
+            conflict.duplicate.appendJson(json);
+            json.append(" }");
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the report of the conflicts to {@code out} as
+     * {@value #REPORT_FILE}, if any were found.
+     *
+     * @param out
+     *            where the output files are written
+     */
+    public void write(SiteWriter out) {
+        if (!this.conflicts.isEmpty()) {
+            out.write(REPORT_FILE, this.toJson());
+        }
+    }
+
+    /**
+     * Writes the report of the conflicts as UTF-8 JSON to {@code file}, if
+     * any were found.
+     *
+     * @param file
+     *            the report file
+     */
+    public void write(Path file) {
+        if (!this.conflicts.isEmpty()) {
+            try {
+                Files.write(file,
+                        this.toJson().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * A line of an input.
+     */
+    private static final class Location {
+
+        /**
+         * The name of the input.
+         */
+        private final String source;
+
+        /**
+         * The line, counting from 1.
+         */
+        private final int line;
+
+        /**
+         * Constructor.
+         *
+         * @param source
+         *            the name of the input
+         * @param line
+         *            the line, counting from 1
+         */
+        Location(String source, int line) {
+            this.source = source;
+            this.line = line;
+        }
+
+        /**
+         * Appends the location to {@code json} as a JSON object.
+         *
+         * @param json
+         *            the JSON text
+         */
+        void appendJson(StringBuilder json) {
+            json.append("{ \"source\": ");
+            JsonRenderer.appendString(json, this.source);
+            json.append(", \"line\": ").append(this.line).append(" }");
+        }
+
+        @Override
+        public String toString() {
+            return this.source + ":" + this.line;
+        }
+    }
+
+    /**
+     * A term defined again.
+     */
+    private static final class Conflict {
+
+        /**
+         * The term.
+         */
+        private final String term;
+
+        /**
+         * Where the term was first defined.
+         */
+        private final Location first;
+
+        /**
+         * Where it was defined again.
+         */
+        private final Location duplicate;
+
+        /**
+         * Constructor.
+         *
+         * @param term
+         *            the term
+         * @param first
+         *            where the term was first defined
+         * @param duplicate
+         *            where it was defined again
+         */
+        Conflict(String term, Location first, Location duplicate) {
+            this.term = term;
+            this.first = first;
+            this.duplicate = duplicate;
+        }
+    }
+
+    /**
+     * The current record of one input of a merge. Cursors are ordered by
+     * their current term, then by the order of their inputs.
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+
+        /**
+         * The parser of the input.
+         */
+        private final GlossaryParser parser;
+
+        /**
+         * The name of the input.
+         */
+        private final String source;
+
+        /**
+         * The position of the input among those merged.
+         */
+        private final int order;
+
+        /**
+         * The current term, or null before the first record.
+         */
+        private String term;
+
+        /**
+         * The definition of the current term.
+         */
+        private String definition;
+
+        /**
+         * Constructor.
+         *
+         * @param source
+         *            the name of the input
+         * @param order
+         *            the position of the input among those merged
+         */
+        Cursor(String source, int order) {
+            this.parser = GlossaryParser.open(source);
+            this.source = source;
+            this.order = order;
+        }
+
+        /**
+         * Advances to the next record of the input.
+         *
+         * @return true if there is a next record, false at the end of the
+         *         input
+         * @throws GlossaryFormatException
+         *             if the next record is malformed or out of order
+         */
+        boolean advance() {
+            if (!this.parser.next()) {
+                return false;
+            }
+            String next = this.parser.term();
+            if (this.term != null
+                    && next.compareTo(this.term) < 0) {
+                throw new GlossaryFormatException(this.parser.termLine(),
+                        "term \"" + next + "\" of " + this.source
+                                + " is out of order");
+            }
+            this.term = next;
+            this.definition = this.parser.definition().toString();
+            return true;
+        }
+
+        /**
+         * Returns the location of the current record.
+         *
+         * @return the input and line of the current term
+         */
+        Location location() {
+            return new Location(this.source, this.parser.termLine());
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int result = this.term.compareTo(other.term);
+            if (result == 0) {
+                result = Integer.compare(this.order, other.order);
+            }
+            return result;
+        }
+    }
+
+}
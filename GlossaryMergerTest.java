@@ -0,0 +1,208 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the GlossaryMerger class. Author: Logan Oden
+ */
+public class GlossaryMergerTest {
+
+    /**
+     * A glossary defining Java three times, on lines 1, 7 and 10.
+     */
+    private static final String REPEATED = "Java\nA language.\n\n"
+            + "JUnit\nTests Java.\n\n" + "Java\nAn island.\n\n"
+            + "Java\nA language.\n\n";
+
+    /**
+     * Routine test case for each policy in a build. The page of a repeated
+     * term holds the definition the policy keeps, a definition repeated word
+     * for word is merged only once, and the conflicts are reported with the
+     * line of each definition.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Routine() throws IOException {
+        String[] expected = { "A language.", "A language.",
+                "A language. An island." };
+        GlossaryMerger.Policy[] policies = { GlossaryMerger.Policy.FIRST_WINS,
+                GlossaryMerger.Policy.LAST_WINS, GlossaryMerger.Policy.MERGE };
+        for (int i = 0; i < policies.length; i++) {
+            BuildConfig config = BuildConfig.defaults();
+            config.setDuplicates(policies[i]);
+            String output = TestFiles.build("repeated", REPEATED, config);
+            assertTrue(policies[i].name(), TestFiles.read(output, "Java.html")
+                    .contains("&nbsp;" + expected[i] + "</p>"));
+        }
+
+        assertEquals("{\n  \"policy\": \"merge\",\n  \"conflicts\": [\n"
+                + "    { \"term\": \"Java\", "
+                + "\"first\": { \"source\": \"data/repeated.txt\", "
+                + "\"line\": 1 }, "
+                + "\"duplicate\": { \"source\": \"data/repeated.txt\", "
+                + "\"line\": 7 } },\n"
+                + "    { \"term\": \"Java\", "
+                + "\"first\": { \"source\": \"data/repeated.txt\", "
+                + "\"line\": 1 }, "
+                + "\"duplicate\": { \"source\": \"data/repeated.txt\", "
+                + "\"line\": 10 } }\n  ]\n}\n",
+                TestFiles.read("data/repeated", GlossaryMerger.REPORT_FILE));
+        assertEquals(GlossaryMerger.Policy.LAST_WINS,
+                BuildConfig.fromOptions(Glossary.parseOptions(
+                        new String[] { "--on-duplicate=last-wins" }))
+                        .duplicates());
+
+        String unrepeated = TestFiles.build("unrepeated",
+                "Java\nA language.\n\n", BuildConfig.defaults());
+        assertFalse(Files.exists(
+                Paths.get(unrepeated, GlossaryMerger.REPORT_FILE)));
+    }
+
+    /**
+     * Routine test case for a definition whose words also occur, in order, in
+     * the definition kept so far. It is a distinct definition, so every build
+     * and the k-way merge keep it.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testMergeWords_Routine() throws IOException {
+        BuildConfig config = BuildConfig.defaults();
+        config.setDuplicates(GlossaryMerger.Policy.MERGE);
+        String output = TestFiles.build("queue",
+                "queue\nA queue of items\n\nqueue\nitems\n\n", config);
+        assertTrue(TestFiles.read(output, "queue.html")
+                .contains("</a> of items items</p>"));
+        Glossary.buildStreaming("data/queue.txt", "data/queue-streamed",
+                config);
+        assertEquals(TestFiles.read(output, "queue.html"),
+                TestFiles.read("data/queue-streamed", "queue.html"));
+
+        TestFiles.write("data/queue-more.txt", "queue\nitems\n\n");
+        new GlossaryMerger(GlossaryMerger.Policy.MERGE).mergeInto(
+                List.of("data/queue.txt", "data/queue-more.txt"),
+                "data/queue-merged.txt");
+        assertEquals("queue\nA queue of items items\n\n",
+                TestFiles.read("data", "queue-merged.txt"));
+    }
+
+    /**
+     * Challenging test case for a k-way merge of sorted glossaries, with
+     * terms defined in several inputs, and for streaming builds, which must
+     * resolve repeated terms as the other builds do.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testMerge_Challenging() throws IOException {
+        TestFiles.write("data/merge-a.txt", "Apple\nA fruit.\n\n"
+                + "Java\nA language.\n\nZebra\nAn animal.\n\n");
+        TestFiles.write("data/merge-b.txt",
+                "Banana\nA fruit.\n\nJava\nAn island.\n\n");
+        TestFiles.write("data/merge-c.txt", "");
+        TestFiles.write("data/merge-d.txt", "Java\nA coffee.\n\n"
+                + "Java\nA language.\n\nYak\nAn animal.\n\n");
+
+        GlossaryMerger merger = new GlossaryMerger(
+                GlossaryMerger.Policy.MERGE);
+        int terms = merger.mergeInto(List.of("data/merge-a.txt",
+                "data/merge-b.txt", "data/merge-c.txt", "data/merge-d.txt"),
+                "data/merged.txt");
+
+        assertEquals(5, terms);
+        assertEquals(3, merger.conflictCount());
+        assertEquals("Apple\nA fruit.\n\nBanana\nA fruit.\n\n"
+                + "Java\nA language. An island. A coffee.\n\n"
+                + "Yak\nAn animal.\n\nZebra\nAn animal.\n\n",
+                TestFiles.read("data", "merged.txt"));
+        assertTrue(merger.toJson().contains("\"duplicate\": { \"source\": "
+                + "\"data/merge-d.txt\", \"line\": 4 }"));
+
+        TestFiles.write("data/repeated-stream.txt", REPEATED);
+        for (GlossaryMerger.Policy policy : new GlossaryMerger.Policy[] {
+                GlossaryMerger.Policy.LAST_WINS,
+                GlossaryMerger.Policy.MERGE }) {
+            BuildConfig config = BuildConfig.defaults();
+            config.setDuplicates(policy);
+            config.setBacklinks(true);
+            Glossary.build("data/repeated-stream.txt", "data/repeated-built",
+                    config);
+            Glossary.buildStreaming("data/repeated-stream.txt",
+                    "data/repeated-streamed", config);
+            for (String file : new String[] { "Java.html", "JUnit.html",
+                    GlossaryMerger.REPORT_FILE }) {
+                assertEquals(policy + " " + file,
+                        TestFiles.read("data/repeated-built", file),
+                        TestFiles.read("data/repeated-streamed", file));
+            }
+        }
+    }
+
+    /**
+     * Edge test case for inputs that cannot be merged. The fail policy
+     * reports the line of the repeated term, an input out of order is
+     * rejected and leaves the file merged into as it was, merging a file into
+     * itself is rejected, and so are the builds that only keep the first
+     * definition.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testFail_Edge() throws IOException {
+        String input = "data/repeated-fail.txt";
+        TestFiles.write(input, REPEATED);
+        BuildConfig config = BuildConfig.defaults();
+        config.setDuplicates(GlossaryMerger.Policy.FAIL);
+        try {
+            Glossary.build(input, "data/repeated-fail", config);
+            assertTrue(false);
+        } catch (GlossaryFormatException e) {
+            assertEquals(7, e.lineNumber());
+            assertTrue(e.getMessage().contains("term \"Java\" of " + input
+                    + " is already defined at " + input + ":1"));
+        }
+
+        TestFiles.write("data/unsorted.txt",
+                "Java\nA language.\n\nC\nA language.\n\n");
+        TestFiles.write("data/unsorted-merged.txt", "C\nA language.\n\n");
+        try {
+            new GlossaryMerger(GlossaryMerger.Policy.FIRST_WINS).mergeInto(
+                    List.of("data/unsorted.txt"), "data/unsorted-merged.txt");
+            assertTrue(false);
+        } catch (GlossaryFormatException e) {
+            assertEquals(4, e.lineNumber());
+        }
+        assertEquals("C\nA language.\n\n",
+                TestFiles.read("data", "unsorted-merged.txt"));
+        try {
+            new GlossaryMerger(GlossaryMerger.Policy.FIRST_WINS).mergeInto(
+                    List.of("data/unsorted.txt", "data/./unsorted-merged.txt"),
+                    "data/unsorted-merged.txt");
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("cannot also be merged"));
+        }
+
+        config.setDuplicates(GlossaryMerger.Policy.LAST_WINS);
+        try {
+            Glossary.buildMapped(input, "data/repeated-fail", config);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals("Only the first-wins duplicate policy is supported "
+                    + "by mapped builds", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,316 @@
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import components.simplereader.SimpleReader;
+
+/**
+ * Streaming reader for the glossary input format: a one-line term, the lines
+ * of its definition, and a blank line, repeated. Records are produced one at a
+ * time by {@link #next()}, so memory use does not grow with the size of the
+ * input: the definition is assembled in a single reusable buffer, and when
+ * reading from a {@code Reader} the lines are scanned directly out of a fixed
+ * character buffer without creating a {@code String} per line.
+ *
+ * <p>
+ * Extra blank lines between records are skipped. A term with nothing after it,
+ * or a definition that runs into the end of the input without a blank line, is
+ * reported with a {@link GlossaryFormatException} giving the line number.
+ *
+ * @author L. Oden
+ *
+ */
+public final class GlossaryParser implements AutoCloseable {
+
+    /**
+     * Size of the character buffer used with a {@code Reader}.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The input, when reading from a {@code Reader}.
+     */
+    private final Reader reader;
+
+    /**
+     * The input, when reading from a {@code SimpleReader}.
+     */
+    private final SimpleReader simpleReader;
+
+    /**
+     * Characters read from {@code reader} but not yet scanned.
+     */
+    private final char[] buffer;
+
+    /**
+     * Index of the next unscanned character in {@code buffer}.
+     */
+    private int position;
+
+    /**
+     * Number of valid characters in {@code buffer}.
+     */
+    private int limit;
+
+    /**
+     * Whether the last line ended with '\r', so a following '\n' is part of
+     * the same line break.
+     */
+    private boolean skipLineFeed;
+
+    /**
+     * Number of lines read so far.
+     */
+    private int lineNumber;
+
+    /**
+     * The term of the current record.
+     */
+    private String term;
+
+    /**
+     * The line number of the term of the current record.
+     */
+    private int termLine;
+
+    /**
+     * Reusable buffer holding the term line while it is read.
+     */
+    private final StringBuilder termBuffer = new StringBuilder();
+
+    /**
+     * Reusable buffer holding the definition of the current record.
+     */
+    private final StringBuilder definition = new StringBuilder();
+
+    /**
+     * Creates a parser reading from {@code reader}.
+     *
+     * @param reader
+     *            the glossary input
+     */
+    public GlossaryParser(Reader reader) {
+        assert reader != null : "Violation of: reader is not null";
+
+        this.reader = reader;
+        this.simpleReader = null;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a parser reading from {@code input}.
+     *
+     * @param input
+     *            the glossary input
+     * @requires input.is_open
+     */
+    public GlossaryParser(SimpleReader input) {
+        assert input != null : "Violation of: input is not null";
+        assert input.isOpen() : "Violation of: input.is_open";
+
+        this.reader = null;
+        this.simpleReader = input;
+        this.buffer = null;
+    }
+
+    /**
+     * Returns a parser reading the UTF-8 file {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the glossary input file
+     * @return the parser
+     * @throws UncheckedIOException
+     *             if the file cannot be opened
+     */
+    public static GlossaryParser open(String fileName) {
+        try {
+            return new GlossaryParser(new InputStreamReader(
+                    Files.newInputStream(Paths.get(fileName)),
+                    StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Advances to the next record of the input.
+     *
+     * @return true if there is a next record, false at the end of the input
+     * @throws GlossaryFormatException
+     *             if the next record is not complete
+     */
+    public boolean next() {
+        /*
+         * Skip blank lines until the term line; the end of the input here is
+         * the normal end of the glossary.
+         */
+        this.termBuffer.setLength(0);
+        do {
+            if (!this.readLine(this.termBuffer)) {
+                this.term = null;
+                return false;
+            }
+        } while (this.termBuffer.length() == 0);
+        this.term = this.termBuffer.toString();
+        this.termLine = this.lineNumber;
+
+        /*
+         * Append definition lines, with nothing between them, until a blank
+         * line.
+         */
+        this.definition.setLength(0);
+        boolean firstLine = true;
+        int mark = 0;
+        while (this.readLine(this.definition)) {
+            if (this.definition.length() == mark) {
+                return true;
+            }
+            mark = this.definition.length();
+            firstLine = false;
+        }
+        if (firstLine) {
+            throw new GlossaryFormatException(this.termLine,
+                    "term \"" + this.term + "\" has no definition");
+        }
+        throw new GlossaryFormatException(this.lineNumber, "definition of \""
+                + this.term + "\" (line " + this.termLine
+                + ") is not followed by a blank line");
+    }
+
+    /**
+     * Returns the term of the current record.
+     *
+     * @return the term
+     * @requires next() has returned true
+     */
+    public String term() {
+        assert this.term != null : "Violation of: there is a current record";
+
+        return this.term;
+    }
+
+    /**
+     * Returns the definition of the current record. The returned sequence is
+     * reused: it is only valid until the next call to {@link #next()}.
+     *
+     * @return the definition
+     * @requires next() has returned true
+     */
+    public CharSequence definition() {
+        assert this.term != null : "Violation of: there is a current record";
+
+        return this.definition;
+    }
+
+    /**
+     * Returns the line number of the term of the current record.
+     *
+     * @return the line number, counting from 1
+     * @requires next() has returned true
+     */
+    public int termLine() {
+        assert this.term != null : "Violation of: there is a current record";
+
+        return this.termLine;
+    }
+
+    /**
+     * Returns the number of lines read so far.
+     *
+     * @return the number of lines read
+     */
+    public int lineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+     * Appends the next line of the input, without its line break, to
+     * {@code line}.
+     *
+     * @param line
+     *            the buffer to append to
+     * @return false if the input was already at its end, true otherwise
+     */
+    private boolean readLine(StringBuilder line) {
+        if (this.simpleReader != null) {
+            if (this.simpleReader.atEOS()) {
+                return false;
+            }
+            line.append(this.simpleReader.nextLine());
+            this.lineNumber++;
+            return true;
+        }
+        boolean readAny = false;
+        while (this.fill()) {
+            if (this.skipLineFeed) {
+                this.skipLineFeed = false;
+                if (this.buffer[this.position] == '\n') {
+                    this.position++;
+                    continue;
+                }
+            }
+            readAny = true;
+            int start = this.position;
+            while (this.position < this.limit) {
+                char c = this.buffer[this.position];
+                if (c == '\n' || c == '\r') {
+                    line.append(this.buffer, start, this.position - start);
+                    this.position++;
+                    this.skipLineFeed = c == '\r';
+                    this.lineNumber++;
+                    return true;
+                }
+                this.position++;
+            }
+            line.append(this.buffer, start, this.position - start);
+        }
+        if (readAny) {
+            this.lineNumber++;
+        }
+        return readAny;
+    }
+
+    /**
+     * Makes sure {@code buffer} has an unscanned character, reading more from
+     * {@code reader} if needed.
+     *
+     * @return false at the end of the input, true otherwise
+     */
+    private boolean fill() {
+        while (this.position == this.limit) {
+            try {
+                int count = this.reader.read(this.buffer, 0,
+                        this.buffer.length);
+                if (count < 0) {
+                    return false;
+                }
+                this.position = 0;
+                this.limit = count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes the input.
+     */
+    @Override
+    public void close() {
+        if (this.simpleReader != null) {
+            this.simpleReader.close();
+        } else {
+            try {
+                this.reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+}
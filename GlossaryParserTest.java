@@ -0,0 +1,93 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the GlossaryParser class. Author: Logan Oden
+ */
+public class GlossaryParserTest {
+
+    /**
+     * Routine test case for the next method. Records are read in order, with
+     * multi-line definitions joined.
+     */
+    @Test
+    public void testNext_Routine() {
+        GlossaryParser parser = new GlossaryParser(new StringReader(
+                "Java\nA programming\n language.\n\nJUnit\nA testing "
+                        + "framework for Java.\n\n"));
+
+        assertTrue(parser.next());
+        assertEquals("Java", parser.term());
+        assertEquals("A programming language.",
+                parser.definition().toString());
+        assertEquals(1, parser.termLine());
+        assertTrue(parser.next());
+        assertEquals("JUnit", parser.term());
+        assertEquals("A testing framework for Java.",
+                parser.definition().toString());
+        assertEquals(5, parser.termLine());
+        assertFalse(parser.next());
+    }
+
+    /**
+     * Challenging test case for the next method. Windows line breaks, extra
+     * blank lines between records, and an empty definition.
+     */
+    @Test
+    public void testNext_Challenging() {
+        GlossaryParser parser = new GlossaryParser(
+                new StringReader("\r\nA\r\none\r\n\r\n\r\nB\r\n\r\n"));
+
+        assertTrue(parser.next());
+        assertEquals("A", parser.term());
+        assertEquals("one", parser.definition().toString());
+        assertEquals(2, parser.termLine());
+        assertTrue(parser.next());
+        assertEquals("B", parser.term());
+        assertEquals("", parser.definition().toString());
+        assertEquals(6, parser.termLine());
+        assertFalse(parser.next());
+    }
+
+    /**
+     * Challenging test case for the next method. A definition that reaches the
+     * end of the input without a blank line is reported with its line number.
+     */
+    @Test
+    public void testNext_Challenging2() {
+        GlossaryParser parser = new GlossaryParser(
+                new StringReader("A\none\n\nB\ntwo\nthree"));
+
+        assertTrue(parser.next());
+        try {
+            parser.next();
+            fail("Expected GlossaryFormatException");
+        } catch (GlossaryFormatException e) {
+            assertEquals(6, e.lineNumber());
+        }
+    }
+
+    /**
+     * Edge test case for the next method. Empty input, and a term with nothing
+     * after it.
+     */
+    @Test
+    public void testNext_Edge() {
+        assertFalse(new GlossaryParser(new StringReader("")).next());
+
+        GlossaryParser parser = new GlossaryParser(new StringReader("\nA"));
+        try {
+            parser.next();
+            fail("Expected GlossaryFormatException");
+        } catch (GlossaryFormatException e) {
+            assertEquals(2, e.lineNumber());
+        }
+    }
+
+}
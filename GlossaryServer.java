@@ -0,0 +1,365 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import components.map.Map;
+import components.queue.Queue;
+
+/**
+ * Serves a glossary over HTTP, rendering each term page when it is first
+ * requested instead of writing every page up front. The input is
+ * memory-mapped and parsed, and the term matcher built, once at startup;
+ * definitions stay in the mapping until their pages are rendered. Rendered
+ * term pages are kept in a {@link PageCache} of bounded size, so memory grows
+ * with the cache rather than with the glossary. The index pages are rendered
+ * at startup and always kept; a large glossary should use a sharded index.
+ *
+ * <p>
+ * Each request is handled on its own virtual thread where the JDK has them.
+ * The page of term t is served at /t.html, as in a built glossary, the index
+ * at / and /index.html, and the cache counters at {@value #STATS_PATH}.
+ *
+ * @author L. Oden
+ *
+ */
+public final class GlossaryServer {
+
+    /**
+     * Path of the plain-text cache counters.
+     */
+    public static final String STATS_PATH = "/stats";
+
+    /**
+     * Initial size of the buffer a term page is rendered into.
+     */
+    private static final int PAGE_CAPACITY = 4 * 1024;
+
+    /**
+     * HTTP status of a served page.
+     */
+    private static final int OK = 200;
+
+    /**
+     * HTTP status of a page that does not exist.
+     */
+    private static final int NOT_FOUND = 404;
+
+    /**
+     * HTTP status of a request other than GET.
+     */
+    private static final int METHOD_NOT_ALLOWED = 405;
+
+    /**
+     * The mapped input.
+     */
+    private final MappedGlossary glossary;
+
+    /**
+     * The term matcher built from all terms.
+     */
+    private final TermMatcher matcher;
+
+    /**
+     * The layout of the index.
+     */
+    private final IndexLayout index;
+
+    /**
+     * {@code records[i]} is the record of the definition of term i.
+     */
+    private final int[] records;
+
+    /**
+     * The index pages, by file name; not changed after startup.
+     */
+    private final java.util.Map<String, byte[]> indexPages;
+
+    /**
+     * The rendered term pages.
+     */
+    private final PageCache cache;
+
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * The executor the requests are handled on.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Loads the glossary in {@code inputFile} and starts serving it on
+     * {@code port}.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param port
+     *            the port to listen on, or 0 for any free port
+     * @param cacheBytes
+     *            the most bytes the cached term pages may take up
+     * @param config
+     *            the build settings; the order, separators and index layout
+     *            apply
+     * @throws GlossaryFormatException
+     *             if the input is malformed
+     * @requires 0 <= port <= 65535 and cacheBytes >= 0
+     */
+    private GlossaryServer(String inputFile, int port, long cacheBytes,
+            BuildConfig config) {
+        this.glossary = MappedGlossary.map(inputFile);
+        Map<String, Integer> firstRecords = this.glossary.firstRecords();
+        Queue<String> sortedKeys = Glossary.sortingKeys(firstRecords,
+                config.order());
+        this.matcher = config.termMatcher(sortedKeys);
+        this.index = config.indexLayout(sortedKeys);
+
+        /*
+         * Term indexes follow the order of sortedKeys, so the records can be
+         * kept in an array instead of the map.
+         */
+        this.records = new int[sortedKeys.length()];
+        int position = 0;
+        for (String s : sortedKeys) {
+            this.records[position] = firstRecords.value(s);
+            position++;
+        }
+
+        this.indexPages = new HashMap<>();
+        SiteWriter out = SiteWriter.to(new Pinned(this.indexPages));
+        Glossary.writeIndex(sortedKeys, this.index, out);
+        out.close();
+
+        this.cache = new PageCache(cacheBytes);
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.executor = PageGenerator.newVirtualThreadExecutor(
+                Runtime.getRuntime().availableProcessors());
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Loads the glossary in {@code inputFile} and starts serving it on
+     * {@code port}. Returns once the server is accepting requests.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param port
+     *            the port to listen on, or 0 for any free port
+     * @param cacheBytes
+     *            the most bytes the cached term pages may take up
+     * @param config
+     *            the build settings; the order, separators and index layout
+     *            apply
+     * @return the running server
+     * @throws GlossaryFormatException
+     *             if the input is malformed
+     * @throws IllegalArgumentException
+     *             if {@code config} keeps other than the first definition of
+     *             a repeated term, since the mapping only locates the first
+     * @requires 0 <= port <= 65535 and cacheBytes >= 0
+     */
+    public static GlossaryServer start(String inputFile, int port,
+            long cacheBytes, BuildConfig config) {
+        assert 0 <= port && port <= 65535 : "Violation of: 0 <= port <= 65535";
+        assert cacheBytes >= 0 : "Violation of: cacheBytes >= 0";
+
+        if (config.duplicates() != GlossaryMerger.Policy.FIRST_WINS) {
+            throw new IllegalArgumentException(
+                    "Only the first-wins duplicate policy is supported by "
+                            + "the server");
+        }
+        return new GlossaryServer(inputFile, port, cacheBytes, config);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the cache of rendered term pages.
+     *
+     * @return the cache
+     */
+    public PageCache cache() {
+        return this.cache;
+    }
+
+    /**
+     * Returns the page {@code name}, rendering it if it is a term page that is
+     * not cached. Two requests for the same uncached page may both render it;
+     * the pages are the same, so either may be kept.
+     *
+     * @param name
+     *            the file name of the page, as in a built glossary
+     * @return the page, or null if there is no such page
+     */
+    public byte[] page(String name) {
+        byte[] page = this.indexPages.get(name);
+        if (page != null || !name.endsWith(".html")) {
+            return page;
+        }
+        String term = name.substring(0, name.length() - ".html".length());
+        int termIndex = this.matcher.termIndex(term);
+        if (termIndex < 0) {
+            return null;
+        }
+        page = this.cache.get(name);
+        if (page == null) {
+            HtmlBuffer termPage = new HtmlBuffer(PAGE_CAPACITY);
+            Glossary.renderTerm(this.matcher, this.index, termIndex,
+                    MatchedDefinition.match(this.matcher,
+                            this.glossary.definition(this.records[termIndex])),
+                    termPage, null);
+            page = termPage.toByteArray();
+            this.cache.put(name, page);
+        }
+        return page;
+    }
+
+    /**
+     * Stops the server, letting requests being handled finish.
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdown();
+    }
+
+    /**
+     * Answers one request.
+     *
+     * @param exchange
+     *            the request and its response
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, METHOD_NOT_ALLOWED, "text/plain",
+                        new byte[0]);
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals(STATS_PATH)) {
+                respond(exchange, OK, "text/plain; charset=UTF-8",
+                        this.stats().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            String name = IndexLayout.INDEX_PAGE;
+            if (!path.equals("/")) {
+                name = path.substring(1);
+            }
+            byte[] page = this.page(name);
+            if (page == null) {
+                respond(exchange, NOT_FOUND, "text/plain",
+                        ("No page " + path).getBytes(StandardCharsets.UTF_8));
+            } else {
+                respond(exchange, OK, "text/html; charset=UTF-8", page);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the cache counters, one "name: value" per line.
+     *
+     * @return the counters
+     */
+    private String stats() {
+        return "pages: " + this.cache.size() + "\nbytes: " + this.cache.bytes()
+                + "\nhits: " + this.cache.hits() + "\nmisses: "
+                + this.cache.misses() + "\nevictions: "
+                + this.cache.evictions() + "\n";
+    }
+
+    /**
+     * Sends a response with {@code body}.
+     *
+     * @param exchange
+     *            the request and its response
+     * @param status
+     *            the HTTP status
+     * @param contentType
+     *            the type of the body
+     * @param body
+     *            the body
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private static void respond(HttpExchange exchange, int status,
+            String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        // A length of -1 means no body, and 0 a body of unknown length
+        long length = body.length;
+        if (length == 0) {
+            length = -1;
+        }
+        exchange.sendResponseHeaders(status, length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    /**
+     * Destination that keeps the files written in a map.
+     */
+    private static final class Pinned implements SiteWriter.Destination {
+
+        /**
+         * The files, by name.
+         */
+        private final java.util.Map<String, byte[]> files;
+
+        /**
+         * Constructor.
+         *
+         * @param files
+         *            the map the files are put in
+         */
+        Pinned(java.util.Map<String, byte[]> files) {
+            this.files = files;
+        }
+
+        @Override
+        public synchronized void write(String fileName, ByteBuffer bytes) {
+            byte[] copy = new byte[bytes.remaining()];
+            bytes.get(copy);
+            this.files.put(fileName, copy);
+        }
+
+        @Override
+        public synchronized boolean delete(String fileName) {
+            return this.files.remove(fileName) != null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void discard() {
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the GlossaryServer class. Author: Logan Oden
+ */
+public class GlossaryServerTest {
+
+    /**
+     * The glossary served.
+     */
+    private static final String GLOSSARY = "Java\nA language, tested with "
+            + "JUnit.\n\nJUnit\nTests Java & more.\n\n"
+            + "R&D\nResearch <and> development.\n\n";
+
+    /**
+     * Returns the status and body of a GET of {@code path} from
+     * {@code server}.
+     *
+     * @param server
+     *            the server
+     * @param path
+     *            the path, already URL-encoded
+     * @return the status, a newline, and the body
+     * @throws IOException
+     *             if the request fails
+     */
+    private static String get(GlossaryServer server, String path)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://localhost:" + server.port() + path).openConnection();
+        int status = connection.getResponseCode();
+        InputStream body = connection.getErrorStream();
+        if (status == 200) {
+            body = connection.getInputStream();
+        }
+        String text = "";
+        if (body != null) {
+            text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            body.close();
+        }
+        connection.disconnect();
+        return status + "\n" + text;
+    }
+
+    /**
+     * Routine test case for the page method. Every page served is the file a
+     * build writes.
+     *
+     * @throws IOException
+     *             if the files cannot be accessed
+     */
+    @Test
+    public void testPage_Routine() throws IOException {
+        String inputFile = "data/served.txt";
+        String outputFolder = "data/served";
+        TestFiles.write(inputFile, GLOSSARY);
+        BuildConfig config = BuildConfig.defaults();
+        config.setIndex("2");
+        Glossary.build(inputFile, outputFolder, config);
+
+        GlossaryServer server = GlossaryServer.start(inputFile, 0, 1 << 20,
+                config);
+        try {
+            for (String name : new String[] { "index.html", "index-1.html",
+                "index-2.html", "Java.html", "JUnit.html", "R&D.html" }) {
+                assertEquals(name, TestFiles.read(outputFolder, name),
+                        new String(server.page(name), StandardCharsets.UTF_8));
+            }
+            assertNull(server.page("Python.html"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Challenging test case for the start method. Pages are served over HTTP
+     * by their URL-encoded names, the second request for a page is a cache
+     * hit, and the counters are served at the stats path.
+     *
+     * @throws IOException
+     *             if the files cannot be accessed
+     */
+    @Test
+    public void testStart_Challenging() throws IOException {
+        String inputFile = "data/served.txt";
+        TestFiles.write(inputFile, GLOSSARY);
+        GlossaryServer server = GlossaryServer.start(inputFile, 0, 1 << 20,
+                BuildConfig.defaults());
+        try {
+            String first = get(server, "/R%26D.html");
+            String second = get(server, "/R%26D.html");
+            String index = get(server, "/");
+            String missing = get(server, "/Python.html");
+            String stats = get(server, GlossaryServer.STATS_PATH);
+
+            assertTrue(first.startsWith("200\n"));
+            assertTrue(first.contains("Research &lt;and&gt; development."));
+            assertEquals(first, second);
+            assertTrue(index.contains("<a href = \"JUnit.html\">JUnit</a>"));
+            assertTrue(missing.startsWith("404\n"));
+            assertEquals(1, server.cache().hits());
+            assertTrue(stats.contains("hits: 1\n"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Edge test case for the page method. With an empty cache, pages are
+     * rendered on every request, and a server is not started for a duplicate
+     * policy it cannot apply.
+     *
+     * @throws IOException
+     *             if the files cannot be accessed
+     */
+    @Test
+    public void testPage_Edge() throws IOException {
+        String inputFile = "data/served.txt";
+        TestFiles.write(inputFile, GLOSSARY);
+        GlossaryServer server = GlossaryServer.start(inputFile, 0, 0,
+                BuildConfig.defaults());
+        try {
+            byte[] page = server.page("Java.html");
+
+            assertArrayEquals(page, server.page("Java.html"));
+            assertEquals(0, server.cache().size());
+            assertEquals(2, server.cache().misses());
+        } finally {
+            server.stop();
+        }
+
+        BuildConfig merging = BuildConfig.defaults();
+        merging.setDuplicates(GlossaryMerger.Policy.MERGE);
+        try {
+            GlossaryServer.start(inputFile, 0, 0, merging).stop();
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals("Only the first-wins duplicate policy is supported "
+                    + "by the server", e.getMessage());
+        }
+    }
+
+}
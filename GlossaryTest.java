@@ -1,7 +1,12 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 import org.junit.Test;
 
 import components.map.Map;
@@ -240,4 +245,211 @@ public class GlossaryTest {
         assertEquals("    ", resultPair.value());
     }
 
+    /**
+     * Challenging test case for the processTerm method. Tests with a term and
+     * definition containing HTML markup characters, which are escaped.
+     *
+     * @throws IOException
+     *             if the page cannot be read
+     */
+    @Test
+    public void testProcessTerm_Challenging3() throws IOException {
+        Queue<String> terms = new Queue1L<>();
+        terms.enqueue("R&D");
+        terms.enqueue("x");
+
+        Glossary.processTerm(terms, Glossary.pair("R&D", "if x < \"y\"."),
+                "data");
+
+        String page = TestFiles.read("data", "R&D.html");
+        assertTrue(page.contains("<title>R&amp;D</title>"));
+        assertTrue(page.contains(
+                "if <a href = \"x.html\">x</a> &lt; &quot;y&quot;.</p>"));
+    }
+
+    /**
+     * Writes {@code content} to the input file {@code inputFile}, then builds
+     * it incrementally into {@code outputFolder}.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param content
+     *            the glossary input
+     * @param outputFolder
+     *            the output folder
+     * @return the number of term pages written
+     * @throws IOException
+     *             if the input file cannot be written
+     */
+    private static int buildIncremental(String inputFile, String content,
+            String outputFolder) throws IOException {
+        TestFiles.write(inputFile, content);
+        return Glossary.buildIncremental(inputFile, outputFolder,
+                BuildConfig.defaults());
+    }
+
+    /**
+     * Routine test case for the buildIncremental method. Only the page of a
+     * changed definition is rewritten.
+     *
+     * @throws IOException
+     *             if a file cannot be written
+     */
+    @Test
+    public void testBuildIncremental_Routine() throws IOException {
+        String outputFolder = "data/incremental";
+        TestFiles.clear(outputFolder);
+        String input = "data/incremental.txt";
+
+        assertEquals(3, buildIncremental(input,
+                "A\nsee B.\n\nB\nplain.\n\nC\nnothing.\n\n", outputFolder));
+        assertEquals(0, buildIncremental(input,
+                "A\nsee B.\n\nB\nplain.\n\nC\nnothing.\n\n", outputFolder));
+        assertEquals(1, buildIncremental(input,
+                "A\nsee B.\n\nB\nplain.\n\nC\nsomething.\n\n", outputFolder));
+    }
+
+    /**
+     * Challenging test case for the buildIncremental method. Adding a term
+     * rewrites its page and the pages where it occurs; removing a term deletes
+     * its page and rewrites the pages that linked to it.
+     *
+     * @throws IOException
+     *             if a file cannot be written
+     */
+    @Test
+    public void testBuildIncremental_Challenging() throws IOException {
+        String outputFolder = "data/incremental2";
+        TestFiles.clear(outputFolder);
+        String input = "data/incremental2.txt";
+
+        assertEquals(3, buildIncremental(input,
+                "A\nsee B and D.\n\nB\nplain.\n\nC\nnothing.\n\n",
+                outputFolder));
+        assertEquals(2, buildIncremental(input,
+                "A\nsee B and D.\n\nB\nplain.\n\nC\nnothing.\n\nD\nnew.\n\n",
+                outputFolder));
+        assertTrue(TestFiles.read(outputFolder, "A.html")
+                .contains("<a href = \"D.html\">"));
+        assertEquals(1, buildIncremental(input,
+                "A\nsee B and D.\n\nC\nnothing.\n\nD\nnew.\n\n",
+                outputFolder));
+        assertFalse(Files.exists(Paths.get(outputFolder, "B.html")));
+        assertFalse(TestFiles.read(outputFolder, "index.html")
+                .contains("B.html"));
+    }
+
+    /**
+     * Edge test case for the buildIncremental method. With a collation order
+     * that differs from raw order, removing a term still rewrites the pages
+     * that linked to it, and nothing else.
+     *
+     * @throws IOException
+     *             if the input cannot be written
+     */
+    @Test
+    public void testBuildIncremental_Edge() throws IOException {
+        String outputFolder = "data/incremental3";
+        TestFiles.clear(outputFolder);
+        String input = "data/incremental3.txt";
+        BuildConfig config = BuildConfig.defaults();
+        config.setOrder(TermOrder.parse("en:secondary"));
+
+        TestFiles.write(input, "B\nsee a.\n\na\nplain.\n\nc\nsee B.\n\n");
+        assertEquals(3, Glossary.buildIncremental(input, outputFolder, config));
+        TestFiles.write(input, "B\nsee a.\n\nc\nsee B.\n\n");
+        assertEquals(1, Glossary.buildIncremental(input, outputFolder, config));
+        assertFalse(
+                TestFiles.read(outputFolder, "B.html").contains("a.html"));
+    }
+
+    /**
+     * Challenging test case for the buildIncremental method. An index sharded
+     * by letter links each page to its shard; going back to a single index
+     * rewrites every page and deletes the shards.
+     *
+     * @throws IOException
+     *             if the input or output files cannot be accessed
+     */
+    @Test
+    public void testBuildIncremental_Challenging2() throws IOException {
+        String outputFolder = "data/incremental4";
+        TestFiles.clear(outputFolder);
+        String input = "data/incremental4.txt";
+        String text = "apple\nfruit.\n\navocado\nalso fruit.\n\n"
+                + "banana\nsee apple.\n\n";
+        TestFiles.write(input, text);
+        BuildConfig config = BuildConfig.defaults();
+        config.setIndex("letter");
+
+        assertEquals(3, Glossary.buildIncremental(input, outputFolder, config));
+        assertTrue(TestFiles.read(outputFolder, "banana.html")
+                .contains("\"index-2.html\""));
+        assertTrue(TestFiles.read(outputFolder, "index-1.html")
+                .contains("avocado.html"));
+        config.setIndex("single");
+        assertEquals(3, Glossary.buildIncremental(input, outputFolder, config));
+        assertFalse(Files.exists(Paths.get(outputFolder, "index-1.html")));
+        assertFalse(Files.exists(Paths.get(outputFolder, "index-2.html")));
+        assertTrue(TestFiles.read(outputFolder, "index.html")
+                .contains("banana.html"));
+    }
+
+    /**
+     * Edge test case for the buildIncremental method. Changing the separators
+     * rewrites every page, since any of them may link differently, into the
+     * pages of a full build with the same separators.
+     *
+     * @throws IOException
+     *             if the input or output files cannot be accessed
+     */
+    @Test
+    public void testBuildIncrementalSeparators_Edge() throws IOException {
+        String outputFolder = "data/incremental5";
+        TestFiles.clear(outputFolder);
+        String input = "data/incremental5.txt";
+        assertEquals(2, buildIncremental(input,
+                "queue\nA list, not a stack-like one.\n\nstack\nA list.\n\n",
+                outputFolder));
+
+        BuildConfig config = BuildConfig.defaults();
+        config.setSeparators(SeparatorTable.of(" .,-"));
+        assertEquals(2, Glossary.buildIncremental(input, outputFolder, config));
+        assertEquals(0, Glossary.buildIncremental(input, outputFolder, config));
+        Glossary.build(input, "data/incremental5-full", config);
+        String page = TestFiles.read(outputFolder, "queue.html");
+        assertTrue(page.contains("<a href = \"stack.html\">stack</a>-like"));
+        assertEquals(page,
+                TestFiles.read("data/incremental5-full", "queue.html"));
+    }
+
+    /**
+     * Edge test case for the buildIncremental method. Archives and atomic
+     * output, which write the whole output anew, are rejected.
+     */
+    @Test
+    public void testBuildIncrementalOutput_Edge() {
+        BuildConfig config = BuildConfig.defaults();
+        config.setArchive("zip");
+        try {
+            Glossary.buildIncremental("data/incremental.txt",
+                    "data/incremental-zip", config);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals("Archives are not supported by incremental builds",
+                    e.getMessage());
+        }
+        config = BuildConfig.defaults();
+        config.setAtomic(true);
+        try {
+            Glossary.buildIncremental("data/incremental.txt",
+                    "data/incremental-atomic", config);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals(
+                    "Atomic output is not supported by incremental builds",
+                    e.getMessage());
+        }
+    }
+
 }
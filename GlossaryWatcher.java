@@ -0,0 +1,248 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import components.simplewriter.SimpleWriter;
+
+/**
+ * Keeps an output folder up to date with a glossary input file as it is
+ * edited. The folder holding the input file is watched with a
+ * {@link WatchService}; after each change to the file, the glossary is
+ * rebuilt with {@link Glossary#buildIncremental}, which compares the new
+ * terms and definitions with the manifest of the previous build and rewrites
+ * only the pages of added and changed terms, the pages that link to added or
+ * removed terms, and the index if the terms changed.
+ *
+ * <p>
+ * Editors often save a file in several steps, or several times in a row, so a
+ * rebuild waits until the file has been quiet for a debounce interval, and a
+ * burst of changes leads to a single rebuild.
+ *
+ * @author L. Oden
+ *
+ */
+public final class GlossaryWatcher implements AutoCloseable {
+
+    /**
+     * Milliseconds the input must be quiet before a rebuild, unless
+     * --debounce-ms says otherwise.
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+
+    /**
+     * Milliseconds {@link #run} waits for a change at a time.
+     */
+    private static final long WAIT_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * The input file.
+     */
+    private final Path inputFile;
+
+    /**
+     * The folder where all output files are stored.
+     */
+    private final String outputFolder;
+
+    /**
+     * The build settings.
+     */
+    private final BuildConfig config;
+
+    /**
+     * Milliseconds the input must be quiet before a rebuild.
+     */
+    private final long debounceMillis;
+
+    /**
+     * The watch service of the folder holding the input file.
+     */
+    private final WatchService watcher;
+
+    /**
+     * Starts watching {@code inputFile}.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @param config
+     *            the build settings
+     * @param debounceMillis
+     *            milliseconds the input must be quiet before a rebuild
+     * @requires debounceMillis >= 0
+     */
+    public GlossaryWatcher(String inputFile, String outputFolder,
+            BuildConfig config, long debounceMillis) {
+        assert debounceMillis >= 0 : "Violation of: debounceMillis >= 0";
+
+        this.inputFile = Paths.get(inputFile).toAbsolutePath().normalize();
+        this.outputFolder = outputFolder;
+        this.config = config;
+        this.debounceMillis = debounceMillis;
+        /*
+         * Editors that save by writing a new file and renaming it over the
+         * old one create the file rather than modify it, so both are watched.
+         */
+        try {
+            this.watcher = this.inputFile.getFileSystem().newWatchService();
+            this.inputFile.getParent().register(this.watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Rebuilds the glossary from the input file as it is now.
+     *
+     * @return the number of term pages written
+     */
+    public int rebuild() {
+        return Glossary.buildIncremental(this.inputFile.toString(),
+                this.outputFolder, this.config);
+    }
+
+    /**
+     * Waits up to {@code timeoutMillis} for the input file to change, then
+     * for it to be quiet for the debounce interval, and rebuilds the
+     * glossary. Changes to other files in the same folder are ignored. If
+     * the file is missing once quiet, as while an editor replaces it, the
+     * rebuild waits for the next change.
+     *
+     * @param timeoutMillis
+     *            milliseconds to wait for a change
+     * @return the number of term pages written, or -1 if the file did not
+     *         change in time
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public int awaitChange(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean changed = false;
+        while (!changed || !Files.isReadable(this.inputFile)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return -1;
+            }
+            WatchKey key = this.watcher.poll(remaining, TimeUnit.NANOSECONDS);
+            if (key != null) {
+                changed = this.inputChanged(key) || changed;
+                if (changed) {
+                    this.awaitQuiet();
+                }
+            }
+        }
+        return this.rebuild();
+    }
+
+    /**
+     * Waits until no event has arrived for the debounce interval, consuming
+     * the events that do.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private void awaitQuiet() throws InterruptedException {
+        WatchKey key = this.watcher.poll(this.debounceMillis,
+                TimeUnit.MILLISECONDS);
+        while (key != null) {
+            this.inputChanged(key);
+            key = this.watcher.poll(this.debounceMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Consumes the events of {@code key} and re-arms it.
+     *
+     * @param key
+     *            the signalled key of the watched folder
+     * @return whether any event was about the input file, or events were
+     *         lost
+     */
+    private boolean inputChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || this.inputFile.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Reports on {@code log} why a rebuild failed.
+     *
+     * @param log
+     *            where rebuilds are reported
+     * @param failure
+     *            the failure, whose message names the line of a malformed
+     *            input
+     */
+    private void logFailure(SimpleWriter log, RuntimeException failure) {
+        log.println("Rebuild failed, " + this.inputFile + " "
+                + failure.getMessage() + "; waiting for the next change.");
+    }
+
+    /**
+     * Rebuilds the glossary, then again after every change to the input file,
+     * until closed or interrupted. Each rebuild is reported on {@code log}. A
+     * rebuild that fails, as it does while an editor is halfway through
+     * saving the file, is reported too, and watching goes on.
+     *
+     * @param log
+     *            where rebuilds are reported
+     */
+    public void run(SimpleWriter log) {
+        try {
+            int written = this.rebuild();
+            log.println(written + " term pages rewritten; watching "
+                    + this.inputFile + " for changes.");
+        } catch (GlossaryFormatException | UncheckedIOException e) {
+            this.logFailure(log, e);
+        }
+        try {
+            while (true) {
+                try {
+                    int written = this.awaitChange(WAIT_MILLIS);
+                    if (written >= 0) {
+                        log.println(written + " term pages rewritten.");
+                    }
+                } catch (GlossaryFormatException | UncheckedIOException e) {
+                    this.logFailure(log, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed from another thread: stop watching
+            log.println("Stopped watching " + this.inputFile + ".");
+        }
+    }
+
+    /**
+     * Stops watching the input file.
+     */
+    @Override
+    public void close() {
+        try {
+            this.watcher.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
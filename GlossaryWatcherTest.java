@@ -0,0 +1,158 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * JUnit test cases for the GlossaryWatcher class. Author: Logan Oden
+ */
+public class GlossaryWatcherTest {
+
+    /**
+     * Milliseconds to wait for a change that is expected.
+     */
+    private static final long TIMEOUT = 10000;
+
+    /**
+     * Milliseconds to wait for a change that is not expected.
+     */
+    private static final long QUIET = 500;
+
+    /**
+     * Returns a new watcher of "input.txt" in {@code folder}, holding a
+     * glossary of two terms, after a first full build to "out" in the same
+     * folder.
+     *
+     * @param folder
+     *            the folder
+     * @return the watcher
+     * @throws IOException
+     *             if the files cannot be accessed
+     */
+    private static GlossaryWatcher watch(String folder) throws IOException {
+        Files.createDirectories(Paths.get(folder));
+        TestFiles.clear(folder + "/out");
+        TestFiles.write(folder + "/input.txt",
+                "Java\nA language.\n\nJUnit\nTests Java.\n\n");
+        GlossaryWatcher watcher = new GlossaryWatcher(folder + "/input.txt",
+                folder + "/out", BuildConfig.defaults(), 50);
+        assertEquals(2, watcher.rebuild());
+        return watcher;
+    }
+
+    /**
+     * Routine test case for the awaitChange method. Changing one definition
+     * rewrites its page only.
+     *
+     * @throws IOException
+     *             if the files cannot be accessed
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    public void testAwaitChange_Routine()
+            throws IOException, InterruptedException {
+        try (GlossaryWatcher watcher = watch("data/watch1")) {
+            TestFiles.write("data/watch1/input.txt",
+                    "Java\nA language.\n\nJUnit\nTests Java code.\n\n");
+
+            assertEquals(1, watcher.awaitChange(TIMEOUT));
+            assertTrue(TestFiles.read("data/watch1/out", "JUnit.html")
+                    .contains("code."));
+        }
+    }
+
+    /**
+     * Challenging test case for the awaitChange method. A burst of saves leads
+     * to a single rebuild, of the last version.
+     *
+     * @throws IOException
+     *             if the files cannot be accessed
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    public void testAwaitChange_Challenging()
+            throws IOException, InterruptedException {
+        try (GlossaryWatcher watcher = watch("data/watch2")) {
+            String input = "data/watch2/input.txt";
+            TestFiles.write(input, "Java\nA language.\n\n");
+            TestFiles.write(input,
+                    "Java\nA language.\n\nJUnit\nTests Java.\n\n");
+            TestFiles.write(input, "Java\nA language.\n\nJUnit\nTests Java.\n\n"
+                    + "Kotlin\nLike Java.\n\n");
+
+            assertEquals(1, watcher.awaitChange(TIMEOUT));
+            assertEquals(-1, watcher.awaitChange(QUIET));
+            assertTrue(Files.exists(Paths.get("data/watch2/out/Kotlin.html")));
+        }
+    }
+
+    /**
+     * Edge test case for the awaitChange method. Changes to other files in
+     * the folder of the input are ignored.
+     *
+     * @throws IOException
+     *             if the files cannot be accessed
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    public void testAwaitChange_Edge()
+            throws IOException, InterruptedException {
+        try (GlossaryWatcher watcher = watch("data/watch3")) {
+            TestFiles.write("data/watch3/notes.txt", "Not a glossary.");
+
+            assertEquals(-1, watcher.awaitChange(QUIET));
+        }
+    }
+
+    /**
+     * Edge test case for the run method. A save of a malformed glossary is
+     * reported with the line at fault, and watching goes on, so the next
+     * save is rebuilt.
+     *
+     * @throws IOException
+     *             if the files cannot be accessed
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    public void testRun_Edge() throws IOException, InterruptedException {
+        String input = "data/watch4/input.txt";
+        Path kotlin = Paths.get("data/watch4/out/Kotlin.html");
+        GlossaryWatcher watcher = watch("data/watch4");
+        Files.deleteIfExists(kotlin);
+        SimpleWriter log = new SimpleWriter1L("data/watch4/log.txt");
+        Thread running = new Thread(() -> watcher.run(log));
+        running.start();
+        try {
+            TestFiles.write(input, "Java\nA language.\n\nKotlin\n");
+            Thread.sleep(QUIET);
+            TestFiles.write(input,
+                    "Java\nA language.\n\nKotlin\nLike Java.\n\n");
+            long deadline = System.currentTimeMillis() + TIMEOUT;
+            while (!Files.exists(kotlin)) {
+                assertTrue("the fixed glossary was not rebuilt",
+                        System.currentTimeMillis() <= deadline);
+                Thread.sleep(50);
+            }
+        } finally {
+            watcher.close();
+            running.join();
+            log.close();
+        }
+        String logged = TestFiles.read("data/watch4", "log.txt");
+        assertTrue(logged, logged.contains("Rebuild failed"));
+        assertTrue(logged, logged.contains("line 4: "));
+    }
+
+}
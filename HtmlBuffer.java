@@ -0,0 +1,196 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable buffer of the UTF-8 bytes of a page being rendered. Static markup
+ * is appended as bytes encoded in advance; text is HTML-escaped and encoded
+ * in the same loop, straight into the buffer, with no intermediate
+ * {@code String}.
+ *
+ * @author L. Oden
+ *
+ */
+public final class HtmlBuffer {
+
+    /**
+     * The longest encoding of a single char: "&quot;".
+     */
+    private static final int MAX_CHAR_BYTES = 6;
+
+    /**
+     * The bytes.
+     */
+    private byte[] bytes;
+
+    /**
+     * Number of bytes used.
+     */
+    private int length;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            the initial capacity in bytes
+     * @requires capacity > 0
+     */
+    public HtmlBuffer(int capacity) {
+        assert capacity > 0 : "Violation of: capacity > 0";
+
+        this.bytes = new byte[capacity];
+    }
+
+    /**
+     * Empties the buffer, keeping its capacity.
+     */
+    public void clear() {
+        this.length = 0;
+    }
+
+    /**
+     * Returns the number of bytes in the buffer.
+     *
+     * @return the length in bytes
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Returns a view of the bytes in the buffer, valid until it is next
+     * changed.
+     *
+     * @return the bytes, from position 0 to the length
+     */
+    public ByteBuffer bytes() {
+        return ByteBuffer.wrap(this.bytes, 0, this.length);
+    }
+
+    /**
+     * Returns a copy of the bytes in the buffer.
+     *
+     * @return the bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.bytes, this.length);
+    }
+
+    /**
+     * Makes room for {@code extra} more bytes.
+     *
+     * @param extra
+     *            the number of bytes about to be appended
+     */
+    private void ensure(int extra) {
+        int needed = this.length + extra;
+        if (needed > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes,
+                    Math.max(needed, 2 * this.bytes.length));
+        }
+    }
+
+    /**
+     * Appends pre-encoded {@code markup} as is.
+     *
+     * @param markup
+     *            the bytes to append
+     */
+    public void appendRaw(byte[] markup) {
+        this.ensure(markup.length);
+        System.arraycopy(markup, 0, this.bytes, this.length, markup.length);
+        this.length += markup.length;
+    }
+
+    /**
+     * Appends {@code text}, escaped for use in HTML text and attribute values.
+     *
+     * @param text
+     *            the text to append
+     */
+    public void appendText(CharSequence text) {
+        this.appendText(text, 0, text.length());
+    }
+
+    /**
+     * Appends {@code text[start, end)}, escaped for use in HTML text and
+     * attribute values: '&amp;', '&lt;', '&gt;', '"' and '\'' are replaced
+     * by character references, and everything else is encoded in UTF-8. An
+     * unpaired surrogate is written as '?'.
+     *
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the part to append
+     * @param end
+     *            the end of the part to append
+     * @requires 0 <= start <= end <= |text|
+     */
+    public void appendText(CharSequence text, int start, int end) {
+        this.ensure(MAX_CHAR_BYTES * (end - start));
+        byte[] b = this.bytes;
+        int n = this.length;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '&':
+                        n = put(b, n, "&amp;");
+                        break;
+                    case '<':
+                        n = put(b, n, "&lt;");
+                        break;
+                    case '>':
+                        n = put(b, n, "&gt;");
+                        break;
+                    case '"':
+                        n = put(b, n, "&quot;");
+                        break;
+                    case '\'':
+                        n = put(b, n, "&#39;");
+                        break;
+                    default:
+                        b[n++] = (byte) c;
+                        break;
+                }
+            } else if (c < 0x800) {
+                b[n++] = (byte) (0xC0 | (c >> 6));
+                b[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(i + 1));
+                i++;
+                b[n++] = (byte) (0xF0 | (cp >> 18));
+                b[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                b[n++] = '?';
+            } else {
+                b[n++] = (byte) (0xE0 | (c >> 12));
+                b[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        this.length = n;
+    }
+
+    /**
+     * Puts the ASCII {@code reference} into {@code b} at {@code n}.
+     *
+     * @param b
+     *            the bytes
+     * @param n
+     *            where to put the reference
+     * @param reference
+     *            the character reference
+     * @return the position after the reference
+     */
+    private static int put(byte[] b, int n, String reference) {
+        int p = n;
+        for (int i = 0; i < reference.length(); i++) {
+            b[p++] = (byte) reference.charAt(i);
+        }
+        return p;
+    }
+
+}
@@ -0,0 +1,62 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the HtmlBuffer class. Author: Logan Oden
+ */
+public class HtmlBufferTest {
+
+    /**
+     * Routine test case for the appendText method. Markup characters are
+     * replaced by character references.
+     */
+    @Test
+    public void testAppendText_Routine() {
+        HtmlBuffer buffer = new HtmlBuffer(16);
+
+        buffer.appendText("<a href='x'>\"R&D\"</a>");
+
+        assertEquals(
+                "&lt;a href=&#39;x&#39;&gt;&quot;R&amp;D&quot;&lt;/a&gt;",
+                new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Challenging test case for the appendText method. Two, three and
+     * four-byte characters are encoded as by String.getBytes, while the
+     * buffer grows from a single byte.
+     */
+    @Test
+    public void testAppendText_Challenging() {
+        String text = "caf\u00e9 \u65e5\u672c \ud83d\ude00 end";
+        HtmlBuffer buffer = new HtmlBuffer(1);
+
+        buffer.appendText(text);
+        buffer.appendText(text, 4, 7);
+
+        assertArrayEquals(
+                (text + text.substring(4, 7)).getBytes(StandardCharsets.UTF_8),
+                buffer.toByteArray());
+    }
+
+    /**
+     * Edge test case for the appendText and clear methods. An unpaired
+     * surrogate becomes '?', and clear empties the buffer.
+     */
+    @Test
+    public void testAppendText_Edge() {
+        HtmlBuffer buffer = new HtmlBuffer(8);
+        buffer.appendText("x\ud83dy\ude00");
+
+        assertEquals("x?y?",
+                new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+        buffer.clear();
+        assertEquals(0, buffer.length());
+        assertEquals(0, buffer.bytes().remaining());
+    }
+
+}
@@ -0,0 +1,38 @@
+import components.queue.Queue;
+
+/**
+ * The original output format: index.html, sharded as the index layout says,
+ * and an HTML page per term, named after the term, which links the terms in
+ * its definition to their pages. The pages are those of
+ * {@link Glossary#writeIndex} and {@link Glossary#renderTerm}.
+ *
+ * @author L. Oden
+ *
+ */
+public final class HtmlRenderer implements Renderer {
+
+    @Override
+    public void begin(Queue<String> sortedKeys, IndexLayout index,
+            SiteWriter out) {
+        Glossary.writeIndex(sortedKeys, index, out);
+    }
+
+    @Override
+    public void term(TermMatcher matcher, IndexLayout index, int termIndex,
+            MatchedDefinition definition, SiteWriter out) {
+        /*
+         * Render the page into the thread's reusable buffer; it is written
+         * to the file named after the term once complete.
+         */
+        HtmlBuffer termPage = out.pageBuffer();
+        Glossary.renderTerm(matcher, index, termIndex, definition, termPage,
+                out.linkGraph());
+        out.write(matcher.term(termIndex) + ".html", termPage);
+    }
+
+    @Override
+    public void finish(SiteWriter out) {
+        // Every page is written as soon as it is rendered.
+    }
+
+}
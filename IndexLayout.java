@@ -0,0 +1,278 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import components.queue.Queue;
+
+/**
+ * How the index of a glossary is split into pages. By default the whole index
+ * is the single page index.html. For very large glossaries, the index can
+ * instead be split into shards, each a contiguous run of the sorted terms: one
+ * per leading letter, or one per fixed number of terms. Then index.html is a
+ * small navigation page listing the shards, and each term page links back to
+ * the shard that lists it.
+ *
+ * <p>
+ * Layouts are immutable and may be shared between threads.
+ *
+ * @author L. Oden
+ *
+ */
+public final class IndexLayout {
+
+    /**
+     * The page every glossary starts from.
+     */
+    public static final String INDEX_PAGE = "index.html";
+
+    /**
+     * Label of the shard of terms that do not start with a letter or digit.
+     */
+    private static final String OTHER_LABEL = "#";
+
+    /**
+     * Whether the index is split into shards.
+     */
+    private final boolean sharded;
+
+    /**
+     * {@code shardStart[i]} is the position of the first term of shard i, and
+     * {@code shardStart[shardCount()]} is the number of terms.
+     */
+    private final int[] shardStart;
+
+    /**
+     * The label of each shard.
+     */
+    private final String[] labels;
+
+    /**
+     * Constructor.
+     *
+     * @param sharded
+     *            whether the index is split into shards
+     * @param shardStart
+     *            the position of the first term of each shard, then the
+     *            number of terms
+     * @param labels
+     *            the label of each shard
+     */
+    private IndexLayout(boolean sharded, int[] shardStart, String[] labels) {
+        this.sharded = sharded;
+        this.shardStart = shardStart;
+        this.labels = labels;
+    }
+
+    /**
+     * Returns the layout with the whole index on index.html.
+     *
+     * @param termCount
+     *            the number of terms
+     * @return the layout
+     */
+    public static IndexLayout single(int termCount) {
+        return new IndexLayout(false, new int[] { 0, termCount },
+                new String[] { "Index" });
+    }
+
+    /**
+     * Returns the layout with one shard per run of terms with the same
+     * leading letter or digit, ignoring case, and one per run of other terms.
+     * Runs are taken in the order of {@code sortedKeys}, so with raw order
+     * "a" and "A" may be separate shards; a collation order that ignores
+     * case keeps them together.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @return the layout
+     */
+    public static IndexLayout byLetter(Queue<String> sortedKeys) {
+        List<Integer> starts = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        String previous = null;
+        int position = 0;
+        for (String key : sortedKeys) {
+            String label = letterLabel(key);
+            if (!label.equals(previous)) {
+                starts.add(position);
+                labels.add(label);
+                previous = label;
+            }
+            position++;
+        }
+        int[] shardStart = new int[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) {
+            shardStart[i] = starts.get(i);
+        }
+        shardStart[starts.size()] = position;
+        return new IndexLayout(true, shardStart,
+                labels.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the layout with {@code pageSize} terms per shard (fewer in the
+     * last), each labeled with its first and last term.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @param pageSize
+     *            the number of terms per shard
+     * @return the layout
+     * @requires pageSize > 0
+     */
+    public static IndexLayout byPageSize(Queue<String> sortedKeys,
+            int pageSize) {
+        assert pageSize > 0 : "Violation of: pageSize > 0";
+
+        int termCount = sortedKeys.length();
+        int shards = (termCount + pageSize - 1) / pageSize;
+        int[] shardStart = new int[shards + 1];
+        String[] labels = new String[shards];
+        String first = null;
+        int position = 0;
+        for (String key : sortedKeys) {
+            if (position % pageSize == 0) {
+                first = key;
+                shardStart[position / pageSize] = position;
+            }
+            if (position % pageSize == pageSize - 1
+                    || position == termCount - 1) {
+                labels[position / pageSize] = first + " \u2013 " + key;
+            }
+            position++;
+        }
+        shardStart[shards] = termCount;
+        return new IndexLayout(true, shardStart, labels);
+    }
+
+    /**
+     * Returns the layout named by {@code spec}: "single" for
+     * {@link #single}, "letter" for {@link #byLetter}, or a number of terms
+     * per shard for {@link #byPageSize}.
+     *
+     * @param spec
+     *            the layout name or page size
+     * @param sortedKeys
+     *            the terms in index order
+     * @return the layout
+     * @throws IllegalArgumentException
+     *             if spec is none of the above
+     */
+    public static IndexLayout plan(String spec, Queue<String> sortedKeys) {
+        if (spec.equals("single")) {
+            return single(sortedKeys.length());
+        }
+        if (spec.equals("letter")) {
+            return byLetter(sortedKeys);
+        }
+        int pageSize;
+        try {
+            pageSize = Integer.parseInt(spec);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown index layout " + spec,
+                    e);
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Unknown index layout " + spec);
+        }
+        return byPageSize(sortedKeys, pageSize);
+    }
+
+    /**
+     * Returns the shard label of {@code term}: its leading letter or digit,
+     * in upper case, or "#".
+     *
+     * @param term
+     *            the term
+     * @return the label
+     */
+    private static String letterLabel(String term) {
+        if (term.isEmpty()) {
+            return OTHER_LABEL;
+        }
+        int first = term.codePointAt(0);
+        if (!Character.isLetterOrDigit(first)) {
+            return OTHER_LABEL;
+        }
+        return new String(Character.toChars(Character.toUpperCase(first)));
+    }
+
+    /**
+     * Returns whether the index is split into shards.
+     *
+     * @return true iff index.html is a navigation page
+     */
+    public boolean isSharded() {
+        return this.sharded;
+    }
+
+    /**
+     * Returns the number of index pages listing terms.
+     *
+     * @return the number of shards, or 1 if not sharded
+     */
+    public int shardCount() {
+        return this.labels.length;
+    }
+
+    /**
+     * Returns the file name of shard {@code shard}.
+     *
+     * @param shard
+     *            the shard number
+     * @return "index.html" if not sharded, and otherwise "index-N.html" for
+     *         N = shard + 1
+     * @requires 0 <= shard < shardCount()
+     */
+    public String shardPage(int shard) {
+        if (!this.sharded) {
+            return INDEX_PAGE;
+        }
+        return "index-" + (shard + 1) + ".html";
+    }
+
+    /**
+     * Returns the label of shard {@code shard}.
+     *
+     * @param shard
+     *            the shard number
+     * @return the label
+     * @requires 0 <= shard < shardCount()
+     */
+    public String label(int shard) {
+        return this.labels[shard];
+    }
+
+    /**
+     * Returns the position of the first term of shard {@code shard}.
+     *
+     * @param shard
+     *            the shard number
+     * @return the position of its first term
+     * @requires 0 <= shard <= shardCount()
+     */
+    public int shardStart(int shard) {
+        return this.shardStart[shard];
+    }
+
+    /**
+     * Returns the file name of the index page listing the term at
+     * {@code position}.
+     *
+     * @param position
+     *            the position of the term in index order
+     * @return the index page
+     */
+    public String pageOf(int position) {
+        if (!this.sharded) {
+            return INDEX_PAGE;
+        }
+        int shard = Arrays.binarySearch(this.shardStart, 0, this.labels.length,
+                position);
+        if (shard < 0) {
+            shard = -shard - 2;
+        }
+        return this.shardPage(shard);
+    }
+
+}
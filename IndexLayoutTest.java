@@ -0,0 +1,92 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test cases for the IndexLayout class. Author: Logan Oden
+ */
+public class IndexLayoutTest {
+
+    /**
+     * Returns a queue of {@code terms}, in order.
+     *
+     * @param terms
+     *            the terms
+     * @return the queue
+     */
+    private static Queue<String> queueOf(String... terms) {
+        Queue<String> q = new Queue1L<>();
+        for (String term : terms) {
+            q.enqueue(term);
+        }
+        return q;
+    }
+
+    /**
+     * Routine test case for the byLetter method. Each run of terms with the
+     * same leading letter, ignoring case, is one shard, and terms starting
+     * with neither a letter nor a digit share the "#" shard.
+     */
+    @Test
+    public void testByLetter_Routine() {
+        IndexLayout index = IndexLayout
+                .byLetter(queueOf("-x", "Apple", "avocado", "banana", "9"));
+
+        assertTrue(index.isSharded());
+        assertEquals(4, index.shardCount());
+        assertEquals("#", index.label(0));
+        assertEquals("A", index.label(1));
+        assertEquals("B", index.label(2));
+        assertEquals("index-2.html", index.shardPage(1));
+        assertEquals(1, index.shardStart(1));
+        assertEquals(3, index.shardStart(2));
+        assertEquals(5, index.shardStart(4));
+        assertEquals("index-2.html", index.pageOf(2));
+        assertEquals("index-4.html", index.pageOf(4));
+    }
+
+    /**
+     * Challenging test case for the byPageSize method. The last shard holds
+     * the remaining terms, and each shard is labeled with its first and last
+     * term.
+     */
+    @Test
+    public void testByPageSize_Challenging() {
+        IndexLayout index = IndexLayout
+                .byPageSize(queueOf("a", "b", "c", "d", "e"), 2);
+
+        assertEquals(3, index.shardCount());
+        assertEquals("a \u2013 b", index.label(0));
+        assertEquals("e \u2013 e", index.label(2));
+        assertEquals("index-1.html", index.pageOf(1));
+        assertEquals("index-2.html", index.pageOf(2));
+        assertEquals("index-3.html", index.pageOf(4));
+    }
+
+    /**
+     * Edge test case for the plan method. The single layout has every term on
+     * index.html.
+     */
+    @Test
+    public void testPlan_Edge() {
+        IndexLayout index = IndexLayout.plan("single", queueOf("a", "b"));
+
+        assertFalse(index.isSharded());
+        assertEquals(1, index.shardCount());
+        assertEquals("index.html", index.pageOf(1));
+    }
+
+    /**
+     * Edge test case for the plan method. A page size of 0 is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testPlan_Edge2() {
+        IndexLayout.plan("0", queueOf("a"));
+    }
+
+}
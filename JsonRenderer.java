@@ -0,0 +1,158 @@
+import components.queue.Queue;
+
+/**
+ * The glossary as one JSON file, glossary.json, for other tools to import:
+ * the terms in index order, each with its definition, the terms its
+ * definition links to, the pages of the terms of other glossaries it links
+ * to, if any, and, if the build has a link graph, the terms whose
+ * definitions link to it:
+ *
+ * <pre>
+ * {"terms":[
+ * {"term":"JUnit","definition":"Tests Java.","links":["Java"]},
+ * ...
+ * ]}
+ * </pre>
+ *
+ * Each entry is rendered with its term and kept until every term is
+ * rendered, then the file is written in one piece.
+ *
+ * @author L. Oden
+ *
+ */
+public final class JsonRenderer implements Renderer {
+
+    /**
+     * Name of the file written.
+     */
+    public static final String FILE_NAME = "glossary.json";
+
+    /**
+     * The entry of each term, in index order, once rendered.
+     */
+    private final String[] entries;
+
+    /**
+     * Constructor.
+     *
+     * @param terms
+     *            the number of terms of the glossary
+     */
+    public JsonRenderer(int terms) {
+        this.entries = new String[terms];
+    }
+
+    /**
+     * Appends {@code s} to {@code json} as a JSON string.
+     *
+     * @param json
+     *            the JSON text
+     * @param s
+     *            the string
+     */
+    static void appendString(StringBuilder json, CharSequence s) {
+        json.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Appends the names of {@code terms[from, to)}, or their pages if
+     * {@code pages}, to {@code json} as a JSON array.
+     *
+     * @param json
+     *            the JSON text
+     * @param matcher
+     *            the term matcher, which names the terms
+     * @param terms
+     *            the positions of the terms
+     * @param from
+     *            the first term to append
+     * @param to
+     *            one past the last term to append
+     * @param pages
+     *            whether the pages of the terms are appended
+     */
+    private static void appendTerms(StringBuilder json, TermMatcher matcher,
+            int[] terms, int from, int to, boolean pages) {
+        json.append('[');
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                json.append(',');
+            }
+            if (pages) {
+                appendString(json, matcher.page(terms[i]) + ".html");
+            } else {
+                appendString(json, matcher.term(terms[i]));
+            }
+        }
+        json.append(']');
+    }
+
+    @Override
+    public void begin(Queue<String> sortedKeys, IndexLayout index,
+            SiteWriter out) {
+        // Everything is written once the terms are rendered.
+    }
+
+    @Override
+    public void term(TermMatcher matcher, IndexLayout index, int termIndex,
+            MatchedDefinition definition, SiteWriter out) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"term\":");
+        appendString(json, matcher.term(termIndex));
+        json.append(",\"definition\":");
+        appendString(json, definition.text());
+        /*
+         * The terms of other glossaries are numbered after those of this
+         * one, so they come last.
+         */
+        int[] links = definition.terms();
+        int local = 0;
+        while (local < links.length && !matcher.isExternal(links[local])) {
+            local++;
+        }
+        json.append(",\"links\":");
+        appendTerms(json, matcher, links, 0, local, false);
+        if (local < links.length) {
+            json.append(",\"externalLinks\":");
+            appendTerms(json, matcher, links, local, links.length, true);
+        }
+        LinkGraph graph = out.linkGraph();
+        if (graph != null) {
+            int[] sources = graph.referencedBy(termIndex);
+            json.append(",\"referencedBy\":");
+            appendTerms(json, matcher, sources, 0, sources.length, false);
+        }
+        json.append('}');
+        this.entries[termIndex] = json.toString();
+    }
+
+    @Override
+    public void finish(SiteWriter out) {
+        StringBuilder json = new StringBuilder("{\"terms\":[");
+        String separator = "\n";
+        for (String entry : this.entries) {
+            /*
+             * A term not rendered, as when a build fails part way, is left
+             * out.
+             */
+            if (entry != null) {
+                json.append(separator).append(entry);
+                separator = ",\n";
+            }
+        }
+        json.append("\n]}\n");
+        out.write(FILE_NAME, json);
+    }
+
+}
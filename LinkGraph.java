@@ -0,0 +1,309 @@
+import java.util.Arrays;
+
+import components.queue.Queue;
+
+/**
+ * The graph of links between the term pages of a glossary, found in a first
+ * phase that only matches the definitions, so that every page can list the
+ * pages that link to it ("Referenced by") when it is rendered in the second.
+ * The matches found in the first phase are kept, as the start, end and term
+ * of each occurrence in a primitive {@code int} array per page, and are
+ * replayed, as a {@link MatchedDefinition}, to render the page instead of
+ * matching its definition again.
+ *
+ * <p>
+ * The graph also gives the terms no other page links to (orphans) and the
+ * most referenced terms, written as {@value #REPORT_FILE} by {@link #write}.
+ * A page linking to itself counts for neither.
+ *
+ * <p>
+ * The matches of different pages may be added by different threads at once;
+ * once {@link #finish()} is called, the graph may be shared between threads.
+ *
+ * @author L. Oden
+ *
+ */
+public final class LinkGraph {
+
+    /**
+     * Name of the report file in the output.
+     */
+    public static final String REPORT_FILE = "link-report.json";
+
+    /**
+     * Number of most referenced terms in the report.
+     */
+    public static final int MOST_REFERENCED = 10;
+
+    /**
+     * The terms, in index order.
+     */
+    private final String[] terms;
+
+    /**
+     * The occurrences of terms in the definition of each term, as
+     * consecutive start, end and term triples in order, or null until added.
+     */
+    private final int[][] matches;
+
+    /**
+     * Where the pages linking to each term start in {@code referencedBy};
+     * the pages linking to the last term end at the last entry.
+     */
+    private int[] referencedByStart;
+
+    /**
+     * The pages linking to each term, in index order, one term after another.
+     */
+    private int[] referencedBy;
+
+    /**
+     * Constructor.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     */
+    public LinkGraph(Queue<String> sortedKeys) {
+        this.terms = new String[sortedKeys.length()];
+        int i = 0;
+        for (String key : sortedKeys) {
+            this.terms[i] = key;
+            i++;
+        }
+        this.matches = new int[this.terms.length][];
+    }
+
+    /**
+     * Returns whether the definition of term {@code termIndex} was added.
+     *
+     * @param termIndex
+     *            the position of the term in index order
+     * @return true iff its matches are recorded
+     * @requires 0 <= termIndex < [number of terms]
+     */
+    public boolean has(int termIndex) {
+        return this.matches[termIndex] != null;
+    }
+
+    /**
+     * Records the occurrences of the terms of {@code matcher} in
+     * {@code definition}, the definition of term {@code termIndex}.
+     *
+     * @param matcher
+     *            the term matcher built from the same terms
+     * @param termIndex
+     *            the position of the term in index order
+     * @param definition
+     *            the definition of the term
+     * @requires 0 <= termIndex < [number of terms] and not has(termIndex)
+     */
+    public void add(TermMatcher matcher, int termIndex,
+            CharSequence definition) {
+        assert !this.has(termIndex) : "Violation of: not has(termIndex)";
+
+        this.matches[termIndex] = MatchedDefinition.occurrences(matcher,
+                definition);
+    }
+
+    /**
+     * Computes the pages linking to each term, once every definition has
+     * been added. Links to the terms of other glossaries, numbered after the
+     * terms of this one, are left out.
+     */
+    public void finish() {
+        int[][] links = new int[this.terms.length][];
+        int[] counts = new int[this.terms.length + 1];
+        for (int i = 0; i < this.terms.length; i++) {
+            links[i] = this.links(i);
+            for (int target : links[i]) {
+                if (target != i && target < this.terms.length) {
+                    counts[target + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < this.terms.length; i++) {
+            counts[i + 1] += counts[i];
+        }
+        this.referencedByStart = Arrays.copyOf(counts, counts.length);
+        this.referencedBy = new int[counts[this.terms.length]];
+        /*
+         * The sources are visited in index order, so each list of the pages
+         * linking to a term is in index order too.
+         */
+        for (int i = 0; i < this.terms.length; i++) {
+            for (int target : links[i]) {
+                if (target != i && target < this.terms.length) {
+                    this.referencedBy[counts[target]] = i;
+                    counts[target]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns {@code definition} with the recorded occurrences of terms in
+     * it, so that it need not be matched again.
+     *
+     * @param termIndex
+     *            the position of the term in index order
+     * @param definition
+     *            the definition of the term
+     * @return the definition with its matches
+     * @requires has(termIndex) and definition is the one added for it
+     */
+    public MatchedDefinition matched(int termIndex, CharSequence definition) {
+        assert this.has(termIndex) : "Violation of: has(termIndex)";
+
+        return new MatchedDefinition(definition, this.matches[termIndex]);
+    }
+
+    /**
+     * Returns the terms that occur in the definition of term
+     * {@code termIndex}.
+     *
+     * @param termIndex
+     *            the position of the term in index order
+     * @return the distinct positions of the terms, in increasing order,
+     *         the terms of other glossaries last
+     * @requires has(termIndex)
+     */
+    public int[] links(int termIndex) {
+        return MatchedDefinition.distinctTerms(this.matches[termIndex]);
+    }
+
+    /**
+     * Returns the pages that link to term {@code termIndex}, other than its
+     * own.
+     *
+     * @param termIndex
+     *            the position of the term in index order
+     * @return the positions of the linking terms, in increasing order
+     * @requires finish() was called
+     */
+    public int[] referencedBy(int termIndex) {
+        return Arrays.copyOfRange(this.referencedBy,
+                this.referencedByStart[termIndex],
+                this.referencedByStart[termIndex + 1]);
+    }
+
+    /**
+     * Returns the number of pages that link to term {@code termIndex}, other
+     * than its own.
+     *
+     * @param termIndex
+     *            the position of the term in index order
+     * @return the number of linking pages
+     * @requires finish() was called
+     */
+    public int referenceCount(int termIndex) {
+        return this.referencedByStart[termIndex + 1]
+                - this.referencedByStart[termIndex];
+    }
+
+    /**
+     * Returns the term at {@code termIndex}.
+     *
+     * @param termIndex
+     *            the position of the term in index order
+     * @return the term
+     */
+    public String term(int termIndex) {
+        return this.terms[termIndex];
+    }
+
+    /**
+     * Returns the terms that no other page links to.
+     *
+     * @return the positions of the orphans, in increasing order
+     * @requires finish() was called
+     */
+    public int[] orphans() {
+        int[] orphans = new int[this.terms.length];
+        int count = 0;
+        for (int i = 0; i < this.terms.length; i++) {
+            if (this.referenceCount(i) == 0) {
+                orphans[count] = i;
+                count++;
+            }
+        }
+        return Arrays.copyOf(orphans, count);
+    }
+
+    /**
+     * Returns up to {@code count} of the terms the most other pages link to,
+     * most referenced first, and in index order among equals. Terms no page
+     * links to are left out.
+     *
+     * @param count
+     *            the most terms to return
+     * @return the positions of the terms
+     * @requires finish() was called and count >= 0
+     */
+    public int[] mostReferenced(int count) {
+        Integer[] order = new Integer[this.terms.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> {
+            int result = Integer.compare(this.referenceCount(b),
+                    this.referenceCount(a));
+            if (result == 0) {
+                result = Integer.compare(a, b);
+            }
+            return result;
+        });
+        int[] top = new int[Math.min(count, order.length)];
+        int size = 0;
+        while (size < top.length && this.referenceCount(order[size]) > 0) {
+            top[size] = order[size];
+            size++;
+        }
+        return Arrays.copyOf(top, size);
+    }
+
+    /**
+     * Returns the report of the graph as JSON: the number of terms and of
+     * links between different pages, the orphans, and the
+     * {@value #MOST_REFERENCED} most referenced terms with the number of
+     * pages that link to each.
+     *
+     * @return the JSON text
+     * @requires finish() was called
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"terms\": ").append(this.terms.length);
+        json.append(",\n  \"links\": ").append(this.referencedBy.length);
+        json.append(",\n  \"orphans\": [");
+        int[] orphans = this.orphans();
+        for (int i = 0; i < orphans.length; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            JsonRenderer.appendString(json, this.terms[orphans[i]]);
+        }
+        json.append("],\n  \"mostReferenced\": [");
+        int[] top = this.mostReferenced(MOST_REFERENCED);
+        for (int i = 0; i < top.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\n    { \"term\": ");
+            JsonRenderer.appendString(json, this.terms[top[i]]);
+            json.append(", \"referencedBy\": ")
+                    .append(this.referenceCount(top[i])).append(" }");
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the report of the graph to {@code out} as {@value #REPORT_FILE}.
+     *
+     * @param out
+     *            where the output files are written
+     * @requires finish() was called
+     */
+    public void write(SiteWriter out) {
+        out.write(REPORT_FILE, this.toJson());
+    }
+
+}
@@ -0,0 +1,159 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test cases for the LinkGraph class. Author: Logan Oden
+ */
+public class LinkGraphTest {
+
+    /**
+     * Routine test case for a build with backlinks. Each page lists the pages
+     * that link to it, in index order, and the report names the orphans and
+     * the most referenced terms.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Routine() throws IOException {
+        BuildConfig config = BuildConfig.defaults();
+        config.setBacklinks(true);
+        String output = TestFiles.build("backlinks",
+                "Java\nA language.\n\nJUnit\nTests Java.\n\n"
+                        + "Maven\nBuilds Java and JUnit projects.\n\n",
+                config);
+
+        assertTrue(TestFiles.read(output, "Java.html")
+                .contains("<p>Referenced by:</p>\n<ul>\n"
+                        + "<li><a href = \"JUnit.html\">JUnit</a></li>\n"
+                        + "<li><a href = \"Maven.html\">Maven</a></li>\n"
+                        + "</ul>\n<hr>\n"));
+        assertTrue(TestFiles.read(output, "JUnit.html")
+                .contains("<p>Referenced by:</p>\n<ul>\n"
+                        + "<li><a href = \"Maven.html\">Maven</a></li>\n"
+                        + "</ul>\n<hr>\n"));
+        assertFalse(TestFiles.read(output, "Maven.html")
+                .contains("Referenced by"));
+        assertEquals("{\n  \"terms\": 3,\n  \"links\": 3,\n"
+                + "  \"orphans\": [\"Maven\"],\n  \"mostReferenced\": [\n"
+                + "    { \"term\": \"Java\", \"referencedBy\": 2 },\n"
+                + "    { \"term\": \"JUnit\", \"referencedBy\": 1 }\n"
+                + "  ]\n}\n",
+                TestFiles.read(output, LinkGraph.REPORT_FILE));
+    }
+
+    /**
+     * Challenging test case for the pages rendered from replayed matches. A
+     * generated glossary is written the same by every build path and by
+     * concurrent rendering, its definitions are written exactly as without
+     * backlinks, and each page lists exactly the pages that link to it.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Challenging() throws IOException {
+        SyntheticGlossary glossary = new SyntheticGlossary(1500, 15, 0.3, 31);
+        String input = "data/backlinks-large.txt";
+        glossary.write(input);
+        BuildConfig config = BuildConfig.defaults();
+        config.setBacklinks(true);
+        Glossary.build(input, "data/backlinks-map", config);
+        Glossary.buildStreaming(input, "data/backlinks-streaming", config);
+        Glossary.buildMapped(input, "data/backlinks-mapped", config);
+        Glossary.buildCompact(input, "data/backlinks-compact", config);
+        config.setGenerator(
+                new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4));
+        Glossary.build(input, "data/backlinks-fork-join", config);
+        Glossary.build(input, "data/backlinks-plain", BuildConfig.defaults());
+
+        Queue<String> keys = Glossary.sortingKeys(glossary.toMap(),
+                TermOrder.RAW);
+        TermMatcher matcher = new TermMatcher(keys, SeparatorTable.DEFAULT);
+        int[] counts = new int[keys.length()];
+        for (String key : keys) {
+            int source = matcher.termIndex(key);
+            for (int target : matcher
+                    .termsIn(glossary.toMap().value(key))) {
+                if (target != source) {
+                    counts[target]++;
+                }
+            }
+        }
+        for (String key : keys) {
+            String page = TestFiles.read("data/backlinks-map",
+                    key + ".html");
+            for (String folder : new String[] { "data/backlinks-streaming",
+                    "data/backlinks-mapped", "data/backlinks-compact",
+                    "data/backlinks-fork-join" }) {
+                assertEquals(folder + "/" + key, page,
+                        TestFiles.read(folder, key + ".html"));
+            }
+            int listed = page.split("<li>", -1).length - 1;
+            assertEquals(key, counts[matcher.termIndex(key)], listed);
+            String plain = TestFiles.read("data/backlinks-plain",
+                    key + ".html");
+            assertEquals(key, plain.substring(0, plain.indexOf("<hr>")),
+                    page.substring(0, plain.indexOf("<hr>")));
+        }
+        assertEquals(
+                TestFiles.read("data/backlinks-map", LinkGraph.REPORT_FILE),
+                TestFiles.read("data/backlinks-fork-join",
+                        LinkGraph.REPORT_FILE));
+    }
+
+    /**
+     * Edge test case for a term that links only to itself, which makes it an
+     * orphan, and for ties among the most referenced terms.
+     */
+    @Test
+    public void testLinkGraph_Edge() {
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("a");
+        keys.enqueue("b");
+        keys.enqueue("c");
+        TermMatcher matcher = new TermMatcher(keys, SeparatorTable.DEFAULT);
+        LinkGraph graph = new LinkGraph(keys);
+        graph.add(matcher, 0, "a a c");
+        graph.add(matcher, 1, "c, a.");
+        graph.add(matcher, 2, "b");
+        graph.finish();
+
+        assertArrayEquals(new int[] { 0, 2 }, graph.links(0));
+        assertArrayEquals(new int[] { 1 }, graph.referencedBy(0));
+        assertArrayEquals(new int[] { 0, 1 }, graph.referencedBy(2));
+        assertArrayEquals(new int[0], graph.orphans());
+        assertArrayEquals(new int[] { 2, 0 }, graph.mostReferenced(2));
+        assertArrayEquals(new int[] { 2, 0, 1 }, graph.mostReferenced(5));
+
+        LinkGraph self = new LinkGraph(keys);
+        self.add(matcher, 0, "a");
+        self.add(matcher, 1, "");
+        self.add(matcher, 2, "");
+        self.finish();
+        assertArrayEquals(new int[] { 0, 1, 2 }, self.orphans());
+        assertArrayEquals(new int[0], self.mostReferenced(3));
+    }
+
+    /**
+     * Edge test case for an incremental build, which cannot list backlinks,
+     * since a change to one page can change the backlinks of any other.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildIncremental_Edge() {
+        BuildConfig config = BuildConfig.defaults();
+        config.setBacklinks(true);
+        Glossary.buildIncremental("data/backlinks.txt",
+                "data/backlinks-incremental", config);
+    }
+
+}
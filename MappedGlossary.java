@@ -0,0 +1,387 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * A glossary input file mapped into memory. The term and definition
+ * boundaries are found directly on the mapped UTF-8 bytes, and a definition is
+ * kept as an offset and length into the mapping until its page is rendered,
+ * so parsing allocates only the term strings and a few {@code int}s per
+ * record. The file follows the same format as for {@link GlossaryParser}, and
+ * malformed records are reported the same way.
+ *
+ * <p>
+ * A single mapping is limited to 2 GB; larger files can be read with
+ * {@link GlossaryParser}.
+ *
+ * @author L. Oden
+ *
+ */
+public final class MappedGlossary {
+
+    /**
+     * Initial capacity of the record arrays.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The mapped file.
+     */
+    private final MappedByteBuffer bytes;
+
+    /**
+     * The term of each record.
+     */
+    private String[] terms;
+
+    /**
+     * The first byte of the definition of each record.
+     */
+    private int[] definitionStart;
+
+    /**
+     * One past the last byte of the definition of each record, including the
+     * line breaks between its lines but not the one after its last line.
+     */
+    private int[] definitionEnd;
+
+    /**
+     * Number of records.
+     */
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param bytes
+     *            the mapped file
+     */
+    private MappedGlossary(MappedByteBuffer bytes) {
+        this.bytes = bytes;
+        this.terms = new String[INITIAL_CAPACITY];
+        this.definitionStart = new int[INITIAL_CAPACITY];
+        this.definitionEnd = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Maps the UTF-8 glossary file {@code fileName} and finds its records.
+     *
+     * @param fileName
+     *            the name of the glossary input file
+     * @return the mapped glossary
+     * @throws UncheckedIOException
+     *             if the file cannot be mapped
+     * @throws GlossaryFormatException
+     *             if the input is malformed
+     */
+    public static MappedGlossary map(String fileName) {
+        MappedByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        fileName + " is too large to map");
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        MappedGlossary glossary = new MappedGlossary(bytes);
+        glossary.scan();
+        return glossary;
+    }
+
+    /**
+     * Returns the number of records, including records whose term repeats an
+     * earlier one.
+     *
+     * @return the number of records
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the term of a record.
+     *
+     * @param record
+     *            the record
+     * @return the term
+     * @requires 0 <= record < size()
+     */
+    public String term(int record) {
+        assert 0 <= record
+                && record < this.size : "Violation of: 0 <= record < size()";
+
+        return this.terms[record];
+    }
+
+    /**
+     * Returns the definition of a record as a view of the mapped bytes. Plain
+     * ASCII, single-line definitions are read straight from the mapping; other
+     * definitions are decoded when the view is created, so the decoded text
+     * exists only while the page is being rendered.
+     *
+     * @param record
+     *            the record
+     * @return the definition
+     * @requires 0 <= record < size()
+     */
+    public CharSequence definition(int record) {
+        assert 0 <= record
+                && record < this.size : "Violation of: 0 <= record < size()";
+
+        return new Definition(this.definitionStart[record],
+                this.definitionEnd[record]);
+    }
+
+    /**
+     * Returns the record of the first occurrence of each term; later records
+     * with the same term are ignored, as by
+     * {@link Glossary#mapFromInputLines}.
+     *
+     * @return Map from each term to its first record
+     */
+    public Map<String, Integer> firstRecords() {
+        Map<String, Integer> records = new Map1L<>();
+        for (int record = 0; record < this.size; record++) {
+            if (!records.hasKey(this.terms[record])) {
+                records.add(this.terms[record], record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Finds the records of the mapped file.
+     *
+     * @throws GlossaryFormatException
+     *             if the input is malformed
+     */
+    private void scan() {
+        int limit = this.bytes.limit();
+        int position = 0;
+        int line = 0;
+        while (true) {
+            /*
+             * Skip blank lines until the term line; the end of the input here
+             * is the normal end of the glossary.
+             */
+            int lineEnd = position;
+            while (position < limit) {
+                lineEnd = this.lineEnd(position);
+                line++;
+                if (lineEnd > position) {
+                    break;
+                }
+                position = this.nextLine(lineEnd);
+            }
+            if (position >= limit) {
+                return;
+            }
+            String term = this.decode(position, lineEnd);
+            int termLine = line;
+            position = this.nextLine(lineEnd);
+
+            /*
+             * The definition runs from here to the end of its last line before
+             * a blank line.
+             */
+            int start = position;
+            int end = position;
+            boolean blank = false;
+            while (!blank && position < limit) {
+                lineEnd = this.lineEnd(position);
+                line++;
+                blank = lineEnd == position;
+                if (!blank) {
+                    end = lineEnd;
+                }
+                position = this.nextLine(lineEnd);
+            }
+            if (!blank) {
+                if (end == start) {
+                    throw new GlossaryFormatException(termLine,
+                            "term \"" + term + "\" has no definition");
+                }
+                throw new GlossaryFormatException(line,
+                        "definition of \"" + term + "\" (line " + termLine
+                                + ") is not followed by a blank line");
+            }
+            this.add(term, start, end);
+        }
+    }
+
+    /**
+     * Returns the index of the line break ending the line that starts at
+     * {@code position}, or the end of the file if there is none.
+     *
+     * @param position
+     *            the start of the line
+     * @return the end of the line
+     */
+    private int lineEnd(int position) {
+        int limit = this.bytes.limit();
+        int p = position;
+        while (p < limit) {
+            byte b = this.bytes.get(p);
+            if (b == '\n' || b == '\r') {
+                return p;
+            }
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the start of the line after the line break at {@code lineEnd}.
+     *
+     * @param lineEnd
+     *            the end of a line
+     * @return the start of the next line
+     */
+    private int nextLine(int lineEnd) {
+        int limit = this.bytes.limit();
+        if (lineEnd >= limit) {
+            return limit;
+        }
+        if (this.bytes.get(lineEnd) == '\r' && lineEnd + 1 < limit
+                && this.bytes.get(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param term
+     *            the term
+     * @param start
+     *            the first byte of the definition
+     * @param end
+     *            one past the last byte of the definition
+     */
+    private void add(String term, int start, int end) {
+        if (this.size == this.terms.length) {
+            int capacity = 2 * this.size;
+            this.terms = Arrays.copyOf(this.terms, capacity);
+            this.definitionStart = Arrays.copyOf(this.definitionStart,
+                    capacity);
+            this.definitionEnd = Arrays.copyOf(this.definitionEnd, capacity);
+        }
+        this.terms[this.size] = term;
+        this.definitionStart[this.size] = start;
+        this.definitionEnd[this.size] = end;
+        this.size++;
+    }
+
+    /**
+     * Decodes the UTF-8 bytes in [{@code start}, {@code end}), leaving out
+     * line breaks.
+     *
+     * @param start
+     *            the first byte
+     * @param end
+     *            one past the last byte
+     * @return the decoded text
+     */
+    private String decode(int start, int end) {
+        byte[] text = new byte[end - start];
+        int length = 0;
+        for (int p = start; p < end; p++) {
+            byte b = this.bytes.get(p);
+            if (b != '\n' && b != '\r') {
+                text[length] = b;
+                length++;
+            }
+        }
+        return new String(text, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A definition, as a view of the mapped bytes.
+     */
+    private final class Definition implements CharSequence {
+
+        /**
+         * The first byte of the definition.
+         */
+        private final int start;
+
+        /**
+         * One past the last byte of the definition.
+         */
+        private final int end;
+
+        /**
+         * The decoded definition, or null while the definition is read straight
+         * from the mapping.
+         */
+        private String decoded;
+
+        /**
+         * Constructor.
+         *
+         * @param start
+         *            the first byte of the definition
+         * @param end
+         *            one past the last byte of the definition
+         */
+        Definition(int start, int end) {
+            this.start = start;
+            this.end = end;
+            int p = start;
+            while (p < end) {
+                byte b = MappedGlossary.this.bytes.get(p);
+                if (b < 0 || b == '\n' || b == '\r') {
+                    this.decoded = MappedGlossary.this.decode(start, end);
+                    break;
+                }
+                p++;
+            }
+        }
+
+        @Override
+        public int length() {
+            if (this.decoded != null) {
+                return this.decoded.length();
+            }
+            return this.end - this.start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (this.decoded != null) {
+                return this.decoded.charAt(index);
+            }
+            return (char) MappedGlossary.this.bytes.get(this.start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (this.decoded != null) {
+                return this.decoded.substring(from, to);
+            }
+            return new Definition(this.start + from, this.start + to);
+        }
+
+        @Override
+        public String toString() {
+            if (this.decoded != null) {
+                return this.decoded;
+            }
+            return MappedGlossary.this.decode(this.start, this.end);
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the MappedGlossary class. Author: Logan Oden
+ */
+public class MappedGlossaryTest {
+
+    /**
+     * Writes {@code content} to a new temporary file and maps it.
+     *
+     * @param content
+     *            the glossary input
+     * @return the mapped glossary
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static MappedGlossary mapped(String content) throws IOException {
+        Path file = Files.createTempFile("glossary", ".txt");
+        file.toFile().deleteOnExit();
+        TestFiles.write(file.toString(), content);
+        return MappedGlossary.map(file.toString());
+    }
+
+    /**
+     * Asserts that the mapped glossary has the same records as
+     * {@link GlossaryParser} reads from {@code content}.
+     *
+     * @param content
+     *            the glossary input
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static void assertSameAsParser(String content) throws IOException {
+        MappedGlossary glossary = mapped(content);
+        GlossaryParser parser = new GlossaryParser(new StringReader(content));
+        int record = 0;
+        while (parser.next()) {
+            assertEquals(parser.term(), glossary.term(record));
+            assertEquals(parser.definition().toString(),
+                    glossary.definition(record).toString());
+            record++;
+        }
+        assertEquals(record, glossary.size());
+    }
+
+    /**
+     * Routine test case for the map method. Single- and multi-line ASCII
+     * definitions.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Test
+    public void testMap_Routine() throws IOException {
+        assertSameAsParser("Java\nA programming language.\n\nJUnit\nA testing"
+                + "\n framework\n for Java.\n\n");
+    }
+
+    /**
+     * Challenging test case for the map method. Non-ASCII text, Windows line
+     * breaks, extra blank lines and a repeated term.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Test
+    public void testMap_Challenging() throws IOException {
+        String content = "\r\ncaf\u00e9\r\nUne boisson, \u00ab noire \u00bb."
+                + "\r\n\r\n\r\nna\u00efve\r\nsee caf\u00e9\r\n and "
+                + "\u65e5\u672c.\r\n\r\ncaf\u00e9\r\nagain\r\n\r\n";
+        assertSameAsParser(content);
+
+        MappedGlossary glossary = mapped(content);
+        assertEquals(Integer.valueOf(0),
+                glossary.firstRecords().value("caf\u00e9"));
+        assertEquals(2, glossary.firstRecords().size());
+        assertEquals('U', glossary.definition(0).charAt(0));
+    }
+
+    /**
+     * Challenging test case for the map method. A definition without a blank
+     * line after it is reported with its line number.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Test
+    public void testMap_Challenging2() throws IOException {
+        try {
+            mapped("A\none\n\nB\ntwo\nthree");
+            fail("Expected GlossaryFormatException");
+        } catch (GlossaryFormatException e) {
+            assertEquals(6, e.lineNumber());
+        }
+    }
+
+    /**
+     * Edge test case for the map method. An empty file.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Test
+    public void testMap_Edge() throws IOException {
+        assertEquals(0, mapped("").size());
+    }
+
+}
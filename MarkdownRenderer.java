@@ -0,0 +1,151 @@
+import components.queue.Queue;
+
+/**
+ * The pages of the glossary in Markdown: index.md, listing every term, and a
+ * page per term, named after the term with ".md", which links the terms in
+ * its definition to their pages. The index is never sharded. Text is escaped
+ * so that Markdown shows it as written, and link targets are
+ * percent-encoded so that terms with spaces link properly.
+ *
+ * @author L. Oden
+ *
+ */
+public final class MarkdownRenderer implements Renderer {
+
+    /**
+     * Name of the index page.
+     */
+    public static final String INDEX_PAGE = "index.md";
+
+    /**
+     * Characters that Markdown would otherwise read as markup.
+     */
+    private static final String SPECIAL = "\\`*_[]<>#|";
+
+    /**
+     * Characters percent-encoded in a link target.
+     */
+    private static final String UNSAFE_IN_TARGET = " ()<>%";
+
+    /**
+     * Appends {@code text[start, end)} to {@code md}, escaping the
+     * characters Markdown would read as markup.
+     *
+     * @param md
+     *            the Markdown text
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the part to append
+     * @param end
+     *            the end of the part to append
+     */
+    static void appendText(StringBuilder md, CharSequence text, int start,
+            int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (SPECIAL.indexOf(c) >= 0) {
+                md.append('\\');
+            }
+            md.append(c);
+        }
+    }
+
+    /**
+     * Appends {@code page} with {@code extension} to {@code md} as a link
+     * target.
+     *
+     * @param md
+     *            the Markdown text
+     * @param page
+     *            the page, without extension
+     * @param extension
+     *            the extension of the page
+     */
+    static void appendTarget(StringBuilder md, String page,
+            String extension) {
+        for (int i = 0; i < page.length(); i++) {
+            char c = page.charAt(i);
+            if (UNSAFE_IN_TARGET.indexOf(c) >= 0) {
+                md.append(String.format("%%%02X", (int) c));
+            } else {
+                md.append(c);
+            }
+        }
+        md.append(extension);
+    }
+
+    /**
+     * Appends a list entry linking to the page of {@code term} to {@code md}.
+     *
+     * @param md
+     *            the Markdown text
+     * @param term
+     *            the term
+     */
+    private static void appendEntry(StringBuilder md, String term) {
+        md.append("- [");
+        appendText(md, term, 0, term.length());
+        md.append("](");
+        appendTarget(md, term, ".md");
+        md.append(")\n");
+    }
+
+    @Override
+    public void begin(Queue<String> sortedKeys, IndexLayout index,
+            SiteWriter out) {
+        StringBuilder md = new StringBuilder("# Glossary\n\n## Index\n\n");
+        for (String s : sortedKeys) {
+            appendEntry(md, s);
+        }
+        out.write(INDEX_PAGE, md);
+    }
+
+    @Override
+    public void term(TermMatcher matcher, IndexLayout index, int termIndex,
+            MatchedDefinition definition, SiteWriter out) {
+        String term = matcher.term(termIndex);
+        StringBuilder md = new StringBuilder();
+        md.append("# ");
+        appendText(md, term, 0, term.length());
+        md.append("\n\n");
+        definition.replay(new TermMatcher.MatchHandler() {
+            @Override
+            public void text(CharSequence text, int start, int end) {
+                appendText(md, text, start, end);
+            }
+
+            @Override
+            public void term(CharSequence text, int start, int end,
+                    int linked) {
+                md.append('[');
+                appendText(md, text, start, end);
+                md.append("](");
+                if (matcher.isExternal(linked)) {
+                    // Another glossary may only have its HTML pages
+                    appendTarget(md, matcher.page(linked), ".html");
+                } else {
+                    appendTarget(md, matcher.term(linked), ".md");
+                }
+                md.append(')');
+            }
+        });
+        md.append("\n\n");
+        LinkGraph graph = out.linkGraph();
+        if (graph != null && graph.referenceCount(termIndex) > 0) {
+            md.append("## Referenced by\n\n");
+            for (int source : graph.referencedBy(termIndex)) {
+                appendEntry(md, matcher.term(source));
+            }
+            md.append('\n');
+        }
+        md.append("[Return to index](").append(INDEX_PAGE).append(")\n");
+        out.write(term + ".md", md);
+    }
+
+    @Override
+    public void finish(SiteWriter out) {
+        // Every page is written as soon as it is rendered.
+    }
+
+}
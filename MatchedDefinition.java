@@ -0,0 +1,186 @@
+import java.util.Arrays;
+
+/**
+ * A definition with the occurrences of terms a {@link TermMatcher} found in
+ * it, kept as the start, end and term of each occurrence in a primitive
+ * {@code int} array, so that the definition is matched once and its pieces
+ * can then be reported any number of times, as to each {@link Renderer} of a
+ * build.
+ *
+ * @author L. Oden
+ *
+ */
+public final class MatchedDefinition {
+
+    /**
+     * Number of ints recorded per occurrence of a term: start, end, term.
+     */
+    static final int STRIDE = 3;
+
+    /**
+     * The definition.
+     */
+    private final CharSequence text;
+
+    /**
+     * The occurrences of terms, as consecutive start, end and term triples
+     * in order.
+     */
+    private final int[] found;
+
+    /**
+     * Constructor.
+     *
+     * @param text
+     *            the definition
+     * @param found
+     *            the occurrences of terms in it, as consecutive start, end
+     *            and term triples in order
+     */
+    MatchedDefinition(CharSequence text, int[] found) {
+        this.text = text;
+        this.found = found;
+    }
+
+    /**
+     * Matches {@code definition} with {@code matcher}.
+     *
+     * @param matcher
+     *            the term matcher
+     * @param definition
+     *            the definition
+     * @return the definition with its matches
+     */
+    public static MatchedDefinition match(TermMatcher matcher,
+            CharSequence definition) {
+        return new MatchedDefinition(definition,
+                occurrences(matcher, definition));
+    }
+
+    /**
+     * Returns the occurrences of the terms of {@code matcher} in
+     * {@code definition}.
+     *
+     * @param matcher
+     *            the term matcher
+     * @param definition
+     *            the definition
+     * @return consecutive start, end and term triples, in order
+     */
+    static int[] occurrences(TermMatcher matcher, CharSequence definition) {
+        Recorder recorder = new Recorder();
+        matcher.match(definition, recorder);
+        return Arrays.copyOf(recorder.found, recorder.count);
+    }
+
+    /**
+     * Returns the definition.
+     *
+     * @return the text of the definition
+     */
+    public CharSequence text() {
+        return this.text;
+    }
+
+    /**
+     * Returns the number of occurrences of terms in the definition.
+     *
+     * @return the number of links
+     */
+    public int linkCount() {
+        return this.found.length / STRIDE;
+    }
+
+    /**
+     * Returns the terms that occur in the definition.
+     *
+     * @return the distinct positions of the terms, in increasing order
+     */
+    public int[] terms() {
+        return distinctTerms(this.found);
+    }
+
+    /**
+     * Returns the distinct terms of the occurrences {@code found}.
+     *
+     * @param found
+     *            consecutive start, end and term triples
+     * @return the distinct terms, in increasing order
+     */
+    static int[] distinctTerms(int[] found) {
+        int[] terms = new int[found.length / STRIDE];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = found[STRIDE * i + 2];
+        }
+        Arrays.sort(terms);
+        int distinct = 0;
+        for (int i = 0; i < terms.length; i++) {
+            if (distinct == 0 || terms[distinct - 1] != terms[i]) {
+                terms[distinct] = terms[i];
+                distinct++;
+            }
+        }
+        return Arrays.copyOf(terms, distinct);
+    }
+
+    /**
+     * Reports the definition to {@code handler} exactly as
+     * {@link TermMatcher#match} did.
+     *
+     * @param handler
+     *            the receiver of the text runs and term occurrences
+     */
+    public void replay(TermMatcher.MatchHandler handler) {
+        int runStart = 0;
+        for (int i = 0; i < this.found.length; i += STRIDE) {
+            if (runStart < this.found[i]) {
+                handler.text(this.text, runStart, this.found[i]);
+            }
+            handler.term(this.text, this.found[i], this.found[i + 1],
+                    this.found[i + 2]);
+            runStart = this.found[i + 1];
+        }
+        if (runStart < this.text.length()) {
+            handler.text(this.text, runStart, this.text.length());
+        }
+    }
+
+    /**
+     * Records the occurrences of terms reported by a {@link TermMatcher}.
+     */
+    private static final class Recorder implements TermMatcher.MatchHandler {
+
+        /**
+         * Initial capacity of the occurrences, in ints.
+         */
+        private static final int INITIAL_CAPACITY = 4 * STRIDE;
+
+        /**
+         * The start, end and term of each occurrence so far.
+         */
+        private int[] found = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of ints of {@code found} used.
+         */
+        private int count;
+
+        @Override
+        public void text(CharSequence text, int start, int end) {
+            // Only the terms are recorded.
+        }
+
+        @Override
+        public void term(CharSequence text, int start, int end,
+                int termIndex) {
+            if (this.count == this.found.length) {
+                this.found = Arrays.copyOf(this.found, 2 * this.count);
+            }
+            this.found[this.count] = start;
+            this.found[this.count + 1] = end;
+            this.found[this.count + 2] = termIndex;
+            this.count += STRIDE;
+        }
+    }
+
+}
@@ -0,0 +1,343 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * A glossary packed into a single file: the pages one after another, followed
+ * by an index of their names, offsets and lengths, sorted by name. Opening a
+ * pack reads only the index; each page is then found by binary search and
+ * read with a single positioned read.
+ *
+ * <p>
+ * Layout, with all numbers big-endian:
+ *
+ * <pre>
+ * header: MAGIC (int), FORMAT (int)
+ * pages:  the bytes of every page, back to back
+ * index:  for each page in name order, its name (as by
+ *         DataOutput.writeUTF), offset (long) and length (int)
+ * footer: index offset (long), page count (int), MAGIC (int)
+ * </pre>
+ *
+ * @author L. Oden
+ *
+ */
+public final class PackFile implements AutoCloseable {
+
+    /**
+     * First and last four bytes of a pack: "GLPK".
+     */
+    static final int MAGIC = 0x474C504B;
+
+    /**
+     * Version of the layout.
+     */
+    static final int FORMAT = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Size of the footer in bytes.
+     */
+    private static final int FOOTER_SIZE = 16;
+
+    /**
+     * The open pack file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The page names, in sorted order.
+     */
+    private final String[] names;
+
+    /**
+     * {@code offsets[i]} is where page {@code names[i]} starts.
+     */
+    private final long[] offsets;
+
+    /**
+     * {@code lengths[i]} is the length of page {@code names[i]}.
+     */
+    private final int[] lengths;
+
+    /**
+     * Constructor.
+     *
+     * @param channel
+     *            the open pack file
+     * @param names
+     *            the page names, in sorted order
+     * @param offsets
+     *            where each page starts
+     * @param lengths
+     *            the length of each page
+     */
+    private PackFile(FileChannel channel, String[] names, long[] offsets,
+            int[] lengths) {
+        this.channel = channel;
+        this.names = names;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Opens the pack {@code file}, reading its index.
+     *
+     * @param file
+     *            the pack file
+     * @return the open pack
+     * @throws IllegalArgumentException
+     *             if {@code file} is not a pack
+     */
+    public static PackFile open(Path file) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IllegalArgumentException(file + " is not a pack");
+            }
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+            readFully(channel, footer, size - FOOTER_SIZE);
+            footer.flip();
+            long indexOffset = footer.getLong();
+            int count = footer.getInt();
+            if (footer.getInt() != MAGIC || indexOffset < HEADER_SIZE
+                    || indexOffset > size - FOOTER_SIZE || count < 0) {
+                throw new IllegalArgumentException(file + " is not a pack");
+            }
+
+            /*
+             * The index is read sequentially, through a buffer, from its
+             * offset.
+             */
+            String[] names = new String[count];
+            long[] offsets = new long[count];
+            int[] lengths = new int[count];
+            channel.position(indexOffset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel),
+                    SiteWriter.ARCHIVE_BUFFER_SIZE));
+            for (int i = 0; i < count; i++) {
+                names[i] = in.readUTF();
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+            }
+            return new PackFile(channel, names, offsets, lengths);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of pages.
+     *
+     * @return the number of pages
+     */
+    public int size() {
+        return this.names.length;
+    }
+
+    /**
+     * Returns the name of page {@code i}, in sorted order.
+     *
+     * @param i
+     *            the page number
+     * @return the page name
+     * @requires 0 <= i < size()
+     */
+    public String name(int i) {
+        return this.names[i];
+    }
+
+    /**
+     * Returns the content of the page {@code name}, or null if there is no
+     * such page.
+     *
+     * @param name
+     *            the page name, e.g. "index.html"
+     * @return the bytes of the page, or null
+     */
+    public byte[] page(String name) {
+        int i = Arrays.binarySearch(this.names, name);
+        if (i < 0) {
+            return null;
+        }
+        ByteBuffer page = ByteBuffer.allocate(this.lengths[i]);
+        try {
+            readFully(this.channel, page, this.offsets[i]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return page.array();
+    }
+
+    /**
+     * Closes the pack file.
+     */
+    @Override
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Fills {@code buffer} from {@code channel}, starting at {@code position}.
+     *
+     * @param channel
+     *            the file
+     * @param buffer
+     *            the buffer to fill
+     * @param position
+     *            the file position of the first byte
+     * @throws IOException
+     *             if the file ends first or cannot be read
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer,
+            long position) throws IOException {
+        long p = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, p);
+            if (read < 0) {
+                throw new IOException("Unexpected end of pack");
+            }
+            p += read;
+        }
+    }
+
+    /**
+     * Closes {@code channel}, if any, after a failure.
+     *
+     * @param channel
+     *            the channel, or null
+     */
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The original failure is the one reported.
+            }
+        }
+    }
+
+    /**
+     * Writes a pack in one sequential pass, for {@link SiteWriter#archive}.
+     * The pack is written to a temporary file that is moved into place on
+     * close.
+     */
+    static final class Writer implements SiteWriter.Destination {
+
+        /**
+         * The pack file.
+         */
+        private final Path file;
+
+        /**
+         * The file written until the pack is complete.
+         */
+        private final Path temporary;
+
+        /**
+         * The pack stream.
+         */
+        private final DataOutputStream out;
+
+        /**
+         * Offset and length of each page written so far, by name; a page
+         * written twice keeps its last content.
+         */
+        private final TreeMap<String, long[]> index = new TreeMap<>();
+
+        /**
+         * Bytes written so far.
+         */
+        private long offset;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            the pack file
+         */
+        Writer(Path file) {
+            this.file = file;
+            this.temporary = SiteWriter.sibling(file, ".tmp");
+            try {
+                this.out = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(this.temporary),
+                        SiteWriter.ARCHIVE_BUFFER_SIZE));
+                this.out.writeInt(MAGIC);
+                this.out.writeInt(FORMAT);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.offset = HEADER_SIZE;
+        }
+
+        @Override
+        public synchronized void write(String fileName, ByteBuffer bytes) {
+            int length = bytes.remaining();
+            try {
+                SiteWriter.writeTo(this.out, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.index.put(fileName, new long[] { this.offset, length });
+            this.offset += length;
+        }
+
+        @Override
+        public boolean delete(String fileName) {
+            throw new UnsupportedOperationException(
+                    "Cannot delete from an archive");
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                for (java.util.Map.Entry<String, long[]> entry : this.index
+                        .entrySet()) {
+                    this.out.writeUTF(entry.getKey());
+                    this.out.writeLong(entry.getValue()[0]);
+                    this.out.writeInt((int) entry.getValue()[1]);
+                }
+                this.out.writeLong(this.offset);
+                this.out.writeInt(this.index.size());
+                this.out.writeInt(MAGIC);
+                this.out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            SiteWriter.publishFile(this.temporary, this.file);
+        }
+
+        @Override
+        public synchronized void discard() {
+            SiteWriter.discardFile(this.out, this.temporary);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.ZipFile;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the PackFile class. Author: Logan Oden
+ */
+public class PackFileTest {
+
+    /**
+     * Routine test case for the page method. Pages written in any order are
+     * read back by name, and the index is sorted.
+     */
+    @Test
+    public void testPage_Routine() {
+        Path file = Paths.get("data", "routine.pack");
+        SiteWriter out = SiteWriter.archive(file, 0);
+        out.write("b.html", "second");
+        out.write("a.html", "first");
+        out.write("index.html", "index");
+        out.close();
+
+        PackFile pack = PackFile.open(file);
+
+        assertEquals(3, pack.size());
+        assertEquals("a.html", pack.name(0));
+        assertEquals("index.html", pack.name(2));
+        assertArrayEquals("second".getBytes(StandardCharsets.UTF_8),
+                pack.page("b.html"));
+        assertArrayEquals("first".getBytes(StandardCharsets.UTF_8),
+                pack.page("a.html"));
+        pack.close();
+    }
+
+    /**
+     * Challenging test case for the page method. A concurrent build into a
+     * pack, or with write-behind into a ZIP file, holds the same pages as a
+     * build into a folder.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public void testPage_Challenging() throws IOException {
+        SyntheticGlossary glossary = new SyntheticGlossary(500, 20, 0.2, 5);
+        String input = "data/archive.txt";
+        glossary.write(input);
+        BuildConfig config = BuildConfig.defaults();
+        Glossary.build(input, "data/archive", config);
+        config.setGenerator(
+                new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4));
+        config.setArchive("pack");
+        Glossary.build(input, "data/archive", config);
+        config.setArchive("zip");
+        config.setWriteBehind(8);
+        Glossary.build(input, "data/archive", config);
+
+        PackFile pack = PackFile.open(Paths.get("data", "archive.pack"));
+        ZipFile zip = new ZipFile("data/archive.zip");
+        // The term pages, the index and the term registry
+        assertEquals(glossary.size() + 2, pack.size());
+        assertEquals(glossary.size() + 2, zip.size());
+        for (int i = 0; i < pack.size(); i++) {
+            String name = pack.name(i);
+            byte[] expected = Files
+                    .readAllBytes(Paths.get("data", "archive", name));
+            assertArrayEquals(expected, pack.page(name));
+            assertArrayEquals(expected,
+                    zip.getInputStream(zip.getEntry(name)).readAllBytes());
+        }
+        zip.close();
+        pack.close();
+    }
+
+    /**
+     * Edge test case for the open and page methods. An empty pack has no
+     * pages, and a missing page is null.
+     */
+    @Test
+    public void testPage_Edge() {
+        Path file = Paths.get("data", "empty.pack");
+        SiteWriter.archive(file, 2).close();
+
+        PackFile pack = PackFile.open(file);
+
+        assertEquals(0, pack.size());
+        assertNull(pack.page("index.html"));
+        pack.close();
+    }
+
+    /**
+     * Edge test case for the archive option. A format other than zip or
+     * pack, named in any other case, is rejected before anything is written.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testArchive_Edge() {
+        BuildConfig.fromOptions(
+                Glossary.parseOptions(new String[] { "--archive=Zip" }));
+    }
+
+    /**
+     * Edge test case for the open method. A file that is not a pack is
+     * rejected.
+     *
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpen_Edge() throws IOException {
+        Path file = Paths.get("data", "not.pack");
+        Files.write(file, new byte[32]);
+
+        PackFile.open(file);
+    }
+
+}
@@ -0,0 +1,152 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache of rendered pages, bounded by the total size of the pages rather than
+ * their number. When adding a page would go over the bound, the least
+ * recently used pages are evicted until it fits. Hits, misses and evictions
+ * are counted for reporting.
+ *
+ * <p>
+ * All methods may be called from several threads at once.
+ *
+ * @author L. Oden
+ *
+ */
+public final class PageCache {
+
+    /**
+     * The pages, from least to most recently used.
+     */
+    private final LinkedHashMap<String, byte[]> pages = new LinkedHashMap<>(
+            16, 0.75f, true);
+
+    /**
+     * The most bytes the cached pages may take up.
+     */
+    private final long capacity;
+
+    /**
+     * The bytes the cached pages take up.
+     */
+    private long bytes;
+
+    /**
+     * Number of lookups that found their page.
+     */
+    private long hits;
+
+    /**
+     * Number of lookups that did not find their page.
+     */
+    private long misses;
+
+    /**
+     * Number of pages evicted to make room for others.
+     */
+    private long evictions;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity
+     *            the most bytes the cached pages may take up
+     * @requires capacity >= 0
+     */
+    public PageCache(long capacity) {
+        assert capacity >= 0 : "Violation of: capacity >= 0";
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the page cached as {@code name}, making it the most recently
+     * used.
+     *
+     * @param name
+     *            the name of the page
+     * @return the page, or null if it is not cached
+     */
+    public synchronized byte[] get(String name) {
+        byte[] page = this.pages.get(name);
+        if (page == null) {
+            this.misses++;
+        } else {
+            this.hits++;
+        }
+        return page;
+    }
+
+    /**
+     * Caches {@code page} as {@code name}, the most recently used, evicting
+     * the least recently used pages to make room. A page larger than the
+     * whole cache is not cached.
+     *
+     * @param name
+     *            the name of the page
+     * @param page
+     *            the page
+     */
+    public synchronized void put(String name, byte[] page) {
+        if (page.length > this.capacity) {
+            return;
+        }
+        byte[] old = this.pages.put(name, page);
+        if (old != null) {
+            this.bytes -= old.length;
+        }
+        this.bytes += page.length;
+        Iterator<byte[]> eldest = this.pages.values().iterator();
+        while (this.bytes > this.capacity) {
+            this.bytes -= eldest.next().length;
+            eldest.remove();
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Returns the number of cached pages.
+     *
+     * @return the number of pages
+     */
+    public synchronized int size() {
+        return this.pages.size();
+    }
+
+    /**
+     * Returns the bytes the cached pages take up.
+     *
+     * @return the total size of the pages
+     */
+    public synchronized long bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Returns the number of lookups that found their page.
+     *
+     * @return the number of hits
+     */
+    public synchronized long hits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find their page.
+     *
+     * @return the number of misses
+     */
+    public synchronized long misses() {
+        return this.misses;
+    }
+
+    /**
+     * Returns the number of pages evicted to make room for others.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long evictions() {
+        return this.evictions;
+    }
+
+}
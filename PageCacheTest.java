@@ -0,0 +1,67 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the PageCache class. Author: Logan Oden
+ */
+public class PageCacheTest {
+
+    /**
+     * Routine test case for the get and put methods. A cached page is found,
+     * and a missing one is counted as a miss.
+     */
+    @Test
+    public void testGetPut_Routine() {
+        PageCache cache = new PageCache(100);
+        byte[] page = { 1, 2, 3 };
+
+        cache.put("a.html", page);
+
+        assertArrayEquals(page, cache.get("a.html"));
+        assertNull(cache.get("b.html"));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(3, cache.bytes());
+    }
+
+    /**
+     * Challenging test case for the put method. The least recently used pages
+     * are evicted until the new page fits, and replacing a page counts only
+     * its new size.
+     */
+    @Test
+    public void testPut_Challenging() {
+        PageCache cache = new PageCache(10);
+        cache.put("a.html", new byte[4]);
+        cache.put("b.html", new byte[4]);
+        cache.get("a.html");
+
+        cache.put("c.html", new byte[4]);
+        cache.put("a.html", new byte[2]);
+
+        assertNull(cache.get("b.html"));
+        assertEquals(2, cache.size());
+        assertEquals(6, cache.bytes());
+        assertEquals(1, cache.evictions());
+    }
+
+    /**
+     * Edge test case for the put method. A page larger than the cache is not
+     * cached, and evicts nothing.
+     */
+    @Test
+    public void testPut_Edge() {
+        PageCache cache = new PageCache(4);
+        cache.put("a.html", new byte[4]);
+
+        cache.put("b.html", new byte[5]);
+
+        assertNull(cache.get("b.html"));
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.evictions());
+    }
+
+}
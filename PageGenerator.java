@@ -0,0 +1,364 @@
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import components.map.Map;
+
+/**
+ * Renders and writes the term-definition pages of a glossary, either one at a
+ * time or concurrently. Every page is produced by
+ * {@link Glossary#processTerm(TermMatcher, IndexLayout, Map.Pair, SiteWriter)}
+ * from the same read-only {@link TermMatcher} and {@link IndexLayout}, and
+ * each page goes to its own file, so the output is the same whichever mode is
+ * used.
+ *
+ * <p>
+ * The threads of a concurrent mode are started on the first call to
+ * {@link #generate} and kept for every later call, since the streaming builds
+ * generate their pages in many small batches. They are daemon threads, and
+ * stop after a minute without pages.
+ *
+ * @author L. Oden
+ *
+ */
+public final class PageGenerator {
+
+    /**
+     * How the pages are scheduled.
+     */
+    public enum Mode {
+        /**
+         * One page at a time on the calling thread.
+         */
+        SEQUENTIAL,
+        /**
+         * Pages split recursively across a fork-join pool.
+         */
+        FORK_JOIN,
+        /**
+         * Pages pulled from a shared counter by virtual threads (platform
+         * threads on JDKs without virtual threads).
+         */
+        VIRTUAL_THREADS;
+
+        /**
+         * Returns the mode named by {@code name}, ignoring case and allowing
+         * '-' in place of '_'.
+         *
+         * @param name
+         *            the mode name, e.g. "fork-join"
+         * @return the mode
+         * @requires name is the name of a mode
+         */
+        public static Mode parse(String name) {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    /**
+     * Number of pages below which a fork-join task renders its pages itself
+     * instead of splitting further.
+     */
+    private static final int FORK_THRESHOLD = 64;
+
+    /**
+     * Seconds an idle thread of the platform thread pool is kept.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * The scheduling mode.
+     */
+    private final Mode mode;
+
+    /**
+     * The maximum number of pages rendered at once.
+     */
+    private final int workers;
+
+    /**
+     * The fork-join pool, or null until the first fork-join generation.
+     */
+    private ForkJoinPool pool = null;
+
+    /**
+     * The executor of the virtual threads, or null until the first
+     * generation on them.
+     */
+    private ExecutorService executor = null;
+
+    /**
+     * Constructor.
+     *
+     * @param mode
+     *            the scheduling mode
+     * @param workers
+     *            the maximum number of pages rendered at once
+     * @throws IllegalArgumentException
+     *             if workers is not positive, since no page would ever be
+     *             rendered
+     */
+    public PageGenerator(Mode mode, int workers) {
+        assert mode != null : "Violation of: mode is not null";
+        if (workers <= 0) {
+            throw new IllegalArgumentException(
+                    "The number of workers must be positive: " + workers);
+        }
+
+        this.mode = mode;
+        this.workers = workers;
+    }
+
+    /**
+     * Returns a generator that renders one page at a time.
+     *
+     * @return the sequential generator
+     */
+    public static PageGenerator sequential() {
+        return new PageGenerator(Mode.SEQUENTIAL, 1);
+    }
+
+    /**
+     * Writes the term-definition page of every pair in {@code pages} to
+     * {@code out}.
+     *
+     * @param matcher
+     *            the term matcher built from all keys, shared by all pages
+     * @param index
+     *            the layout of the index the pages link back to
+     * @param pages
+     *            the pairs of term and definition to write
+     * @param out
+     *            where the output files are written
+     * @ensures [an HTML page is saved for every pair in pages]
+     */
+    public void generate(TermMatcher matcher, IndexLayout index,
+            List<? extends Map.Pair<String, ? extends CharSequence>> pages,
+            SiteWriter out) {
+        assert matcher != null : "Violation of: matcher is not null";
+        assert index != null : "Violation of: index is not null";
+        assert pages != null : "Violation of: pages is not null";
+        assert out != null : "Violation of: out is not null";
+
+        if (this.mode == Mode.SEQUENTIAL || this.workers == 1
+                || pages.size() <= 1) {
+            for (Map.Pair<String, ? extends CharSequence> page : pages) {
+                Glossary.processTerm(matcher, index, page, out);
+            }
+        } else if (this.mode == Mode.FORK_JOIN) {
+            this.pool().invoke(
+                    new PageTask(matcher, index, pages, out, 0, pages.size()));
+        } else {
+            this.generateOnThreads(matcher, index, pages, out);
+        }
+    }
+
+    /**
+     * Writes the pages with {@code workers} tasks that each take the next
+     * unwritten page from a shared counter until none are left.
+     *
+     * @param matcher
+     *            the term matcher built from all keys, shared by all pages
+     * @param index
+     *            the layout of the index the pages link back to
+     * @param pages
+     *            the pairs of term and definition to write
+     * @param out
+     *            where the output files are written
+     */
+    private void generateOnThreads(TermMatcher matcher, IndexLayout index,
+            List<? extends Map.Pair<String, ? extends CharSequence>> pages,
+            SiteWriter out) {
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService threads = this.executor();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < this.workers; i++) {
+            tasks.add(threads.submit(() -> {
+                int page = next.getAndIncrement();
+                while (page < pages.size()) {
+                    Glossary.processTerm(matcher, index, pages.get(page),
+                            out);
+                    page = next.getAndIncrement();
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            awaitTask(task);
+        }
+    }
+
+    /**
+     * Returns the fork-join pool, starting it on first use.
+     *
+     * @return the pool
+     */
+    private synchronized ForkJoinPool pool() {
+        if (this.pool == null) {
+            this.pool = new ForkJoinPool(this.workers);
+        }
+        return this.pool;
+    }
+
+    /**
+     * Returns the executor of the virtual threads, starting it on first use.
+     *
+     * @return the executor
+     */
+    private synchronized ExecutorService executor() {
+        if (this.executor == null) {
+            this.executor = newVirtualThreadExecutor(this.workers);
+        }
+        return this.executor;
+    }
+
+    /**
+     * Waits for {@code task} to finish, rethrowing anything it threw.
+     *
+     * @param task
+     *            the task
+     */
+    private static void awaitTask(Future<?> task) {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Page generation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Returns an executor that starts a new virtual thread per task, falling
+     * back to a pool of {@code threads} platform threads when the running JDK
+     * has no virtual threads. The platform threads are daemon threads, so an
+     * executor that is never shut down does not keep the program running,
+     * and they stop when idle.
+     *
+     * @param threads
+     *            the size of the fallback pool
+     * @return the executor
+     */
+    static ExecutorService newVirtualThreadExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException
+                | InvocationTargetException e) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads,
+                    threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), task -> {
+                        Thread thread = Executors.defaultThreadFactory()
+                                .newThread(task);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    /**
+     * Fork-join task that writes the pages in a range of the page list.
+     */
+    private static final class PageTask extends RecursiveAction {
+
+        /**
+         * Serialization version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The shared term matcher.
+         */
+        private final transient TermMatcher matcher;
+
+        /**
+         * The shared index layout.
+         */
+        private final transient IndexLayout index;
+
+        /**
+         * All pages.
+         */
+        private final transient List<
+                ? extends Map.Pair<String, ? extends CharSequence>> pages;
+
+        /**
+         * Where the output files are written.
+         */
+        private final transient SiteWriter out;
+
+        /**
+         * First page of the range.
+         */
+        private final int from;
+
+        /**
+         * One past the last page of the range.
+         */
+        private final int to;
+
+        /**
+         * Constructor.
+         *
+         * @param matcher
+         *            the shared term matcher
+         * @param index
+         *            the shared index layout
+         * @param pages
+         *            all pages
+         * @param out
+         *            where the output files are written
+         * @param from
+         *            first page of the range
+         * @param to
+         *            one past the last page of the range
+         */
+        PageTask(TermMatcher matcher, IndexLayout index,
+                List<? extends Map.Pair<String, ? extends CharSequence>> pages,
+                SiteWriter out, int from, int to) {
+            this.matcher = matcher;
+            this.index = index;
+            this.pages = pages;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= FORK_THRESHOLD) {
+                for (int i = this.from; i < this.to; i++) {
+                    Glossary.processTerm(this.matcher, this.index,
+                            this.pages.get(i), this.out);
+                }
+            } else {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(
+                        new PageTask(this.matcher, this.index, this.pages,
+                                this.out, this.from, mid),
+                        new PageTask(this.matcher, this.index, this.pages,
+                                this.out, mid, this.to));
+            }
+        }
+    }
+
+}
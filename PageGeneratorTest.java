@@ -0,0 +1,146 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+
+/**
+ * JUnit test cases for the PageGenerator class. Author: Logan Oden
+ */
+public class PageGeneratorTest {
+
+    /**
+     * Number of terms in the generated glossary; large enough that the
+     * fork-join mode splits the work.
+     */
+    private static final int TERMS = 300;
+
+    /**
+     * Returns a glossary whose definitions link to several other terms.
+     *
+     * @return the glossary
+     */
+    private static Map<String, String> sampleGlossary() {
+        Map<String, String> glossary = new Map1L<>();
+        for (int i = 0; i < TERMS; i++) {
+            glossary.add("term" + i, "Related to term" + ((i * 7) % TERMS)
+                    + ", term" + ((i + 1) % TERMS) + " and not to word" + i
+                    + ".");
+        }
+        return glossary;
+    }
+
+    /**
+     * Writes the sample glossary's pages to {@code outputFolder} with
+     * {@code generator}.
+     *
+     * @param generator
+     *            the page generator
+     * @param outputFolder
+     *            the output folder
+     * @return the terms written, in alphabetical order
+     * @throws IOException
+     *             if the output folder cannot be created
+     */
+    private static Queue<String> generate(PageGenerator generator,
+            String outputFolder) throws IOException {
+        TestFiles.clear(outputFolder);
+        Map<String, String> glossary = sampleGlossary();
+        Queue<String> keys = Glossary.sortingKeys(glossary);
+        TermMatcher matcher = new TermMatcher(keys, Glossary.termSeparators());
+        List<Map.Pair<String, String>> pages = new ArrayList<>();
+        for (String key : keys) {
+            pages.add(glossary.remove(key));
+        }
+        SiteWriter out = new SiteWriter(Paths.get(outputFolder));
+        generator.generate(matcher, IndexLayout.single(keys.length()), pages,
+                out);
+        out.close();
+        return keys;
+    }
+
+    /**
+     * Asserts that every page written by {@code generator} is byte-identical
+     * to the page written by the sequential generator.
+     *
+     * @param generator
+     *            the page generator to check
+     * @param outputFolder
+     *            the folder it writes to
+     * @throws IOException
+     *             if a page cannot be read
+     */
+    private static void assertSameAsSequential(PageGenerator generator,
+            String outputFolder) throws IOException {
+        String expectedFolder = "data/sequential";
+        Queue<String> keys = generate(PageGenerator.sequential(),
+                expectedFolder);
+        generate(generator, outputFolder);
+        for (String key : keys) {
+            assertEquals(key, TestFiles.read(expectedFolder, key + ".html"),
+                    TestFiles.read(outputFolder, key + ".html"));
+        }
+    }
+
+    /**
+     * Routine test case for the generate method. Fork-join output is
+     * byte-identical to sequential output.
+     *
+     * @throws IOException
+     *             if a page cannot be read
+     */
+    @Test
+    public void testGenerate_Routine() throws IOException {
+        assertSameAsSequential(
+                new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4),
+                "data/forkjoin");
+    }
+
+    /**
+     * Challenging test case for the generate method. Virtual-thread output is
+     * byte-identical to sequential output.
+     *
+     * @throws IOException
+     *             if a page cannot be read
+     */
+    @Test
+    public void testGenerate_Challenging() throws IOException {
+        assertSameAsSequential(
+                new PageGenerator(PageGenerator.Mode.VIRTUAL_THREADS, 8),
+                "data/virtual");
+    }
+
+    /**
+     * Edge test case for the generate method. More workers than pages, the
+     * same threads generating twice, and no workers at all, which is
+     * rejected before anything is generated.
+     *
+     * @throws IOException
+     *             if a page cannot be read
+     */
+    @Test
+    public void testGenerate_Edge() throws IOException {
+        PageGenerator generator = new PageGenerator(
+                PageGenerator.Mode.VIRTUAL_THREADS, 1000);
+        assertSameAsSequential(generator, "data/manyworkers");
+        assertSameAsSequential(generator, "data/manyworkers");
+
+        try {
+            BuildConfig.fromOptions(Glossary.parseOptions(
+                    new String[] { "--mode=virtual-threads", "--workers=0" }));
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals("The number of workers must be positive: 0",
+                    e.getMessage());
+        }
+    }
+
+}
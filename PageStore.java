@@ -0,0 +1,458 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+import components.queue.Queue;
+
+/**
+ * Content-addressed store of rendered term pages on disk, shared by builds
+ * of any number of glossaries. A page is stored under the SHA-256 hash of
+ * everything it is rendered from: the term, its definition, the index page
+ * it links back to, and the fingerprint of the build, which covers the
+ * layout of the term page, the linkable terms and how they are matched. A
+ * build that finds the hash of a page in the store copies the stored bytes
+ * instead of matching and rendering the definition again. A full hash is
+ * used, rather than the 64-bit hash of a {@link BuildManifest}, because one
+ * store holds the pages of many glossaries and a collision would silently
+ * put the wrong page in a glossary.
+ *
+ * <p>
+ * The store is bounded by the total size of its pages. When adding a page
+ * would go over the bound, the least recently used pages are deleted until
+ * it fits; the last-modified time of a page is its last use, so the order
+ * survives from one run to the next. Hits, misses and evictions are counted,
+ * so the bound can be sized from them. The bound holds for each process: a
+ * store opened by several processes at once may grow to the sum of their
+ * bounds until it is next opened alone, which evicts down to the bound.
+ *
+ * <p>
+ * Pages are copied out of the store, never linked: a folder build rewrites
+ * its files in place, which would write through a link into the store.
+ *
+ * <p>
+ * All methods may be called from several threads at once.
+ *
+ * @author L. Oden
+ *
+ */
+public final class PageStore {
+
+    /**
+     * Extension of the files of the pages.
+     */
+    private static final String EXTENSION = ".html";
+
+    /**
+     * Length of a key: a SHA-256 hash in hexadecimal.
+     */
+    private static final int KEY_LENGTH = 64;
+
+    /**
+     * Extension of a page being written, until it is moved into place.
+     */
+    private static final String PARTIAL = ".part";
+
+    /**
+     * Age, in milliseconds, past which a page being written is taken to be
+     * left over from a build that stopped, rather than one still writing.
+     */
+    private static final long STALE_PARTIAL_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * The folder of the store, holding each page in a subfolder named after
+     * the first two digits of its key.
+     */
+    private final Path folder;
+
+    /**
+     * The most bytes the stored pages may take up.
+     */
+    private final long capacity;
+
+    /**
+     * The size of each stored page, by key, from least to most recently
+     * used.
+     */
+    private final LinkedHashMap<String, Long> pages = new LinkedHashMap<>(
+            16, 0.75f, true);
+
+    /**
+     * The bytes the stored pages take up.
+     */
+    private long bytes;
+
+    /**
+     * Number of lookups that found their page.
+     */
+    private long hits;
+
+    /**
+     * Number of lookups that did not find their page.
+     */
+    private long misses;
+
+    /**
+     * Number of pages evicted to make room for others.
+     */
+    private long evictions;
+
+    /**
+     * Constructor.
+     *
+     * @param folder
+     *            the folder of the store
+     * @param capacity
+     *            the most bytes the stored pages may take up
+     */
+    private PageStore(Path folder, long capacity) {
+        this.folder = folder;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Opens the store in {@code folder}, creating it if needed, and lists
+     * the pages already there, from least to most recently used. If they
+     * take up more than {@code capacity} bytes, the least recently used are
+     * evicted. Pages left half-written by a build that stopped are deleted.
+     *
+     * @param folder
+     *            the folder of the store
+     * @param capacity
+     *            the most bytes the stored pages may take up
+     * @return the store
+     * @requires capacity >= 0
+     */
+    public static PageStore open(Path folder, long capacity) {
+        assert folder != null : "Violation of: folder is not null";
+        assert capacity >= 0 : "Violation of: capacity >= 0";
+
+        PageStore store = new PageStore(folder, capacity);
+        java.util.Map<Path, FileTime> used = new HashMap<>();
+        long stale = System.currentTimeMillis() - STALE_PARTIAL_MILLIS;
+        try {
+            Files.createDirectories(folder);
+            try (Stream<Path> paths = Files.walk(folder, 2)) {
+                for (Path file : (Iterable<Path>) paths::iterator) {
+                    String name = file.getFileName().toString();
+                    if (!Files.isRegularFile(file)) {
+                        continue;
+                    }
+                    FileTime modified = Files.getLastModifiedTime(file);
+                    if (name.length() == KEY_LENGTH + EXTENSION.length()
+                            && name.endsWith(EXTENSION)) {
+                        used.put(file, modified);
+                    } else if (name.endsWith(PARTIAL)
+                            && modified.toMillis() < stale) {
+                        /*
+                         * A page still being written by another build is
+                         * recent, and left alone.
+                         */
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+            List<Path> pages = new ArrayList<>(used.keySet());
+            pages.sort(Comparator.comparing(used::get));
+            for (Path page : pages) {
+                String name = page.getFileName().toString();
+                long size = Files.size(page);
+                store.pages.put(
+                        name.substring(0, name.length() - EXTENSION.length()),
+                        size);
+                store.bytes += size;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        store.delete(store.evict());
+        return store;
+    }
+
+    /**
+     * Returns the fingerprint of a build of a glossary of {@code sortedKeys}:
+     * the hash of the layout of the term page, and of everything that
+     * decides which words of a definition are linked, and to which page.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @param separators
+     *            the separator characters
+     * @param fuzzy
+     *            whether the inflected forms of the terms are linked too
+     * @param registries
+     *            the registries of the terms of other glossaries linked
+     * @return the fingerprint
+     */
+    public static String fingerprint(Queue<String> sortedKeys,
+            SeparatorTable separators, boolean fuzzy,
+            List<TermRegistry> registries) {
+        MessageDigest digest = sha256();
+        update(digest, "page format " + BuildManifest.PAGE_FORMAT);
+        update(digest, "fuzzy " + fuzzy);
+        for (String term : sortedKeys) {
+            update(digest, term);
+        }
+        update(digest, "separators " + separators.fingerprint());
+        for (TermRegistry registry : registries) {
+            update(digest, "registry " + registry.size());
+            for (int i = 0; i < registry.size(); i++) {
+                update(digest, registry.term(i));
+                update(digest, registry.page(i));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the key of the page of {@code term}, defined as
+     * {@code definition}, listed on {@code indexPage}, in a build of
+     * fingerprint {@code fingerprint}.
+     *
+     * @param fingerprint
+     *            the fingerprint of the build, as returned by
+     *            {@link #fingerprint}
+     * @param term
+     *            the term
+     * @param definition
+     *            its definition
+     * @param indexPage
+     *            the index page the term page links back to
+     * @return the key
+     */
+    public static String key(String fingerprint, String term,
+            CharSequence definition, String indexPage) {
+        MessageDigest digest = sha256();
+        update(digest, fingerprint);
+        update(digest, term);
+        update(digest, definition);
+        update(digest, indexPage);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns a new SHA-256 digest.
+     *
+     * @return the digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds {@code text} to {@code digest} in UTF-8, after its length, so
+     * that no two sequences of texts are hashed alike.
+     *
+     * @param digest
+     *            the digest
+     * @param text
+     *            the text
+     * @updates digest
+     */
+    private static void update(MessageDigest digest, CharSequence text) {
+        ByteBuffer encoded = StandardCharsets.UTF_8
+                .encode(CharBuffer.wrap(text));
+        digest.update(ByteBuffer.allocate(Integer.BYTES)
+                .putInt(encoded.remaining()).array());
+        digest.update(encoded);
+    }
+
+    /**
+     * Returns the file of the page stored as {@code key}.
+     *
+     * @param key
+     *            the key of the page
+     * @return the file
+     */
+    private Path file(String key) {
+        return this.folder.resolve(key.substring(0, 2))
+                .resolve(key + EXTENSION);
+    }
+
+    /**
+     * Returns the page stored as {@code key}, making it the most recently
+     * used.
+     *
+     * @param key
+     *            the key of the page, as returned by {@link #key}
+     * @return the bytes of the page, or null if it is not stored
+     */
+    public byte[] get(String key) {
+        synchronized (this) {
+            if (this.pages.get(key) == null) {
+                this.misses++;
+                return null;
+            }
+        }
+        Path file = this.file(key);
+        try {
+            byte[] page = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file,
+                    FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) {
+                this.hits++;
+            }
+            return page;
+        } catch (NoSuchFileException e) {
+            /*
+             * Evicted meanwhile, here or by another build sharing the
+             * folder.
+             */
+            synchronized (this) {
+                Long size = this.pages.remove(key);
+                if (size != null) {
+                    this.bytes -= size;
+                }
+                this.misses++;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores {@code page} as {@code key}, the most recently used, evicting
+     * the least recently used pages to make room. A page larger than the
+     * whole store is not stored.
+     *
+     * @param key
+     *            the key of the page, as returned by {@link #key}
+     * @param page
+     *            the bytes of the page
+     */
+    public void put(String key, byte[] page) {
+        if (page.length > this.capacity) {
+            return;
+        }
+        /*
+         * The page is written to a file of its own and then moved into
+         * place, so a build reading it never sees it half-written.
+         */
+        Path file = this.file(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path partial = Files.createTempFile(file.getParent(), key,
+                    PARTIAL);
+            Files.write(partial, page);
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<String> evicted;
+        synchronized (this) {
+            Long old = this.pages.put(key, (long) page.length);
+            if (old != null) {
+                this.bytes -= old;
+            }
+            this.bytes += page.length;
+            evicted = this.evict();
+        }
+        this.delete(evicted);
+    }
+
+    /**
+     * Removes the least recently used pages from the list until the stored
+     * pages take up no more than the capacity.
+     *
+     * @return the keys of the pages removed, whose files are still to be
+     *         deleted
+     */
+    private synchronized List<String> evict() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<java.util.Map.Entry<String, Long>> eldest = this.pages
+                .entrySet().iterator();
+        while (this.bytes > this.capacity) {
+            java.util.Map.Entry<String, Long> entry = eldest.next();
+            this.bytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            eldest.remove();
+            this.evictions++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Deletes the files of the pages {@code keys}.
+     *
+     * @param keys
+     *            the keys of the pages evicted
+     */
+    private void delete(List<String> keys) {
+        try {
+            for (String key : keys) {
+                Files.deleteIfExists(this.file(key));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the number of stored pages.
+     *
+     * @return the number of pages
+     */
+    public synchronized int size() {
+        return this.pages.size();
+    }
+
+    /**
+     * Returns the bytes the stored pages take up.
+     *
+     * @return the total size of the pages
+     */
+    public synchronized long bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Returns the number of lookups that found their page.
+     *
+     * @return the number of hits
+     */
+    public synchronized long hits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find their page.
+     *
+     * @return the number of misses
+     */
+    public synchronized long misses() {
+        return this.misses;
+    }
+
+    /**
+     * Returns the number of pages evicted to make room for others.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long evictions() {
+        return this.evictions;
+    }
+
+}
@@ -0,0 +1,167 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the PageStore class. Author: Logan Oden
+ */
+public class PageStoreTest {
+
+    /**
+     * Returns a new, empty store in {@code folder}.
+     *
+     * @param folder
+     *            the folder of the store
+     * @param capacity
+     *            the most bytes the stored pages may take up
+     * @return the store
+     */
+    private static PageStore emptyStore(String folder, long capacity) {
+        Path path = Paths.get(folder);
+        SiteWriter.deleteTree(path);
+        return PageStore.open(path, capacity);
+    }
+
+    /**
+     * Routine test case for builds with a page store. The first build stores
+     * every page, and a rebuild, into another folder and with several
+     * threads, copies every page from the store, counting it as written;
+     * both write the pages of a build without a store.
+     */
+    @Test
+    public void testBuild_Routine() {
+        RandomGlossary glossary = new RandomGlossary(80, 3, false);
+        String input = "data/stored.txt";
+        glossary.write(input);
+        TestFiles.clear("data/stored-plain");
+        Glossary.build(input, "data/stored-plain", BuildConfig.defaults());
+        TestFiles.clear("data/stored-first");
+        TestFiles.clear("data/stored-again");
+        PageStore store = emptyStore("data/page-store", 1024 * 1024);
+        BuildConfig config = BuildConfig.defaults();
+        config.setPageStore(store);
+
+        Glossary.build(input, "data/stored-first", config);
+        assertEquals(0, store.hits());
+        assertEquals(80, store.misses());
+        assertEquals(80, store.size());
+
+        config.setGenerator(
+                new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4));
+        BuildReport report = BuildReport.start();
+        config.setReport(report);
+        Glossary.buildStreaming(input, "data/stored-again", config);
+        assertEquals(80, store.hits());
+        assertEquals(80, store.misses());
+        assertEquals(80, report.pages());
+        assertEquals(80, report.storeHits());
+        assertEquals(List.of(), ReferenceBuild
+                .differences("data/stored-plain", "data/stored-first"));
+        assertEquals(List.of(), ReferenceBuild
+                .differences("data/stored-plain", "data/stored-again"));
+    }
+
+    /**
+     * Challenging test case for the keys of the pages. A changed definition
+     * misses only its own page, another glossary with the same terms shares
+     * the pages of the definitions they share, one more term misses every
+     * page, since any may link to it, and a build with a search index does
+     * not use the store.
+     *
+     * @throws IOException
+     *             if a file cannot be written
+     */
+    @Test
+    public void testKey_Challenging() throws IOException {
+        PageStore store = emptyStore("data/page-store-keys", 1024 * 1024);
+        BuildConfig config = BuildConfig.defaults();
+        config.setPageStore(store);
+        String input = "data/stored-keys.txt";
+        TestFiles.write(input, "Java\nA language.\n\nJUnit\nTests Java.\n\n");
+        Glossary.build(input, "data/stored-keys", config);
+
+        TestFiles.write("data/stored-keys-2.txt",
+                "JUnit\nTests Java.\n\nJava\nAn island.\n\n");
+        Glossary.build("data/stored-keys-2.txt", "data/stored-keys-2",
+                config);
+        assertEquals(1, store.hits());
+        assertEquals(3, store.misses());
+
+        TestFiles.write(input, "Java\nA language.\n\n"
+                + "JUnit\nTests Java.\n\nJ\nA letter.\n\n");
+        Glossary.build(input, "data/stored-keys", config);
+        assertEquals(1, store.hits());
+        assertEquals(6, store.misses());
+
+        config.setSearch(true);
+        Glossary.build(input, "data/stored-keys", config);
+        assertEquals(1, store.hits());
+        assertEquals(6, store.misses());
+        assertEquals(6, store.size());
+    }
+
+    /**
+     * Edge test case for the size of the store. The least recently used pages
+     * are evicted to make room, a page larger than the store is not stored,
+     * and a store reopened with less room evicts the pages used least
+     * recently before it was closed, and deletes a page left half-written
+     * long ago, but not one being written now.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the clock
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testEviction_Edge() throws InterruptedException, IOException {
+        PageStore store = emptyStore("data/page-store-small", 12);
+        String a = PageStore.key("f", "A", "a", "index.html");
+        String b = PageStore.key("f", "B", "b", "index.html");
+        String c = PageStore.key("f", "C", "c", "index.html");
+        String d = PageStore.key("f", "D", "d", "index.html");
+        store.put(a, new byte[] { 1, 2, 3, 4 });
+        Thread.sleep(10);
+        store.put(b, new byte[4]);
+        Thread.sleep(10);
+        store.get(a);
+        Thread.sleep(10);
+        store.put(c, new byte[4]);
+        store.put(d, new byte[13]);
+        assertEquals(3, store.size());
+        assertEquals(12, store.bytes());
+
+        Thread.sleep(10);
+        store.put(d, new byte[4]);
+        assertNull(store.get(b));
+        assertEquals(1, store.evictions());
+
+        Path stale = Paths.get("data/page-store-small", "ab", "stale.part");
+        Path recent = Paths.get("data/page-store-small", "ab", "recent.part");
+        Files.createDirectories(stale.getParent());
+        Files.write(stale, new byte[100]);
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(0));
+        Files.write(recent, new byte[100]);
+        PageStore reopened = PageStore
+                .open(Paths.get("data/page-store-small"), 8);
+        assertEquals(8, reopened.bytes());
+        assertEquals(1, reopened.evictions());
+        assertNull(reopened.get(a));
+        assertArrayEquals(new byte[4], reopened.get(d));
+        assertEquals(1, reopened.hits());
+        assertEquals(1, reopened.misses());
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(recent));
+    }
+
+}
@@ -0,0 +1,156 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page layout compiled once for rendering many pages. The layout is markup
+ * with named slots written {@code {{name}}}; compiling splits it into static
+ * fragments, encoded to UTF-8 in advance, and the slots between them.
+ * Rendering copies the fragments into an {@link HtmlBuffer} and asks a
+ * {@link Slots} callback to write each slot, so no text is parsed or encoded
+ * twice.
+ *
+ * <p>
+ * Templates are immutable and may be shared between threads.
+ *
+ * @author L. Oden
+ *
+ */
+public final class PageTemplate {
+
+    /**
+     * Writes the content of the slots of a template.
+     */
+    public interface Slots {
+
+        /**
+         * Writes the content of slot {@code slot} to {@code out}.
+         *
+         * @param slot
+         *            the slot number, as returned by {@link #slot}
+         * @param out
+         *            the page being rendered
+         */
+        void write(int slot, HtmlBuffer out);
+    }
+
+    /**
+     * Opens a slot.
+     */
+    private static final String OPEN = "{{";
+
+    /**
+     * Closes a slot.
+     */
+    private static final String CLOSE = "}}";
+
+    /**
+     * {@code fragments[i]} is the markup before {@code order[i]}, or, for the
+     * last i, after the last slot.
+     */
+    private final byte[][] fragments;
+
+    /**
+     * The slot numbers, in the order the slots occur in the layout.
+     */
+    private final int[] order;
+
+    /**
+     * The slot names, by slot number.
+     */
+    private final String[] names;
+
+    /**
+     * Constructor.
+     *
+     * @param fragments
+     *            the static markup around the slots
+     * @param order
+     *            the slot numbers, in order of occurrence
+     * @param names
+     *            the slot names, by slot number
+     */
+    private PageTemplate(byte[][] fragments, int[] order, String[] names) {
+        this.fragments = fragments;
+        this.order = order;
+        this.names = names;
+    }
+
+    /**
+     * Compiles {@code layout}. Slots are numbered in the order of their first
+     * occurrence; a slot may occur more than once.
+     *
+     * @param layout
+     *            the markup, with slots written {@code {{name}}}
+     * @return the template
+     * @throws IllegalArgumentException
+     *             if a slot is not closed
+     */
+    public static PageTemplate compile(String layout) {
+        List<byte[]> fragments = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> order = new ArrayList<>();
+        int position = 0;
+        int open = layout.indexOf(OPEN);
+        while (open >= 0) {
+            int close = layout.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException(
+                        "Unclosed slot at " + open + " of template");
+            }
+            fragments.add(layout.substring(position, open)
+                    .getBytes(StandardCharsets.UTF_8));
+            String name = layout.substring(open + OPEN.length(), close);
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+            order.add(names.indexOf(name));
+            position = close + CLOSE.length();
+            open = layout.indexOf(OPEN, position);
+        }
+        fragments.add(
+                layout.substring(position).getBytes(StandardCharsets.UTF_8));
+
+        int[] orderArray = new int[order.size()];
+        for (int i = 0; i < orderArray.length; i++) {
+            orderArray[i] = order.get(i);
+        }
+        return new PageTemplate(fragments.toArray(new byte[0][]), orderArray,
+                names.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the number of the slot named {@code name}.
+     *
+     * @param name
+     *            the slot name
+     * @return the slot number
+     * @throws IllegalArgumentException
+     *             if the template has no such slot
+     */
+    public int slot(String name) {
+        for (int i = 0; i < this.names.length; i++) {
+            if (this.names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No slot " + name + " in template");
+    }
+
+    /**
+     * Appends the page to {@code out}, filling each slot with {@code slots}.
+     *
+     * @param out
+     *            the page being rendered
+     * @param slots
+     *            writes the content of each slot
+     */
+    public void render(HtmlBuffer out, Slots slots) {
+        for (int i = 0; i < this.order.length; i++) {
+            out.appendRaw(this.fragments[i]);
+            slots.write(this.order[i], out);
+        }
+        out.appendRaw(this.fragments[this.order.length]);
+    }
+
+}
@@ -0,0 +1,70 @@
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the PageTemplate class. Author: Logan Oden
+ */
+public class PageTemplateTest {
+
+    /**
+     * Returns the text of {@code page}.
+     *
+     * @param page
+     *            the rendered page
+     * @return its bytes, decoded
+     */
+    private static String text(HtmlBuffer page) {
+        return new String(page.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Routine test case for the render method. Slots are numbered by first
+     * occurrence, and a repeated slot is written each time.
+     */
+    @Test
+    public void testRender_Routine() {
+        PageTemplate template = PageTemplate
+                .compile("<b>{{a}}</b>{{b}}<i>{{a}}</i>");
+        HtmlBuffer page = new HtmlBuffer(4);
+
+        template.render(page, (slot, out) -> out.appendText("#" + slot));
+
+        assertEquals(0, template.slot("a"));
+        assertEquals(1, template.slot("b"));
+        assertEquals("<b>#0</b>#1<i>#0</i>", text(page));
+    }
+
+    /**
+     * Challenging test case for the render method. Static markup is copied as
+     * is, including non-ASCII text, while slot text is escaped.
+     */
+    @Test
+    public void testRender_Challenging() {
+        PageTemplate template = PageTemplate
+                .compile("&nbsp;\u00e9<a href=\"{{x}}\">{{x}}</a>");
+        HtmlBuffer page = new HtmlBuffer(64);
+
+        template.render(page, (slot, out) -> out.appendText("a\"&'b"));
+
+        assertEquals("&nbsp;\u00e9<a href=\"a&quot;&amp;&#39;b\">"
+                + "a&quot;&amp;&#39;b</a>", text(page));
+    }
+
+    /**
+     * Edge test case for the compile method. A layout without slots renders
+     * as is, and an unclosed slot is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompile_Edge() {
+        HtmlBuffer page = new HtmlBuffer(1);
+        PageTemplate.compile("").render(page, (slot, out) -> {
+        });
+        assertEquals("", text(page));
+
+        PageTemplate.compile("<p>{{open</p>");
+    }
+
+}
@@ -0,0 +1,276 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Random;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Deterministic generator of random glossaries, for property-based and
+ * differential tests. Where a {@link SyntheticGlossary} is regular, so that
+ * its size and link density can be controlled, a random glossary aims at the
+ * corners of the input: letters outside ASCII and outside the Basic
+ * Multilingual Plane, characters that HTML escapes, terms that are prefixes
+ * of other terms (within a word, as "Ka" of "Kalo", or word for word, as "Ka"
+ * of "Ka mi"), definitions that start or end with separators or with a term,
+ * near misses such as a term with letters appended, and empty definitions.
+ *
+ * <p>
+ * The same arguments always produce the same glossary.
+ *
+ * @author L. Oden
+ *
+ */
+public final class RandomGlossary {
+
+    /**
+     * Syllables that words are spelled with: first those in ASCII, some with
+     * characters that HTML escapes, then those with letters that take two or
+     * three bytes in UTF-8, or two chars.
+     */
+    private static final String[] SYLLABLES = { "ka", "lo", "mi", "ne", "ru",
+        "sa", "t&o", "o'", "\u00e9t", "\u00dfe", "\u6771", "\u4eac",
+        "\ud83d\ude00", "\u0416a" };
+
+    /**
+     * Number of syllables in ASCII, at the start of {@code SYLLABLES}.
+     */
+    private static final int ASCII_SYLLABLES = 8;
+
+    /**
+     * Filler words, never terms, some with characters that HTML escapes.
+     */
+    private static final String[] FILLERS = { "the", "of", "a", "is",
+        "<b>", "x&y", "\"q\"", "it's", "caf\u00e9", "\ud83d\udd25", "a>b" };
+
+    /**
+     * Separator characters, the same as {@link SeparatorTable#DEFAULT}.
+     */
+    private static final String SEPARATORS = " .,;:";
+
+    /**
+     * The terms.
+     */
+    private final String[] terms;
+
+    /**
+     * The definition of each term.
+     */
+    private final String[] definitions;
+
+    /**
+     * Constructor.
+     *
+     * @param size
+     *            the number of terms
+     * @param seed
+     *            the seed of the generator
+     * @param unicodeTerms
+     *            whether terms, and so the names of their pages, may hold
+     *            characters outside ASCII, as definitions always may
+     * @requires size >= 0
+     */
+    public RandomGlossary(int size, long seed, boolean unicodeTerms) {
+        assert size >= 0 : "Violation of: size >= 0";
+
+        Random random = new Random(seed);
+        int termSyllables = ASCII_SYLLABLES;
+        if (unicodeTerms) {
+            termSyllables = SYLLABLES.length;
+        }
+        this.terms = new String[size];
+        HashSet<String> distinct = new HashSet<>();
+        int count = 0;
+        while (count < size) {
+            String term;
+            if (count > 0 && random.nextInt(3) == 0) {
+                /*
+                 * A longer term starting with an earlier one, within its
+                 * last word or with another word.
+                 */
+                term = this.terms[random.nextInt(count)];
+                if (random.nextBoolean()) {
+                    term += syllable(random, termSyllables);
+                } else {
+                    term += " " + word(random, termSyllables);
+                }
+            } else {
+                term = word(random, termSyllables);
+                term = Character.toUpperCase(term.charAt(0))
+                        + term.substring(1);
+            }
+            if (distinct.add(term)) {
+                this.terms[count] = term;
+                count++;
+            }
+        }
+        this.definitions = new String[size];
+        for (int i = 0; i < size; i++) {
+            this.definitions[i] = this.definition(random);
+        }
+    }
+
+    /**
+     * Returns a random syllable.
+     *
+     * @param random
+     *            the generator
+     * @param syllables
+     *            the number of syllables, from the start of SYLLABLES, to
+     *            choose from
+     * @return the syllable
+     */
+    private static String syllable(Random random, int syllables) {
+        return SYLLABLES[random.nextInt(syllables)];
+    }
+
+    /**
+     * Returns a random word of one to three syllables.
+     *
+     * @param random
+     *            the generator
+     * @param syllables
+     *            the number of syllables, from the start of SYLLABLES, to
+     *            choose from
+     * @return the word
+     */
+    private static String word(Random random, int syllables) {
+        StringBuilder word = new StringBuilder(syllable(random, syllables));
+        for (int n = random.nextInt(3); n > 0; n--) {
+            word.append(syllable(random, syllables));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Returns a random run of one to three separators.
+     *
+     * @param random
+     *            the generator
+     * @return the separators
+     */
+    private static String separators(Random random) {
+        StringBuilder run = new StringBuilder();
+        for (int n = 1 + random.nextInt(3); n > 0; n--) {
+            run.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+        }
+        return run.toString();
+    }
+
+    /**
+     * Returns a random definition, of words that are terms, near misses of
+     * terms or fillers, between runs of separators.
+     *
+     * @param random
+     *            the generator
+     * @return the definition, which is empty one time in eight
+     */
+    private String definition(Random random) {
+        StringBuilder definition = new StringBuilder();
+        int words = random.nextInt(8);
+        if (words > 0 && random.nextInt(4) == 0) {
+            definition.append(separators(random));
+        }
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                definition.append(separators(random));
+            }
+            int kind = random.nextInt(6);
+            if (kind < 3 && this.terms.length > 0) {
+                definition.append(
+                        this.terms[random.nextInt(this.terms.length)]);
+                if (kind == 2) {
+                    // A near miss, unless it happens to be a term too
+                    definition.append(syllable(random, SYLLABLES.length));
+                }
+            } else if (kind == 3) {
+                definition.append(word(random, SYLLABLES.length));
+            } else {
+                definition.append(FILLERS[random.nextInt(FILLERS.length)]);
+            }
+        }
+        if (words > 0 && random.nextInt(4) == 0) {
+            definition.append(separators(random));
+        }
+        return definition.toString();
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.terms.length;
+    }
+
+    /**
+     * Returns a term.
+     *
+     * @param i
+     *            the number of the term
+     * @return the term
+     * @requires 0 <= i < size()
+     */
+    public String term(int i) {
+        return this.terms[i];
+    }
+
+    /**
+     * Returns the definition of a term.
+     *
+     * @param i
+     *            the number of the term
+     * @return the definition, possibly empty
+     * @requires 0 <= i < size()
+     */
+    public String definition(int i) {
+        return this.definitions[i];
+    }
+
+    /**
+     * Returns the glossary as a Map from term to definition.
+     *
+     * @return the glossary
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> glossary = new Map1L<>();
+        for (int i = 0; i < this.terms.length; i++) {
+            glossary.add(this.terms[i], this.definitions[i]);
+        }
+        return glossary;
+    }
+
+    /**
+     * Writes the glossary, in the input format read by
+     * {@link Glossary#mapFromInputLines}, to the UTF-8 file {@code fileName}.
+     * An empty definition, which the input format cannot hold, is written as
+     * a single space.
+     *
+     * @param fileName
+     *            the name of the file to write
+     */
+    public void write(String fileName) {
+        try (BufferedWriter out = Files.newBufferedWriter(Paths.get(fileName),
+                StandardCharsets.UTF_8)) {
+            for (int i = 0; i < this.terms.length; i++) {
+                out.write(this.terms[i]);
+                out.write('\n');
+                if (this.definitions[i].isEmpty()) {
+                    out.write(' ');
+                } else {
+                    out.write(this.definitions[i]);
+                }
+                out.write("\n\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
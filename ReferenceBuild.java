@@ -0,0 +1,251 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import components.map.Map;
+import components.set.Set;
+
+/**
+ * The reference build, for differential tests of the generation pipeline: the
+ * term pages and index written the way the first version of {@link Glossary}
+ * wrote them, scanning each definition with
+ * {@link Glossary#nextWordOrSeparator(String, int, Set)} and looking each
+ * word up among the terms, with nothing precompiled, shared or cached. It is
+ * slow, but plainly correct, so the output tree of any faster engine can be
+ * checked against it with {@link #differences}.
+ *
+ * <p>
+ * Two things the first version did not do are done as every build now does
+ * them: a term of several words is linked where its words occur, the longest
+ * term at a position winning, and the text is escaped for HTML.
+ *
+ * @author L. Oden
+ *
+ */
+public final class ReferenceBuild {
+
+    /**
+     * The indentation of a definition.
+     */
+    private static final String INDENT = "&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;"
+            + "&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;";
+
+    /**
+     * No instances.
+     */
+    private ReferenceBuild() {
+    }
+
+    /**
+     * Returns {@code text} escaped for use in HTML text and attribute values.
+     *
+     * @param text
+     *            the text
+     * @return the escaped text
+     */
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;")
+                .replace(">", "&gt;").replace("\"", "&quot;")
+                .replace("'", "&#39;");
+    }
+
+    /**
+     * Returns the HTML of {@code definition}, with each term of
+     * {@code glossary} in it linked to its page.
+     *
+     * @param glossary
+     *            the glossary
+     * @param definition
+     *            the definition
+     * @param separators
+     *            the separator characters
+     * @return the HTML of the definition
+     */
+    private static String linkedDefinition(Map<String, String> glossary,
+            String definition, Set<Character> separators) {
+        StringBuilder html = new StringBuilder();
+        int position = 0;
+        while (position < definition.length()) {
+            String wordOrSeparator = Glossary.nextWordOrSeparator(definition,
+                    position, separators);
+            /*
+             * The longest term made of this word or separator string and
+             * any of those following it.
+             */
+            String term = null;
+            StringBuilder candidate = new StringBuilder();
+            int p = position;
+            while (p < definition.length()) {
+                String next = Glossary.nextWordOrSeparator(definition, p,
+                        separators);
+                candidate.append(next);
+                p += next.length();
+                if (glossary.hasKey(candidate.toString())) {
+                    term = candidate.toString();
+                }
+            }
+            if (term != null) {
+                html.append("<a href = \"").append(escape(term))
+                        .append(".html\">").append(escape(term))
+                        .append("</a>");
+                position += term.length();
+            } else {
+                html.append(escape(wordOrSeparator));
+                position += wordOrSeparator.length();
+            }
+        }
+        return html.toString();
+    }
+
+    /**
+     * Writes {@code text} to {@code fileName} in {@code outputFolder}, in
+     * UTF-8.
+     *
+     * @param outputFolder
+     *            the output folder
+     * @param fileName
+     *            the name of the file
+     * @param text
+     *            the text
+     */
+    private static void write(String outputFolder, String fileName,
+            String text) {
+        try {
+            Files.write(Paths.get(outputFolder, fileName),
+                    text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the page of {@code term} of {@code glossary}, as a default
+     * build of the same glossary writes it.
+     *
+     * @param glossary
+     *            the glossary
+     * @param term
+     *            the term
+     * @return the HTML of the page
+     * @requires glossary has term as a key
+     */
+    public static String termPage(Map<String, String> glossary,
+            String term) {
+        return "<html>\n<head>\n<title>" + escape(term)
+                + "</title>\n</head>\n<body>\n"
+                + "<h1><em><b style='color:red;'>" + escape(term)
+                + "</b></em></h1>\n<p>\n" + INDENT
+                + linkedDefinition(glossary, glossary.value(term),
+                        Glossary.termSeparators())
+                + "</p>\n<hr>\n"
+                + "<p>Return to <a href = \"index.html\">index</a>.</p>\n"
+                + "</body>\n</html>\n";
+    }
+
+    /**
+     * Writes the term pages and the index of {@code glossary} to
+     * {@code outputFolder}, as a default build of the same glossary does,
+     * replacing whatever the folder held.
+     *
+     * @param glossary
+     *            the glossary
+     * @param outputFolder
+     *            the folder where the pages are written
+     */
+    public static void build(Map<String, String> glossary,
+            String outputFolder) {
+        SiteWriter.deleteTree(Paths.get(outputFolder));
+        try {
+            Files.createDirectories(Paths.get(outputFolder));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String[] terms = new String[glossary.size()];
+        int i = 0;
+        for (Map.Pair<String, String> pair : glossary) {
+            terms[i] = pair.key();
+            i++;
+        }
+        for (String term : terms) {
+            write(outputFolder, term + ".html", termPage(glossary, term));
+        }
+
+        Arrays.sort(terms);
+        StringBuilder index = new StringBuilder(
+                "<html>\n<head>\n<title>Glossary</title>\n</head>\n<body>\n"
+                        + "<h1>Glossary</h1>\n<hr>\n<h2>Index</h2>\n<ul>\n");
+        for (String term : terms) {
+            index.append("<li><a href = \"").append(escape(term))
+                    .append(".html\">").append(escape(term))
+                    .append("</a></li>\n");
+        }
+        index.append("</ul>\n</body>\n</html>\n");
+        write(outputFolder, IndexLayout.INDEX_PAGE, index.toString());
+    }
+
+    /**
+     * Returns the HTML pages that differ between {@code expectedFolder} and
+     * {@code actualFolder}: those in only one of them, and those in both
+     * whose bytes differ. Other files, such as a build manifest or a term
+     * registry, are not compared.
+     *
+     * @param expectedFolder
+     *            the output folder of the reference build
+     * @param actualFolder
+     *            the output folder of the build checked
+     * @return the paths of the pages that differ, relative to the folders,
+     *         in order
+     */
+    public static List<String> differences(String expectedFolder,
+            String actualFolder) {
+        java.util.Set<String> expected = pages(Paths.get(expectedFolder));
+        java.util.Set<String> actual = pages(Paths.get(actualFolder));
+        List<String> differences = new ArrayList<>();
+        try {
+            for (String page : expected) {
+                if (!actual.contains(page) || !Arrays.equals(
+                        Files.readAllBytes(Paths.get(expectedFolder, page)),
+                        Files.readAllBytes(Paths.get(actualFolder, page)))) {
+                    differences.add(page);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String page : actual) {
+            if (!expected.contains(page)) {
+                differences.add(page);
+            }
+        }
+        differences.sort(null);
+        return differences;
+    }
+
+    /**
+     * Returns the HTML pages under {@code folder}.
+     *
+     * @param folder
+     *            the folder
+     * @return the paths of the pages, relative to folder
+     */
+    private static java.util.Set<String> pages(Path folder) {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            java.util.Set<String> pages = new HashSet<>();
+            paths.filter(path -> path.toString().endsWith(".html"))
+                    .forEach(path -> pages.add(folder.relativize(path)
+                            .toString().replace('\\', '/')));
+            return pages;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
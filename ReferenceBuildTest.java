@@ -0,0 +1,249 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import components.map.Map;
+import components.queue.Queue;
+
+/**
+ * JUnit test cases for the ReferenceBuild class, and for every build engine
+ * against it. Author: Logan Oden
+ */
+public class ReferenceBuildTest {
+
+    /**
+     * Number of random glossaries each engine is checked on.
+     */
+    private static final int SEEDS = 12;
+
+    /**
+     * Number of terms of the stress test.
+     */
+    private static final int STRESS_TERMS = 1_000_000;
+
+    /**
+     * Time budget of the stress test, in seconds.
+     */
+    private static final long STRESS_SECONDS = 120;
+
+    /**
+     * Heap budget of the stress test, in megabytes.
+     */
+    private static final long STRESS_HEAP_MB = 768;
+
+    /**
+     * Returns whether files can be named with characters outside ASCII, which
+     * depends on the locale the JVM runs in.
+     *
+     * @return true iff a path can hold such characters
+     */
+    private static boolean unicodeFileNames() {
+        try {
+            Paths.get("data", "\u00e9\u6771\ud83d\ude00.html");
+            return true;
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs {@code build} and returns the most heap it kept in use: the
+     * largest heap left after any garbage collection during the run, in
+     * bytes. Unlike the peak use of the heap, which also counts garbage not
+     * yet collected, this does not grow with the largest heap allowed.
+     *
+     * @param build
+     *            the build to run
+     * @return the largest heap in use after a collection, or 0 if there was
+     *         none
+     * @throws ListenerNotFoundException
+     *             if a listener cannot be removed
+     */
+    private static long retainedHeap(Runnable build)
+            throws ListenerNotFoundException {
+        java.util.Set<String> heapPools = new HashSet<>();
+        for (MemoryPoolMXBean pool : ManagementFactory
+                .getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        String collection = GarbageCollectionNotificationInfo
+                .GARBAGE_COLLECTION_NOTIFICATION;
+        AtomicLong retained = new AtomicLong();
+        NotificationListener listener = (notification, handback) -> {
+            if (notification.getType().equals(collection)) {
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from(
+                                (CompositeData) notification.getUserData());
+                long used = 0;
+                for (java.util.Map.Entry<String, MemoryUsage> pool : info
+                        .getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+                    if (heapPools.contains(pool.getKey())) {
+                        used += pool.getValue().getUsed();
+                    }
+                }
+                retained.accumulateAndGet(used, Math::max);
+            }
+        };
+        System.gc();
+        List<GarbageCollectorMXBean> collectors = ManagementFactory
+                .getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean collector : collectors) {
+            ((NotificationEmitter) collector)
+                    .addNotificationListener(listener, null, null);
+        }
+        try {
+            build.run();
+        } finally {
+            for (GarbageCollectorMXBean collector : collectors) {
+                ((NotificationEmitter) collector)
+                        .removeNotificationListener(listener);
+            }
+        }
+        return retained.get();
+    }
+
+    /**
+     * Routine test case for the page writing path, term by term. On random
+     * glossaries, with empty definitions, and with terms outside ASCII where
+     * files can be named so, the pages written one at a time by
+     * processTerm and the index are those of the reference build.
+     */
+    @Test
+    public void testProcessTerm_Routine() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            RandomGlossary glossary = new RandomGlossary(60, seed,
+                    unicodeFileNames());
+            Map<String, String> map = glossary.toMap();
+            String expected = "data/reference-" + seed;
+            String actual = "data/process-term-" + seed;
+            ReferenceBuild.build(map, expected);
+            TestFiles.clear(actual);
+
+            Queue<String> keys = Glossary.sortingKeys(map);
+            for (Map.Pair<String, String> pair : map) {
+                Glossary.processTerm(keys, pair, actual);
+            }
+            SiteWriter out = new SiteWriter(Paths.get(actual));
+            Glossary.writeIndex(keys, IndexLayout.single(keys.length()), out);
+            out.close();
+
+            assertEquals("seed " + seed, List.of(),
+                    ReferenceBuild.differences(expected, actual));
+        }
+    }
+
+    /**
+     * Challenging test case for every build engine. On random glossaries
+     * read from files, each engine, with each way of generating the pages,
+     * writes the tree of the reference build, and so does an incremental
+     * build over the tree of another glossary.
+     */
+    @Test
+    public void testBuild_Challenging() {
+        TestFiles.clear("data/random-incremental");
+        for (int seed = 0; seed < SEEDS; seed++) {
+            String input = "data/random-" + seed + ".txt";
+            new RandomGlossary(120, seed, unicodeFileNames()).write(input);
+            String expected = "data/random-reference-" + seed;
+            ReferenceBuild.build(Glossary.mapFromFile(input,
+                    new GlossaryMerger(GlossaryMerger.Policy.FIRST_WINS)),
+                    expected);
+
+            /*
+             * Each engine writes a folder of its own, but the incremental
+             * build always updates the same one.
+             */
+            String actual = "data/random-" + seed + "-";
+            String[] engines = { "build", "streaming", "mapped", "compact",
+                "fork-join", "virtual" };
+            for (String engine : engines) {
+                TestFiles.clear(actual + engine);
+            }
+            BuildConfig config = BuildConfig.defaults();
+            Glossary.build(input, actual + "build", config);
+            Glossary.buildStreaming(input, actual + "streaming", config);
+            Glossary.buildMapped(input, actual + "mapped", config);
+            Glossary.buildCompact(input, actual + "compact", config);
+            Glossary.buildIncremental(input, "data/random-incremental",
+                    config);
+            config.setGenerator(
+                    new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4));
+            config.setAtomic(true);
+            Glossary.build(input, actual + "fork-join", config);
+            config.setGenerator(new PageGenerator(
+                    PageGenerator.Mode.VIRTUAL_THREADS, 8));
+            Glossary.buildStreaming(input, actual + "virtual", config);
+
+            for (String engine : engines) {
+                assertEquals("seed " + seed + " " + engine, List.of(),
+                        ReferenceBuild.differences(expected, actual + engine));
+            }
+            assertEquals("seed " + seed + " incremental", List.of(),
+                    ReferenceBuild.differences(expected,
+                            "data/random-incremental"));
+        }
+    }
+
+    /**
+     * Edge test case for a glossary of a million terms, built by a streaming
+     * build into one pack file, within a time and a heap budget. The pack
+     * holds a page per term, the index and the term registry, and the pages
+     * sampled are those of the reference build.
+     *
+     * @throws ListenerNotFoundException
+     *             if the heap cannot be watched
+     */
+    @Test
+    public void testStress_Edge() throws ListenerNotFoundException {
+        SyntheticGlossary glossary = new SyntheticGlossary(STRESS_TERMS, 8,
+                0.2, 41);
+        String input = "data/stress.txt";
+        glossary.write(input);
+        BuildConfig config = BuildConfig.defaults();
+        config.setArchive("pack");
+
+        int[] written = new int[1];
+        long start = System.nanoTime();
+        long heapMegabytes = retainedHeap(() -> written[0] = Glossary
+                .buildStreaming(input, "data/stress", config)) / (1024 * 1024);
+        long seconds = (System.nanoTime() - start) / 1_000_000_000L;
+
+        assertEquals(STRESS_TERMS, written[0]);
+        assertTrue(seconds + " s", seconds < STRESS_SECONDS);
+        assertTrue(heapMegabytes + " MB", heapMegabytes < STRESS_HEAP_MB);
+
+        Map<String, String> map = glossary.toMap();
+        PackFile pack = PackFile.open(Paths.get("data/stress.pack"));
+        assertEquals(STRESS_TERMS + 2, pack.size());
+        for (int i = 0; i < STRESS_TERMS; i += STRESS_TERMS / 100 + 1) {
+            String term = glossary.term(i);
+            assertEquals(term, ReferenceBuild.termPage(map, term),
+                    new String(pack.page(term + ".html"),
+                            StandardCharsets.UTF_8));
+        }
+        pack.close();
+    }
+
+}
@@ -0,0 +1,99 @@
+import components.queue.Queue;
+
+/**
+ * An output format of a glossary. The glossary is parsed, sorted and
+ * matched once, whatever the number of formats: a build calls
+ * {@link #begin} on each of its renderers, then {@link #term} on each of them
+ * for every term with the definition already matched, then {@link #finish}
+ * once every page is rendered. {@link #term} may be called from several
+ * threads at once, for different terms.
+ *
+ * @author L. Oden
+ *
+ */
+public interface Renderer {
+
+    /**
+     * Returns a new renderer of {@code format} for a glossary of
+     * {@code sortedKeys}:
+     * <ul>
+     * <li>"html" for an HTML page per term and an index, the original
+     * output ({@link HtmlRenderer});</li>
+     * <li>"markdown" for the same pages in Markdown
+     * ({@link MarkdownRenderer});</li>
+     * <li>"json" for the whole glossary as one JSON file
+     * ({@link JsonRenderer});</li>
+     * <li>"single-page" for the whole glossary as one HTML page with anchor
+     * links ({@link SinglePageRenderer}).</li>
+     * </ul>
+     *
+     * @param format
+     *            the name of the format
+     * @param sortedKeys
+     *            the terms in index order
+     * @return the renderer
+     * @throws IllegalArgumentException
+     *             if the format is not one of these
+     */
+    static Renderer forFormat(String format, Queue<String> sortedKeys) {
+        Renderer renderer;
+        switch (format) {
+            case "html":
+                renderer = new HtmlRenderer();
+                break;
+            case "markdown":
+                renderer = new MarkdownRenderer();
+                break;
+            case "json":
+                renderer = new JsonRenderer(sortedKeys.length());
+                break;
+            case "single-page":
+                renderer = new SinglePageRenderer(sortedKeys);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown output format: " + format);
+        }
+        return renderer;
+    }
+
+    /**
+     * Writes what comes before the pages of the terms, such as an index.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @param index
+     *            the layout of the index
+     * @param out
+     *            where the output files are written
+     */
+    void begin(Queue<String> sortedKeys, IndexLayout index, SiteWriter out);
+
+    /**
+     * Renders the page of term {@code termIndex}.
+     *
+     * @param matcher
+     *            the term matcher built from all terms, which names them
+     * @param index
+     *            the layout of the index
+     * @param termIndex
+     *            the position of the term in index order
+     * @param definition
+     *            the definition of the term, with its matches
+     * @param out
+     *            where the output files are written, which also holds the
+     *            search index and link graph of the build, if any
+     */
+    void term(TermMatcher matcher, IndexLayout index, int termIndex,
+            MatchedDefinition definition, SiteWriter out);
+
+    /**
+     * Writes what comes after the pages of the terms, once all of them are
+     * rendered.
+     *
+     * @param out
+     *            where the output files are written
+     */
+    void finish(SiteWriter out);
+
+}
@@ -0,0 +1,140 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test cases for the Renderer interface and its formats. Author: Logan
+ * Oden
+ */
+public class RendererTest {
+
+    /**
+     * Routine test case for the Markdown and JSON formats. The pages link
+     * the terms in each definition, escape what Markdown would read as
+     * markup, and list the pages linking to each term when backlinks are on.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Routine() throws IOException {
+        BuildConfig config = BuildConfig.defaults();
+        config.setFormats("markdown,json");
+        config.setBacklinks(true);
+        String output = TestFiles.build("formats",
+                "Java\nA *language*.\n\nJUnit test\nTests Java \"code\".\n\n",
+                config);
+
+        assertEquals("# Glossary\n\n## Index\n\n"
+                + "- [JUnit test](JUnit%20test.md)\n- [Java](Java.md)\n",
+                TestFiles.read(output, MarkdownRenderer.INDEX_PAGE));
+        assertEquals("# Java\n\nA \\*language\\*.\n\n## Referenced by\n\n"
+                + "- [JUnit test](JUnit%20test.md)\n\n"
+                + "[Return to index](index.md)\n",
+                TestFiles.read(output, "Java.md"));
+        assertEquals("# JUnit test\n\nTests [Java](Java.md) \"code\".\n\n"
+                + "[Return to index](index.md)\n",
+                TestFiles.read(output, "JUnit test.md"));
+        assertEquals("{\"terms\":[\n"
+                + "{\"term\":\"JUnit test\",\"definition\":"
+                + "\"Tests Java \\\"code\\\".\",\"links\":[\"Java\"],"
+                + "\"referencedBy\":[]},\n"
+                + "{\"term\":\"Java\",\"definition\":\"A *language*.\","
+                + "\"links\":[],\"referencedBy\":[\"JUnit test\"]}\n]}\n",
+                TestFiles.read(output, JsonRenderer.FILE_NAME));
+        assertFalse(Files.exists(Paths.get(output, "Java.html")));
+    }
+
+    /**
+     * Challenging test case for every format in one build. The HTML pages
+     * are exactly those of an HTML-only build, concurrent rendering writes
+     * every format the same, and the single page has a section per term
+     * whose links stay on the page.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Challenging() throws IOException {
+        SyntheticGlossary glossary = new SyntheticGlossary(800, 12, 0.3, 17);
+        String input = "data/formats-large.txt";
+        glossary.write(input);
+        BuildConfig config = BuildConfig.defaults();
+        config.setFormats("html, markdown, json, single-page");
+        Glossary.build(input, "data/formats-all", config);
+        config.setGenerator(
+                new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4));
+        Glossary.build(input, "data/formats-fork-join", config);
+        Glossary.build(input, "data/formats-html", BuildConfig.defaults());
+
+        Queue<String> keys = Glossary.sortingKeys(glossary.toMap(),
+                TermOrder.RAW);
+        for (String key : keys) {
+            assertEquals(key,
+                    TestFiles.read("data/formats-html", key + ".html"),
+                    TestFiles.read("data/formats-all", key + ".html"));
+            assertEquals(key, TestFiles.read("data/formats-all", key + ".md"),
+                    TestFiles.read("data/formats-fork-join", key + ".md"));
+        }
+        assertEquals(
+                TestFiles.read("data/formats-html", IndexLayout.INDEX_PAGE),
+                TestFiles.read("data/formats-all", IndexLayout.INDEX_PAGE));
+        for (String file : new String[] { JsonRenderer.FILE_NAME,
+                SinglePageRenderer.FILE_NAME }) {
+            assertEquals(file, TestFiles.read("data/formats-all", file),
+                    TestFiles.read("data/formats-fork-join", file));
+        }
+
+        String page = TestFiles.read("data/formats-all",
+                SinglePageRenderer.FILE_NAME);
+        int sections = 0;
+        int at = page.indexOf("<h2 id = \"");
+        while (at >= 0) {
+            sections++;
+            at = page.indexOf("<h2 id = \"", at + 1);
+        }
+        assertEquals(keys.length(), sections);
+        assertFalse(page.contains(".html\""));
+        String json = TestFiles.read("data/formats-all",
+                JsonRenderer.FILE_NAME);
+        assertEquals(keys.length(), json.split("\\{\"term\":").length - 1);
+    }
+
+    /**
+     * Edge test case for the formats accepted. An unknown format is
+     * rejected, both by name and as an option, and incremental builds, which
+     * only write HTML, reject any other format.
+     */
+    @Test
+    public void testForFormat_Edge() {
+        Queue<String> keys = new Queue1L<>();
+        assertTrue(Renderer.forFormat("html", keys) instanceof HtmlRenderer);
+        assertTrue(Renderer.forFormat("single-page",
+                keys) instanceof SinglePageRenderer);
+        try {
+            Renderer.forFormat("pdf", keys);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown output format: pdf", e.getMessage());
+        }
+        BuildConfig config = BuildConfig.defaults();
+        config.setFormats("html,markdown");
+        try {
+            Glossary.buildIncremental("data/formats.txt", "data/formats-inc",
+                    config);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals("Incremental builds only write HTML", e.getMessage());
+        }
+    }
+
+}
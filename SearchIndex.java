@@ -0,0 +1,251 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import components.queue.Queue;
+
+/**
+ * Full-text search index of a glossary, collected from each definition as its
+ * term page is written, whatever the output formats, and written next to the
+ * pages as {@value #FILE_NAME}. A static page script can
+ * then search the glossary without a server and without indexing the HTML.
+ *
+ * <p>
+ * The words of a page are the words of its term and definition, split at the
+ * separators of the build and lower-cased. The file is a JSON object:
+ * {@code terms} lists the terms in index order, so that term i has the page
+ * {@code terms[i] + ".html"}; and {@code words} maps each word, in sorted
+ * order so that the words with a given prefix are a contiguous run, to the
+ * increasing list of the terms whose pages contain it, each given as the
+ * difference from the one before (the first from 0).
+ *
+ * <p>
+ * The words of different pages may be collected by different threads at
+ * once, as long as each page is collected by one thread.
+ *
+ * @author L. Oden
+ *
+ */
+public final class SearchIndex {
+
+    /**
+     * Name of the index file in the output.
+     */
+    public static final String FILE_NAME = "search-index.json";
+
+    /**
+     * The terms, in index order.
+     */
+    private final String[] terms;
+
+    /**
+     * The characters that separate words.
+     */
+    private final SeparatorTable separators;
+
+    /**
+     * The distinct words of each page, or null until collected.
+     */
+    private final String[][] words;
+
+    /**
+     * Constructor.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     * @param separators
+     *            the characters that separate words
+     */
+    public SearchIndex(Queue<String> sortedKeys, SeparatorTable separators) {
+        this.terms = new String[sortedKeys.length()];
+        int i = 0;
+        for (String key : sortedKeys) {
+            this.terms[i] = key;
+            i++;
+        }
+        this.separators = separators;
+        this.words = new String[this.terms.length][];
+    }
+
+    /**
+     * Returns a collector of the words of the page of term
+     * {@code termIndex}, which already holds the words of the term.
+     *
+     * @param termIndex
+     *            the position of the term in index order
+     * @return the collector
+     * @requires 0 <= termIndex < [number of terms]
+     */
+    private Page page(int termIndex) {
+        Page page = new Page(termIndex);
+        String term = this.terms[termIndex];
+        page.add(term, 0, term.length());
+        return page;
+    }
+
+    /**
+     * Collects the words of the page of term {@code termIndex} with
+     * {@code definition}.
+     *
+     * @param termIndex
+     *            the position of the term in index order
+     * @param definition
+     *            the definition of the term
+     * @requires 0 <= termIndex < [number of terms]
+     */
+    public void add(int termIndex, CharSequence definition) {
+        Page page = this.page(termIndex);
+        page.add(definition, 0, definition.length());
+        page.finish();
+    }
+
+    /**
+     * Returns the terms whose pages contain {@code word}.
+     *
+     * @param word
+     *            a lower-case word
+     * @return the positions of the terms in index order, in increasing order
+     */
+    public int[] postings(String word) {
+        int[] postings = new int[this.terms.length];
+        int count = 0;
+        for (int i = 0; i < this.terms.length; i++) {
+            if (this.words[i] != null
+                    && Arrays.binarySearch(this.words[i], word) >= 0) {
+                postings[count] = i;
+                count++;
+            }
+        }
+        return Arrays.copyOf(postings, count);
+    }
+
+    /**
+     * Returns the index as JSON, in the format described above.
+     *
+     * @return the JSON text
+     */
+    public String toJson() {
+        /*
+         * The pages are visited in index order, so each posting list is
+         * built in increasing order.
+         */
+        TreeMap<String, List<Integer>> postings = new TreeMap<>();
+        for (int i = 0; i < this.words.length; i++) {
+            if (this.words[i] != null) {
+                for (String word : this.words[i]) {
+                    postings.computeIfAbsent(word, w -> new ArrayList<>())
+                            .add(i);
+                }
+            }
+        }
+        StringBuilder json = new StringBuilder();
+        json.append("{\"terms\":[");
+        for (int i = 0; i < this.terms.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            JsonRenderer.appendString(json, this.terms[i]);
+        }
+        json.append("],\n\"words\":{");
+        boolean first = true;
+        for (Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+            if (!first) {
+                json.append(",\n");
+            }
+            first = false;
+            JsonRenderer.appendString(json, entry.getKey());
+            json.append(":[");
+            int previous = 0;
+            for (int j = 0; j < entry.getValue().size(); j++) {
+                int termIndex = entry.getValue().get(j);
+                if (j > 0) {
+                    json.append(',');
+                }
+                json.append(termIndex - previous);
+                previous = termIndex;
+            }
+            json.append(']');
+        }
+        json.append("}}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the index to {@code out} as {@value #FILE_NAME}.
+     *
+     * @param out
+     *            where the output files are written
+     */
+    public void write(SiteWriter out) {
+        out.write(FILE_NAME, this.toJson());
+    }
+
+    /**
+     * Collector of the distinct words of one page.
+     */
+    private final class Page {
+
+        /**
+         * The position of the term of the page.
+         */
+        private final int termIndex;
+
+        /**
+         * The words found so far.
+         */
+        private final HashSet<String> found = new HashSet<>();
+
+        /**
+         * Constructor.
+         *
+         * @param termIndex
+         *            the position of the term of the page
+         */
+        Page(int termIndex) {
+            this.termIndex = termIndex;
+        }
+
+        /**
+         * Adds the words of {@code text[start, end)}.
+         *
+         * @param text
+         *            the text
+         * @param start
+         *            the start of the part to add
+         * @param end
+         *            the end of the part to add
+         * @requires 0 <= start <= end <= |text|
+         */
+        public void add(CharSequence text, int start, int end) {
+            SeparatorTable table = SearchIndex.this.separators;
+            int p = start;
+            while (p < end) {
+                while (p < end && table.isSeparator(text.charAt(p))) {
+                    p++;
+                }
+                int wordStart = p;
+                while (p < end && !table.isSeparator(text.charAt(p))) {
+                    p++;
+                }
+                if (p > wordStart) {
+                    this.found.add(text.subSequence(wordStart, p).toString()
+                            .toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+
+        /**
+         * Records the words found as the words of the page.
+         */
+        public void finish() {
+            String[] pageWords = this.found.toArray(new String[0]);
+            Arrays.sort(pageWords);
+            SearchIndex.this.words[this.termIndex] = pageWords;
+        }
+    }
+
+}
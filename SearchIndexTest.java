@@ -0,0 +1,134 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test cases for the SearchIndex class. Author: Logan Oden
+ */
+public class SearchIndexTest {
+
+    /**
+     * Returns the search index written to {@code outputFolder}.
+     *
+     * @param outputFolder
+     *            the output folder
+     * @return the text of the index
+     * @throws IOException
+     *             if the index cannot be read
+     */
+    private static String read(String outputFolder) throws IOException {
+        return TestFiles.read(outputFolder, SearchIndex.FILE_NAME);
+    }
+
+    /**
+     * Routine test case for a build with a search index. The words of each
+     * term and definition are lower-cased, listed in sorted order, and map to
+     * the gaps between the terms whose pages contain them, whatever the
+     * output formats.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Routine() throws IOException {
+        BuildConfig config = BuildConfig.defaults();
+        config.setSearch(true);
+        String output = TestFiles.build("search",
+                "Java\nA language.\n\nJUnit\nTests Java code.\n\n", config);
+
+        assertEquals("{\"terms\":[\"JUnit\",\"Java\"],\n\"words\":{"
+                + "\"a\":[1],\n\"code\":[0],\n\"java\":[0,1],\n"
+                + "\"junit\":[0],\n\"language\":[1],\n\"tests\":[0]}}\n",
+                read(output));
+
+        config.setFormats("markdown,json");
+        String markdown = TestFiles.build("search-markdown",
+                "Java\nA language.\n\nJUnit\nTests Java code.\n\n", config);
+        assertEquals(read(output), read(markdown));
+    }
+
+    /**
+     * Challenging test case for the words collected while rendering. A
+     * generated glossary gives the same index whether its pages are rendered
+     * one at a time or concurrently, and the same as tokenizing every
+     * definition on its own.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Challenging() throws IOException {
+        SyntheticGlossary glossary = new SyntheticGlossary(2000, 15, 0.3, 23);
+        String input = "data/search-large.txt";
+        glossary.write(input);
+        BuildConfig config = BuildConfig.defaults();
+        config.setSearch(true);
+        Glossary.build(input, "data/search-sequential", config);
+        config.setGenerator(
+                new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4));
+        Glossary.build(input, "data/search-fork-join", config);
+
+        Glossary.build(input, "data/search-plain", BuildConfig.defaults());
+        Queue<String> keys = Glossary.sortingKeys(glossary.toMap(),
+                TermOrder.RAW);
+        SearchIndex expected = new SearchIndex(keys, SeparatorTable.DEFAULT);
+        int termIndex = 0;
+        for (String key : keys) {
+            expected.add(termIndex, glossary.toMap().value(key));
+            termIndex++;
+        }
+
+        String sequential = read("data/search-sequential");
+        assertEquals(expected.toJson(), sequential);
+        assertEquals(sequential, read("data/search-fork-join"));
+        assertFalse(Files.exists(
+                Paths.get("data/search-plain", SearchIndex.FILE_NAME)));
+    }
+
+    /**
+     * Edge test case for an incremental rebuild, which renders only the
+     * changed page but still indexes every page, and for a word that no page
+     * contains.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuildIncremental_Edge() throws IOException {
+        String folder = "data/search-incremental";
+        TestFiles.clear(folder);
+        String input = "data/search-incremental.txt";
+        TestFiles.write(input, "Java\nA language.\n\nJUnit\nTests Java.\n\n");
+        BuildConfig config = BuildConfig.defaults();
+        config.setSearch(true);
+        assertEquals(2, Glossary.buildIncremental(input, folder,
+                config));
+        TestFiles.write(input, "Java\nAn island.\n\nJUnit\nTests Java.\n\n");
+
+        assertEquals(1, Glossary.buildIncremental(input, folder,
+                config));
+        Glossary.build(input, "data/search-full", config);
+
+        assertEquals(read("data/search-full"), read(folder));
+        assertTrue(read(folder).contains("\"island\":[1]"));
+        assertFalse(read(folder).contains("\"language\""));
+
+        Queue<String> keys = new Queue1L<>();
+        keys.enqueue("Java");
+        SearchIndex index = new SearchIndex(keys, SeparatorTable.DEFAULT);
+        index.add(0, "A language.");
+        assertArrayEquals(new int[] {0}, index.postings("language"));
+        assertArrayEquals(new int[0], index.postings("missing"));
+    }
+
+}
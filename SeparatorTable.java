@@ -0,0 +1,229 @@
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import components.set.Set;
+
+/**
+ * Precomputed set of separator characters, stored as a bit table over all
+ * {@code char} values, and the allocation-free tokenizer built on it. Testing a
+ * character is a single array load, with no boxing or hashing, and
+ * {@link #tokenEnd} finds the end of a word or separator string without
+ * creating a substring.
+ *
+ * <p>
+ * Tables are immutable and may be shared between threads.
+ *
+ * @author L. Oden
+ *
+ */
+public final class SeparatorTable {
+
+    /**
+     * The separators the glossary has always used: space, period, comma,
+     * semicolon and colon.
+     */
+    public static final SeparatorTable DEFAULT = of(" .,;:");
+
+    /**
+     * Number of bits in a table word.
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * log2 of {@code WORD_BITS}.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * One bit per {@code char} value, set for separators.
+     */
+    private final long[] bits;
+
+    /**
+     * Constructor.
+     *
+     * @param bits
+     *            one bit per {@code char} value, set for separators
+     */
+    private SeparatorTable(long[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Returns an empty bit table.
+     *
+     * @return a table with no bits set
+     */
+    private static long[] newBits() {
+        return new long[(Character.MAX_VALUE + 1) / WORD_BITS];
+    }
+
+    /**
+     * Sets the bit of {@code c}.
+     *
+     * @param bits
+     *            the table
+     * @param c
+     *            the character
+     */
+    private static void set(long[] bits, char c) {
+        bits[c >>> WORD_SHIFT] |= 1L << c;
+    }
+
+    /**
+     * Returns the table of the characters in {@code separators}.
+     *
+     * @param separators
+     *            the separator characters
+     * @return the table
+     */
+    public static SeparatorTable of(CharSequence separators) {
+        long[] bits = newBits();
+        for (int i = 0; i < separators.length(); i++) {
+            set(bits, separators.charAt(i));
+        }
+        return new SeparatorTable(bits);
+    }
+
+    /**
+     * Returns the table of the characters in {@code separators}.
+     *
+     * @param separators
+     *            the {@code Set} of separator characters
+     * @return the table
+     */
+    public static SeparatorTable of(Set<Character> separators) {
+        long[] bits = newBits();
+        for (char c : separators) {
+            set(bits, c);
+        }
+        return new SeparatorTable(bits);
+    }
+
+    /**
+     * Returns the table of all Unicode white space and punctuation, including
+     * parentheses, brackets and quotation marks, but not the connector
+     * punctuation (such as '_') that usually joins words.
+     *
+     * @return the table
+     */
+    public static SeparatorTable unicode() {
+        long[] bits = newBits();
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            boolean separator = Character.isWhitespace(c)
+                    || Character.isSpaceChar(c);
+            switch (Character.getType(c)) {
+                case Character.DASH_PUNCTUATION:
+                case Character.START_PUNCTUATION:
+                case Character.END_PUNCTUATION:
+                case Character.INITIAL_QUOTE_PUNCTUATION:
+                case Character.FINAL_QUOTE_PUNCTUATION:
+                case Character.OTHER_PUNCTUATION:
+                    separator = true;
+                    break;
+                default:
+                    break;
+            }
+            if (separator) {
+                set(bits, (char) c);
+            }
+        }
+        return new SeparatorTable(bits);
+    }
+
+    /**
+     * Returns the table named by {@code name}: "default" for {@link #DEFAULT},
+     * "unicode" for {@link #unicode()}, and otherwise the table of the
+     * characters of {@code name} itself.
+     *
+     * @param name
+     *            the table name, or the separator characters
+     * @return the table
+     */
+    public static SeparatorTable parse(String name) {
+        if (name.equals("default")) {
+            return DEFAULT;
+        }
+        if (name.equals("unicode")) {
+            return unicode();
+        }
+        return of(name);
+    }
+
+    /**
+     * Returns whether {@code c} is a separator.
+     *
+     * @param c
+     *            the character to test
+     * @return true iff {@code c} is a separator
+     */
+    public boolean isSeparator(char c) {
+        return (this.bits[c >>> WORD_SHIFT] & (1L << c)) != 0;
+    }
+
+    /**
+     * Returns the end of the word (maximal string of non-separators) or
+     * separator string (maximal string of separators) in {@code text} starting
+     * at {@code position}. This is the allocation-free counterpart of
+     * {@link Glossary#nextWordOrSeparator}.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            the start of the word or separator string
+     * @return the index just past its last character
+     * @requires 0 <= position < |text|
+     */
+    public int tokenEnd(CharSequence text, int position) {
+        assert 0 <= position : "Violation of: 0 <= position";
+        assert position < text.length() : "Violation of: position < |text|";
+
+        boolean separator = this.isSeparator(text.charAt(position));
+        int length = text.length();
+        int p = position + 1;
+        while (p < length && this.isSeparator(text.charAt(p)) == separator) {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Returns whether {@code position} is a word/separator boundary of
+     * {@code text}: the end of the text, or a position between a separator and
+     * a non-separator.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            the position to test
+     * @return true iff position is a boundary
+     * @requires 0 < position <= |text|
+     */
+    public boolean isBoundary(CharSequence text, int position) {
+        return position == text.length()
+                || this.isSeparator(text.charAt(position - 1)) != this
+                        .isSeparator(text.charAt(position));
+    }
+
+    /**
+     * Returns the fingerprint of this table: the SHA-256 hash of its bits, in
+     * hexadecimal. Tables of the same separators have the same fingerprint,
+     * so it records the separators a build matched the terms with.
+     *
+     * @return the fingerprint
+     */
+    public String fingerprint() {
+        ByteBuffer table = ByteBuffer.allocate(this.bits.length * Long.BYTES);
+        table.asLongBuffer().put(this.bits);
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(table.array()));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * JUnit test cases for the SeparatorTable class. Author: Logan Oden
+ */
+public class SeparatorTableTest {
+
+    /**
+     * Routine test case for the tokenEnd method. Tokens end where the Set
+     * version of nextWordOrSeparator ends them.
+     */
+    @Test
+    public void testTokenEnd_Routine() {
+        String text = "Hello, world; a: b.  c";
+        int position = 0;
+        while (position < text.length()) {
+            String expected = Glossary.nextWordOrSeparator(text, position,
+                    Glossary.termSeparators());
+            int end = SeparatorTable.DEFAULT.tokenEnd(text, position);
+            assertEquals(expected, text.substring(position, end));
+            position = end;
+        }
+    }
+
+    /**
+     * Challenging test case for the unicode method. Parentheses, quotes, dashes
+     * and non-breaking spaces separate words; letters, digits and '_' do not.
+     */
+    @Test
+    public void testUnicode_Challenging() {
+        SeparatorTable table = SeparatorTable.unicode();
+
+        for (char c : "()[]{}\"'\u00ab\u00bb\u201c\u201d-\u2014!?\u00a0\t\u3002"
+                .toCharArray()) {
+            assertTrue("separator " + (int) c, table.isSeparator(c));
+        }
+        for (char c : "aZ09_\u00e9\u65e5".toCharArray()) {
+            assertFalse("not separator " + (int) c, table.isSeparator(c));
+        }
+    }
+
+    /**
+     * Edge test case for the parse and tokenEnd methods. Custom separators,
+     * the highest char value, and a one-character token at the end.
+     */
+    @Test
+    public void testParse_Edge() {
+        SeparatorTable table = SeparatorTable.parse("/\uffff");
+
+        assertTrue(table.isSeparator('\uffff'));
+        assertFalse(table.isSeparator(' '));
+        assertEquals(5, table.tokenEnd("a b//c", 3));
+        assertEquals(6, table.tokenEnd("a b//c", 5));
+        assertTrue(table.isBoundary("a b//c", 3));
+        assertFalse(table.isBoundary("a b//c", 2));
+    }
+
+}
@@ -0,0 +1,169 @@
+import components.queue.Queue;
+
+/**
+ * The whole glossary as one HTML page, single-page.html: the index, then a
+ * section per term, anchored on the term, whose definition links the terms
+ * in it to their sections on the same page. Each section is rendered with
+ * its term, as bytes, and kept until every term is rendered, then the page
+ * is assembled in index order and written in one piece.
+ *
+ * @author L. Oden
+ *
+ */
+public final class SinglePageRenderer implements Renderer {
+
+    /**
+     * Name of the file written.
+     */
+    public static final String FILE_NAME = "single-page.html";
+
+    /**
+     * Layout of the page: the title, the list of terms, then the sections of
+     * the terms.
+     */
+    private static final PageTemplate PAGE = PageTemplate.compile(
+            "<html>\n<head>\n<title>Glossary</title>\n</head>\n<body>\n"
+                    + "<h1>Glossary</h1>\n<hr>\n<h2>Index</h2>\n<ul>\n"
+                    + "{{entries}}</ul>\n{{terms}}</body>\n</html>\n");
+
+    /**
+     * Slot of the list of terms in {@code PAGE}.
+     */
+    private static final int PAGE_ENTRIES = PAGE.slot("entries");
+
+    /**
+     * Layout of the section of a term, as on a term page: the term as
+     * header, then the definition, then the sections linking to the term, if
+     * listed, then a link back to the top of the page.
+     */
+    private static final PageTemplate SECTION = PageTemplate.compile(
+            "<hr>\n<h2 id = \"{{term}}\"><em><b style='color:red;'>{{term}}"
+                    + "</b></em></h2>\n"
+                    + "<p>\n&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;"
+                    + "&nbsp;&nbsp;&nbsp;&nbsp;{{definition}}</p>\n"
+                    + "{{backlinks}}"
+                    + "<p>Return to <a href = \"#\">index</a>.</p>\n");
+
+    /**
+     * Slot of the term in {@code SECTION}.
+     */
+    private static final int SECTION_TERM = SECTION.slot("term");
+
+    /**
+     * Slot of the sections linking to the term in {@code SECTION}.
+     */
+    private static final int SECTION_BACKLINKS = SECTION.slot("backlinks");
+
+    /**
+     * Layout of the list of the sections linking to a term, each listed
+     * with {@code ENTRY}.
+     */
+    private static final PageTemplate BACKLINKS = PageTemplate
+            .compile("<p>Referenced by:</p>\n<ul>\n{{entries}}</ul>\n");
+
+    /**
+     * Layout of an entry of a list of terms.
+     */
+    private static final PageTemplate ENTRY = PageTemplate
+            .compile("<li><a href = \"#{{term}}\">{{term}}</a></li>\n");
+
+    /**
+     * Layout of a link from a definition to the section of a term.
+     */
+    private static final PageTemplate LINK = PageTemplate
+            .compile("<a href = \"#{{page}}\">{{text}}</a>");
+
+    /**
+     * The terms, in index order.
+     */
+    private final String[] terms;
+
+    /**
+     * The section of each term, in index order, once rendered.
+     */
+    private final byte[][] sections;
+
+    /**
+     * Constructor.
+     *
+     * @param sortedKeys
+     *            the terms in index order
+     */
+    public SinglePageRenderer(Queue<String> sortedKeys) {
+        this.terms = new String[sortedKeys.length()];
+        int i = 0;
+        for (String key : sortedKeys) {
+            this.terms[i] = key;
+            i++;
+        }
+        this.sections = new byte[this.terms.length][];
+    }
+
+    /**
+     * Appends an entry linking to the section of {@code term} to
+     * {@code list}.
+     *
+     * @param list
+     *            the list being written
+     * @param term
+     *            the term
+     */
+    private static void appendEntry(HtmlBuffer list, String term) {
+        ENTRY.render(list, (slot, entry) -> entry.appendText(term));
+    }
+
+    @Override
+    public void begin(Queue<String> sortedKeys, IndexLayout index,
+            SiteWriter out) {
+        // The index is written with the sections, once they are rendered.
+    }
+
+    @Override
+    public void term(TermMatcher matcher, IndexLayout index, int termIndex,
+            MatchedDefinition definition, SiteWriter out) {
+        HtmlBuffer section = out.pageBuffer();
+        LinkGraph graph = out.linkGraph();
+        Glossary.LinkPrinter links = new Glossary.LinkPrinter(LINK, matcher,
+                section);
+        SECTION.render(section, (slot, page) -> {
+            if (slot == SECTION_TERM) {
+                page.appendText(matcher.term(termIndex));
+            } else if (slot == SECTION_BACKLINKS) {
+                if (graph != null && graph.referenceCount(termIndex) > 0) {
+                    BACKLINKS.render(page, (entries, list) -> {
+                        for (int source : graph.referencedBy(termIndex)) {
+                            appendEntry(list, matcher.term(source));
+                        }
+                    });
+                }
+            } else {
+                definition.replay(links);
+            }
+        });
+        this.sections[termIndex] = section.toByteArray();
+    }
+
+    @Override
+    public void finish(SiteWriter out) {
+        HtmlBuffer page = out.pageBuffer();
+        PAGE.render(page, (slot, content) -> {
+            if (slot == PAGE_ENTRIES) {
+                for (String term : this.terms) {
+                    appendEntry(content, term);
+                }
+            } else {
+                /*
+                 * A term not rendered, as when a build fails part way, is
+                 * left out.
+                 */
+                for (byte[] section : this.sections) {
+                    if (section != null) {
+                        content.appendRaw(section);
+                    }
+                }
+            }
+        });
+        out.write(FILE_NAME, page);
+    }
+
+}
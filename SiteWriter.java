@@ -0,0 +1,944 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the files of a generated glossary, either to an output folder or
+ * into a single archive. Each page is rendered by its caller into a large
+ * reusable per-thread {@link HtmlBuffer}, already encoded in UTF-8, and
+ * written with a single open, write and close, instead of a flush per line.
+ *
+ * <p>
+ * Optionally, files are handed to a background thread through a bounded
+ * queue (write-behind), so that rendering waits on the file system only when
+ * the queue is full; and optionally, the files are written to a staging folder
+ * next to the output folder that replaces it only when {@link #close()} is
+ * called (atomic publish), so readers never see a half-written glossary.
+ * Archives are always published this way.
+ *
+ * @author L. Oden
+ *
+ */
+public final class SiteWriter implements AutoCloseable {
+
+    /**
+     * Where the encoded files go. Writes may come from several threads at
+     * once.
+     */
+    interface Destination {
+
+        /**
+         * Stores {@code bytes} as the file {@code fileName}.
+         *
+         * @param fileName
+         *            the name of the file
+         * @param bytes
+         *            the content, from its position to its limit
+         */
+        void write(String fileName, ByteBuffer bytes);
+
+        /**
+         * Removes the file {@code fileName}, if it exists.
+         *
+         * @param fileName
+         *            the name of the file
+         * @return whether the file existed
+         */
+        boolean delete(String fileName);
+
+        /**
+         * Makes every file written visible.
+         */
+        void close();
+
+        /**
+         * Discards every file written that is not yet visible, after a
+         * failure; nothing is made visible.
+         */
+        void discard();
+    }
+
+    /**
+     * Initial size of the per-thread buffers.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Size of the output buffer of an archive.
+     */
+    static final int ARCHIVE_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Marks the end of the write-behind queue.
+     */
+    private static final PendingFile END = new PendingFile(null, null);
+
+    /**
+     * The per-thread text and byte buffers.
+     */
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal
+            .withInitial(Buffers::new);
+
+    /**
+     * Where the files go.
+     */
+    private final Destination destination;
+
+    /**
+     * Files waiting to be written, or null when writing synchronously.
+     */
+    private final BlockingQueue<PendingFile> queue;
+
+    /**
+     * The write-behind thread, or null when writing synchronously.
+     */
+    private final Thread writer;
+
+    /**
+     * The first failure of the write-behind thread.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Where the time spent writing and the bytes written are recorded.
+     */
+    private volatile BuildReport report = BuildReport.DISABLED;
+
+    /**
+     * The search index written on {@link #close()}, or null if none.
+     */
+    private volatile SearchIndex searchIndex = null;
+
+    /**
+     * The link graph whose report is written on {@link #close()}, or null if
+     * none.
+     */
+    private volatile LinkGraph linkGraph = null;
+
+    /**
+     * The output formats the term pages are rendered in.
+     */
+    private volatile List<Renderer> renderers = List.of(new HtmlRenderer());
+
+    /**
+     * The store the term pages are copied from and kept in, or null if none.
+     */
+    private volatile PageStore pageStore = null;
+
+    /**
+     * The fingerprint of the build, for the keys of the pages in the store.
+     */
+    private volatile String pageFingerprint = null;
+
+    /**
+     * Opens an output folder for synchronous, in-place writing.
+     *
+     * @param outputFolder
+     *            the folder where all output files are stored
+     */
+    public SiteWriter(Path outputFolder) {
+        this(outputFolder, 0, false);
+    }
+
+    /**
+     * Opens an output folder.
+     *
+     * @param outputFolder
+     *            the folder where all output files are stored
+     * @param writeBehind
+     *            the capacity of the write-behind queue, or 0 to write each
+     *            file before {@link #write} returns
+     * @param atomic
+     *            whether to write to a staging folder that replaces the output
+     *            folder on {@link #close()}
+     * @requires writeBehind >= 0
+     */
+    public SiteWriter(Path outputFolder, int writeBehind, boolean atomic) {
+        this(new Folder(outputFolder, atomic), writeBehind);
+    }
+
+    /**
+     * Opens a writer to {@code destination}.
+     *
+     * @param destination
+     *            where the files go
+     * @param writeBehind
+     *            the capacity of the write-behind queue, or 0 to write each
+     *            file before {@link #write} returns
+     * @requires writeBehind >= 0
+     */
+    private SiteWriter(Destination destination, int writeBehind) {
+        assert writeBehind >= 0 : "Violation of: writeBehind >= 0";
+
+        this.destination = destination;
+        if (writeBehind > 0) {
+            this.queue = new ArrayBlockingQueue<>(writeBehind);
+            this.writer = new Thread(this::drain, "glossary-write-behind");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        } else {
+            this.queue = null;
+            this.writer = null;
+        }
+    }
+
+    /**
+     * Opens a synchronous writer to {@code destination}, for output that does
+     * not go to the file system.
+     *
+     * @param destination
+     *            where the files go
+     * @return the writer
+     */
+    static SiteWriter to(Destination destination) {
+        assert destination != null : "Violation of: destination is not null";
+
+        return new SiteWriter(destination, 0);
+    }
+
+    /**
+     * Opens a single-file archive: a ZIP file if the name of {@code archive}
+     * ends in ".zip", and otherwise a {@link PackFile}. The files are written
+     * one after another in a single sequential pass, and the archive appears
+     * under its name only when {@link #close()} is called.
+     *
+     * @param archive
+     *            the archive file
+     * @param writeBehind
+     *            the capacity of the write-behind queue, or 0 to write each
+     *            file before {@link #write} returns
+     * @return the writer
+     * @requires writeBehind >= 0
+     */
+    public static SiteWriter archive(Path archive, int writeBehind) {
+        assert archive != null : "Violation of: archive is not null";
+
+        Destination destination;
+        if (archive.getFileName().toString().endsWith(".zip")) {
+            destination = new Zip(archive);
+        } else {
+            destination = new PackFile.Writer(archive);
+        }
+        return new SiteWriter(destination, writeBehind);
+    }
+
+    /**
+     * Returns the calling thread's reusable page buffer, emptied, for
+     * rendering the next page into.
+     *
+     * @return an empty page buffer
+     */
+    public HtmlBuffer pageBuffer() {
+        HtmlBuffer page = BUFFERS.get().page;
+        page.clear();
+        return page;
+    }
+
+    /**
+     * Writes the bytes of {@code page} to the file {@code fileName},
+     * replacing any earlier file of that name.
+     *
+     * @param fileName
+     *            the name of the file
+     * @param page
+     *            the rendered page
+     */
+    public void write(String fileName, HtmlBuffer page) {
+        this.checkFailure();
+        BuildReport.Phase previous = this.report
+                .enter(BuildReport.Phase.WRITE);
+        if (this.queue == null) {
+            this.destination.write(fileName, page.bytes());
+            this.report.addBytesWritten(page.length());
+        } else {
+            this.enqueue(new PendingFile(fileName, page.toByteArray()));
+        }
+        this.report.enter(previous);
+    }
+
+    /**
+     * Writes {@code content} to the file {@code fileName}, replacing any
+     * earlier file of that name.
+     *
+     * @param fileName
+     *            the name of the file
+     * @param content
+     *            the bytes of the file, which must not change afterwards
+     */
+    public void write(String fileName, byte[] content) {
+        this.checkFailure();
+        BuildReport.Phase previous = this.report
+                .enter(BuildReport.Phase.WRITE);
+        if (this.queue == null) {
+            this.destination.write(fileName, ByteBuffer.wrap(content));
+            this.report.addBytesWritten(content.length);
+        } else {
+            this.enqueue(new PendingFile(fileName, content));
+        }
+        this.report.enter(previous);
+    }
+
+    /**
+     * Writes {@code content} to the file {@code fileName}, replacing any
+     * earlier file of that name.
+     *
+     * @param fileName
+     *            the name of the file
+     * @param content
+     *            the text of the file
+     */
+    public void write(String fileName, CharSequence content) {
+        this.checkFailure();
+        BuildReport.Phase previous = this.report
+                .enter(BuildReport.Phase.WRITE);
+        ByteBuffer bytes = BUFFERS.get().encode(content);
+        if (this.queue == null) {
+            this.report.addBytesWritten(bytes.remaining());
+            this.destination.write(fileName, bytes);
+        } else {
+            byte[] copy = new byte[bytes.remaining()];
+            bytes.get(copy);
+            this.enqueue(new PendingFile(fileName, copy));
+        }
+        this.report.enter(previous);
+    }
+
+    /**
+     * Records the time spent writing, on every thread, and the bytes written
+     * in {@code report}.
+     *
+     * @param report
+     *            the report of the build
+     */
+    public void setReport(BuildReport report) {
+        assert report != null : "Violation of: report is not null";
+
+        this.report = report;
+    }
+
+    /**
+     * Returns the report the time spent writing is recorded in.
+     *
+     * @return the report, {@link BuildReport#DISABLED} unless set
+     */
+    public BuildReport report() {
+        return this.report;
+    }
+
+    /**
+     * Sets the search index that the words of each term page are collected
+     * in, to be written as the last file on {@link #close()}.
+     *
+     * @param searchIndex
+     *            the search index, or null for none
+     */
+    public void setSearchIndex(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Returns the search index the words of each term page are collected in.
+     *
+     * @return the search index, or null if none
+     */
+    public SearchIndex searchIndex() {
+        return this.searchIndex;
+    }
+
+    /**
+     * Sets the finished link graph whose matches the term pages are rendered
+     * from, and whose report is written on {@link #close()}.
+     *
+     * @param linkGraph
+     *            the link graph, or null for none
+     */
+    public void setLinkGraph(LinkGraph linkGraph) {
+        this.linkGraph = linkGraph;
+    }
+
+    /**
+     * Returns the link graph the term pages are rendered from.
+     *
+     * @return the link graph, or null if none
+     */
+    public LinkGraph linkGraph() {
+        return this.linkGraph;
+    }
+
+    /**
+     * Sets the output formats the term pages are rendered in, each of which
+     * is finished on {@link #close()}.
+     *
+     * @param renderers
+     *            the renderers of the formats
+     * @requires renderers is not empty
+     */
+    public void setRenderers(List<Renderer> renderers) {
+        assert !renderers.isEmpty() : "Violation of: renderers is not empty";
+
+        this.renderers = renderers;
+    }
+
+    /**
+     * Returns the output formats the term pages are rendered in.
+     *
+     * @return the renderers of the formats, by default only HTML
+     */
+    public List<Renderer> renderers() {
+        return this.renderers;
+    }
+
+    /**
+     * Sets the store the term pages are copied from, when stored, and kept
+     * in, when rendered.
+     *
+     * @param pageStore
+     *            the page store, or null for none
+     * @param fingerprint
+     *            the fingerprint of the build, as returned by
+     *            {@link PageStore#fingerprint}
+     */
+    public void setPageStore(PageStore pageStore, String fingerprint) {
+        this.pageFingerprint = fingerprint;
+        this.pageStore = pageStore;
+    }
+
+    /**
+     * Returns the store the term pages are copied from and kept in.
+     *
+     * @return the page store, or null if none
+     */
+    public PageStore pageStore() {
+        return this.pageStore;
+    }
+
+    /**
+     * Returns the fingerprint of the build the pages are stored under.
+     *
+     * @return the fingerprint, or null if there is no page store
+     */
+    public String pageFingerprint() {
+        return this.pageFingerprint;
+    }
+
+    /**
+     * Deletes the file {@code fileName}, if it exists.
+     *
+     * @param fileName
+     *            the name of the file
+     * @return whether the file existed
+     * @throws UnsupportedOperationException
+     *             if writing to an archive
+     */
+    public boolean delete(String fileName) {
+        return this.destination.delete(fileName);
+    }
+
+    /**
+     * Finishes each output format, writes the search index and link report,
+     * if any, finishes writing every file and publishes them: replaces the
+     * output folder with the staging folder, or moves the archive into place.
+     * If any of this fails, the write-behind thread is still ended, and the
+     * staging folder or unfinished archive is deleted before the failure is
+     * rethrown.
+     */
+    @Override
+    public void close() {
+        RuntimeException failure = null;
+        try {
+            for (Renderer renderer : this.renderers) {
+                renderer.finish(this);
+            }
+            if (this.searchIndex != null) {
+                this.searchIndex.write(this);
+            }
+            if (this.linkGraph != null) {
+                this.linkGraph.write(this);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        try {
+            this.endWriteBehind();
+            this.checkFailure();
+        } catch (RuntimeException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            this.destination.discard();
+            throw failure;
+        }
+        BuildReport.Phase previous = this.report
+                .enter(BuildReport.Phase.WRITE);
+        this.destination.close();
+        this.report.enter(previous);
+    }
+
+    /**
+     * Ends the write-behind thread, if any, once it has written every file
+     * queued.
+     */
+    private void endWriteBehind() {
+        if (this.writer != null) {
+            this.enqueue(END);
+            try {
+                this.writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while writing", e);
+            }
+        }
+    }
+
+    /**
+     * Puts {@code file} on the write-behind queue, waiting if it is full.
+     *
+     * @param file
+     *            the file to write
+     */
+    private void enqueue(PendingFile file) {
+        try {
+            this.queue.put(file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing", e);
+        }
+    }
+
+    /**
+     * Body of the write-behind thread: writes queued files until the end
+     * marker. After a failure, the remaining files are discarded so that the
+     * renderers are not blocked.
+     */
+    private void drain() {
+        try {
+            PendingFile file = this.queue.take();
+            while (file != END) {
+                if (this.failure == null) {
+                    try {
+                        this.report.enter(BuildReport.Phase.WRITE);
+                        this.destination.write(file.name,
+                                ByteBuffer.wrap(file.bytes));
+                        this.report.addBytesWritten(file.bytes.length);
+                        this.report.enter(null);
+                    } catch (RuntimeException e) {
+                        this.failure = e;
+                    }
+                }
+                file = this.queue.take();
+            }
+        } catch (InterruptedException e) {
+            this.failure = new IllegalStateException("Write-behind interrupted",
+                    e);
+        }
+    }
+
+    /**
+     * Rethrows the first failure of the write-behind thread, if any.
+     */
+    private void checkFailure() {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Writes the content of the heap buffer {@code bytes} to {@code out}.
+     *
+     * @param out
+     *            the stream
+     * @param bytes
+     *            the content, from its position to its limit
+     * @throws IOException
+     *             if the stream fails
+     */
+    static void writeTo(OutputStream out, ByteBuffer bytes)
+            throws IOException {
+        out.write(bytes.array(), bytes.arrayOffset() + bytes.position(),
+                bytes.remaining());
+        bytes.position(bytes.limit());
+    }
+
+    /**
+     * Returns the file or folder next to {@code path} whose name has
+     * {@code suffix} appended.
+     *
+     * @param path
+     *            the file or folder
+     * @param suffix
+     *            the suffix
+     * @return the sibling
+     */
+    static Path sibling(Path path, String suffix) {
+        Path absolute = path.toAbsolutePath().normalize();
+        return absolute.resolveSibling(absolute.getFileName() + suffix);
+    }
+
+    /**
+     * Closes {@code out}, the stream of the unfinished file {@code file}, and
+     * deletes the file, after a failure that is the one reported.
+     *
+     * @param out
+     *            the stream
+     * @param file
+     *            the file
+     */
+    static void discardFile(OutputStream out, Path file) {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // The original failure is the one reported.
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // The original failure is the one reported.
+        }
+    }
+
+    /**
+     * Deletes {@code folder} and everything in it, if it exists.
+     *
+     * @param folder
+     *            the folder
+     */
+    static void deleteTree(Path folder) {
+        if (!Files.exists(folder)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(folder)) {
+            Path[] all = paths.sorted(Comparator.reverseOrder())
+                    .toArray(Path[]::new);
+            for (Path path : all) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Moves the finished temporary file {@code from} to {@code to}, replacing
+     * it.
+     *
+     * @param from
+     *            the temporary file
+     * @param to
+     *            its final name
+     */
+    static void publishFile(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * An output folder, with one file per page.
+     */
+    private static final class Folder implements Destination {
+
+        /**
+         * The folder the files are published to.
+         */
+        private final Path outputFolder;
+
+        /**
+         * The folder the files are written to: {@code outputFolder}, or the
+         * staging folder when publishing atomically.
+         */
+        private final Path folder;
+
+        /**
+         * Whether the staging folder replaces the output folder on close.
+         */
+        private final boolean atomic;
+
+        /**
+         * Constructor.
+         *
+         * @param outputFolder
+         *            the folder where all output files are stored
+         * @param atomic
+         *            whether to write to a staging folder first
+         */
+        Folder(Path outputFolder, boolean atomic) {
+            assert outputFolder != null : "Violation of: outputFolder"
+                    + " is not null";
+
+            this.outputFolder = outputFolder.toAbsolutePath().normalize();
+            this.atomic = atomic;
+            if (atomic) {
+                this.folder = sibling(this.outputFolder, ".staging");
+                deleteTree(this.folder);
+            } else {
+                this.folder = this.outputFolder;
+            }
+            try {
+                Files.createDirectories(this.folder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes {@code bytes} to its file with a single open, write and
+         * close.
+         */
+        @Override
+        public void write(String fileName, ByteBuffer bytes) {
+            try (FileChannel channel = FileChannel.open(
+                    this.folder.resolve(fileName), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean delete(String fileName) {
+            try {
+                return Files.deleteIfExists(this.folder.resolve(fileName));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * When publishing atomically, replaces the output folder with the
+         * staging folder: the old output folder is renamed aside, the staging
+         * folder is renamed into its place, and then the old folder is
+         * deleted.
+         */
+        @Override
+        public void close() {
+            if (!this.atomic) {
+                return;
+            }
+            Path old = sibling(this.outputFolder, ".old");
+            deleteTree(old);
+            try {
+                if (Files.exists(this.outputFolder)) {
+                    Files.move(this.outputFolder, old,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+                Files.move(this.folder, this.outputFolder,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            deleteTree(old);
+        }
+
+        /**
+         * When publishing atomically, deletes the staging folder; otherwise
+         * the files are already in the output folder.
+         */
+        @Override
+        public void discard() {
+            if (this.atomic) {
+                deleteTree(this.folder);
+            }
+        }
+    }
+
+    /**
+     * A ZIP archive, with one compressed entry per page.
+     */
+    private static final class Zip implements Destination {
+
+        /**
+         * The archive file.
+         */
+        private final Path archive;
+
+        /**
+         * The file written until the archive is complete.
+         */
+        private final Path temporary;
+
+        /**
+         * The archive stream.
+         */
+        private final ZipOutputStream out;
+
+        /**
+         * Constructor.
+         *
+         * @param archive
+         *            the archive file
+         */
+        Zip(Path archive) {
+            this.archive = archive;
+            this.temporary = sibling(archive, ".tmp");
+            try {
+                this.out = new ZipOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(this.temporary),
+                        ARCHIVE_BUFFER_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void write(String fileName, ByteBuffer bytes) {
+            try {
+                this.out.putNextEntry(new ZipEntry(fileName));
+                writeTo(this.out, bytes);
+                this.out.closeEntry();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean delete(String fileName) {
+            throw new UnsupportedOperationException(
+                    "Cannot delete from an archive");
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                this.out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            publishFile(this.temporary, this.archive);
+        }
+
+        @Override
+        public synchronized void discard() {
+            discardFile(this.out, this.temporary);
+        }
+    }
+
+    /**
+     * A file waiting on the write-behind queue.
+     */
+    private static final class PendingFile {
+
+        /**
+         * The name of the file.
+         */
+        private final String name;
+
+        /**
+         * The content of the file.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Constructor.
+         *
+         * @param name
+         *            the name of the file
+         * @param bytes
+         *            the content of the file
+         */
+        PendingFile(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * A thread's reusable page buffer and UTF-8 encoder.
+     */
+    private static final class Buffers {
+
+        /**
+         * The page being rendered.
+         */
+        private final HtmlBuffer page = new HtmlBuffer(BUFFER_SIZE);
+
+        /**
+         * The UTF-8 encoder. An unpaired surrogate is written as '?', as
+         * {@link HtmlBuffer} writes it.
+         */
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8
+                .newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        /**
+         * The encoded bytes.
+         */
+        private ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * Encodes {@code content} into the byte buffer, growing it as needed.
+         *
+         * @param content
+         *            the text to encode
+         * @return the byte buffer, flipped for reading
+         */
+        ByteBuffer encode(CharSequence content) {
+            CoderResult result = this.encodeAll(content);
+            if (result.isOverflow()) {
+                /*
+                 * Too small: every char encodes to at most three bytes, so
+                 * this size always fits.
+                 */
+                this.bytes = ByteBuffer
+                        .allocate(Math.max(3 * content.length() + 16,
+                                2 * this.bytes.capacity()));
+                result = this.encodeAll(content);
+            }
+            if (!result.isUnderflow()) {
+                // Malformed input is replaced, so this is never expected
+                throw new IllegalStateException(
+                        "Cannot encode a file in UTF-8: " + result);
+            }
+            this.bytes.flip();
+            return this.bytes;
+        }
+
+        /**
+         * Encodes the whole of {@code content} into the emptied byte buffer,
+         * and flushes the encoder.
+         *
+         * @param content
+         *            the text to encode
+         * @return the result: underflow if all of content was encoded,
+         *         overflow if the byte buffer is too small
+         */
+        private CoderResult encodeAll(CharSequence content) {
+            this.encoder.reset();
+            this.bytes.clear();
+            CoderResult result = this.encoder.encode(CharBuffer.wrap(content),
+                    this.bytes, true);
+            if (result.isUnderflow()) {
+                result = this.encoder.flush(this.bytes);
+            }
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+
+/**
+ * JUnit test cases for the SiteWriter class. Author: Logan Oden
+ */
+public class SiteWriterTest {
+
+    /**
+     * Routine test case for the write method. The file holds the UTF-8 bytes
+     * of the text, and a rewrite replaces the whole file. A text larger than
+     * the buffers, with an unpaired surrogate, is written whole, with the
+     * surrogate as '?'.
+     *
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Test
+    public void testWrite_Routine() throws IOException {
+        Path folder = Paths.get("data", "site");
+        SiteWriter out = new SiteWriter(folder);
+
+        out.write("a.html", "a much longer first version");
+        out.write("a.html", "caf\u00e9 \u65e5\n");
+        String large = "x".repeat(100_000) + "\ud800 end";
+        out.write("b.html", large);
+        out.close();
+
+        assertArrayEquals("caf\u00e9 \u65e5\n".getBytes(StandardCharsets.UTF_8),
+                Files.readAllBytes(folder.resolve("a.html")));
+        assertArrayEquals(("x".repeat(100_000) + "? end")
+                .getBytes(StandardCharsets.UTF_8),
+                Files.readAllBytes(folder.resolve("b.html")));
+    }
+
+    /**
+     * Challenging test case for the write method. With a small write-behind
+     * queue and pages larger than the initial buffers, every file is written
+     * by the time close returns.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public void testWrite_Challenging() throws IOException {
+        Path folder = Paths.get("data", "site-behind");
+        SiteWriter out = new SiteWriter(folder, 2, false);
+
+        for (int i = 0; i < 50; i++) {
+            HtmlBuffer page = out.pageBuffer();
+            for (int j = 0; j < 1000 * i; j++) {
+                page.appendText("abcdefghijklmnopqrstuvwxyz", j % 26,
+                        j % 26 + 1);
+            }
+            out.write(i + ".html", page);
+        }
+        out.close();
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(1000 * i, Files.size(folder.resolve(i + ".html")));
+        }
+    }
+
+    /**
+     * Edge test case for the close method. An atomic writer replaces the
+     * whole output folder, so files of the previous build disappear, and
+     * nothing is visible in the output folder until close.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public void testClose_Edge() throws IOException {
+        Path folder = Paths.get("data", "site-atomic");
+        Files.createDirectories(folder);
+        Files.write(folder.resolve("old.html"), new byte[] { 1 });
+        SiteWriter out = new SiteWriter(folder, 0, true);
+
+        out.write("new.html", "new");
+        assertFalse(Files.exists(folder.resolve("new.html")));
+        out.close();
+
+        assertTrue(Files.exists(folder.resolve("new.html")));
+        assertFalse(Files.exists(folder.resolve("old.html")));
+        assertFalse(Files.exists(Paths.get("data", "site-atomic.staging")));
+    }
+
+    /**
+     * Edge test case for a close that fails while finishing a format. The
+     * failure is rethrown once the write-behind thread has ended, the
+     * staging folder is deleted, and the output folder is left as it was.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testCloseFailure_Edge() throws IOException {
+        Path folder = Paths.get("data", "site-failed");
+        Files.createDirectories(folder);
+        Files.write(folder.resolve("old.html"), new byte[] { 1 });
+        SiteWriter out = new SiteWriter(folder, 2, true);
+        out.setRenderers(List.of(new Renderer() {
+            @Override
+            public void begin(Queue<String> sortedKeys, IndexLayout index,
+                    SiteWriter site) {
+            }
+
+            @Override
+            public void term(TermMatcher matcher, IndexLayout index,
+                    int termIndex, MatchedDefinition definition,
+                    SiteWriter site) {
+            }
+
+            @Override
+            public void finish(SiteWriter site) {
+                throw new IllegalStateException("finish failed");
+            }
+        }));
+        for (int i = 0; i < 10; i++) {
+            out.write(i + ".html", "page " + i);
+        }
+
+        try {
+            out.close();
+            assertTrue(false);
+        } catch (IllegalStateException e) {
+            assertEquals("finish failed", e.getMessage());
+        }
+        assertFalse(Files.exists(Paths.get("data", "site-failed.staging")));
+        assertTrue(Files.exists(folder.resolve("old.html")));
+        assertFalse(Files.exists(folder.resolve("0.html")));
+    }
+
+}
@@ -0,0 +1,186 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Deterministic generator of synthetic glossaries, for benchmarks and
+ * large-scale tests. Terms are distinct capitalized made-up words; each
+ * definition is a run of lowercase filler words and separators in which a
+ * given fraction of the words are other terms, and so become links.
+ *
+ * <p>
+ * The same arguments always produce the same glossary, and any one term or
+ * definition can be produced on its own, so a glossary of millions of terms
+ * can be written to a file without being held in memory.
+ *
+ * @author L. Oden
+ *
+ */
+public final class SyntheticGlossary {
+
+    /**
+     * Syllables that terms are spelled with.
+     */
+    private static final String[] SYLLABLES = { "ka", "lo", "mi", "ne", "ru",
+        "sa", "ti", "vo", "ze", "bu", "da", "fe", "go", "hi", "ju", "pe" };
+
+    /**
+     * Filler words; all lowercase, so they never equal a term.
+     */
+    private static final String[] FILLERS = { "the", "of", "a", "data",
+        "value", "is", "used", "to", "store", "and", "each", "when", "with",
+        "returns", "list", "order", "that", "in", "for", "an" };
+
+    /**
+     * Separators between the words of a definition.
+     */
+    private static final String[] SEPARATORS = { " ", " ", " ", " ", ", ",
+        ". ", "; ", ": " };
+
+    /**
+     * Number of terms.
+     */
+    private final int size;
+
+    /**
+     * Average number of words in a definition.
+     */
+    private final int definitionWords;
+
+    /**
+     * Fraction of the words in a definition that are terms.
+     */
+    private final double linkDensity;
+
+    /**
+     * Seed of the generator.
+     */
+    private final long seed;
+
+    /**
+     * Constructor.
+     *
+     * @param size
+     *            the number of terms
+     * @param definitionWords
+     *            the average number of words in a definition; lengths vary
+     *            uniformly from 1 to twice this
+     * @param linkDensity
+     *            the fraction of the words in a definition that are terms
+     * @param seed
+     *            the seed of the generator
+     * @requires size >= 0 and definitionWords > 0 and 0 <= linkDensity <= 1
+     */
+    public SyntheticGlossary(int size, int definitionWords, double linkDensity,
+            long seed) {
+        assert size >= 0 : "Violation of: size >= 0";
+        assert definitionWords > 0 : "Violation of: definitionWords > 0";
+        assert 0 <= linkDensity
+                && linkDensity <= 1 : "Violation of: 0 <= linkDensity <= 1";
+
+        this.size = size;
+        this.definitionWords = definitionWords;
+        this.linkDensity = linkDensity;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a term.
+     *
+     * @param i
+     *            the number of the term
+     * @return the term
+     * @requires 0 <= i < size()
+     */
+    public String term(int i) {
+        /*
+         * Spell i in base |SYLLABLES|, one syllable per digit, so that distinct
+         * numbers give distinct terms.
+         */
+        StringBuilder term = new StringBuilder();
+        int n = i;
+        do {
+            term.append(SYLLABLES[n % SYLLABLES.length]);
+            n /= SYLLABLES.length;
+        } while (n > 0);
+        term.setCharAt(0, Character.toUpperCase(term.charAt(0)));
+        return term.toString();
+    }
+
+    /**
+     * Returns the definition of a term.
+     *
+     * @param i
+     *            the number of the term
+     * @return the definition
+     * @requires 0 <= i < size()
+     */
+    public String definition(int i) {
+        Random random = new Random(this.seed * 31 + i);
+        int words = 1 + random.nextInt(2 * this.definitionWords);
+        StringBuilder definition = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                definition.append(
+                        SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            }
+            if (this.size > 0 && random.nextDouble() < this.linkDensity) {
+                definition.append(this.term(random.nextInt(this.size)));
+            } else {
+                definition.append(FILLERS[random.nextInt(FILLERS.length)]);
+            }
+        }
+        return definition.append('.').toString();
+    }
+
+    /**
+     * Returns the glossary as a Map from term to definition.
+     *
+     * @return the glossary
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> glossary = new Map1L<>();
+        for (int i = 0; i < this.size; i++) {
+            glossary.add(this.term(i), this.definition(i));
+        }
+        return glossary;
+    }
+
+    /**
+     * Writes the glossary, in the input format read by
+     * {@link Glossary#mapFromInputLines}, to the UTF-8 file {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the file to write
+     */
+    public void write(String fileName) {
+        try (BufferedWriter out = Files.newBufferedWriter(Paths.get(fileName),
+                StandardCharsets.UTF_8)) {
+            for (int i = 0; i < this.size; i++) {
+                out.write(this.term(i));
+                out.write('\n');
+                out.write(this.definition(i));
+                out.write("\n\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
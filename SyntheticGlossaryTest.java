@@ -0,0 +1,60 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import components.map.Map;
+
+/**
+ * JUnit test cases for the SyntheticGlossary class. Author: Logan Oden
+ */
+public class SyntheticGlossaryTest {
+
+    /**
+     * Routine test case for the toMap method. Every term is distinct, and the
+     * same arguments give the same glossary.
+     */
+    @Test
+    public void testToMap_Routine() {
+        SyntheticGlossary glossary = new SyntheticGlossary(5000, 10, 0.2, 1);
+
+        Map<String, String> result = glossary.toMap();
+
+        assertEquals(5000, result.size());
+        assertEquals(result, new SyntheticGlossary(5000, 10, 0.2, 1).toMap());
+    }
+
+    /**
+     * Challenging test case for the definition method. With every word a
+     * term, every definition links to another term.
+     */
+    @Test
+    public void testDefinition_Challenging() {
+        SyntheticGlossary glossary = new SyntheticGlossary(100, 5, 1.0, 7);
+        TermMatcher matcher = new TermMatcher(
+                Glossary.sortingKeys(glossary.toMap()),
+                Glossary.termSeparators());
+
+        for (int i = 0; i < glossary.size(); i++) {
+            assertTrue(matcher.termsIn(glossary.definition(i)).length > 0);
+        }
+    }
+
+    /**
+     * Edge test case for the definition method. Definitions parse back as
+     * written, even for an empty glossary.
+     */
+    @Test
+    public void testDefinition_Edge() {
+        SyntheticGlossary glossary = new SyntheticGlossary(3, 1, 0.5, 3);
+        GlossaryParser parser = new GlossaryParser(new StringReader(
+                glossary.term(2) + "\n" + glossary.definition(2) + "\n\n"));
+
+        assertTrue(parser.next());
+        assertEquals(glossary.definition(2), parser.definition().toString());
+        assertEquals(0, new SyntheticGlossary(0, 1, 0.5, 3).toMap().size());
+    }
+
+}
@@ -0,0 +1,327 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * A compact, read-only dictionary of the terms and definitions of a glossary,
+ * for glossaries too large to hold as {@code String}s in a {@code Map}. Every
+ * term and definition is stored as UTF-8 in a single direct (off-heap)
+ * {@code ByteBuffer} arena, one record after another, and each record costs
+ * three {@code int} offsets on the heap. Lookups binary-search an array of the
+ * records sorted by the bytes of their terms, comparing against the arena
+ * directly. Definitions are decoded only when asked for, so they exist as
+ * {@code String}s only while their pages are rendered.
+ *
+ * <p>
+ * As for {@link Glossary#mapFromInputLines}, only the first definition of a
+ * term is kept. The arena is limited to 2 GB of text; a larger glossary is
+ * rejected with the line of the first term that does not fit.
+ *
+ * <p>
+ * Once read, a dictionary may be shared between threads.
+ *
+ * @author L. Oden
+ *
+ */
+public final class TermDictionary {
+
+    /**
+     * Initial capacity of the arena, in bytes.
+     */
+    private static final int INITIAL_ARENA = 64 * 1024;
+
+    /**
+     * Initial capacity of the record arrays.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The most bytes the arena can hold: the largest {@code ByteBuffer}.
+     */
+    private static final long MAX_ARENA = Integer.MAX_VALUE;
+
+    /**
+     * The UTF-8 bytes of every record: its term, then its definition.
+     */
+    private ByteBuffer arena = ByteBuffer.allocateDirect(INITIAL_ARENA);
+
+    /**
+     * Number of bytes of the arena used.
+     */
+    private int used;
+
+    /**
+     * The first byte of each record, which starts its term.
+     */
+    private int[] start = new int[INITIAL_CAPACITY];
+
+    /**
+     * One past the last byte of the term of each record, which starts its
+     * definition.
+     */
+    private int[] termEnd = new int[INITIAL_CAPACITY];
+
+    /**
+     * One past the last byte of each record.
+     */
+    private int[] end = new int[INITIAL_CAPACITY];
+
+    /**
+     * Number of records.
+     */
+    private int records;
+
+    /**
+     * The first record of each term, in order of the bytes of the terms.
+     */
+    private int[] entries;
+
+    /**
+     * No argument constructor--private to require the factory method.
+     */
+    private TermDictionary() {
+    }
+
+    /**
+     * Reads the glossary in {@code inputFile}.
+     *
+     * @param inputFile
+     *            the name of the input file
+     * @return the dictionary
+     * @throws GlossaryFormatException
+     *             if the input is malformed, or holds more text than the
+     *             arena can
+     */
+    public static TermDictionary read(String inputFile) {
+        TermDictionary dictionary = new TermDictionary();
+        GlossaryParser parser = GlossaryParser.open(inputFile);
+        try {
+            while (parser.next()) {
+                dictionary.add(parser.term(), parser.definition(),
+                        parser.termLine());
+            }
+        } finally {
+            parser.close();
+        }
+        dictionary.index();
+        return dictionary;
+    }
+
+    /**
+     * Appends a record to the arena.
+     *
+     * @param term
+     *            the term
+     * @param definition
+     *            its definition
+     * @param line
+     *            the line of the term in the input
+     * @throws GlossaryFormatException
+     *             if the record does not fit in the arena
+     */
+    private void add(String term, CharSequence definition, int line) {
+        byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+        byte[] definitionBytes = definition.toString()
+                .getBytes(StandardCharsets.UTF_8);
+        int length = termBytes.length + definitionBytes.length;
+        if (length > this.arena.capacity() - this.used) {
+            long needed = (long) this.used + length;
+            if (needed > MAX_ARENA) {
+                throw new GlossaryFormatException(line, "term \"" + term
+                        + "\" takes the glossary past the " + MAX_ARENA
+                        + " bytes of UTF-8 a compact build can hold");
+            }
+            ByteBuffer larger = ByteBuffer.allocateDirect(
+                    (int) Math.min(MAX_ARENA,
+                            Math.max(needed, 2L * this.arena.capacity())));
+            this.arena.position(0).limit(this.used);
+            larger.put(this.arena);
+            this.arena = larger;
+        }
+        if (this.records == this.start.length) {
+            int capacity = 2 * this.records;
+            this.start = Arrays.copyOf(this.start, capacity);
+            this.termEnd = Arrays.copyOf(this.termEnd, capacity);
+            this.end = Arrays.copyOf(this.end, capacity);
+        }
+        this.arena.position(this.used);
+        this.arena.put(termBytes);
+        this.arena.put(definitionBytes);
+        this.start[this.records] = this.used;
+        this.termEnd[this.records] = this.used + termBytes.length;
+        this.end[this.records] = this.used + length;
+        this.used += length;
+        this.records++;
+    }
+
+    /**
+     * Sorts the records by the bytes of their terms, and keeps the first
+     * record of each term as its entry.
+     */
+    private void index() {
+        Integer[] sorted = new Integer[this.records];
+        Arrays.setAll(sorted, i -> i);
+        Arrays.parallelSort(sorted, (a, b) -> {
+            int result = this.compareTerms(a, b);
+            if (result == 0) {
+                result = Integer.compare(a, b);
+            }
+            return result;
+        });
+        this.entries = new int[this.records];
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || this.compareTerms(this.entries[size - 1],
+                    sorted[i]) != 0) {
+                this.entries[size] = sorted[i];
+                size++;
+            }
+        }
+        this.entries = Arrays.copyOf(this.entries, size);
+    }
+
+    /**
+     * Compares the terms of two records by their unsigned bytes.
+     *
+     * @param a
+     *            a record
+     * @param b
+     *            another record
+     * @return negative, zero or positive as the term of a is before, the same
+     *         as or after the term of b
+     */
+    private int compareTerms(int a, int b) {
+        int p = this.start[a];
+        int q = this.start[b];
+        int pEnd = this.termEnd[a];
+        int qEnd = this.termEnd[b];
+        while (p < pEnd && q < qEnd) {
+            int result = Byte.toUnsignedInt(this.arena.get(p))
+                    - Byte.toUnsignedInt(this.arena.get(q));
+            if (result != 0) {
+                return result;
+            }
+            p++;
+            q++;
+        }
+        return (pEnd - p) - (qEnd - q);
+    }
+
+    /**
+     * Decodes the bytes of the arena from {@code from} to {@code to}.
+     *
+     * @param from
+     *            the first byte
+     * @param to
+     *            one past the last byte
+     * @return the text
+     */
+    private String decode(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        ByteBuffer view = this.arena.duplicate();
+        view.position(from);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of distinct terms.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return this.entries.length;
+    }
+
+    /**
+     * Returns the term of an entry.
+     *
+     * @param entry
+     *            the entry
+     * @return the term
+     * @requires 0 <= entry < size()
+     */
+    public String term(int entry) {
+        assert 0 <= entry && entry < this.entries.length : ""
+                + "Violation of: 0 <= entry < size()";
+
+        int record = this.entries[entry];
+        return this.decode(this.start[record], this.termEnd[record]);
+    }
+
+    /**
+     * Returns the definition of an entry.
+     *
+     * @param entry
+     *            the entry
+     * @return the definition
+     * @requires 0 <= entry < size()
+     */
+    public String definition(int entry) {
+        assert 0 <= entry && entry < this.entries.length : ""
+                + "Violation of: 0 <= entry < size()";
+
+        int record = this.entries[entry];
+        return this.decode(this.termEnd[record], this.end[record]);
+    }
+
+    /**
+     * Returns the entry of {@code term}.
+     *
+     * @param term
+     *            the term to look up
+     * @return the entry of the term, or -1 if it is not in the dictionary
+     */
+    public int entry(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = this.entries.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = this.entries[mid];
+            int p = this.start[record];
+            int pEnd = this.termEnd[record];
+            int i = 0;
+            int result = 0;
+            while (result == 0 && p < pEnd && i < key.length) {
+                result = Byte.toUnsignedInt(this.arena.get(p))
+                        - Byte.toUnsignedInt(key[i]);
+                p++;
+                i++;
+            }
+            if (result == 0) {
+                result = (pEnd - p) - (key.length - i);
+            }
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the terms in {@code order}.
+     *
+     * @param order
+     *            the order of the index
+     * @return the sorted terms
+     */
+    public Queue<String> sortedKeys(TermOrder order) {
+        String[] terms = new String[this.entries.length];
+        Arrays.parallelSetAll(terms, this::term);
+        order.sort(terms);
+        Queue<String> keys = new Queue1L<>();
+        for (String term : terms) {
+            keys.enqueue(term);
+        }
+        return keys;
+    }
+
+}
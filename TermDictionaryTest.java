@@ -0,0 +1,92 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+
+/**
+ * JUnit test cases for the TermDictionary class. Author: Logan Oden
+ */
+public class TermDictionaryTest {
+
+    /**
+     * Routine test case for the read, entry and definition methods. Terms are
+     * found by name, non-ASCII text survives the arena, and only the first
+     * definition of a term is kept.
+     *
+     * @throws IOException
+     *             if the input cannot be written
+     */
+    @Test
+    public void testRead_Routine() throws IOException {
+        String input = "data/dictionary.txt";
+        TestFiles.write(input, "caf\u00e9\nA place for coffee \u2615.\n\n"
+                + "Java\nA language and \nan island.\n\nJava\nIgnored.\n\n");
+
+        TermDictionary dictionary = TermDictionary.read(input);
+
+        assertEquals(2, dictionary.size());
+        assertEquals("A place for coffee \u2615.",
+                dictionary.definition(dictionary.entry("caf\u00e9")));
+        assertEquals("Java", dictionary.term(dictionary.entry("Java")));
+        assertEquals("A language and an island.",
+                dictionary.definition(dictionary.entry("Java")));
+        assertEquals(-1, dictionary.entry("Jav"));
+        assertEquals(-1, dictionary.entry("Javas"));
+    }
+
+    /**
+     * Challenging test case for the buildCompact method. A glossary large
+     * enough to grow the arena many times is written exactly as by the Map
+     * path, in collation order and with a sharded index.
+     *
+     * @throws IOException
+     *             if a file cannot be read
+     */
+    @Test
+    public void testBuildCompact_Challenging() throws IOException {
+        SyntheticGlossary glossary = new SyntheticGlossary(3000, 20, 0.2, 17);
+        String input = "data/compact.txt";
+        glossary.write(input);
+        BuildConfig config = BuildConfig.defaults();
+        config.setOrder(TermOrder.parse("en:secondary"));
+        config.setIndex("letter");
+        Glossary.build(input, "data/compact-map", config);
+        Glossary.buildCompact(input, "data/compact", config);
+
+        Queue<String> keys = TermDictionary.read(input)
+                .sortedKeys(config.order());
+        assertEquals(glossary.size(), keys.length());
+        for (String key : keys) {
+            assertEquals(key,
+                    TestFiles.read("data/compact-map", key + ".html"),
+                    TestFiles.read("data/compact", key + ".html"));
+        }
+        for (String page : new String[] { "index.html", "index-1.html" }) {
+            assertEquals(page, TestFiles.read("data/compact-map", page),
+                    TestFiles.read("data/compact", page));
+        }
+    }
+
+    /**
+     * Edge test case for the read method. An empty input gives an empty
+     * dictionary.
+     *
+     * @throws IOException
+     *             if the input cannot be written
+     */
+    @Test
+    public void testRead_Edge() throws IOException {
+        String input = "data/dictionary-empty.txt";
+        TestFiles.write(input, "");
+
+        TermDictionary dictionary = TermDictionary.read(input);
+
+        assertEquals(0, dictionary.size());
+        assertEquals(-1, dictionary.entry(""));
+        assertEquals(0, dictionary.sortedKeys(TermOrder.RAW).length());
+    }
+
+}
@@ -0,0 +1,600 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import components.queue.Queue;
+import components.set.Set;
+
+/**
+ * Precompiled term-matching engine that finds every linkable glossary term in
+ * a definition in one pass. The terms are compiled once into a compact
+ * character trie, so the cost of scanning a definition no longer depends on
+ * the number of terms in the glossary.
+ *
+ * <p>
+ * A match always starts and ends on a word/separator boundary (the same
+ * boundaries {@link Glossary#nextWordOrSeparator} reports), so a term never
+ * links part of a word. Because terms may contain separators, multi-word terms
+ * such as "binary tree" are supported; when several terms start at the same
+ * position the longest one wins.
+ *
+ * <p>
+ * A fuzzy matcher also matches the inflected forms of the terms, as found by
+ * a {@link TermVariants} index, where no longer exact match starts at the
+ * same position. An exact matcher pays for this only with one test per word.
+ *
+ * <p>
+ * A matcher may also link the terms of other glossaries, as found in their
+ * {@link TermRegistry}s, where no term of its own starts at the same
+ * position. Their terms are numbered after its own, registry after registry.
+ *
+ * @author L. Oden
+ *
+ */
+public final class TermMatcher {
+
+    /**
+     * Receives the pieces of a definition, in order, as it is scanned by
+     * {@link TermMatcher#match}.
+     */
+    public interface MatchHandler {
+
+        /**
+         * Called for a run of text that is not part of any term.
+         *
+         * @param text
+         *            the text being scanned
+         * @param start
+         *            the index of the first character of the run
+         * @param end
+         *            the index just past the last character of the run
+         */
+        void text(CharSequence text, int start, int end);
+
+        /**
+         * Called for an occurrence of a term.
+         *
+         * @param text
+         *            the text being scanned
+         * @param start
+         *            the index of the first character of the term
+         * @param end
+         *            the index just past the last character of the term
+         * @param termIndex
+         *            the position of the term in the keys the matcher was
+         *            built from
+         */
+        void term(CharSequence text, int start, int end, int termIndex);
+    }
+
+    /**
+     * Marks a trie node that does not end a term.
+     */
+    private static final int NO_TERM = -1;
+
+    /**
+     * Initial capacity of the node and edge arrays.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The terms, in the order of the keys the matcher was built from.
+     */
+    private final String[] terms;
+
+    /**
+     * The separator characters that delimit words.
+     */
+    private final SeparatorTable separators;
+
+    /**
+     * The normalized forms of the terms, or null for an exact matcher.
+     */
+    private final TermVariants variants;
+
+    /**
+     * The registries of the terms of other glossaries.
+     */
+    private final TermRegistry[] registries;
+
+    /**
+     * For each registry, the index of its first term; the last entry is the
+     * total number of terms, including those of the registries.
+     */
+    private final int[] registryStart;
+
+    /**
+     * For each node, the index of its first outgoing edge.
+     */
+    private int[] firstEdge;
+
+    /**
+     * For each node, the number of outgoing edges.
+     */
+    private int[] edgeCount;
+
+    /**
+     * For each node, the index of the term ending there, or {@code NO_TERM}.
+     */
+    private int[] termAt;
+
+    /**
+     * For each edge, its label; the edges of a node are contiguous and sorted.
+     */
+    private char[] edgeLabel;
+
+    /**
+     * For each edge, the node it leads to.
+     */
+    private int[] edgeTarget;
+
+    /**
+     * Number of nodes in use.
+     */
+    private int nodeCount;
+
+    /**
+     * Number of edges in use.
+     */
+    private int edgeTotal;
+
+    /**
+     * Builds a matcher for the given terms.
+     *
+     * @param keys
+     *            the terms to match, typically the output of
+     *            {@link Glossary#sortingKeys}
+     * @param separators
+     *            the separator characters
+     * @requires keys contains no duplicates
+     * @ensures this matches exactly the terms in keys
+     */
+    public TermMatcher(Queue<String> keys, SeparatorTable separators) {
+        this(keys, separators, false);
+    }
+
+    /**
+     * Builds a matcher for the given terms, which also matches their
+     * inflected forms if {@code fuzzy}.
+     *
+     * @param keys
+     *            the terms to match, typically the output of
+     *            {@link Glossary#sortingKeys}
+     * @param separators
+     *            the separator characters
+     * @param fuzzy
+     *            whether the inflected forms of the terms are matched too
+     * @requires keys contains no duplicates
+     * @ensures this matches the terms in keys, and their inflected forms if
+     *          fuzzy
+     */
+    public TermMatcher(Queue<String> keys, SeparatorTable separators,
+            boolean fuzzy) {
+        this(keys, separators, fuzzy, List.of());
+    }
+
+    /**
+     * Builds a matcher for the given terms, which also matches their
+     * inflected forms if {@code fuzzy}, and the terms of the glossaries of
+     * {@code registries}.
+     *
+     * @param keys
+     *            the terms to match, typically the output of
+     *            {@link Glossary#sortingKeys}
+     * @param separators
+     *            the separator characters
+     * @param fuzzy
+     *            whether the inflected forms of the terms are matched too
+     * @param registries
+     *            the registries of the terms of other glossaries
+     * @requires keys contains no duplicates
+     * @ensures this matches the terms in keys, and their inflected forms if
+     *          fuzzy, and the terms of registries
+     */
+    public TermMatcher(Queue<String> keys, SeparatorTable separators,
+            boolean fuzzy, List<TermRegistry> registries) {
+        assert keys != null : "Violation of: keys is not null";
+        assert separators != null : "Violation of: separators is not null";
+        assert registries != null : "Violation of: registries is not null";
+
+        this.separators = separators;
+        this.terms = new String[keys.length()];
+        int i = 0;
+        for (String key : keys) {
+            this.terms[i] = key;
+            i++;
+        }
+        this.build();
+        if (fuzzy) {
+            this.variants = new TermVariants(this.terms, separators);
+        } else {
+            this.variants = null;
+        }
+        this.registries = registries.toArray(new TermRegistry[0]);
+        this.registryStart = new int[this.registries.length + 1];
+        this.registryStart[0] = this.terms.length;
+        for (int r = 0; r < this.registries.length; r++) {
+            this.registryStart[r + 1] = this.registryStart[r]
+                    + this.registries[r].size();
+        }
+    }
+
+    /**
+     * Builds a matcher for the given terms.
+     *
+     * @param keys
+     *            the terms to match, typically the output of
+     *            {@link Glossary#sortingKeys}
+     * @param separators
+     *            the {@code Set} of separator characters
+     * @requires keys contains no duplicates
+     * @ensures this matches exactly the terms in keys
+     */
+    public TermMatcher(Queue<String> keys, Set<Character> separators) {
+        this(keys, SeparatorTable.of(separators));
+    }
+
+    /**
+     * Returns the number of terms this matcher recognizes, not counting
+     * those of other glossaries.
+     *
+     * @return the number of terms
+     */
+    public int termCount() {
+        return this.terms.length;
+    }
+
+    /**
+     * Returns the term with the given index.
+     *
+     * @param termIndex
+     *            the index of the term
+     * @return the term
+     * @requires termIndex is the index of a term of this matcher or of one of
+     *           its registries
+     */
+    public String term(int termIndex) {
+        if (termIndex < this.terms.length) {
+            return this.terms[termIndex];
+        }
+        int r = this.registryOf(termIndex);
+        return this.registries[r].term(termIndex - this.registryStart[r]);
+    }
+
+    /**
+     * Returns whether the term with the given index is one of another
+     * glossary.
+     *
+     * @param termIndex
+     *            the index of the term
+     * @return true iff the term is one of a registry
+     */
+    public boolean isExternal(int termIndex) {
+        return termIndex >= this.terms.length;
+    }
+
+    /**
+     * Returns the page of the term with the given index, without extension:
+     * the term itself, or for a term of another glossary, the URL of its
+     * page in that glossary.
+     *
+     * @param termIndex
+     *            the index of the term
+     * @return the page of the term, without ".html"
+     * @requires termIndex is the index of a term of this matcher or of one of
+     *           its registries
+     */
+    public String page(int termIndex) {
+        if (termIndex < this.terms.length) {
+            return this.terms[termIndex];
+        }
+        int r = this.registryOf(termIndex);
+        return this.registries[r].page(termIndex - this.registryStart[r]);
+    }
+
+    /**
+     * Returns the registry holding the term with the given index.
+     *
+     * @param termIndex
+     *            the index of a term of one of the registries
+     * @return the position of the registry
+     */
+    private int registryOf(int termIndex) {
+        int r = 0;
+        while (termIndex >= this.registryStart[r + 1]) {
+            r++;
+        }
+        return r;
+    }
+
+    /**
+     * Returns the index of {@code term}, or -1 if it is not one of this
+     * matcher's terms.
+     *
+     * @param term
+     *            the term to look up
+     * @return the index of the term, or -1
+     */
+    public int termIndex(CharSequence term) {
+        int node = 0;
+        for (int i = 0; i < term.length() && node >= 0; i++) {
+            node = this.child(node, term.charAt(i));
+        }
+        if (node < 0) {
+            return NO_TERM;
+        }
+        return this.termAt[node];
+    }
+
+    /**
+     * Returns the indexes of the distinct terms that occur in {@code text}, in
+     * increasing order.
+     *
+     * @param text
+     *            the text to scan
+     * @return the indexes of the terms found
+     */
+    public int[] termsIn(CharSequence text) {
+        TermCollector collector = new TermCollector();
+        this.match(text, collector);
+        return collector.distinctTerms();
+    }
+
+    /**
+     * Returns the separator characters that delimit words for this matcher.
+     *
+     * @return the separators
+     */
+    public SeparatorTable separators() {
+        return this.separators;
+    }
+
+    /**
+     * Scans {@code text} once, reporting each term occurrence and each run of
+     * ordinary text between them to {@code handler}, in order.
+     *
+     * @param text
+     *            the text to scan
+     * @param handler
+     *            the receiver of the text runs and term occurrences
+     * @ensures the ranges reported to handler are consecutive and together
+     *          cover text exactly once
+     */
+    public void match(CharSequence text, MatchHandler handler) {
+        assert text != null : "Violation of: text is not null";
+        assert handler != null : "Violation of: handler is not null";
+
+        int length = text.length();
+        int runStart = 0;
+        int position = 0;
+        while (position < length) {
+            /*
+             * Walk the trie from this word/separator boundary, remembering the
+             * longest term that also ends on a boundary.
+             */
+            int node = 0;
+            int matchEnd = -1;
+            int matchTerm = NO_TERM;
+            int p = position;
+            while (p < length && node >= 0) {
+                node = this.child(node, text.charAt(p));
+                p++;
+                if (node >= 0 && this.termAt[node] != NO_TERM
+                        && this.separators.isBoundary(text, p)) {
+                    matchEnd = p;
+                    matchTerm = this.termAt[node];
+                }
+            }
+            if (this.variants != null
+                    && !this.separators.isSeparator(text.charAt(position))) {
+                long variant = this.variants.longestMatch(text, position);
+                int variantEnd = (int) (variant >> Integer.SIZE);
+                if (variant >= 0 && variantEnd > matchEnd) {
+                    matchEnd = variantEnd;
+                    matchTerm = (int) variant;
+                }
+            }
+            if (matchTerm == NO_TERM && this.registries.length > 0
+                    && !this.separators.isSeparator(text.charAt(position))) {
+                /*
+                 * A term of another glossary, the longest of any registry,
+                 * the first registry winning a tie.
+                 */
+                for (int r = 0; r < this.registries.length; r++) {
+                    long external = this.registries[r].longestMatch(text,
+                            position, this.separators);
+                    int externalEnd = (int) (external >> Integer.SIZE);
+                    if (external >= 0 && externalEnd > matchEnd) {
+                        matchEnd = externalEnd;
+                        matchTerm = this.registryStart[r] + (int) external;
+                    }
+                }
+            }
+            if (matchTerm != NO_TERM) {
+                if (runStart < position) {
+                    handler.text(text, runStart, position);
+                }
+                handler.term(text, position, matchEnd, matchTerm);
+                position = matchEnd;
+                runStart = matchEnd;
+            } else {
+                position = this.separators.tokenEnd(text, position);
+            }
+        }
+        if (runStart < length) {
+            handler.text(text, runStart, length);
+        }
+    }
+
+    /**
+     * Returns the child of {@code node} along the edge labeled {@code c}.
+     *
+     * @param node
+     *            the parent node
+     * @param c
+     *            the edge label
+     * @return the child node, or -1 if there is none
+     */
+    private int child(int node, char c) {
+        int low = this.firstEdge[node];
+        int high = low + this.edgeCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = this.edgeLabel[mid];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return this.edgeTarget[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compiles {@code terms} into the trie arrays. Terms are visited in raw
+     * character order so that the children of every node are discovered
+     * contiguously and already sorted.
+     */
+    private void build() {
+        Integer[] order = new Integer[this.terms.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> this.terms[i]));
+
+        this.firstEdge = new int[INITIAL_CAPACITY];
+        this.edgeCount = new int[INITIAL_CAPACITY];
+        this.termAt = new int[INITIAL_CAPACITY];
+        this.edgeLabel = new char[INITIAL_CAPACITY];
+        this.edgeTarget = new int[INITIAL_CAPACITY];
+        this.nodeCount = 0;
+        this.edgeTotal = 0;
+
+        /*
+         * Each pending entry is {node, first term, last term + 1, depth}: the
+         * range of sorted terms sharing the node's prefix of length depth.
+         */
+        Deque<int[]> pending = new ArrayDeque<>();
+        pending.add(new int[] { this.newNode(), 0, order.length, 0 });
+        while (!pending.isEmpty()) {
+            int[] entry = pending.remove();
+            int node = entry[0];
+            int low = entry[1];
+            int high = entry[2];
+            int depth = entry[3];
+            /*
+             * The sorted range starts with the one term (if any) that is
+             * exactly this prefix.
+             */
+            if (low < high && this.terms[order[low]].length() == depth) {
+                this.termAt[node] = order[low];
+                low++;
+            }
+            this.firstEdge[node] = this.edgeTotal;
+            int start = low;
+            while (start < high) {
+                char label = this.terms[order[start]].charAt(depth);
+                int end = start + 1;
+                while (end < high
+                        && this.terms[order[end]].charAt(depth) == label) {
+                    end++;
+                }
+                int childNode = this.newNode();
+                this.newEdge(label, childNode);
+                this.edgeCount[node]++;
+                pending.add(new int[] { childNode, start, end, depth + 1 });
+                start = end;
+            }
+        }
+    }
+
+    /**
+     * Allocates a new trie node.
+     *
+     * @return the new node
+     */
+    private int newNode() {
+        if (this.nodeCount == this.termAt.length) {
+            int capacity = 2 * this.nodeCount;
+            this.firstEdge = Arrays.copyOf(this.firstEdge, capacity);
+            this.edgeCount = Arrays.copyOf(this.edgeCount, capacity);
+            this.termAt = Arrays.copyOf(this.termAt, capacity);
+        }
+        this.termAt[this.nodeCount] = NO_TERM;
+        this.nodeCount++;
+        return this.nodeCount - 1;
+    }
+
+    /**
+     * Appends a new edge.
+     *
+     * @param label
+     *            the edge label
+     * @param target
+     *            the node the edge leads to
+     */
+    private void newEdge(char label, int target) {
+        if (this.edgeTotal == this.edgeLabel.length) {
+            int capacity = 2 * this.edgeTotal;
+            this.edgeLabel = Arrays.copyOf(this.edgeLabel, capacity);
+            this.edgeTarget = Arrays.copyOf(this.edgeTarget, capacity);
+        }
+        this.edgeLabel[this.edgeTotal] = label;
+        this.edgeTarget[this.edgeTotal] = target;
+        this.edgeTotal++;
+    }
+
+    /**
+     * Collects the indexes of the terms reported by {@link TermMatcher#match}.
+     */
+    private static final class TermCollector implements MatchHandler {
+
+        /**
+         * The indexes of the terms found so far, in order of occurrence.
+         */
+        private int[] found = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of terms found so far.
+         */
+        private int count;
+
+        @Override
+        public void text(CharSequence text, int start, int end) {
+            // Only the terms are collected.
+        }
+
+        @Override
+        public void term(CharSequence text, int start, int end,
+                int termIndex) {
+            if (this.count == this.found.length) {
+                this.found = Arrays.copyOf(this.found, 2 * this.count);
+            }
+            this.found[this.count] = termIndex;
+            this.count++;
+        }
+
+        /**
+         * Returns the distinct indexes found, in increasing order.
+         *
+         * @return the distinct term indexes
+         */
+        int[] distinctTerms() {
+            int[] terms = Arrays.copyOf(this.found, this.count);
+            Arrays.sort(terms);
+            int distinct = 0;
+            for (int i = 0; i < terms.length; i++) {
+                if (i == 0 || terms[i] != terms[i - 1]) {
+                    terms[distinct] = terms[i];
+                    distinct++;
+                }
+            }
+            return Arrays.copyOf(terms, distinct);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test cases for the TermMatcher class. Author: Logan Oden
+ */
+public class TermMatcherTest {
+
+    /**
+     * Builds a matcher for the given terms with the glossary's separators.
+     *
+     * @param terms
+     *            the terms to match
+     * @return the matcher
+     */
+    private static TermMatcher matcherFor(String... terms) {
+        Queue<String> keys = new Queue1L<>();
+        for (String term : terms) {
+            keys.enqueue(term);
+        }
+        return new TermMatcher(keys, Glossary.termSeparators());
+    }
+
+    /**
+     * Returns {@code text} with every match reported by {@code matcher}
+     * wrapped in brackets.
+     *
+     * @param matcher
+     *            the matcher
+     * @param text
+     *            the text to scan
+     * @return the marked-up text
+     */
+    private static String markUp(TermMatcher matcher, String text) {
+        StringBuilder result = new StringBuilder();
+        matcher.match(text, new TermMatcher.MatchHandler() {
+            @Override
+            public void text(CharSequence t, int start, int end) {
+                result.append(t, start, end);
+            }
+
+            @Override
+            public void term(CharSequence t, int start, int end,
+                    int termIndex) {
+                result.append('[').append(matcher.term(termIndex)).append(']');
+            }
+        });
+        return result.toString();
+    }
+
+    /**
+     * Routine test case for the match method. Single-word terms surrounded by
+     * separators are found.
+     */
+    @Test
+    public void testMatch_Routine() {
+        TermMatcher matcher = matcherFor("Java", "JUnit");
+
+        assertEquals("A [JUnit] test for [Java].",
+                markUp(matcher, "A JUnit test for Java."));
+    }
+
+    /**
+     * Challenging test case for the match method. A term that is only part of
+     * a word is not matched.
+     */
+    @Test
+    public void testMatch_Challenging() {
+        TermMatcher matcher = matcherFor("Java", "script");
+
+        assertEquals("JavaScript, javascript, [Java].",
+                markUp(matcher, "JavaScript, javascript, Java."));
+    }
+
+    /**
+     * Challenging test case for the match method. Multi-word terms are
+     * matched, and the longest term starting at a position wins.
+     */
+    @Test
+    public void testMatch_Challenging2() {
+        TermMatcher matcher = matcherFor("tree", "binary", "binary tree");
+
+        assertEquals("A [binary tree] is a [tree]; [binary] is not.",
+                markUp(matcher, "A binary tree is a tree; binary is not."));
+    }
+
+    /**
+     * Edge test case for the match method. Empty text and an empty matcher
+     * report nothing but the text itself.
+     */
+    @Test
+    public void testMatch_Edge() {
+        assertEquals("", markUp(matcherFor("Java"), ""));
+        assertEquals("plain text.", markUp(matcherFor(), "plain text."));
+    }
+
+}
@@ -0,0 +1,209 @@
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Locale;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * The order of the terms in the index: raw {@code String} order, or the
+ * collation order of a locale. For a collation, the collation key of every
+ * term is computed once, in parallel, and the terms are then sorted by a
+ * parallel merge sort that compares the keys as plain byte arrays, so a
+ * case-insensitive or accent-aware order costs little more than the raw one.
+ *
+ * <p>
+ * Orders are immutable and may be shared between threads.
+ *
+ * @author L. Oden
+ *
+ */
+public final class TermOrder {
+
+    /**
+     * Raw {@code String.compareTo} order, which the glossary has always used.
+     */
+    public static final TermOrder RAW = new TermOrder(null);
+
+    /**
+     * The collator of this order, or null for raw order. Collators are not
+     * thread-safe, so each thread uses its own clone.
+     */
+    private final Collator collator;
+
+    /**
+     * Constructor.
+     *
+     * @param collator
+     *            the collator, or null for raw order
+     */
+    private TermOrder(Collator collator) {
+        this.collator = collator;
+    }
+
+    /**
+     * Returns the collation order of {@code locale} at {@code strength}.
+     *
+     * @param locale
+     *            the locale
+     * @param strength
+     *            one of {@link Collator#PRIMARY} (ignoring case and accents),
+     *            {@link Collator#SECONDARY} (ignoring case),
+     *            {@link Collator#TERTIARY} or {@link Collator#IDENTICAL}
+     * @return the order
+     */
+    public static TermOrder collating(Locale locale, int strength) {
+        Collator collator = Collator.getInstance(locale);
+        collator.setStrength(strength);
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        return new TermOrder(collator);
+    }
+
+    /**
+     * Returns the order named by {@code name}: "raw" for {@link #RAW}, or a
+     * language tag such as "de" or "fr-CA" ("default" for the default
+     * locale), optionally followed by ':' and a strength of primary,
+     * secondary, tertiary (the default) or identical. For example,
+     * "en:secondary" sorts English terms ignoring case.
+     *
+     * @param name
+     *            the order name
+     * @return the order
+     * @throws IllegalArgumentException
+     *             if the strength is not one of the above
+     */
+    public static TermOrder parse(String name) {
+        if (name.equals("raw")) {
+            return RAW;
+        }
+        String tag = name;
+        int strength = Collator.TERTIARY;
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            tag = name.substring(0, colon);
+            switch (name.substring(colon + 1)) {
+                case "primary":
+                    strength = Collator.PRIMARY;
+                    break;
+                case "secondary":
+                    strength = Collator.SECONDARY;
+                    break;
+                case "tertiary":
+                    strength = Collator.TERTIARY;
+                    break;
+                case "identical":
+                    strength = Collator.IDENTICAL;
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown collation strength in " + name);
+            }
+        }
+        Locale locale = Locale.getDefault();
+        if (!tag.equals("default")) {
+            locale = Locale.forLanguageTag(tag);
+        }
+        return collating(locale, strength);
+    }
+
+    /**
+     * Sorts {@code terms} into this order. Terms that collate as equal are
+     * put in raw order, so the result does not depend on the input order.
+     *
+     * @param terms
+     *            the terms to sort
+     * @updates terms
+     * @ensures terms is a permutation of #terms in this order
+     */
+    public void sort(String[] terms) {
+        if (this.collator == null) {
+            Arrays.parallelSort(terms);
+            return;
+        }
+        ThreadLocal<Collator> collators = ThreadLocal
+                .withInitial(() -> (Collator) this.collator.clone());
+        SortKey[] keys = new SortKey[terms.length];
+        Arrays.parallelSetAll(keys, i -> new SortKey(terms[i],
+                collators.get().getCollationKey(terms[i]).toByteArray()));
+        Arrays.parallelSort(keys);
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = keys[i].term;
+        }
+    }
+
+    /**
+     * Returns the keys of {@code map} in this order. The keys are read by
+     * iterating over {@code map}, which is left as it is.
+     *
+     * @param <V>
+     *            the type of the values of map
+     * @param map
+     *            the map whose keys are sorted
+     * @return the sorted keys
+     */
+    public <V> Queue<String> sortedKeys(Map<String, V> map) {
+        String[] terms = new String[map.size()];
+        int i = 0;
+        for (Map.Pair<String, V> pair : map) {
+            terms[i] = pair.key();
+            i++;
+        }
+        this.sort(terms);
+        Queue<String> keys = new Queue1L<>();
+        for (String term : terms) {
+            keys.enqueue(term);
+        }
+        return keys;
+    }
+
+    /**
+     * A term with its collation key.
+     */
+    private static final class SortKey implements Comparable<SortKey> {
+
+        /**
+         * The term.
+         */
+        private final String term;
+
+        /**
+         * The bytes of its collation key.
+         */
+        private final byte[] key;
+
+        /**
+         * Constructor.
+         *
+         * @param term
+         *            the term
+         * @param key
+         *            the bytes of its collation key
+         */
+        SortKey(String term, byte[] key) {
+            this.term = term;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            int result = Arrays.compareUnsigned(this.key, other.key);
+            if (result == 0) {
+                result = this.term.compareTo(other.term);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof SortKey
+                    && this.compareTo((SortKey) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.term.hashCode();
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+
+/**
+ * JUnit test cases for the TermOrder class. Author: Logan Oden
+ */
+public class TermOrderTest {
+
+    /**
+     * Routine test case for the sortedKeys method. Raw order is String order,
+     * and the map is left as it was.
+     */
+    @Test
+    public void testSortedKeys_Routine() {
+        Map<String, String> map = new Map1L<>();
+        map.add("beta", "2");
+        map.add("Gamma", "3");
+        map.add("alpha", "1");
+
+        Queue<String> keys = TermOrder.RAW.sortedKeys(map);
+
+        assertEquals("Gamma", keys.dequeue());
+        assertEquals("alpha", keys.dequeue());
+        assertEquals("beta", keys.dequeue());
+        assertEquals(3, map.size());
+        assertEquals("3", map.value("Gamma"));
+    }
+
+    /**
+     * Challenging test case for the sort method. A case-insensitive English
+     * collation puts accented and capitalized terms with their letters, and
+     * terms equal but for case in raw order.
+     */
+    @Test
+    public void testSort_Challenging() {
+        String[] terms = { "zebra", "eclair", "apple", "\u00c9b\u00e8ne",
+            "Apple", "banana" };
+
+        TermOrder.parse("en:secondary").sort(terms);
+
+        assertArrayEquals(new String[] { "Apple", "apple", "banana",
+            "\u00c9b\u00e8ne", "eclair", "zebra" }, terms);
+    }
+
+    /**
+     * Challenging test case for the sort method. The parallel sort of many
+     * terms agrees with a sequential sort using the collator directly.
+     */
+    @Test
+    public void testSort_Challenging2() {
+        SyntheticGlossary glossary = new SyntheticGlossary(20000, 1, 0, 9);
+        String[] terms = new String[glossary.size()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = glossary.term(i);
+            if (i % 3 == 0) {
+                terms[i] = terms[i].toLowerCase();
+            }
+        }
+        String[] expected = terms.clone();
+        Collator collator = Collator.getInstance(Locale.FRENCH);
+        collator.setStrength(Collator.PRIMARY);
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        Arrays.sort(expected, (a, b) -> {
+            int result = collator.compare(a, b);
+            if (result == 0) {
+                result = a.compareTo(b);
+            }
+            return result;
+        });
+
+        TermOrder.collating(Locale.FRENCH, Collator.PRIMARY).sort(terms);
+
+        assertArrayEquals(expected, terms);
+    }
+
+    /**
+     * Edge test case for the parse method. An unknown strength is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_Edge() {
+        TermOrder.parse("en:loud");
+    }
+
+}
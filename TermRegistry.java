@@ -0,0 +1,422 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import components.queue.Queue;
+
+/**
+ * The terms of another glossary, for linking to its pages. Every build
+ * exports the registry of its own terms as {@value #FILE_NAME}, with its
+ * pages; a later build of a related glossary loads the registry by mapping
+ * the file into memory, and then links the occurrences of its terms to the
+ * pages under the base URL it was loaded with. Nothing is decoded or copied
+ * when a registry is loaded: a term is found by binary search directly on
+ * the mapped bytes, so loading costs the same however large the glossary.
+ *
+ * <p>
+ * Layout, with all numbers big-endian:
+ *
+ * <pre>
+ * header:  MAGIC (int), FORMAT (int), term count (int), most words in a
+ *          term (int)
+ * offsets: for each term, then for the end of the last one, where it starts
+ *          in the terms (int)
+ * terms:   the UTF-8 bytes of every term, back to back, in unsigned byte
+ *          order
+ * </pre>
+ *
+ * @author L. Oden
+ *
+ */
+public final class TermRegistry {
+
+    /**
+     * Name of the file a build exports its registry as.
+     */
+    public static final String FILE_NAME = "terms.registry";
+
+    /**
+     * First four bytes of a registry: "GLTR".
+     */
+    static final int MAGIC = 0x474C5452;
+
+    /**
+     * Version of the layout.
+     */
+    static final int FORMAT = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The mapped registry.
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Number of terms.
+     */
+    private final int size;
+
+    /**
+     * The largest number of words in a term.
+     */
+    private final int maxWords;
+
+    /**
+     * Where the bytes of the terms start.
+     */
+    private final int termsStart;
+
+    /**
+     * The URL of the folder holding the pages of the terms.
+     */
+    private final String baseUrl;
+
+    /**
+     * Constructor.
+     *
+     * @param bytes
+     *            the registry
+     * @param baseUrl
+     *            the URL of the folder holding the pages of the terms
+     * @throws IllegalArgumentException
+     *             if bytes is not a registry
+     */
+    private TermRegistry(ByteBuffer bytes, String baseUrl) {
+        if (bytes.limit() < HEADER_SIZE || bytes.getInt(0) != MAGIC
+                || bytes.getInt(Integer.BYTES) != FORMAT) {
+            throw new IllegalArgumentException("Not a term registry");
+        }
+        this.bytes = bytes;
+        this.size = bytes.getInt(2 * Integer.BYTES);
+        this.maxWords = bytes.getInt(3 * Integer.BYTES);
+        this.termsStart = HEADER_SIZE + (this.size + 1) * Integer.BYTES;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Maps the registry file {@code file}, whose pages are under
+     * {@code baseUrl}.
+     *
+     * @param file
+     *            the registry file
+     * @param baseUrl
+     *            the URL of the folder holding the pages of its terms, as
+     *            linked from a page of this build
+     * @return the registry
+     * @throws UncheckedIOException
+     *             if the file cannot be mapped
+     * @throws IllegalArgumentException
+     *             if the file is not a registry
+     */
+    public static TermRegistry open(Path file, String baseUrl) {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        file + " is too large to map");
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            return new TermRegistry(bytes, baseUrl);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    file + " is not a term registry", e);
+        }
+    }
+
+    /**
+     * Returns the registry {@code spec} names: a registry file, or a folder
+     * holding {@value #FILE_NAME}, optionally followed by "=" and the URL of
+     * the pages of its terms. Without a URL, the pages are linked in the
+     * folder of the registry, as named in spec.
+     *
+     * @param spec
+     *            the path of the registry, then optionally "=" and its URL
+     * @return the registry
+     * @throws UncheckedIOException
+     *             if the file cannot be mapped
+     * @throws IllegalArgumentException
+     *             if the file is not a registry
+     */
+    public static TermRegistry parse(String spec) {
+        String location = spec;
+        String baseUrl = null;
+        int equals = spec.indexOf('=');
+        if (equals >= 0) {
+            location = spec.substring(0, equals);
+            baseUrl = spec.substring(equals + 1);
+        }
+        Path file = Paths.get(location);
+        Path folder = file;
+        if (Files.isDirectory(file)) {
+            file = file.resolve(FILE_NAME);
+        } else {
+            folder = file.getParent();
+        }
+        if (baseUrl == null) {
+            baseUrl = ".";
+            if (folder != null) {
+                baseUrl = folder.toString().replace('\\', '/');
+            }
+        }
+        return open(file, baseUrl);
+    }
+
+    /**
+     * Returns the bytes of the registry of {@code sortedKeys}.
+     *
+     * @param sortedKeys
+     *            the terms of the glossary
+     * @param separators
+     *            the separator characters that delimit the words of a term
+     * @return the registry
+     */
+    public static byte[] toBytes(Queue<String> sortedKeys,
+            SeparatorTable separators) {
+        byte[][] terms = new byte[sortedKeys.length()][];
+        int count = 0;
+        int maxWords = 1;
+        int length = 0;
+        for (String key : sortedKeys) {
+            if (key.length() > 0) {
+                terms[count] = key.getBytes(StandardCharsets.UTF_8);
+                length += terms[count].length;
+                maxWords = Math.max(maxWords,
+                        TermVariants.wordCount(key, separators));
+                count++;
+            }
+        }
+        terms = Arrays.copyOf(terms, count);
+        /*
+         * Sorted as unsigned bytes, the order the lookups compare in.
+         */
+        Arrays.sort(terms, Arrays::compareUnsigned);
+
+        ByteBuffer registry = ByteBuffer.allocate(
+                HEADER_SIZE + (count + 1) * Integer.BYTES + length);
+        registry.putInt(MAGIC).putInt(FORMAT).putInt(count).putInt(maxWords);
+        int offset = 0;
+        for (byte[] term : terms) {
+            registry.putInt(offset);
+            offset += term.length;
+        }
+        registry.putInt(offset);
+        for (byte[] term : terms) {
+            registry.put(term);
+        }
+        return registry.array();
+    }
+
+    /**
+     * Writes the registry of {@code sortedKeys} to {@code out} as
+     * {@value #FILE_NAME}.
+     *
+     * @param sortedKeys
+     *            the terms of the glossary
+     * @param separators
+     *            the separator characters that delimit the words of a term
+     * @param out
+     *            where the output files are written
+     */
+    public static void export(Queue<String> sortedKeys,
+            SeparatorTable separators, SiteWriter out) {
+        out.write(FILE_NAME, toBytes(sortedKeys, separators));
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the URL of the folder holding the pages of the terms.
+     *
+     * @return the base URL
+     */
+    public String baseUrl() {
+        return this.baseUrl;
+    }
+
+    /**
+     * Returns the term at {@code i} in registry order.
+     *
+     * @param i
+     *            the position of the term
+     * @return the term
+     * @requires 0 <= i < size()
+     */
+    public String term(int i) {
+        assert 0 <= i && i < this.size : "Violation of: 0 <= i < size()";
+
+        int start = this.start(i);
+        byte[] term = new byte[this.start(i + 1) - start];
+        ByteBuffer view = this.bytes.duplicate();
+        view.position(start);
+        view.get(term);
+        return new String(term, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the page of the term at {@code i}, without extension.
+     *
+     * @param i
+     *            the position of the term
+     * @return the URL of the page of the term, without ".html"
+     * @requires 0 <= i < size()
+     */
+    public String page(int i) {
+        return this.baseUrl + "/" + this.term(i);
+    }
+
+    /**
+     * Returns where the bytes of the term at {@code i} start.
+     *
+     * @param i
+     *            the position of the term, or size() for the end of the last
+     * @return the offset of the term in the mapping
+     */
+    private int start(int i) {
+        return this.termsStart
+                + this.bytes.getInt(HEADER_SIZE + i * Integer.BYTES);
+    }
+
+    /**
+     * Compares the term at {@code i} with {@code key}, as unsigned bytes.
+     *
+     * @param i
+     *            the position of the term
+     * @param key
+     *            the UTF-8 bytes to compare with
+     * @return negative, zero or positive as the term is before, equal to or
+     *         after key
+     */
+    private int compare(int i, byte[] key) {
+        int start = this.start(i);
+        int length = this.start(i + 1) - start;
+        int common = Math.min(length, key.length);
+        for (int k = 0; k < common; k++) {
+            int difference = (this.bytes.get(start + k) & 0xFF)
+                    - (key[k] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Finds {@code key} among the terms.
+     *
+     * @param key
+     *            the UTF-8 bytes of the text to find
+     * @return the position of key, if it is a term, or else
+     *         {@code -(insertion point) - 1}
+     */
+    private int find(byte[] key) {
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = this.compare(mid, key);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Returns the longest term that is the text starting at
+     * {@code position} and ending on a word end, packed with that end as
+     * {@code ((long) end << 32) | term}.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            the start of a word of text
+     * @param separators
+     *            the separator characters that delimit words
+     * @return the end and position of the term, packed, or -1 if none
+     * @requires 0 <= position < |text| and text[position] starts a word
+     */
+    public long longestMatch(CharSequence text, int position,
+            SeparatorTable separators) {
+        long match = -1;
+        int end = position;
+        int words = 0;
+        while (words < this.maxWords && end < text.length()) {
+            // Skip the separators before the next word, then take the word
+            if (separators.isSeparator(text.charAt(end))) {
+                end = separators.tokenEnd(text, end);
+            }
+            if (end < text.length()) {
+                end = separators.tokenEnd(text, end);
+                words++;
+                byte[] key = text.subSequence(position, end).toString()
+                        .getBytes(StandardCharsets.UTF_8);
+                int found = this.find(key);
+                if (found >= 0) {
+                    match = ((long) end << Integer.SIZE) | found;
+                } else {
+                    /*
+                     * The terms that start with the text so far follow its
+                     * insertion point; if none does, no longer text is a
+                     * term either.
+                     */
+                    int next = -found - 1;
+                    if (next == this.size || !this.startsWith(next, key)) {
+                        words = this.maxWords;
+                    }
+                }
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Returns whether the term at {@code i} starts with {@code key}.
+     *
+     * @param i
+     *            the position of the term
+     * @param key
+     *            the UTF-8 bytes of the prefix
+     * @return true iff the term starts with key
+     */
+    private boolean startsWith(int i, byte[] key) {
+        int start = this.start(i);
+        if (this.start(i + 1) - start < key.length) {
+            return false;
+        }
+        for (int k = 0; k < key.length; k++) {
+            if (this.bytes.get(start + k) != key[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
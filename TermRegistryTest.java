@@ -0,0 +1,161 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test cases for the TermRegistry class. Author: Logan Oden
+ */
+public class TermRegistryTest {
+
+    /**
+     * Writes the registry of {@code terms} to {@code file} and maps it.
+     *
+     * @param file
+     *            the registry file
+     * @param terms
+     *            the terms
+     * @return the registry, with its pages under "other"
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    private static TermRegistry registryOf(String file, String... terms)
+            throws IOException {
+        Queue<String> keys = new Queue1L<>();
+        for (String term : terms) {
+            keys.enqueue(term);
+        }
+        Path path = Paths.get(file);
+        Files.write(path, TermRegistry.toBytes(keys, SeparatorTable.DEFAULT));
+        return TermRegistry.open(path, "other");
+    }
+
+    /**
+     * Routine test case for a registry read back from its file. The terms are
+     * kept in unsigned byte order, and the longest term at a position is
+     * found, ending on a word end.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testLongestMatch_Routine() throws IOException {
+        TermRegistry registry = registryOf("data/routine.registry", "binary",
+                "binary tree", "Tree", "caf\u00e9");
+
+        assertEquals(4, registry.size());
+        assertEquals("Tree", registry.term(0));
+        assertEquals("binary", registry.term(1));
+        assertEquals("binary tree", registry.term(2));
+        assertEquals("caf\u00e9", registry.term(3));
+        assertEquals("other/Tree", registry.page(0));
+
+        String text = "a binary tree, a binary search, Trees, caf\u00e9.";
+        assertEquals(((long) 13 << 32) | 2,
+                registry.longestMatch(text, 2, SeparatorTable.DEFAULT));
+        assertEquals(((long) 23 << 32) | 1,
+                registry.longestMatch(text, 17, SeparatorTable.DEFAULT));
+        assertEquals(-1,
+                registry.longestMatch(text, 32, SeparatorTable.DEFAULT));
+        assertEquals(((long) 43 << 32) | 3,
+                registry.longestMatch(text, 39, SeparatorTable.DEFAULT));
+    }
+
+    /**
+     * Challenging test case for a build linking the terms of another
+     * glossary. Terms of the other glossary link to its pages, a term of the
+     * glossary itself wins over one of the other glossary, and every build
+     * path and output format links the same way.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuild_Challenging() throws IOException {
+        TestFiles.build("languages",
+                "Java\nA language.\n\nJUnit\nTests Java.\n\n",
+                BuildConfig.defaults());
+
+        String tools = "data/tools.txt";
+        TestFiles.write(tools, "Maven\nBuilds Java with JUnit tests.\n\n"
+                + "JUnit\nThe tool, not the Java one.\n\n");
+        BuildConfig config = BuildConfig.fromOptions(Glossary.parseOptions(
+                new String[] { "--registries=data/languages=../languages",
+                        "--format=html,markdown,json" }));
+        Glossary.build(tools, "data/tools", config);
+        Glossary.buildStreaming(tools, "data/tools-streaming", config);
+        Glossary.buildMapped(tools, "data/tools-mapped", config);
+        config.setBacklinks(true);
+        config.setGenerator(
+                new PageGenerator(PageGenerator.Mode.FORK_JOIN, 4));
+        Glossary.buildCompact(tools, "data/tools-compact", config);
+
+        String maven = TestFiles.read("data/tools", "Maven.html");
+        assertTrue(maven.contains("Builds <a href = \"../languages/Java.html\">"
+                + "Java</a> with <a href = \"JUnit.html\">JUnit</a> tests."));
+        assertEquals("# Maven\n\nBuilds [Java](../languages/Java.html) with "
+                + "[JUnit](JUnit.md) tests.\n\n[Return to index](index.md)\n",
+                TestFiles.read("data/tools", "Maven.md"));
+        assertTrue(TestFiles.read("data/tools", JsonRenderer.FILE_NAME)
+                .contains("\"links\":[\"JUnit\"],"
+                        + "\"externalLinks\":[\"../languages/Java.html\"]"));
+        for (String folder : new String[] { "data/tools-streaming",
+                "data/tools-mapped" }) {
+            assertEquals(folder, maven, TestFiles.read(folder, "Maven.html"));
+            assertEquals(folder, TestFiles.read("data/tools", "JUnit.html"),
+                    TestFiles.read(folder, "JUnit.html"));
+        }
+        assertTrue(TestFiles.read("data/tools-compact", "Maven.html")
+                .contains("../languages/Java.html"));
+        assertTrue(TestFiles.read("data/tools-compact", "JUnit.html").contains(
+                "<li><a href = \"Maven.html\">Maven</a></li>"));
+        assertFalse(Files.exists(Paths.get("data/tools-compact/Java.html")));
+    }
+
+    /**
+     * Edge test case for registries that cannot be used. An empty glossary
+     * exports an empty registry that matches nothing, a file that is not a
+     * registry is rejected, and so is an incremental build with registries.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testOpen_Edge() throws IOException {
+        TermRegistry empty = registryOf("data/empty.registry");
+        assertEquals(0, empty.size());
+        assertEquals(-1,
+                empty.longestMatch("Java", 0, SeparatorTable.DEFAULT));
+
+        TestFiles.write("data/bad.registry", "Java\nA language.\n\n");
+        try {
+            TermRegistry.open(Paths.get("data/bad.registry"), ".");
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().endsWith("is not a term registry"));
+        }
+
+        BuildConfig config = BuildConfig.defaults();
+        config.setRegistries(List.of(empty));
+        try {
+            Glossary.buildIncremental("data/bad.registry", "data/registry-inc",
+                    config);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals(
+                    "Term registries are not supported by incremental builds",
+                    e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Precomputed index of the normalized forms of the terms of a glossary, for
+ * linking the inflected forms of a term, such as "Queues" or "queue" for
+ * "Queue" and "sorting" or "sorted" for "sort". The normalized form of a text
+ * keeps its separators as they are and replaces each word with its stem:
+ * the word lower-cased, without a plural ending, an "-ing" or "-ed" ending, or
+ * a final "e" (see {@link #stem}). Every term is normalized once, into a hash
+ * index keyed on its normalized form, so finding the term at a position of a
+ * definition costs one normalization and one lookup per number of words a
+ * term may have, however many terms there are.
+ *
+ * <p>
+ * The stemming is deliberately light, for the English of technical
+ * glossaries; it does not handle irregular forms. When several terms have the
+ * same normalized form, the first in index order is the one linked.
+ *
+ * @author L. Oden
+ *
+ */
+public final class TermVariants {
+
+    /**
+     * Words of at most this length are only lower-cased.
+     */
+    private static final int MIN_STEM_LENGTH = 3;
+
+    /**
+     * The separator characters that delimit words.
+     */
+    private final SeparatorTable separators;
+
+    /**
+     * The index of the first term with each normalized form.
+     */
+    private final HashMap<String, Integer> index;
+
+    /**
+     * The largest number of words in a term.
+     */
+    private final int maxWords;
+
+    /**
+     * Builds the index of the normalized forms of {@code terms}.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param separators
+     *            the separator characters
+     */
+    public TermVariants(String[] terms, SeparatorTable separators) {
+        this.separators = separators;
+        this.index = new HashMap<>();
+        int words = 1;
+        for (int i = 0; i < terms.length; i++) {
+            String term = terms[i];
+            if (term.length() > 0) {
+                this.index.putIfAbsent(
+                        this.normalize(term, 0, term.length()), i);
+                words = Math.max(words, wordCount(term, separators));
+            }
+        }
+        this.maxWords = words;
+    }
+
+    /**
+     * Returns the number of words in {@code term}.
+     *
+     * @param term
+     *            the term
+     * @param separators
+     *            the separator characters
+     * @return the number of maximal runs of non-separators in term
+     */
+    static int wordCount(String term, SeparatorTable separators) {
+        int count = 0;
+        int p = 0;
+        while (p < term.length()) {
+            if (!separators.isSeparator(term.charAt(p))) {
+                count++;
+            }
+            p = separators.tokenEnd(term, p);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the normalized form of {@code text[start, end)}: each word
+     * replaced by its stem, and each separator kept.
+     *
+     * @param text
+     *            the text
+     * @param start
+     *            the start of the part to normalize
+     * @param end
+     *            the end of the part to normalize
+     * @return the normalized form
+     * @requires 0 <= start <= end <= |text|
+     */
+    public String normalize(CharSequence text, int start, int end) {
+        StringBuilder normalized = new StringBuilder(end - start);
+        int p = start;
+        while (p < end) {
+            int tokenEnd = Math.min(end, this.separators.tokenEnd(text, p));
+            if (this.separators.isSeparator(text.charAt(p))) {
+                normalized.append(text, p, tokenEnd);
+            } else {
+                normalized.append(stem(text.subSequence(p, tokenEnd)));
+            }
+            p = tokenEnd;
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Returns the stem of {@code word}: the word lower-cased, then, if it is
+     * longer than three letters, without a plural ending ("queries" to
+     * "query", "classes" to "class", "boxes" to "box", "queues" to "queue"),
+     * then without an "-ing" or "-ed" ending that leaves at least three
+     * letters, undoubling a final consonant ("mapped" to "map"), then
+     * without a final "e" ("queue" to "queu").
+     *
+     * @param word
+     *            the word
+     * @return its stem
+     */
+    public static String stem(CharSequence word) {
+        String s = word.toString().toLowerCase(Locale.ROOT);
+        if (s.length() <= MIN_STEM_LENGTH) {
+            return s;
+        }
+        /*
+         * Plural endings.
+         */
+        if (s.endsWith("ies") && s.length() > MIN_STEM_LENGTH + 1) {
+            s = s.substring(0, s.length() - "ies".length()) + "y";
+        } else if (s.endsWith("sses") || s.endsWith("xes")
+                || s.endsWith("ches") || s.endsWith("shes")) {
+            s = s.substring(0, s.length() - "es".length());
+        } else if (s.endsWith("s") && !s.endsWith("ss") && !s.endsWith("us")
+                && !s.endsWith("is")) {
+            s = s.substring(0, s.length() - 1);
+        }
+        /*
+         * Verb endings, then a consonant doubled before them.
+         */
+        int before = s.length();
+        if (s.endsWith("ied") && s.length() > MIN_STEM_LENGTH + 1) {
+            s = s.substring(0, s.length() - "ied".length()) + "y";
+        } else if (s.endsWith("ing")
+                && s.length() - "ing".length() >= MIN_STEM_LENGTH) {
+            s = s.substring(0, s.length() - "ing".length());
+        } else if (s.endsWith("ed")
+                && s.length() - "ed".length() >= MIN_STEM_LENGTH) {
+            s = s.substring(0, s.length() - "ed".length());
+        }
+        int last = s.length() - 1;
+        if (s.length() < before && s.charAt(last) == s.charAt(last - 1)
+                && "aeioulsz".indexOf(s.charAt(last)) < 0) {
+            s = s.substring(0, last);
+        }
+        if (s.length() > MIN_STEM_LENGTH && s.endsWith("e")) {
+            s = s.substring(0, s.length() - 1);
+        }
+        return s;
+    }
+
+    /**
+     * Returns the longest term whose normalized form is that of the text
+     * starting at {@code position} and ending on a word end, packed with that
+     * end as {@code ((long) end << 32) | term}.
+     *
+     * @param text
+     *            the text
+     * @param position
+     *            the start of a word of text
+     * @return the end and index of the term, packed, or -1 if none
+     * @requires 0 <= position < |text| and text[position] starts a word
+     */
+    public long longestMatch(CharSequence text, int position) {
+        long match = -1;
+        int end = position;
+        int words = 0;
+        while (words < this.maxWords && end < text.length()) {
+            // Skip the separators before the next word, then take the word
+            if (this.separators.isSeparator(text.charAt(end))) {
+                end = this.separators.tokenEnd(text, end);
+            }
+            if (end < text.length()) {
+                end = this.separators.tokenEnd(text, end);
+                words++;
+                Integer term = this.index
+                        .get(this.normalize(text, position, end));
+                if (term != null) {
+                    match = ((long) end << Integer.SIZE) | term;
+                }
+            }
+        }
+        return match;
+    }
+
+}
@@ -0,0 +1,136 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * JUnit test cases for the TermVariants class. Author: Logan Oden
+ */
+public class TermVariantsTest {
+
+    /**
+     * Builds a matcher for the given terms with the default separators.
+     *
+     * @param fuzzy
+     *            whether inflected forms are matched too
+     * @param terms
+     *            the terms to match
+     * @return the matcher
+     */
+    private static TermMatcher matcherFor(boolean fuzzy, String... terms) {
+        Queue<String> keys = new Queue1L<>();
+        for (String term : terms) {
+            keys.enqueue(term);
+        }
+        return new TermMatcher(keys, SeparatorTable.DEFAULT, fuzzy);
+    }
+
+    /**
+     * Returns {@code text} with every match reported by {@code matcher}
+     * wrapped in brackets, as the matched text and the term it links to.
+     *
+     * @param matcher
+     *            the matcher
+     * @param text
+     *            the text to scan
+     * @return the marked-up text
+     */
+    private static String markUp(TermMatcher matcher, String text) {
+        StringBuilder result = new StringBuilder();
+        matcher.match(text, new TermMatcher.MatchHandler() {
+            @Override
+            public void text(CharSequence t, int start, int end) {
+                result.append(t, start, end);
+            }
+
+            @Override
+            public void term(CharSequence t, int start, int end,
+                    int termIndex) {
+                result.append('[').append(t, start, end).append('>')
+                        .append(matcher.term(termIndex)).append(']');
+            }
+        });
+        return result.toString();
+    }
+
+    /**
+     * Routine test case for the stem method and for fuzzy matching. Case,
+     * plurals and verb endings are normalized away.
+     */
+    @Test
+    public void testStem_Routine() {
+        assertEquals("queu", TermVariants.stem("Queues"));
+        assertEquals("queu", TermVariants.stem("queued"));
+        assertEquals("query", TermVariants.stem("queries"));
+        assertEquals("class", TermVariants.stem("classes"));
+        assertEquals("box", TermVariants.stem("boxes"));
+        assertEquals("sort", TermVariants.stem("sorting"));
+        assertEquals("map", TermVariants.stem("mapped"));
+        assertEquals("pass", TermVariants.stem("passed"));
+        assertEquals("use", TermVariants.stem("uses"));
+
+        TermMatcher matcher = matcherFor(true, "Queue", "sort");
+        assertEquals("[Queues>Queue] are [queued>Queue], [sorting>sort] "
+                + "[sorted>sort] [Sorts>sort].",
+                markUp(matcher,
+                        "Queues are queued, sorting sorted Sorts."));
+    }
+
+    /**
+     * Challenging test case for multi-word terms. Each word of a term is
+     * normalized, the separators between them must match exactly, and an
+     * inflected multi-word term beats a shorter exact term at the same
+     * position, while an exact term beats a variant of the same length.
+     */
+    @Test
+    public void testMatch_Challenging() {
+        TermMatcher matcher = matcherFor(true, "binary", "binary tree",
+                "trees", "tree");
+        assertEquals("[Binary Trees>binary tree], [binary>binary], "
+                + "[trees>trees], [binary>binary], [tree>tree].",
+                markUp(matcher,
+                        "Binary Trees, binary, trees, binary, tree."));
+        assertEquals("[binary>binary]  [trees>trees]",
+                markUp(matcher, "binary  trees"));
+    }
+
+    /**
+     * Edge test case for the exact matcher, which is unchanged, and for an
+     * incremental build that switches to fuzzy matching, which rewrites
+     * every page since any of them may link differently.
+     *
+     * @throws IOException
+     *             if a file cannot be accessed
+     */
+    @Test
+    public void testBuildIncremental_Edge() throws IOException {
+        assertEquals("Queues, [Queue>Queue].",
+                markUp(matcherFor(false, "Queue"), "Queues, Queue."));
+        assertArrayEquals(new int[0],
+                matcherFor(true, "Queue").termsIn("Q, queu-e, que."));
+
+        String input = "data/fuzzy.txt";
+        TestFiles.write(input, "Queue\nA list.\n\nStack\nLike queues.\n\n");
+        TestFiles.clear("data/fuzzy");
+        BuildConfig config = BuildConfig.defaults();
+        assertEquals(2, Glossary.buildIncremental(input, "data/fuzzy",
+                config));
+        assertEquals(0, Glossary.buildIncremental(input, "data/fuzzy",
+                config));
+
+        config.setFuzzy(true);
+        assertEquals(2, Glossary.buildIncremental(input, "data/fuzzy",
+                config));
+        assertTrue(TestFiles.read("data/fuzzy", "Stack.html")
+                .contains("<a href = \"Queue.html\">queues</a>"));
+        assertEquals(0, Glossary.buildIncremental(input, "data/fuzzy",
+                config));
+    }
+
+}
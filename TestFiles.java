@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * The files of the tests: glossaries written and pages read back as UTF-8,
+ * and the build of a small glossary written for a single test case.
+ *
+ * @author L. Oden
+ *
+ */
+public final class TestFiles {
+
+    /**
+     * The folder the glossaries and the output folders are written to.
+     */
+    private static final String FOLDER = "data";
+
+    /**
+     * No instances.
+     */
+    private TestFiles() {
+    }
+
+    /**
+     * Writes {@code text} to {@code file}, encoded as UTF-8.
+     *
+     * @param file
+     *            the name of the file
+     * @param text
+     *            the text
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public static void write(String file, String text) throws IOException {
+        Files.write(Paths.get(file), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the text of {@code fileName} in {@code folder}, decoded as
+     * UTF-8.
+     *
+     * @param folder
+     *            the folder
+     * @param fileName
+     *            the name of the file
+     * @return the text of the file
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static String read(String folder, String fileName)
+            throws IOException {
+        return new String(Files.readAllBytes(Paths.get(folder, fileName)),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deletes {@code folder} and everything in it, if it exists, so that a
+     * build into it starts without the output of an earlier run.
+     *
+     * @param folder
+     *            the folder
+     */
+    public static void clear(String folder) {
+        SiteWriter.deleteTree(Paths.get(folder));
+    }
+
+    /**
+     * Writes the glossary {@code text} to data/{@code name}.txt, builds it
+     * into data/{@code name} with {@code config}, and returns the output
+     * folder.
+     *
+     * @param name
+     *            the name of the glossary
+     * @param text
+     *            the glossary
+     * @param config
+     *            the build configuration
+     * @return the output folder
+     * @throws IOException
+     *             if the glossary cannot be written
+     */
+    public static String build(String name, String text, BuildConfig config)
+            throws IOException {
+        String outputFolder = FOLDER + "/" + name;
+        write(outputFolder + ".txt", text);
+        Glossary.build(outputFolder + ".txt", outputFolder, config);
+        return outputFolder;
+    }
+
+}
@@ -0,0 +1,346 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.set.Set;
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+
+/**
+ * JMH benchmarks of the phases of a glossary build (parse, sort, link and
+ * write) and of the whole pipeline, over {@link SyntheticGlossary} inputs of
+ * 1k, 100k and 1M terms with varied definition lengths and link densities.
+ *
+ * <p>
+ * Build with the JMH annotation processor on the class path and run
+ * {@link #main}, optionally with a benchmark name pattern such as
+ * {@code processTerm}. It adds the GC profiler, so every result includes the
+ * allocation rate ({@code gc.alloc.rate.norm}), and writes the throughput and
+ * allocation results to {@code jmh-result.json}.
+ *
+ * @author L. Oden
+ *
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GlossaryBenchmark {
+
+    /**
+     * Number of terms the per-page benchmarks cycle through.
+     */
+    private static final int SAMPLES = 1024;
+
+    /**
+     * Number of terms in the glossary.
+     */
+    @Param({ "1000", "100000", "1000000" })
+    private int terms;
+
+    /**
+     * Average number of words in a definition.
+     */
+    @Param({ "10", "100" })
+    private int definitionWords;
+
+    /**
+     * Fraction of definition words that are terms.
+     */
+    @Param({ "0.05", "0.3" })
+    private double linkDensity;
+
+    /**
+     * The generated glossary.
+     */
+    private SyntheticGlossary glossary;
+
+    /**
+     * Terms whose pages are rendered by the per-page benchmarks.
+     */
+    private String[] sampleTerms;
+
+    /**
+     * Definitions of {@code sampleTerms}, generated ahead of time so that
+     * generating them is not measured.
+     */
+    private String[] sampleDefinitions;
+
+    /**
+     * The generated glossary, written in the input format.
+     */
+    private String inputFile;
+
+    /**
+     * Folder the pages are written to.
+     */
+    private String outputFolder;
+
+    /**
+     * Writer of the pages to {@code outputFolder}.
+     */
+    private SiteWriter output;
+
+    /**
+     * The generated glossary as a Map.
+     */
+    private Map<String, String> termsAndDefinitions;
+
+    /**
+     * The separator characters.
+     */
+    private Set<Character> separators;
+
+    /**
+     * Case-insensitive English collation order.
+     */
+    private final TermOrder collated = TermOrder.parse("en:secondary");
+
+    /**
+     * The terms in alphabetical order.
+     */
+    private Queue<String> sortedKeys;
+
+    /**
+     * The term matcher built from {@code sortedKeys}.
+     */
+    private TermMatcher matcher;
+
+    /**
+     * The term matcher built from {@code sortedKeys} that also matches
+     * inflected forms.
+     */
+    private TermMatcher fuzzyMatcher;
+
+    /**
+     * An index of {@code sortedKeys} sharded by letter, so that each term
+     * page looks up its shard.
+     */
+    private IndexLayout index;
+
+    /**
+     * Number of the next sample to use.
+     */
+    private int nextSample;
+
+    /**
+     * Generates the glossary and its input file.
+     *
+     * @throws IOException
+     *             if the temporary files cannot be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.glossary = new SyntheticGlossary(this.terms, this.definitionWords,
+                this.linkDensity, 2231);
+        Path input = Files.createTempFile("glossary", ".txt");
+        input.toFile().deleteOnExit();
+        this.inputFile = input.toString();
+        this.glossary.write(this.inputFile);
+        this.outputFolder = Files.createTempDirectory("glossary").toString();
+        this.output = new SiteWriter(Paths.get(this.outputFolder));
+        this.termsAndDefinitions = this.glossary.toMap();
+        this.separators = Glossary.termSeparators();
+        this.sortedKeys = Glossary.sortingKeys(this.termsAndDefinitions);
+        this.matcher = new TermMatcher(this.sortedKeys, this.separators);
+        this.fuzzyMatcher = new TermMatcher(this.sortedKeys,
+                SeparatorTable.of(this.separators), true);
+        this.index = IndexLayout.byLetter(this.sortedKeys);
+        int samples = Math.min(this.terms, SAMPLES);
+        this.sampleTerms = new String[samples];
+        this.sampleDefinitions = new String[samples];
+        for (int i = 0; i < samples; i++) {
+            this.sampleTerms[i] = this.glossary.term(i);
+            this.sampleDefinitions[i] = this.glossary.definition(i);
+        }
+    }
+
+    /**
+     * Splits one definition into words and separators.
+     *
+     * @param blackhole
+     *            sink for the results
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void nextWordOrSeparator(Blackhole blackhole) {
+        String definition = this.sampleDefinitions[this.nextSample()];
+        int position = 0;
+        while (position < definition.length()) {
+            String token = Glossary.nextWordOrSeparator(definition, position,
+                    this.separators);
+            blackhole.consume(token);
+            position += token.length();
+        }
+    }
+
+    /**
+     * Splits one definition into words and separators with the
+     * allocation-free tokenizer.
+     *
+     * @return the number of words and separator strings
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int tokenEnd() {
+        String definition = this.sampleDefinitions[this.nextSample()];
+        int tokens = 0;
+        int position = 0;
+        while (position < definition.length()) {
+            position = SeparatorTable.DEFAULT.tokenEnd(definition, position);
+            tokens++;
+        }
+        return tokens;
+    }
+
+    /**
+     * Finds the terms in one definition.
+     *
+     * @return the number of distinct terms found
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int matchExact() {
+        return this.matcher
+                .termsIn(this.sampleDefinitions[this.nextSample()]).length;
+    }
+
+    /**
+     * Finds the terms and their inflected forms in one definition.
+     *
+     * @return the number of distinct terms found
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int matchFuzzy() {
+        return this.fuzzyMatcher
+                .termsIn(this.sampleDefinitions[this.nextSample()]).length;
+    }
+
+    /**
+     * Reads the whole input file into a Map.
+     *
+     * @return the Map read
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<String, String> mapFromInputLines() {
+        SimpleReader input = new SimpleReader1L(this.inputFile);
+        Map<String, String> result = Glossary.mapFromInputLines(input);
+        input.close();
+        return result;
+    }
+
+    /**
+     * Sorts the terms.
+     *
+     * @return the sorted terms
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Queue<String> sortingKeys() {
+        return Glossary.sortingKeys(this.termsAndDefinitions);
+    }
+
+    /**
+     * Sorts the terms in case-insensitive English collation order.
+     *
+     * @return the sorted terms
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Queue<String> sortingKeysCollated() {
+        return Glossary.sortingKeys(this.termsAndDefinitions, this.collated);
+    }
+
+    /**
+     * Renders and writes one term page.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void processTerm() {
+        int i = this.nextSample();
+        Glossary.processTerm(this.matcher, this.index,
+                Glossary.pair(this.sampleTerms[i], this.sampleDefinitions[i]),
+                this.output);
+    }
+
+    /**
+     * Runs the whole pipeline that main runs after its prompts: parse, sort,
+     * link and write the index and every page.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void build() {
+        Glossary.build(this.inputFile, this.outputFolder,
+                BuildConfig.defaults());
+    }
+
+    /**
+     * Returns the number of the next sample to use, cycling through all
+     * samples.
+     *
+     * @return the number of a sample
+     */
+    private int nextSample() {
+        int i = this.nextSample;
+        this.nextSample = (i + 1) % this.sampleTerms.length;
+        return i;
+    }
+
+    /**
+     * Runs the benchmarks with the GC profiler, writing JSON results.
+     *
+     * @param args
+     *            the command line arguments: an optional benchmark name
+     *            pattern
+     * @throws RunnerException
+     *             if the benchmarks fail
+     */
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length > 0) {
+            options.include(args[0]);
+        } else {
+            options.include(GlossaryBenchmark.class.getSimpleName());
+        }
+        Options run = options.addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON).result("jmh-result.json")
+                .build();
+        new Runner(run).run();
+    }
+
+}